@@ -0,0 +1,281 @@
+package com.pi4.backend.api.carga;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.pi4.backend.api.ApiApplication;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Teste de carga HTTP da API com threads de plataforma e com threads virtuais.
+ *
+ * Para cada modo sobe a aplicação em H2 em memória (como os benchmarks JMH, mas atendendo HTTP
+ * de verdade) e, para cada nível de {@code conexoes}, mantém esse número de conexões
+ * simultâneas, cada uma mandando a próxima requisição assim que a anterior responde. Mede
+ * requisições por segundo, p50, p99 e erros depois do aquecimento. O modo virtual exige Java 21
+ * (o perfil {@code carga} compila e roda com ele).
+ *
+ * {@code url=http://host:8080} mede um servidor já rodando (ex.: sobre MySQL, onde o tempo
+ * preso no JDBC é real), com o modo escolhido nele por {@code API_THREADS_VIRTUAIS}; nesse caso
+ * {@code clientes} e {@code produtos} devem corresponder a ids existentes.
+ *
+ * Opções ({@code chave=valor}): {@code modos=plataforma,virtual conexoes=1000,2000,5000,10000
+ * duracao=20 aquecimento=5 produtos=1000 clientes=200 cache=true saida=arquivo.csv}. Milhares de
+ * conexões no mesmo processo pedem {@code ulimit -n} acima do dobro do maior nível.
+ */
+public final class TesteCarga {
+
+    private static final String[] TERMOS = {"notebook", "mouse", "teclado", "monitor", "cadeira", "headset"};
+
+    private TesteCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Sem isso o devtools reinicia a aplicação chamando este main de novo, sem as opções
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> opcoes = lerOpcoes(args);
+        List<Integer> niveis = new ArrayList<>();
+        for (String nivel : opcoes.getOrDefault("conexoes", "1000,2000,5000,10000").split(",")) {
+            niveis.add(Integer.parseInt(nivel.trim()));
+        }
+        Duration duracao = Duration.ofSeconds(Long.parseLong(opcoes.getOrDefault("duracao", "20")));
+        Duration aquecimento = Duration.ofSeconds(Long.parseLong(opcoes.getOrDefault("aquecimento", "5")));
+        int produtos = Integer.parseInt(opcoes.getOrDefault("produtos", "1000"));
+        int clientes = Integer.parseInt(opcoes.getOrDefault("clientes", "200"));
+        boolean cache = Boolean.parseBoolean(opcoes.getOrDefault("cache", "true"));
+        Path saida = Paths.get(opcoes.getOrDefault("saida", "target/carga-resultado.csv"));
+
+        List<Resultado> resultados = new ArrayList<>();
+        if (opcoes.containsKey("url")) {
+            Alvo alvo = new Alvo(opcoes.get("url"), 1, produtos, 1, clientes);
+            for (int conexoes : niveis) {
+                resultados.add(medir("externo", alvo, conexoes, aquecimento, duracao));
+            }
+        } else {
+            for (String modo : opcoes.getOrDefault("modos", "plataforma,virtual").split(",")) {
+                boolean virtual = modo.trim().equals("virtual");
+                int maxConexoes = niveis.stream().mapToInt(Integer::intValue).max().orElse(1000);
+                try (ConfigurableApplicationContext contexto = iniciar(virtual, cache, maxConexoes)) {
+                    Alvo alvo = popular(contexto, produtos, clientes);
+                    for (int conexoes : niveis) {
+                        resultados.add(medir(modo.trim(), alvo, conexoes, aquecimento, duracao));
+                    }
+                }
+            }
+        }
+        gravar(resultados, saida);
+    }
+
+    private static ConfigurableApplicationContext iniciar(boolean virtual, boolean cache, int maxConexoes) {
+        return new SpringApplicationBuilder(ApiApplication.class).run(
+            "--server.port=0",
+            "--spring.threads.virtual.enabled=" + virtual,
+            "--server.tomcat.threads.max=200",
+            "--server.tomcat.max-connections=" + (maxConexoes + 1000),
+            "--server.tomcat.accept-count=1000",
+            "--spring.datasource.url=jdbc:h2:mem:carga;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;NON_KEYWORDS=USER;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.hikari.maximum-pool-size=20",
+            "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.generate_statistics=false",
+            "--spring.sql.init.mode=never",
+            "--logging.level.root=WARN",
+            "--catalogo.cache.ttl-segundos=" + (cache ? 60 : 0));
+    }
+
+    private static Alvo popular(ConfigurableApplicationContext contexto, int produtos, int clientes) {
+        List<Produto> novosProdutos = new ArrayList<>(produtos);
+        for (int i = 0; i < produtos; i++) {
+            Produto p = new Produto();
+            p.setNome(TERMOS[i % TERMOS.length] + " carga " + i);
+            p.setDescricao("Produto gerado para o teste de carga " + i);
+            p.setPreco(BigDecimal.valueOf(10 + i % 990));
+            p.setQuantidadeEstoque(1_000_000);
+            p.setStatus(true);
+            novosProdutos.add(p);
+        }
+        List<Produto> salvos = contexto.getBean(ProdutoRepository.class).saveAll(novosProdutos);
+
+        List<Cliente> novosClientes = new ArrayList<>(clientes);
+        for (int i = 0; i < clientes; i++) {
+            Cliente c = new Cliente();
+            c.setNome("Cliente Carga " + i);
+            c.setCpf(String.format("%011d", i));
+            c.setEmail("cliente" + i + "@carga.com");
+            c.setSenha("sem-login");
+            c.setDataNascimento(LocalDate.of(1990, 1, 1));
+            c.setGenero(Cliente.Genero.OUTRO);
+            c.setStatus(true);
+            novosClientes.add(c);
+        }
+        List<Cliente> clientesSalvos = contexto.getBean(ClienteRepository.class).saveAll(novosClientes);
+
+        String porta = contexto.getEnvironment().getProperty("local.server.port");
+        return new Alvo("http://localhost:" + porta,
+            salvos.get(0).getId(), salvos.get(salvos.size() - 1).getId(),
+            clientesSalvos.get(0).getId(), clientesSalvos.get(clientesSalvos.size() - 1).getId());
+    }
+
+    private static Resultado medir(String modo, Alvo alvo, int conexoes, Duration aquecimento, Duration duracao)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(executor)
+            .build();
+        long inicioMedicao = System.nanoTime() + aquecimento.toNanos();
+        long fim = inicioMedicao + duracao.toNanos();
+        Histograma latencias = new Histograma();
+        LongAdder erros = new LongAdder();
+        CountDownLatch encerradas = new CountDownLatch(conexoes);
+
+        for (int i = 0; i < conexoes; i++) {
+            enviar(cliente, alvo, inicioMedicao, fim, latencias, erros, encerradas);
+        }
+        boolean concluiu = encerradas.await(duracao.plus(aquecimento).toSeconds() + 120, TimeUnit.SECONDS);
+        executor.shutdownNow();
+
+        Resultado resultado = new Resultado(modo, conexoes, latencias.total() / (double) duracao.toSeconds(),
+            latencias.percentil(0.50), latencias.percentil(0.99), latencias.percentil(1.0), erros.sum(), concluiu);
+        System.out.println(resultado.linha());
+        return resultado;
+    }
+
+    // Laço fechado por conexão: a próxima requisição sai quando a anterior termina
+    private static void enviar(HttpClient cliente, Alvo alvo, long inicioMedicao, long fim,
+                               Histograma latencias, LongAdder erros, CountDownLatch encerradas) {
+        long inicio = System.nanoTime();
+        if (inicio >= fim) {
+            encerradas.countDown();
+            return;
+        }
+        cliente.sendAsync(alvo.requisicaoAleatoria(), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((resposta, erro) -> {
+                long agora = System.nanoTime();
+                if (inicio >= inicioMedicao && agora < fim) {
+                    if (erro != null || resposta.statusCode() >= 500) {
+                        erros.increment();
+                    } else {
+                        latencias.registrar(agora - inicio);
+                    }
+                }
+                enviar(cliente, alvo, inicioMedicao, fim, latencias, erros, encerradas);
+            });
+    }
+
+    private static void gravar(List<Resultado> resultados, Path saida) throws IOException {
+        if (saida.getParent() != null) {
+            Files.createDirectories(saida.getParent());
+        }
+        try (PrintWriter escritor = new PrintWriter(Files.newBufferedWriter(saida))) {
+            escritor.println("modo,conexoes,req_por_s,p50_ms,p99_ms,max_ms,erros,concluiu");
+            for (Resultado r : resultados) {
+                escritor.println(String.format(Locale.ROOT, "%s,%d,%.1f,%.2f,%.2f,%.2f,%d,%b", r.modo(), r.conexoes(),
+                    r.porSegundo(), r.p50Ms(), r.p99Ms(), r.maxMs(), r.erros(), r.concluiu()));
+            }
+        }
+        System.out.println("Resultado gravado em " + saida.toAbsolutePath());
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Opção inválida (esperado chave=valor): " + arg);
+            }
+            opcoes.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        return opcoes;
+    }
+
+    /** Servidor medido e faixas de ids usadas para sortear as requisições. */
+    private record Alvo(String url, int primeiroProduto, int ultimoProduto, int primeiroCliente, int ultimoCliente) {
+
+        // Mistura de leitura: busca e produto (cache do catálogo), pedidos e carrinho do cliente (banco)
+        HttpRequest requisicaoAleatoria() {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            String caminho = switch (aleatorio.nextInt(4)) {
+                case 0 -> "/api/produtos?q=" + TERMOS[aleatorio.nextInt(TERMOS.length)];
+                case 1 -> "/api/produtos/" + aleatorio.nextInt(primeiroProduto, ultimoProduto + 1);
+                case 2 -> "/api/pedidos/cliente/" + aleatorio.nextInt(primeiroCliente, ultimoCliente + 1);
+                default -> "/api/carrinho/" + aleatorio.nextInt(primeiroCliente, ultimoCliente + 1) + "/count";
+            };
+            return HttpRequest.newBuilder(URI.create(url + caminho)).timeout(Duration.ofSeconds(60)).GET().build();
+        }
+    }
+
+    private record Resultado(String modo, int conexoes, double porSegundo, double p50Ms, double p99Ms,
+                             double maxMs, long erros, boolean concluiu) {
+
+        String linha() {
+            return String.format(Locale.ROOT, "%-10s %6d conexões  %9.1f req/s  p50 %8.2f ms  p99 %8.2f ms  máx %8.2f ms  erros %d%s",
+                modo, conexoes, porSegundo, p50Ms, p99Ms, maxMs, erros, concluiu ? "" : "  (conexões presas ao fim)");
+        }
+    }
+
+    /** Histograma de latências em faixas de 1% a partir de 1 µs (até ~10 min). */
+    private static final class Histograma {
+
+        private static final double PASSO = Math.log(1.01);
+        private static final int FAIXAS = 2700;
+
+        private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+        private final LongAdder total = new LongAdder();
+
+        void registrar(long nanos) {
+            long micros = Math.max(1, nanos / 1000);
+            contagens.incrementAndGet((int) Math.min(FAIXAS - 1, (long) (Math.log(micros) / PASSO)));
+            total.increment();
+        }
+
+        long total() {
+            return total.sum();
+        }
+
+        double percentil(double p) {
+            long alvo = (long) Math.ceil(p * total.sum());
+            long acumulado = 0;
+            for (int i = 0; i < FAIXAS; i++) {
+                acumulado += contagens.get(i);
+                if (acumulado >= alvo && acumulado > 0) {
+                    return Math.exp((i + 1) * PASSO) / 1000.0;
+                }
+            }
+            return 0;
+        }
+    }
+}
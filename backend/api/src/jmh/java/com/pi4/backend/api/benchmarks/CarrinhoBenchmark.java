@@ -0,0 +1,48 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.controllers.CarrinhoController;
+import com.pi4.backend.api.controllers.CarrinhoController.AdicionarItemRequest;
+
+/** Adicionar item ao carrinho, com clientes e produtos sorteados (item novo ou soma de quantidade). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarrinhoBenchmark {
+
+    private CarrinhoController carrinhoController;
+
+    @Setup
+    public void iniciar(ContextoBenchmark contexto) {
+        carrinhoController = contexto.bean(CarrinhoController.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> adicionarItem(ContextoBenchmark contexto) {
+        AdicionarItemRequest request = new AdicionarItemRequest();
+        request.setClienteId(contexto.clienteAleatorio());
+        request.setProdutoId(contexto.produtoAleatorio());
+        request.setQuantidade(1);
+        ResponseEntity<?> response = carrinhoController.adicionarItem(request);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Item não adicionado: " + response.getBody());
+        }
+        return response;
+    }
+}
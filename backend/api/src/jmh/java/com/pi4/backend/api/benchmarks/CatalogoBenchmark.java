@@ -0,0 +1,59 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.controllers.ProdutoController;
+import com.pi4.backend.api.entities.Produto;
+
+/**
+ * Listagem de produtos da loja (ativos, 10 por página, páginas 0 a 4), sem filtro e com busca
+ * por um dos termos usados nos nomes. Roda dentro de uma transação somente leitura, como o
+ * open-in-view de uma requisição web.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogoBenchmark {
+
+    private ProdutoController produtoController;
+    private TransactionTemplate leitura;
+
+    @Setup
+    public void iniciar(ContextoBenchmark contexto) {
+        produtoController = contexto.bean(ProdutoController.class);
+        leitura = new TransactionTemplate(contexto.bean(PlatformTransactionManager.class));
+        leitura.setReadOnly(true);
+    }
+
+    @Benchmark
+    public ResponseEntity<Page<Produto>> listar() {
+        int pagina = ThreadLocalRandom.current().nextInt(5);
+        return leitura.execute(s -> produtoController.listar(null, pagina, 10, true, null));
+    }
+
+    @Benchmark
+    public ResponseEntity<Page<Produto>> listarComBusca() {
+        int pagina = ThreadLocalRandom.current().nextInt(5);
+        String termo = ContextoBenchmark.termoAleatorio();
+        return leitura.execute(s -> produtoController.listar(termo, pagina, 10, true, null));
+    }
+}
@@ -0,0 +1,180 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.pi4.backend.api.ApiApplication;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Aplicação completa sobre H2 em memória, populada com o volume pedido nos parâmetros
+ * (ex.: {@code -p produtos=20000 -p clientes=1000 -p pedidos=5000}). Uma instância por
+ * benchmark; os benchmarks chamam controllers e services direto, sem HTTP.
+ *
+ * {@code cache=false} desliga o cache do catálogo (TTL zero) e o snapshot do dashboard,
+ * para medir o caminho que vai ao banco.
+ */
+@State(Scope.Benchmark)
+public class ContextoBenchmark {
+
+    static final String SENHA = "Senha@123";
+
+    // Palavras usadas nos nomes dos produtos e nas buscas
+    static final String[] TERMOS = {"notebook", "mouse", "teclado", "monitor", "cadeira", "headset", "webcam", "ssd"};
+
+    @Param({"1000"})
+    public int produtos;
+
+    @Param({"200"})
+    public int clientes;
+
+    @Param({"1000"})
+    public int pedidos;
+
+    @Param({"true"})
+    public boolean cache;
+
+    private ConfigurableApplicationContext contexto;
+    private final List<Integer> produtoIds = new ArrayList<>();
+    private final Map<Integer, BigDecimal> precos = new HashMap<>();
+    private final List<Integer> clienteIds = new ArrayList<>();
+    private final List<String> clienteEmails = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(ApiApplication.class)
+            .run(
+                // Contexto web completo (a configuração de segurança depende dele), em porta livre
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;NON_KEYWORDS=USER;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--spring.sql.init.mode=never",
+                "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN",
+                "--catalogo.cache.ttl-segundos=" + (cache ? 60 : 0),
+                "--dashboard.estatisticas.snapshot=" + cache);
+        popular();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    Integer produtoAleatorio() {
+        return produtoIds.get(ThreadLocalRandom.current().nextInt(produtoIds.size()));
+    }
+
+    BigDecimal preco(Integer produtoId) {
+        return precos.get(produtoId);
+    }
+
+    Integer clienteAleatorio() {
+        return clienteIds.get(ThreadLocalRandom.current().nextInt(clienteIds.size()));
+    }
+
+    String emailAleatorio() {
+        return clienteEmails.get(ThreadLocalRandom.current().nextInt(clienteEmails.size()));
+    }
+
+    static String termoAleatorio() {
+        return TERMOS[ThreadLocalRandom.current().nextInt(TERMOS.length)];
+    }
+
+    private void popular() {
+        ProdutoRepository produtoRepository = bean(ProdutoRepository.class);
+        ClienteRepository clienteRepository = bean(ClienteRepository.class);
+        PedidoRepository pedidoRepository = bean(PedidoRepository.class);
+        // Um hash só: gerar um BCrypt por cliente tornaria o setup lento sem mudar o que é medido
+        String hash = bean(PasswordEncoder.class).encode(SENHA);
+
+        List<Produto> novosProdutos = new ArrayList<>(produtos);
+        for (int i = 0; i < produtos; i++) {
+            Produto p = new Produto();
+            p.setNome(TERMOS[i % TERMOS.length] + " modelo " + i);
+            p.setDescricao("Produto gerado para benchmark " + i + " " + TERMOS[(i / TERMOS.length) % TERMOS.length]);
+            p.setPreco(BigDecimal.valueOf(10 + (i % 990)));
+            // Estoque alto: pedidos e carrinho do benchmark não podem esgotar
+            p.setQuantidadeEstoque(i % 20 == 0 ? 5 : 1_000_000_000);
+            p.setStatus(i % 10 != 0);
+            novosProdutos.add(p);
+        }
+        for (Produto p : produtoRepository.saveAll(novosProdutos)) {
+            if (Boolean.TRUE.equals(p.getStatus()) && p.getQuantidadeEstoque() > 5) {
+                produtoIds.add(p.getId());
+                precos.put(p.getId(), p.getPreco());
+            }
+        }
+
+        List<Cliente> novosClientes = new ArrayList<>(clientes);
+        for (int i = 0; i < clientes; i++) {
+            Cliente c = new Cliente();
+            c.setNome("Cliente Benchmark " + i);
+            c.setCpf(String.format("%011d", i));
+            c.setEmail("cliente" + i + "@benchmark.com");
+            c.setSenha(hash);
+            c.setDataNascimento(LocalDate.of(1990, 1, 1));
+            c.setGenero(Cliente.Genero.OUTRO);
+            c.setStatus(true);
+            novosClientes.add(c);
+        }
+        for (Cliente c : clienteRepository.saveAll(novosClientes)) {
+            clienteIds.add(c.getId());
+            clienteEmails.add(c.getEmail());
+        }
+
+        List<Pedido> novosPedidos = new ArrayList<>(pedidos);
+        List<Cliente> salvos = clienteRepository.findAllById(clienteIds);
+        List<Produto> ativos = produtoRepository.findAllById(produtoIds.subList(0, Math.min(100, produtoIds.size())));
+        for (int i = 0; i < pedidos; i++) {
+            Pedido pedido = new Pedido(salvos.get(i % salvos.size()), String.format("BENCH%019d", i));
+            pedido.setDataPedido(LocalDateTime.now().minusMinutes(i));
+            pedido.setValorFrete(BigDecimal.ZERO);
+            pedido.setEnderecoEntregaCep("01001-000");
+            pedido.setEnderecoEntregaLogradouro("Rua Benchmark");
+            pedido.setEnderecoEntregaNumero("1");
+            pedido.setEnderecoEntregaBairro("Centro");
+            pedido.setEnderecoEntregaCidade("São Paulo");
+            pedido.setEnderecoEntregaUf("SP");
+            Produto produto = ativos.get(i % ativos.size());
+            ItemPedido item = new ItemPedido(pedido, produto, 1 + i % 3, produto.getPreco());
+            pedido.getItens().add(item);
+            pedido.setSubtotal(item.getSubtotal());
+            pedido.setValorTotal(item.getSubtotal());
+            novosPedidos.add(pedido);
+        }
+        pedidoRepository.saveAll(novosPedidos);
+    }
+}
@@ -0,0 +1,40 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.controllers.DashboardController;
+
+/** Estatísticas do dashboard (snapshot em memória ou consulta agregada, conforme {@code cache}). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardBenchmark {
+
+    private DashboardController dashboardController;
+
+    @Setup
+    public void iniciar(ContextoBenchmark contexto) {
+        dashboardController = contexto.bean(DashboardController.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return dashboardController.getEstatisticas();
+    }
+}
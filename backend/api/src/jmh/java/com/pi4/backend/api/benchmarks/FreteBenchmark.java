@@ -0,0 +1,88 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import com.pi4.backend.api.services.FreteService;
+
+/**
+ * Consulta de frete por CEP (buscas por segundo); não depende do banco, então não sobe a
+ * aplicação. {@code faixas=0} usa a tabela do projeto; acima disso gera uma tabela com
+ * esse número de faixas para ver o custo da busca binária.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FreteBenchmark {
+
+    @Param({"0", "10000"})
+    public int faixas;
+
+    private FreteService freteService;
+    private Path arquivo;
+    private String[] ceps;
+
+    @Setup
+    public void iniciar() throws IOException {
+        String local = "classpath:frete/tabela-frete.csv";
+        if (faixas > 0) {
+            arquivo = Files.createTempFile("tabela-frete", ".csv");
+            Files.write(arquivo, tabelaGerada(faixas), StandardCharsets.UTF_8);
+            local = "file:" + arquivo;
+        }
+        freteService = new FreteService(new DefaultResourceLoader(), local);
+
+        // CEPs já normalizados, como chegam do controller
+        ceps = new String[1024];
+        for (int i = 0; i < ceps.length; i++) {
+            ceps[i] = String.format("%08d", ThreadLocalRandom.current().nextInt(1_000_000, 99_999_999));
+        }
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        if (arquivo != null) Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public Map<String, Double> calcularFretePorCep() {
+        return freteService.calcularFretePorCep(ceps[ThreadLocalRandom.current().nextInt(ceps.length)]);
+    }
+
+    private static List<String> tabelaGerada(int faixas) {
+        List<String> linhas = new ArrayList<>(faixas + 1);
+        int largura = 100_000_000 / faixas;
+        for (int i = 0; i < faixas; i++) {
+            // Faixas com intervalo entre elas, para também medir CEP fora de faixa
+            int inicio = i * largura;
+            int fim = inicio + largura / 2;
+            linhas.add(String.format("%08d;%08d;Normal=%d.90;Expressa=%d.90", inicio, fim, 10 + i % 30, 30 + i % 30));
+        }
+        linhas.add("*;Normal=24.90;Expressa=39.90");
+        return linhas;
+    }
+}
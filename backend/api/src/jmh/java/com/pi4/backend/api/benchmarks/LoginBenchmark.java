@@ -0,0 +1,39 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pi4.backend.api.dto.SessionDto;
+import com.pi4.backend.api.services.LoginService;
+
+/** Login de cliente: busca por e-mail nas tabelas de usuário e cliente e verificação BCrypt. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private LoginService loginService;
+
+    @Setup
+    public void iniciar(ContextoBenchmark contexto) {
+        loginService = contexto.bean(LoginService.class);
+    }
+
+    @Benchmark
+    public SessionDto autenticarCliente(ContextoBenchmark contexto) {
+        return loginService.autenticarUsuario(contexto.emailAleatorio(), ContextoBenchmark.SENHA);
+    }
+}
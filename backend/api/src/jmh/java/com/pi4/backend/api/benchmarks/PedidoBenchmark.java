@@ -0,0 +1,77 @@
+package com.pi4.backend.api.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.controllers.PedidoController;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+
+/** Criação de pedido completa: reserva de estoque, número, gravação e limpeza do carrinho. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoBenchmark {
+
+    private PedidoController pedidoController;
+
+    @Setup
+    public void iniciar(ContextoBenchmark contexto) {
+        pedidoController = contexto.bean(PedidoController.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> criarPedido(ContextoBenchmark contexto) {
+        ResponseEntity<?> response = pedidoController.criarPedido(novoPedido(contexto), null);
+        if (response.getStatusCode().value() != 201) {
+            throw new IllegalStateException("Pedido não criado: " + response.getBody());
+        }
+        return response;
+    }
+
+    private static CriarPedidoRequest novoPedido(ContextoBenchmark contexto) {
+        int quantidadeItens = 1 + ThreadLocalRandom.current().nextInt(3);
+        List<ItemPedidoDto> itens = new ArrayList<>(quantidadeItens);
+        List<Integer> usados = new ArrayList<>(quantidadeItens);
+        while (itens.size() < quantidadeItens) {
+            Integer produtoId = contexto.produtoAleatorio();
+            if (usados.contains(produtoId)) continue;
+            usados.add(produtoId);
+            ItemPedidoDto item = new ItemPedidoDto();
+            item.setProdutoId(produtoId);
+            item.setQuantidade(1);
+            item.setPrecoUnitario(contexto.preco(produtoId));
+            itens.add(item);
+        }
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(contexto.clienteAleatorio());
+        request.setItens(itens);
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Benchmark");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.90"));
+        return request;
+    }
+}
@@ -0,0 +1,47 @@
+package com.pi4.backend.api.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Deixa passar só a fração {@code taxa} dos eventos DEBUG/TRACE dos loggers em {@code prefixo}
+ * (ex.: {@code org.hibernate.SQL}, que gera um evento por comando). O sorteio é por evento, com
+ * {@link ThreadLocalRandom}, sem estado compartilhado entre threads; INFO e acima nunca são cortados.
+ */
+public class AmostragemLogTurboFilter extends TurboFilter {
+
+    private final List<String> prefixos = new ArrayList<>();
+    private double taxa = 1.0;
+
+    public void addPrefixo(String prefixo) {
+        prefixos.add(prefixo);
+    }
+
+    public void setTaxa(double taxa) {
+        this.taxa = Math.max(0, Math.min(1, taxa));
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format nulo é um isDebugEnabled(): sortear aqui e de novo no log amostraria duas vezes
+        if (format == null || level.toInt() > Level.DEBUG_INT || taxa >= 1.0 || !amostrado(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < taxa ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean amostrado(String nome) {
+        for (int i = 0; i < prefixos.size(); i++) {
+            if (nome.startsWith(prefixos.get(i))) return true;
+        }
+        return false;
+    }
+}
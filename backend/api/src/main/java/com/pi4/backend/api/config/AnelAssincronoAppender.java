@@ -0,0 +1,226 @@
+package com.pi4.backend.api.config;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Appender do Logback que só enfileira: a thread que loga grava o evento num anel de tamanho fixo
+ * (fila MPSC sem travas, com um número de sequência por posição) e uma thread própria entrega aos
+ * appenders anexados (o console JSON).
+ *
+ * Diferente do {@code AsyncAppender} do Logback, que usa uma {@code ArrayBlockingQueue} com um lock
+ * só, aqui as threads de requisição disputam apenas um CAS no índice de escrita. DEBUG e INFO nunca
+ * esperam: sem espaço fora da reserva ({@code reservaAvisos} posições) o evento é descartado e a
+ * contagem de descartes sai no log assim que houver espaço. WARN e ERROR usam também a reserva e,
+ * com o anel todo cheio, esperam até {@code esperaAvisosMs} por uma posição antes de descartar.
+ */
+public class AnelAssincronoAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PRAZO_ESVAZIAR_MS = 1000;
+
+    private final AppenderAttachableImpl<ILoggingEvent> anexados = new AppenderAttachableImpl<>();
+    private final LongAdder descartados = new LongAdder();
+    private int capacidade = 8192;
+    private int reservaAvisos = 512;
+    private long esperaAvisosMs = 100;
+
+    private AtomicReferenceArray<ILoggingEvent> eventos;
+    private AtomicLongArray sequencias;
+    private int mascara;
+    private int limiteSemReserva;
+    private final AtomicLong escrita = new AtomicLong();
+    // Só a thread consumidora avança; os produtores leem para medir a ocupação
+    private volatile long leitura;
+    private long descartesAvisados;
+
+    private volatile boolean ativo;
+    private Thread consumidor;
+
+    /** Arredondada para a potência de dois seguinte. */
+    public void setCapacidade(int capacidade) {
+        this.capacidade = capacidade;
+    }
+
+    /** Posições só para WARN e ERROR; limitada à metade do anel. */
+    public void setReservaAvisos(int reservaAvisos) {
+        this.reservaAvisos = reservaAvisos;
+    }
+
+    /** Quanto um WARN ou ERROR espera por espaço com o anel cheio antes de ser descartado. */
+    public void setEsperaAvisosMs(long esperaAvisosMs) {
+        this.esperaAvisosMs = esperaAvisosMs;
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) return;
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade) * 2 - 1);
+        eventos = new AtomicReferenceArray<>(tamanho);
+        sequencias = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            sequencias.set(i, i);
+        }
+        mascara = tamanho - 1;
+        limiteSemReserva = tamanho - Math.max(0, Math.min(reservaAvisos, tamanho / 2));
+        ativo = true;
+        consumidor = new Thread(this::consumir, "log-" + getName());
+        consumidor.setDaemon(true);
+        consumidor.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) return;
+        super.stop();
+        ativo = false;
+        LockSupport.unpark(consumidor);
+        try {
+            consumidor.join(PRAZO_ESVAZIAR_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        anexados.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent evento) {
+        // Mensagem formatada, MDC e nome da thread são capturados aqui, antes de trocar de thread
+        evento.prepareForDeferredProcessing();
+        if (!oferecer(evento)) {
+            descartados.increment();
+        }
+    }
+
+    private boolean oferecer(ILoggingEvent evento) {
+        boolean aviso = evento.getLevel().isGreaterOrEqual(Level.WARN);
+        long limite = aviso ? mascara + 1 : limiteSemReserva;
+        long prazo = 0;
+        long espera = 1000;
+        while (true) {
+            long posicao = escrita.get();
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            // Cheio: a posição ainda guarda um evento de uma volta anterior, ou o resto é reserva
+            if (diferenca < 0 || posicao - leitura >= limite) {
+                if (!aviso || !ativo || Thread.currentThread() == consumidor) return false;
+                long agora = System.nanoTime();
+                if (prazo == 0) {
+                    prazo = agora + TimeUnit.MILLISECONDS.toNanos(esperaAvisosMs);
+                } else if (agora - prazo >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, espera);
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_NANOS);
+            } else if (diferenca == 0 && escrita.compareAndSet(posicao, posicao + 1)) {
+                eventos.lazySet(indice, evento);
+                sequencias.set(indice, posicao + 1);
+                return true;
+            }
+        }
+    }
+
+    private ILoggingEvent retirar() {
+        long atual = leitura;
+        int indice = (int) (atual & mascara);
+        if (sequencias.get(indice) != atual + 1) return null;
+        ILoggingEvent evento = eventos.get(indice);
+        eventos.lazySet(indice, null);
+        sequencias.set(indice, atual + mascara + 1);
+        leitura = atual + 1;
+        return evento;
+    }
+
+    private void consumir() {
+        long espera = 1000;
+        while (true) {
+            ILoggingEvent evento = retirar();
+            if (evento != null) {
+                entregar(evento);
+                espera = 1000;
+                continue;
+            }
+            avisarDescartes();
+            if (!ativo) return;
+            // Sem sinal dos produtores (que não podem travar): a espera cresce até 1 ms enquanto não há eventos
+            LockSupport.parkNanos(this, espera);
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_NANOS);
+        }
+    }
+
+    private void entregar(ILoggingEvent evento) {
+        try {
+            anexados.appendLoopOnAppenders(evento);
+        } catch (RuntimeException e) {
+            addError("Falha ao gravar evento de log", e);
+        }
+    }
+
+    private void avisarDescartes() {
+        long total = descartados.sum();
+        if (total == descartesAvisados || !(getContext() instanceof LoggerContext loggerContext)) return;
+        long novos = total - descartesAvisados;
+        descartesAvisados = total;
+        LoggingEvent aviso = new LoggingEvent(AnelAssincronoAppender.class.getName(),
+            loggerContext.getLogger(AnelAssincronoAppender.class), Level.WARN,
+            "{} eventos de log descartados com a fila cheia (capacidade {})", null,
+            new Object[] { novos, mascara + 1 });
+        aviso.prepareForDeferredProcessing();
+        entregar(aviso);
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        anexados.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return anexados.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String nome) {
+        return anexados.getAppender(nome);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return anexados.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        anexados.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return anexados.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String nome) {
+        return anexados.detachAppender(nome);
+    }
+}
@@ -0,0 +1,43 @@
+package com.pi4.backend.api.config;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Identificador de correlação por requisição: reaproveita o {@code X-Request-Id} recebido (do
+ * balanceador ou do front) ou gera um, devolve no cabeçalho da resposta e o deixa no MDC, de onde
+ * sai como campo {@code requestId} em todo log JSON da requisição.
+ */
+public class FiltroCorrelacao extends OncePerRequestFilter {
+
+    public static final String CABECALHO = "X-Request-Id";
+    public static final String CHAVE_MDC = "requestId";
+
+    // Valores de fora vão para o log: só o formato de um id, com tamanho limitado
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String id = request.getHeader(CABECALHO);
+        if (id == null || !ID_VALIDO.matcher(id).matches()) {
+            id = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        }
+        response.setHeader(CABECALHO, id);
+        MDC.put(CHAVE_MDC, id);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(CHAVE_MDC);
+        }
+    }
+}
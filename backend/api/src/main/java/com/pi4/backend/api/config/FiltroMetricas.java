@@ -0,0 +1,45 @@
+package com.pi4.backend.api.config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.pi4.backend.api.services.MetricasService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Mede cada requisição pela rota mapeada ({@code /api/pedidos/{id}}, não a URL concreta, para não
+ * criar uma série por id) e abre o contexto em que o {@link MetricasService} conta SQL e repositórios.
+ */
+public class FiltroMetricas extends OncePerRequestFilter {
+
+    // URLs que não casaram com nenhum mapeamento (404, varreduras) ficam todas numa série só
+    static final String ROTA_DESCONHECIDA = "desconhecida";
+
+    private final MetricasService metricasService;
+
+    public FiltroMetricas(MetricasService metricasService) {
+        this.metricasService = metricasService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        metricasService.iniciarRequisicao();
+        int status = 500;
+        try {
+            chain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            metricasService.encerrarRequisicao(request.getMethod(),
+                rota == null ? ROTA_DESCONHECIDA : rota.toString(), status, System.nanoTime() - inicio);
+        }
+    }
+}
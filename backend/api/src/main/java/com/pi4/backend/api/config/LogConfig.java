@@ -0,0 +1,22 @@
+package com.pi4.backend.api.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Log da aplicação: o pipeline (anel assíncrono, JSON, amostragem) está em {@code logback-spring.xml};
+ * aqui fica só o filtro que põe o id de correlação no MDC.
+ */
+@Configuration
+public class LogConfig {
+
+    // Primeiro filtro da cadeia, para que até o log de requisição lenta saia com o id
+    @Bean
+    public FilterRegistrationBean<FiltroCorrelacao> filtroCorrelacao() {
+        FilterRegistrationBean<FiltroCorrelacao> registro = new FilterRegistrationBean<>(new FiltroCorrelacao());
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
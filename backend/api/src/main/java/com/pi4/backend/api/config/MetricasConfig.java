@@ -0,0 +1,144 @@
+package com.pi4.backend.api.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.ColetaImagemService;
+import com.pi4.backend.api.services.CotacaoFreteService;
+import com.pi4.backend.api.services.EntregaImagemService;
+import com.pi4.backend.api.services.EventosPedidoService;
+import com.pi4.backend.api.services.IdempotenciaPedidoService;
+import com.pi4.backend.api.services.MetricasService;
+import com.pi4.backend.api.services.RelatorioVendasService;
+import com.pi4.backend.api.services.SenhaService;
+import com.pi4.backend.api.services.SessaoCheckoutService;
+import com.pi4.backend.api.services.TendenciaVendasService;
+import com.pi4.backend.api.services.VarianteImagemService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Liga o {@link MetricasService} à aplicação: filtro por requisição, contagem de SQL no Hibernate,
+ * tempo de cada método de repositório e os medidores de pool, caches e JVM.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroMetricas> filtroMetricas(MetricasService metricasService) {
+        FilterRegistrationBean<FiltroMetricas> registro = new FilterRegistrationBean<>(new FiltroMetricas(metricasService));
+        // Logo depois do id de correlação e antes da segurança, para o tempo medido ser o da requisição inteira
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registro;
+    }
+
+    // Todo comando preparado pelo Hibernate passa por aqui; o SQL segue sem alteração
+    @Bean
+    public HibernatePropertiesCustomizer inspetorSql(MetricasService metricasService) {
+        StatementInspector inspetor = sql -> {
+            metricasService.registrarSql(sql);
+            return sql;
+        };
+        return propriedades -> propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, inspetor);
+    }
+
+    // Static: pós-processadores são criados antes dos demais beans; o serviço é buscado na primeira chamada
+    @Bean
+    public static BeanPostProcessor temporizadorRepositorios(ObjectProvider<MetricasService> metricasService) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> fabrica) {
+                    fabrica.addRepositoryFactoryCustomizer(f -> f.addRepositoryProxyPostProcessor((proxy, info) ->
+                        proxy.addAdvice(temporizador(info.getRepositoryInterface().getSimpleName(), metricasService))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor temporizador(String repositorio, ObjectProvider<MetricasService> metricasService) {
+        return invocacao -> {
+            long inicio = System.nanoTime();
+            try {
+                return invocacao.proceed();
+            } finally {
+                metricasService.getObject().registrarRepositorio(repositorio, invocacao.getMethod().getName(),
+                    System.nanoTime() - inicio);
+            }
+        };
+    }
+
+    @Bean
+    CommandLineRunner registrarMedidores(MetricasService metricas, DataSource dataSource,
+                                         CatalogoCacheService catalogoCache, EventosPedidoService eventosPedido,
+                                         SenhaService senha, CotacaoFreteService cotacaoFrete,
+                                         RelatorioVendasService relatorioVendas, TendenciaVendasService tendenciaVendas,
+                                         VarianteImagemService varianteImagem, EntregaImagemService entregaImagem,
+                                         ColetaImagemService coletaImagem, SessaoCheckoutService sessaoCheckout,
+                                         IdempotenciaPedidoService idempotenciaPedido) {
+        return args -> {
+            registrarPool(metricas, dataSource);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            metricas.medidor("api_jvm_threads", "Threads vivas na JVM", "", threads::getThreadCount);
+            metricas.medidor("api_jvm_heap_bytes", "Heap em uso", "",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+
+            metricas.medidoresEstatisticas("api_catalogo_cache", catalogoCache::estatisticas);
+            metricas.medidoresEstatisticas("api_eventos_pedido", eventosPedido::estatisticas);
+            metricas.medidoresEstatisticas("api_login_hash", senha::estatisticas);
+            metricas.medidoresEstatisticas("api_frete_cotacao", cotacaoFrete::estatisticas);
+            metricas.medidoresEstatisticas("api_checkout_sessao", sessaoCheckout::estatisticas);
+            metricas.medidoresEstatisticas("api_pedido_idempotencia", idempotenciaPedido::estatisticas);
+            metricas.medidoresEstatisticas("api_relatorio_vendas", relatorioVendas::estatisticas);
+            metricas.medidoresEstatisticas("api_relatorio_trending", tendenciaVendas::estatisticas);
+            metricas.medidoresEstatisticas("api_imagem_variantes", varianteImagem::estatisticas);
+            metricas.medidoresEstatisticas("api_imagem_entrega", entregaImagem::estatisticas);
+            metricas.medidoresEstatisticas("api_imagem_coleta", coletaImagem::estatisticas);
+        };
+    }
+
+    private void registrarPool(MetricasService metricas, DataSource dataSource) throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) return;
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        String rotulos = MetricasService.rotulos("pool", String.valueOf(hikari.getPoolName()));
+        metricas.medidor("api_pool_conexoes_maximo", "Tamanho máximo do pool de conexões", rotulos,
+            hikari::getMaximumPoolSize);
+        medidorPool(metricas, hikari, "api_pool_conexoes_ativas", "Conexões emprestadas do pool", rotulos,
+            HikariPoolMXBean::getActiveConnections);
+        medidorPool(metricas, hikari, "api_pool_conexoes_ociosas", "Conexões livres no pool", rotulos,
+            HikariPoolMXBean::getIdleConnections);
+        medidorPool(metricas, hikari, "api_pool_conexoes_total", "Conexões abertas pelo pool", rotulos,
+            HikariPoolMXBean::getTotalConnections);
+        medidorPool(metricas, hikari, "api_pool_threads_aguardando", "Threads esperando uma conexão do pool", rotulos,
+            HikariPoolMXBean::getThreadsAwaitingConnection);
+    }
+
+    // O MXBean só existe depois que o pool abre a primeira conexão; antes disso a série é omitida
+    private void medidorPool(MetricasService metricas, HikariDataSource hikari, String nome, String ajuda,
+                             String rotulos, Function<HikariPoolMXBean, Integer> leitura) {
+        metricas.medidor(nome, ajuda, rotulos, () -> {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? null : leitura.apply(pool);
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.pi4.backend.api.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -10,9 +11,10 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 public class SecurityConfig {
 
+    // Custo do BCrypt (log2 das rodadas); hashes antigos com custo menor são refeitos no login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${login.hash.custo:10}") int custo) {
+        return new BCryptPasswordEncoder(custo);
     }
 
     @Bean
@@ -0,0 +1,30 @@
+package com.pi4.backend.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modo de threads virtuais ({@code API_THREADS_VIRTUAIS=true}, ou seja,
+ * {@code spring.threads.virtual.enabled}): requisições, {@code @Async} e {@code @Scheduled} rodam
+ * em threads virtuais. Exige Java 21; em JVM mais antiga o Spring Boot ignoraria a opção e a
+ * aplicação subiria no pool de plataforma sem avisar, então a subida falha aqui.
+ *
+ * Até o Java 21 uma thread virtual que bloqueia dentro de {@code synchronized} prende a thread
+ * portadora. Por isso as travas mantidas durante E/S (banco, disco, log do carrinho) são
+ * {@link java.util.concurrent.locks.ReentrantLock}; {@code synchronized} fica só em trechos que
+ * mexem apenas em memória.
+ */
+@Configuration
+public class ThreadsVirtuaisConfig {
+
+    public ThreadsVirtuaisConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtuais) {
+        verificar(virtuais, Runtime.version().feature());
+    }
+
+    static void verificar(boolean virtuais, int versaoJava) {
+        if (virtuais && versaoJava < 21) {
+            throw new IllegalStateException("Threads virtuais (API_THREADS_VIRTUAIS=true) exigem Java 21; em execução: Java "
+                + versaoJava);
+        }
+    }
+}
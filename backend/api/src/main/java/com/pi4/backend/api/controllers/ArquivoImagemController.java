@@ -0,0 +1,37 @@
+package com.pi4.backend.api.controllers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import com.pi4.backend.api.services.EntregaImagemService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Arquivos de imagem em {@code /uploads/**} (originais, variantes e URLs antigas por produto),
+ * com ETag, 304, Range e cache longo para nomes por hash; ver {@link EntregaImagemService}.
+ */
+@RestController
+public class ArquivoImagemController {
+
+    private static final String PREFIXO = "/uploads/";
+
+    private final EntregaImagemService entregaService;
+
+    public ArquivoImagemController(EntregaImagemService entregaService) {
+        this.entregaService = entregaService;
+    }
+
+    @RequestMapping(value = "/uploads/**", method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void servir(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        String relativo = caminho.startsWith(PREFIXO) ? caminho.substring(PREFIXO.length()) : "";
+        entregaService.entregar(UriUtils.decode(relativo, StandardCharsets.UTF_8), request, response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.pi4.backend.api.controllers;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,11 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.pi4.backend.api.entities.CarrinhoItem;
-import com.pi4.backend.api.entities.Cliente;
-import com.pi4.backend.api.entities.Produto;
-import com.pi4.backend.api.repositories.CarrinhoRepository;
-import com.pi4.backend.api.repositories.ClienteRepository;
-import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.CarrinhoService;
 
 @RestController
 @RequestMapping("/api/carrinho")
@@ -27,13 +24,7 @@ import com.pi4.backend.api.repositories.ProdutoRepository;
 public class CarrinhoController {
     
     @Autowired
-    private CarrinhoRepository carrinhoRepository;
-    
-    @Autowired
-    private ClienteRepository clienteRepository;
-    
-    @Autowired
-    private ProdutoRepository produtoRepository;
+    private CarrinhoService carrinhoService;
     
     // DTO para requests
     public static class AdicionarItemRequest {
@@ -61,12 +52,12 @@ public class CarrinhoController {
     @GetMapping("/{clienteId}")
     public ResponseEntity<?> obterCarrinho(@PathVariable Integer clienteId) {
         try {
-            if (!clienteRepository.existsById(clienteId)) {
+            Optional<List<CarrinhoItem>> itens = carrinhoService.listar(clienteId);
+            if (itens.isEmpty()) {
                 return ResponseEntity.status(404).body("Cliente não encontrado");
             }
             
-            List<CarrinhoItem> itens = carrinhoRepository.findByClienteId(clienteId);
-            return ResponseEntity.ok(itens);
+            return ResponseEntity.ok(itens.get());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Erro interno do servidor");
         }
@@ -88,48 +79,17 @@ public class CarrinhoController {
                 return ResponseEntity.status(400).body("Quantidade deve ser maior que zero");
             }
             
-            Cliente cliente = clienteRepository.findById(request.getClienteId())
-                .orElse(null);
-            if (cliente == null) {
-                return ResponseEntity.status(404).body("Cliente não encontrado");
-            }
+            CarrinhoService.Resultado resultado = carrinhoService
+                .adicionar(request.getClienteId(), request.getProdutoId(), request.getQuantidade());
             
-            Produto produto = produtoRepository.findById(request.getProdutoId())
-                .orElse(null);
-            if (produto == null) {
-                return ResponseEntity.status(404).body("Produto não encontrado");
+            if (resultado.getSituacao() != CarrinhoService.Situacao.OK) {
+                return erro(resultado.getSituacao());
             }
             
-            if (!produto.getStatus()) {
-                return ResponseEntity.status(400).body("Produto inativo");
-            }
-            
-            // Verificar estoque
-            if (produto.getQuantidadeEstoque() < request.getQuantidade()) {
-                return ResponseEntity.status(400).body("Estoque insuficiente");
-            }
-            
-            // Verificar se item já existe no carrinho
-            CarrinhoItem itemExistente = carrinhoRepository
-                .findByClienteIdAndProdutoId(request.getClienteId(), request.getProdutoId());
-            
-            if (itemExistente != null) {
-                // Atualizar quantidade
-                int novaQuantidade = itemExistente.getQuantidade() + request.getQuantidade();
-                
-                if (produto.getQuantidadeEstoque() < novaQuantidade) {
-                    return ResponseEntity.status(400).body("Estoque insuficiente");
-                }
-                
-                itemExistente.setQuantidade(novaQuantidade);
-                CarrinhoItem itemAtualizado = carrinhoRepository.save(itemExistente);
-                return ResponseEntity.ok(itemAtualizado);
-            } else {
-                // Criar novo item
-                CarrinhoItem novoItem = new CarrinhoItem(cliente, produto, request.getQuantidade());
-                CarrinhoItem itemSalvo = carrinhoRepository.save(novoItem);
-                return ResponseEntity.status(201).body(itemSalvo);
-            }
+            // 201 para item novo, 200 quando só somou à quantidade existente
+            return resultado.isNovo()
+                ? ResponseEntity.status(201).body(resultado.getItem())
+                : ResponseEntity.ok(resultado.getItem());
             
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Erro interno do servidor");
@@ -147,22 +107,14 @@ public class CarrinhoController {
                 return ResponseEntity.status(400).body("Quantidade deve ser maior que zero");
             }
             
-            CarrinhoItem item = carrinhoRepository
-                .findByClienteIdAndProdutoId(clienteId, produtoId);
+            CarrinhoService.Resultado resultado = carrinhoService
+                .atualizarQuantidade(clienteId, produtoId, request.getQuantidade());
             
-            if (item == null) {
-                return ResponseEntity.status(404).body("Item não encontrado no carrinho");
+            if (resultado.getSituacao() != CarrinhoService.Situacao.OK) {
+                return erro(resultado.getSituacao());
             }
             
-            // Verificar estoque
-            Produto produto = item.getProduto();
-            if (produto.getQuantidadeEstoque() < request.getQuantidade()) {
-                return ResponseEntity.status(400).body("Estoque insuficiente");
-            }
-            
-            item.setQuantidade(request.getQuantidade());
-            CarrinhoItem itemAtualizado = carrinhoRepository.save(item);
-            return ResponseEntity.ok(itemAtualizado);
+            return ResponseEntity.ok(resultado.getItem());
             
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Erro interno do servidor");
@@ -173,14 +125,12 @@ public class CarrinhoController {
     @DeleteMapping("/{clienteId}/item/{produtoId}")
     public ResponseEntity<?> removerItem(@PathVariable Integer clienteId, @PathVariable Integer produtoId) {
         try {
-            CarrinhoItem item = carrinhoRepository
-                .findByClienteIdAndProdutoId(clienteId, produtoId);
+            CarrinhoService.Resultado resultado = carrinhoService.remover(clienteId, produtoId);
             
-            if (item == null) {
-                return ResponseEntity.status(404).body("Item não encontrado no carrinho");
+            if (resultado.getSituacao() != CarrinhoService.Situacao.OK) {
+                return erro(resultado.getSituacao());
             }
             
-            carrinhoRepository.delete(item);
             return ResponseEntity.ok().body("Item removido do carrinho");
             
         } catch (Exception e) {
@@ -192,11 +142,10 @@ public class CarrinhoController {
     @DeleteMapping("/{clienteId}")
     public ResponseEntity<?> limparCarrinho(@PathVariable Integer clienteId) {
         try {
-            if (!clienteRepository.existsById(clienteId)) {
+            if (!carrinhoService.limpar(clienteId)) {
                 return ResponseEntity.status(404).body("Cliente não encontrado");
             }
             
-            carrinhoRepository.deleteByClienteId(clienteId);
             return ResponseEntity.ok().body("Carrinho limpo");
             
         } catch (Exception e) {
@@ -208,15 +157,27 @@ public class CarrinhoController {
     @GetMapping("/{clienteId}/count")
     public ResponseEntity<?> contarItens(@PathVariable Integer clienteId) {
         try {
-            if (!clienteRepository.existsById(clienteId)) {
+            Optional<Integer> totalItens = carrinhoService.contarItens(clienteId);
+            if (totalItens.isEmpty()) {
                 return ResponseEntity.status(404).body("Cliente não encontrado");
             }
             
-            Integer totalItens = carrinhoRepository.getTotalItemsByClienteId(clienteId);
-            return ResponseEntity.ok(totalItens != null ? totalItens : 0);
+            return ResponseEntity.ok(totalItens.get());
             
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Erro interno do servidor");
         }
     }
+    
+    private ResponseEntity<?> erro(CarrinhoService.Situacao situacao) {
+        return switch (situacao) {
+            case CLIENTE_NAO_ENCONTRADO -> ResponseEntity.status(404).body("Cliente não encontrado");
+            case PRODUTO_NAO_ENCONTRADO -> ResponseEntity.status(404).body("Produto não encontrado");
+            case ITEM_NAO_ENCONTRADO -> ResponseEntity.status(404).body("Item não encontrado no carrinho");
+            case PRODUTO_INATIVO -> ResponseEntity.status(400).body("Produto inativo");
+            case ESTOQUE_INSUFICIENTE -> ResponseEntity.status(400).body("Estoque insuficiente");
+            case FALHA_GRAVACAO -> ResponseEntity.status(503).body("Não foi possível gravar o item; tente novamente");
+            default -> ResponseEntity.status(500).body("Erro interno do servidor");
+        };
+    }
 }
@@ -1,8 +1,11 @@
 package com.pi4.backend.api.controllers;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,7 +21,10 @@ import com.pi4.backend.api.entities.Cliente;
 import com.pi4.backend.api.entities.Produto;
 import com.pi4.backend.api.repositories.ClienteRepository;
 import com.pi4.backend.api.repositories.ProdutoRepository;
-import com.pi4.backend.api.services.FreteService;
+import com.pi4.backend.api.services.CarrinhoService;
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.CotacaoFreteService;
+import com.pi4.backend.api.services.SessaoCheckoutService;
 
 @RestController
 @RequestMapping("/api/checkout")
@@ -32,7 +38,16 @@ public class CheckoutController {
     private ProdutoRepository produtoRepository;
 
     @Autowired
-    private FreteService freteService;
+    private CotacaoFreteService cotacaoFreteService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @Autowired
+    private SessaoCheckoutService sessaoCheckoutService;
 
     // DTOs
     public static class ItemCarrinho {
@@ -54,6 +69,8 @@ public class CheckoutController {
         private List<ItemCarrinho> itens;
         private String cepEntrega;
         private Integer enderecoEntregaId;
+        // Devolvido pelo /iniciar; no /finalizar dispensa validar o cliente de novo
+        private String sessaoCheckoutId;
 
         // Getters e Setters
         public Integer getClienteId() { return clienteId; }
@@ -64,23 +81,32 @@ public class CheckoutController {
         public void setCepEntrega(String cepEntrega) { this.cepEntrega = cepEntrega; }
         public Integer getEnderecoEntregaId() { return enderecoEntregaId; }
         public void setEnderecoEntregaId(Integer enderecoEntregaId) { this.enderecoEntregaId = enderecoEntregaId; }
+        public String getSessaoCheckoutId() { return sessaoCheckoutId; }
+        public void setSessaoCheckoutId(String sessaoCheckoutId) { this.sessaoCheckoutId = sessaoCheckoutId; }
     }
 
     public static class CheckoutResponse {
-        private String pedidoId;
+        // Token da sessão de checkout: enviado na criação do pedido em vez de revalidar o carrinho
+        private String sessaoCheckoutId;
+        private Instant sessaoExpiraEm;
         private BigDecimal subtotal;
         private BigDecimal valorFrete;
+        private String cotacaoFreteId;
         private BigDecimal total;
         private String status;
         private LocalDateTime dataCheckout;
 
         // Getters e Setters
-        public String getPedidoId() { return pedidoId; }
-        public void setPedidoId(String pedidoId) { this.pedidoId = pedidoId; }
+        public String getSessaoCheckoutId() { return sessaoCheckoutId; }
+        public void setSessaoCheckoutId(String sessaoCheckoutId) { this.sessaoCheckoutId = sessaoCheckoutId; }
+        public Instant getSessaoExpiraEm() { return sessaoExpiraEm; }
+        public void setSessaoExpiraEm(Instant sessaoExpiraEm) { this.sessaoExpiraEm = sessaoExpiraEm; }
         public BigDecimal getSubtotal() { return subtotal; }
         public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
         public BigDecimal getValorFrete() { return valorFrete; }
         public void setValorFrete(BigDecimal valorFrete) { this.valorFrete = valorFrete; }
+        public String getCotacaoFreteId() { return cotacaoFreteId; }
+        public void setCotacaoFreteId(String cotacaoFreteId) { this.cotacaoFreteId = cotacaoFreteId; }
         public BigDecimal getTotal() { return total; }
         public void setTotal(BigDecimal total) { this.total = total; }
         public String getStatus() { return status; }
@@ -103,6 +129,9 @@ public class CheckoutController {
             }
 
             Cliente cliente = clienteOpt.get();
+
+            // Grava as alterações pendentes do carrinho antes de seguir para o pedido
+            carrinhoService.sincronizar(request.getClienteId());
             if (!Boolean.TRUE.equals(cliente.getStatus())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Cliente inativo");
             }
@@ -112,16 +141,27 @@ public class CheckoutController {
                 return ResponseEntity.badRequest().body("Carrinho vazio");
             }
 
+            List<Integer> produtoIds = new ArrayList<>();
+            for (ItemCarrinho item : request.getItens()) {
+                if (item.getProdutoId() == null || item.getQuantidade() == null || item.getQuantidade() <= 0) {
+                    return ResponseEntity.badRequest().body("Item do carrinho inválido: " + item.getProdutoId());
+                }
+                produtoIds.add(item.getProdutoId().intValue());
+            }
+            // Uma leitura pelo catálogo para o carrinho todo; o pedido confere a versão de cada produto
+            Map<Integer, Produto> produtos = catalogoCache.produtos(produtoIds, produtoRepository::findComImagensByIdIn);
+
             BigDecimal subtotal = BigDecimal.ZERO;
+            List<SessaoCheckoutService.ItemCotado> itensCotados = new ArrayList<>();
             
             // Validar produtos e calcular subtotal
             for (ItemCarrinho item : request.getItens()) {
-                Optional<Produto> produtoOpt = produtoRepository.findById(item.getProdutoId());
-                if (!produtoOpt.isPresent()) {
+                Integer produtoId = item.getProdutoId().intValue();
+                Produto produto = produtos.get(produtoId);
+                if (produto == null) {
                     return ResponseEntity.badRequest().body("Produto não encontrado: " + item.getProdutoId());
                 }
 
-                Produto produto = produtoOpt.get();
                 if (!Boolean.TRUE.equals(produto.getStatus())) {
                     return ResponseEntity.badRequest().body("Produto inativo: " + produto.getNome());
                 }
@@ -134,17 +174,19 @@ public class CheckoutController {
                 BigDecimal precoAtual = produto.getPreco();
                 BigDecimal subtotalItem = precoAtual.multiply(new BigDecimal(item.getQuantidade()));
                 subtotal = subtotal.add(subtotalItem);
+                itensCotados.add(new SessaoCheckoutService.ItemCotado(produtoId, item.getQuantidade(), precoAtual,
+                    produto.getVersao()));
             }
 
-            // Calcular frete
+            // Calcular frete (cotação memorizada; o id volta para o front e é resgatado no pedido)
             BigDecimal valorFrete = BigDecimal.ZERO;
+            String cotacaoFreteId = null;
             if (request.getCepEntrega() != null && !request.getCepEntrega().isEmpty()) {
                 try {
-                    var freteMap = freteService.calcularFretePorCep(request.getCepEntrega());
+                    CotacaoFreteService.Cotacao cotacao = cotacaoFreteService.cotar(request.getCepEntrega(), subtotal);
                     // Usar frete padrão (primeiro valor encontrado)
-                    if (!freteMap.isEmpty()) {
-                        valorFrete = BigDecimal.valueOf(freteMap.values().iterator().next());
-                    }
+                    valorFrete = cotacao.getValorPadrao();
+                    cotacaoFreteId = cotacao.getId();
                 } catch (Exception e) {
                     // Se não conseguir calcular frete, continua com valor zero
                     valorFrete = BigDecimal.ZERO;
@@ -153,14 +195,16 @@ public class CheckoutController {
 
             BigDecimal total = subtotal.add(valorFrete);
 
-            // Gerar ID do pedido (simulado)
-            String pedidoId = "PED-" + System.currentTimeMillis();
+            SessaoCheckoutService.Sessao sessao = sessaoCheckoutService.abrir(request.getClienteId(), itensCotados,
+                subtotal, valorFrete, cotacaoFreteId);
 
             // Preparar resposta
             CheckoutResponse response = new CheckoutResponse();
-            response.setPedidoId(pedidoId);
+            response.setSessaoCheckoutId(sessao.getToken());
+            response.setSessaoExpiraEm(sessao.getExpiraEm());
             response.setSubtotal(subtotal);
             response.setValorFrete(valorFrete);
+            response.setCotacaoFreteId(cotacaoFreteId);
             response.setTotal(total);
             response.setStatus("INICIADO");
             response.setDataCheckout(LocalDateTime.now());
@@ -230,6 +274,14 @@ public class CheckoutController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Cliente não autenticado");
             }
 
+            // Sessão aberta no /iniciar: cliente e carrinho já foram validados
+            if (request.getSessaoCheckoutId() != null) {
+                if (sessaoCheckoutService.validar(request.getSessaoCheckoutId(), request.getClienteId()).isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Sessão de checkout inválida ou expirada");
+                }
+                return ResponseEntity.ok().body("Checkout validado com sucesso. Redirecionando para criação do pedido.");
+            }
+
             Cliente cliente = clienteRepository.findById(request.getClienteId()).orElse(null);
             if (cliente == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Cliente não encontrado");
@@ -12,9 +12,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.pi4.backend.api.dto.EstatisticasProdutosDto;
 import com.pi4.backend.api.entities.Produto;
 import com.pi4.backend.api.repositories.ProdutoRepository;
 import com.pi4.backend.api.repositories.UserRepository;
+import com.pi4.backend.api.services.EstatisticasProdutoService;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -27,35 +29,26 @@ public class DashboardController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EstatisticasProdutoService estatisticasProdutoService;
+
     @GetMapping("/estatisticas")
     public ResponseEntity<Map<String, Object>> getEstatisticas() {
         Map<String, Object> stats = new HashMap<>();
         
         try {
-            // Buscar todos os produtos para cálculos
-            List<Produto> produtos = produtoRepository.findAll();
-            
-            // Contadores básicos
-            long totalProdutos = produtos.size();
-            long produtosAtivos = produtos.stream().filter(p -> Boolean.TRUE.equals(p.getStatus())).count();
-            long produtosInativos = totalProdutos - produtosAtivos;
-            long baixoEstoque = produtos.stream().filter(p -> p.getQuantidadeEstoque() != null && p.getQuantidadeEstoque() <= 5).count();
-            
-            // Valor total do estoque
-            BigDecimal valorTotalEstoque = produtos.stream()
-                .filter(p -> p.getPreco() != null && p.getQuantidadeEstoque() != null)
-                .map(p -> p.getPreco().multiply(new BigDecimal(p.getQuantidadeEstoque())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Contadores e valor do estoque (consulta agregada ou snapshot em memória)
+            EstatisticasProdutosDto produtos = estatisticasProdutoService.obter();
             
             // Total de usuários
             long totalUsuarios = userRepository.count();
             
             // Montar resposta
-            stats.put("totalProdutos", totalProdutos);
-            stats.put("produtosAtivos", produtosAtivos);
-            stats.put("produtosInativos", produtosInativos);
-            stats.put("baixoEstoque", baixoEstoque);
-            stats.put("valorTotalEstoque", valorTotalEstoque);
+            stats.put("totalProdutos", produtos.getTotalProdutos());
+            stats.put("produtosAtivos", produtos.getProdutosAtivos());
+            stats.put("produtosInativos", produtos.getProdutosInativos());
+            stats.put("baixoEstoque", produtos.getBaixoEstoque());
+            stats.put("valorTotalEstoque", produtos.getValorTotalEstoque());
             stats.put("totalUsuarios", totalUsuarios);
             
             return ResponseEntity.ok(stats);
@@ -78,7 +71,8 @@ public class DashboardController {
     public ResponseEntity<List<Produto>> getProdutosCriticos() {
         try {
             // Produtos com estoque crítico (≤ 5 unidades)
-            List<Produto> produtosCriticos = produtoRepository.findByQuantidadeEstoqueLessThanEqualOrderByQuantidadeEstoqueAsc(5);
+            List<Produto> produtosCriticos = produtoRepository.findByQuantidadeEstoqueLessThanEqualOrderByQuantidadeEstoqueAsc(
+                EstatisticasProdutoService.LIMITE_BAIXO_ESTOQUE);
             return ResponseEntity.ok(produtosCriticos);
         } catch (Exception e) {
             return ResponseEntity.ok(List.of());
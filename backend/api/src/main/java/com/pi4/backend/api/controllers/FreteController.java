@@ -1,17 +1,22 @@
 package com.pi4.backend.api.controllers;
 
+import java.math.BigDecimal;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.pi4.backend.api.services.CotacaoFreteService;
 import com.pi4.backend.api.services.FreteService;
 
 @RestController
@@ -19,17 +24,24 @@ import com.pi4.backend.api.services.FreteService;
 @CrossOrigin(origins = "*")
 public class FreteController {
 
+    private static final Logger log = LoggerFactory.getLogger(FreteController.class);
+
     @Autowired
     private FreteService freteService;
 
+    @Autowired
+    private CotacaoFreteService cotacaoFreteService;
+
     @GetMapping
-    public ResponseEntity<?> calcularFrete(@RequestParam String cep) {
+    public ResponseEntity<?> calcularFrete(@RequestParam String cep,
+                                           @RequestParam(required = false) BigDecimal subtotal) {
         try {
             if (cep == null || cep.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("CEP é obrigatório");
             }
 
-            Map<String, Double> opcoes = freteService.calcularFretePorCep(cep.replaceAll("\\D", ""));
+            CotacaoFreteService.Cotacao cotacao = cotacaoFreteService.cotar(cep, subtotal);
+            Map<String, Double> opcoes = cotacao.getOpcoes();
 
             // Construir resposta incluindo uma chave 'padrao' com uma estimativa simples
             Map<String, Object> resposta = new LinkedHashMap<>();
@@ -52,11 +64,12 @@ public class FreteController {
             if (padrao == null) padrao = 0.0;
 
             resposta.put("padrao", padrao);
-            resposta.put("cep", cep.replaceAll("\\D", ""));
+            resposta.put("cep", cotacao.getCep());
+            resposta.put("cotacaoId", cotacao.getId());
 
             return ResponseEntity.ok(resposta);
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("Erro ao calcular frete", ex);
             return ResponseEntity.status(500).body("Erro ao calcular frete");
         }
     }
@@ -67,11 +80,25 @@ public class FreteController {
             if (cep == null || cep.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("CEP é obrigatório");
             }
-            Map<String, Double> opcoes = freteService.calcularFretePorCep(cep.replaceAll("\\D", ""));
+            Map<String, Double> opcoes = cotacaoFreteService.cotar(cep, null).getOpcoes();
             return ResponseEntity.ok(opcoes);
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("Erro ao calcular frete", ex);
             return ResponseEntity.status(500).body("Erro ao calcular frete");
         }
     }
+
+    @GetMapping("/cotacoes/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCotacoes() {
+        return ResponseEntity.ok(cotacaoFreteService.estatisticas());
+    }
+
+    // Relê o arquivo da tabela de frete agora (além da verificação periódica)
+    @PostMapping("/tabela/recarregar")
+    public ResponseEntity<?> recarregarTabela() {
+        if (!freteService.recarregar()) {
+            return ResponseEntity.status(422).body("Tabela de frete inválida; mantida a anterior");
+        }
+        return ResponseEntity.ok(freteService.informacoes());
+    }
 }
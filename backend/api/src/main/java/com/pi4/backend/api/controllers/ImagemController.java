@@ -0,0 +1,80 @@
+package com.pi4.backend.api.controllers;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pi4.backend.api.services.ColetaImagemService;
+import com.pi4.backend.api.services.EntregaImagemService;
+import com.pi4.backend.api.services.ImagemStorageService;
+import com.pi4.backend.api.services.MigracaoImagemService;
+import com.pi4.backend.api.services.VarianteImagemService;
+
+/**
+ * Manutenção do armazenamento de imagens: migração para o armazenamento por conteúdo,
+ * varredura de arquivos sem referência e estatísticas (inclusive da entrega em /uploads/**).
+ */
+@RestController
+@RequestMapping("/api/imagens")
+public class ImagemController {
+
+    private final ImagemStorageService storageService;
+    private final ColetaImagemService coletaService;
+    private final MigracaoImagemService migracaoService;
+    private final VarianteImagemService varianteService;
+    private final EntregaImagemService entregaService;
+
+    public ImagemController(ImagemStorageService storageService,
+                            ColetaImagemService coletaService,
+                            MigracaoImagemService migracaoService,
+                            VarianteImagemService varianteService,
+                            EntregaImagemService entregaService) {
+        this.storageService = storageService;
+        this.coletaService = coletaService;
+        this.migracaoService = migracaoService;
+        this.varianteService = varianteService;
+        this.entregaService = entregaService;
+    }
+
+    // Leva as imagens gravadas por produto para o armazenamento por conteúdo (simular=true só relata)
+    @PostMapping("/migracao")
+    public ResponseEntity<?> migrar(@RequestParam(value = "simular", defaultValue = "false") boolean simular) {
+        if (!storageService.isPorConteudo()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Armazenamento por conteúdo desativado (imagem.armazenamento=produto)");
+        }
+        try {
+            return ResponseEntity.ok(migracaoService.migrar(simular));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Falha na migração: " + e.getMessage());
+        }
+    }
+
+    // Varredura completa: apaga do diretório de conteúdo os arquivos que nenhuma imagem usa
+    @PostMapping("/coleta")
+    public ResponseEntity<?> coletar() {
+        try {
+            return ResponseEntity.ok(coletaService.varrer());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Falha na coleta: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<?> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("armazenamento", storageService.isPorConteudo() ? "conteudo" : "produto");
+        info.put("coleta", coletaService.estatisticas());
+        info.put("variantes", varianteService.estatisticas());
+        info.put("entrega", entregaService.estatisticas());
+        return ResponseEntity.ok(info);
+    }
+}
@@ -1,16 +1,20 @@
 package com.pi4.backend.api.controllers;
 
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.pi4.backend.api.services.LoginService;
+import com.pi4.backend.api.services.SenhaService;
 import com.pi4.backend.api.dto.SessionDto;
 
 @RestController
@@ -22,6 +26,9 @@ public class LoginController {
     @Autowired
     private LoginService loginService; // Injeção do novo Service
 
+    @Autowired
+    private SenhaService senhaService;
+
     public static class LoginDto {
         private String email;
         private String senha;
@@ -47,10 +54,20 @@ public class LoginController {
             log.info("Login OK: email={} grupo={}", loginDto.getEmail(), session.getGrupo());
             return ResponseEntity.ok(session);
 
+        } catch (SenhaService.SobrecargaException e) {
+            log.warn("Login recusado por sobrecarga para {}", loginDto.getEmail());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+
         } catch (RuntimeException e) {
             log.warn("Login falhou para {}: {}", loginDto.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
         }
     }
 
+    // Tempo de hash, fila e rejeições do pool de verificação de senha
+    @GetMapping("/api/login/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(senhaService.estatisticas());
+    }
+
 }
@@ -0,0 +1,26 @@
+package com.pi4.backend.api.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pi4.backend.api.services.MetricasService;
+
+@RestController
+public class MetricasController {
+
+    private static final MediaType PROMETHEUS = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    private final MetricasService metricasService;
+
+    public MetricasController(MetricasService metricasService) {
+        this.metricasService = metricasService;
+    }
+
+    // Formato texto do Prometheus; /actuator/prometheus é o caminho que os scrapers usam por padrão
+    @GetMapping({"/api/metricas", "/actuator/prometheus"})
+    public ResponseEntity<String> metricas() {
+        return ResponseEntity.ok().contentType(PROMETHEUS).body(metricasService.prometheus());
+    }
+}
@@ -1,44 +1,82 @@
 package com.pi4.backend.api.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.math.RoundingMode;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.pi4.backend.api.dto.PaginaCursor;
+import com.pi4.backend.api.dto.PedidoResumoDto;
 import com.pi4.backend.api.entities.Cliente;
 import com.pi4.backend.api.entities.ItemPedido;
 import com.pi4.backend.api.entities.Pedido;
 import com.pi4.backend.api.entities.Produto;
-import com.pi4.backend.api.repositories.CarrinhoRepository;
 import com.pi4.backend.api.repositories.ClienteRepository;
 import com.pi4.backend.api.repositories.ItemPedidoRepository;
 import com.pi4.backend.api.repositories.PedidoRepository;
 import com.pi4.backend.api.repositories.ProdutoRepository;
-import com.pi4.backend.api.services.FreteService;
+import com.pi4.backend.api.services.CarrinhoService;
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.ConsultaPedidoService;
+import com.pi4.backend.api.services.CotacaoFreteService;
+import com.pi4.backend.api.services.NumeroPedidoService;
+import com.pi4.backend.api.services.EventosPedidoService;
+import com.pi4.backend.api.services.IdempotenciaPedidoService;
+import com.pi4.backend.api.services.ReservaEstoqueService;
+import com.pi4.backend.api.services.ReservaEstoqueService.ItemReserva;
+import com.pi4.backend.api.services.ReservaEstoqueService.ResultadoReserva;
+import com.pi4.backend.api.services.SessaoCheckoutService;
+import com.pi4.backend.api.services.StatusPedidoLoteService;
+import com.pi4.backend.api.services.StatusPedidoService;
+import com.pi4.backend.api.services.TendenciaVendasService;
 
 @RestController
 @RequestMapping("/api/pedidos")
 @CrossOrigin(origins = "*")
 public class PedidoController {
+
+    private static final Logger log = LoggerFactory.getLogger(PedidoController.class);
     
     @Autowired
     private PedidoRepository pedidoRepository;
@@ -53,10 +91,52 @@ public class PedidoController {
     private ProdutoRepository produtoRepository;
     
     @Autowired
-    private CarrinhoRepository carrinhoRepository;
+    private CarrinhoService carrinhoService;
+    
+    @Autowired
+    private CotacaoFreteService cotacaoFreteService;
+    
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+    
+    @Autowired
+    private NumeroPedidoService numeroPedidoService;
+    
+    @Autowired
+    private ConsultaPedidoService consultaPedidoService;
+    
+    @Autowired
+    private EventosPedidoService eventosPedidoService;
+    
+    @Autowired
+    private StatusPedidoService statusPedidoService;
+    
+    @Autowired
+    private StatusPedidoLoteService statusPedidoLoteService;
     
     @Autowired
-    private FreteService freteService;
+    private TendenciaVendasService tendenciaVendasService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private SessaoCheckoutService sessaoCheckoutService;
+    
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+    
+    private static final int MAX_TENTATIVAS_PEDIDO = 3;
+    private static final int MAX_IDS_LOTE = 100_000;
+    private static final int MAX_CHAVE_IDEMPOTENCIA = 100;
+    private static final String CABECALHO_REPETIDO = "Idempotency-Replayed";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
     
     // DTO para criação de pedido
     public static class CriarPedidoRequest {
@@ -72,6 +152,10 @@ public class PedidoController {
         private String observacoes;
     // Opcional: valor de frete escolhido pelo cliente (em centavos/valor decimal)
     private java.math.BigDecimal valorFreteEscolhido;
+        // Opcional: id da cotação de frete devolvida pelo checkout (resgatada em vez de recalcular)
+        private String cotacaoFreteId;
+        // Opcional: token da sessão aberta em /api/checkout/iniciar (itens, preços e frete já validados)
+        private String sessaoCheckoutId;
         
         // Getters e Setters
         public Integer getClienteId() { return clienteId; }
@@ -96,6 +180,10 @@ public class PedidoController {
         public void setObservacoes(String observacoes) { this.observacoes = observacoes; }
         public java.math.BigDecimal getValorFreteEscolhido() { return valorFreteEscolhido; }
         public void setValorFreteEscolhido(java.math.BigDecimal valorFreteEscolhido) { this.valorFreteEscolhido = valorFreteEscolhido; }
+        public String getCotacaoFreteId() { return cotacaoFreteId; }
+        public void setCotacaoFreteId(String cotacaoFreteId) { this.cotacaoFreteId = cotacaoFreteId; }
+        public String getSessaoCheckoutId() { return sessaoCheckoutId; }
+        public void setSessaoCheckoutId(String sessaoCheckoutId) { this.sessaoCheckoutId = sessaoCheckoutId; }
     }
     
     public static class ItemPedidoDto {
@@ -118,141 +206,332 @@ public class PedidoController {
         public void setStatus(Pedido.StatusPedido status) { this.status = status; }
     }
     
-    // Criar pedido
+    // Mudança de status em massa: lista de ids ou filtro (status atual + período, datas inclusivas)
+    public static class AlterarStatusLoteRequest {
+        private Pedido.StatusPedido status;
+        private List<Long> ids;
+        private Pedido.StatusPedido statusAtual;
+        private LocalDate dataInicio;
+        private LocalDate dataFim;
+        
+        public Pedido.StatusPedido getStatus() { return status; }
+        public void setStatus(Pedido.StatusPedido status) { this.status = status; }
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+        public Pedido.StatusPedido getStatusAtual() { return statusAtual; }
+        public void setStatusAtual(Pedido.StatusPedido statusAtual) { this.statusAtual = statusAtual; }
+        public LocalDate getDataInicio() { return dataInicio; }
+        public void setDataInicio(LocalDate dataInicio) { this.dataInicio = dataInicio; }
+        public LocalDate getDataFim() { return dataFim; }
+        public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
+    }
+    
+    // Criar pedido. Com Idempotency-Key, reenvios (duplo clique, retry do app) devolvem a resposta
+    // do primeiro envio, e os que chegam enquanto ele roda esperam por ela em vez de executar
     @PostMapping
-    @Transactional
-    public ResponseEntity<?> criarPedido(@RequestBody CriarPedidoRequest request) {
+    public ResponseEntity<?> criarPedido(@RequestBody CriarPedidoRequest request,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        if (chaveIdempotencia == null) {
+            return criarPedidoComTentativas(request, null);
+        }
+        if (chaveIdempotencia.isBlank() || chaveIdempotencia.length() > MAX_CHAVE_IDEMPOTENCIA) {
+            return ResponseEntity.status(400).body("Idempotency-Key inválida");
+        }
+        if (request.getClienteId() == null) {
+            return ResponseEntity.status(400).body("Cliente ID é obrigatório");
+        }
+        
+        String impressao = impressao(request);
+        AtomicReference<ResponseEntity<?>> original = new AtomicReference<>();
         try {
-            System.out.println("=== INICIANDO CRIAÇÃO DE PEDIDO ===");
-            System.out.println("ClienteId: " + request.getClienteId());
-            System.out.println("Quantidade de itens: " + (request.getItens() != null ? request.getItens().size() : 0));
-            
-            if (request.getClienteId() == null) {
-                System.out.println("ERRO: Cliente ID é nulo");
-                return ResponseEntity.status(400).body("Cliente ID é obrigatório");
+            IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.executar(
+                request.getClienteId() + ":" + chaveIdempotencia, impressao, () -> {
+                    ResponseEntity<?> response = criarPedidoComTentativas(request, chaveIdempotencia);
+                    original.set(response);
+                    return registro(impressao, response);
+                });
+            return resultado.repetido() ? repetir(resultado.registro()) : original.get();
+        } catch (IdempotenciaPedidoService.ChaveReutilizadaException e) {
+            return ResponseEntity.status(422).body(e.getMessage());
+        } catch (IdempotenciaPedidoService.EmAndamentoException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+    
+    private ResponseEntity<?> criarPedidoComTentativas(CriarPedidoRequest request, String chaveIdempotencia) {
+        // Conflitos de lock (deadlock/timeout) invalidam a transação inteira, então a
+        // nova tentativa roda o pedido todo de novo em uma transação nova
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transacao.execute(status -> processarPedido(request, chaveIdempotencia, status));
+            } catch (ConcurrencyFailureException e) {
+                if (tentativa >= MAX_TENTATIVAS_PEDIDO) {
+                    log.warn("Conflito de concorrência persistente ao reservar estoque para o cliente {}: {}",
+                        request.getClienteId(), e.getMessage());
+                    return ResponseEntity.status(409).body("Não foi possível reservar o estoque, tente novamente");
+                }
+                aguardarNovaTentativa(tentativa);
+            } catch (DataIntegrityViolationException e) {
+                // Chave já gravada por uma execução que a memória não conhece (reinício, outra instância)
+                Optional<Long> existente = chaveIdempotencia != null
+                    ? pedidoRepository.buscarIdPorChaveIdempotencia(request.getClienteId(), chaveIdempotencia)
+                    : Optional.empty();
+                if (existente.isPresent()) {
+                    IdempotenciaPedidoService.Registro registro =
+                        new IdempotenciaPedidoService.Registro(impressao(request), 201, existente.get());
+                    idempotenciaPedidoService.registrar(request.getClienteId() + ":" + chaveIdempotencia, registro);
+                    return repetir(registro);
+                }
+                log.error("Erro ao criar pedido do cliente {}", request.getClienteId(), e);
+                return ResponseEntity.status(500).body("Erro interno do servidor");
+            } catch (Exception e) {
+                log.error("Erro ao criar pedido do cliente {}", request.getClienteId(), e);
+                return ResponseEntity.status(500).body("Erro interno do servidor");
             }
-            
-            if (request.getItens() == null || request.getItens().isEmpty()) {
-                System.out.println("ERRO: Itens do pedido são nulos ou vazios");
-                return ResponseEntity.status(400).body("Itens do pedido são obrigatórios");
+        }
+    }
+
+    private ResponseEntity<?> processarPedido(CriarPedidoRequest request, String chaveIdempotencia,
+                                              TransactionStatus status) {
+        log.debug("Criando pedido: cliente={}, itens={}", request.getClienteId(),
+            request.getItens() != null ? request.getItens().size() : 0);
+        
+        if (request.getClienteId() == null) {
+            return ResponseEntity.status(400).body("Cliente ID é obrigatório");
+        }
+        
+        // Sessão do checkout: resgatada só por esta transação (volta se o pedido não sair);
+        // sem itens no corpo, o pedido sai dos itens cotados nela
+        SessaoCheckoutService.Sessao sessao = null;
+        List<ItemPedidoDto> itens = request.getItens();
+        if (request.getSessaoCheckoutId() != null) {
+            sessao = sessaoCheckoutService.resgatar(request.getSessaoCheckoutId(), request.getClienteId()).orElse(null);
+            if (sessao == null) {
+                return ResponseEntity.status(400).body("Sessão de checkout inválida ou expirada");
             }
-            
-            System.out.println("Buscando cliente no banco...");
-            Cliente cliente = clienteRepository.findById(request.getClienteId())
+            if (itens == null || itens.isEmpty()) {
+                itens = itensDaSessao(sessao);
+            }
+        }
+        
+        if (itens == null || itens.isEmpty()) {
+            return ResponseEntity.status(400).body("Itens do pedido são obrigatórios");
+        }
+        
+        // Agrupar quantidades por produto (o mesmo produto pode aparecer em mais de uma linha)
+        Map<Integer, Integer> quantidades = new LinkedHashMap<>();
+        for (ItemPedidoDto itemDto : itens) {
+            if (itemDto.getProdutoId() == null) {
+                return ResponseEntity.status(400).body("Produto ID é obrigatório");
+            }
+            if (itemDto.getQuantidade() == null || itemDto.getQuantidade() <= 0) {
+                return ResponseEntity.status(400)
+                    .body("Quantidade inválida para o produto: " + itemDto.getProdutoId());
+            }
+            quantidades.merge(itemDto.getProdutoId(), itemDto.getQuantidade(), Integer::sum);
+        }
+        if (sessao != null && !sessao.getQuantidades().equals(quantidades)) {
+            return ResponseEntity.status(400).body("Itens do pedido não correspondem à sessão de checkout");
+        }
+        
+        // Cotação do checkout: tem que existir, ser do mesmo CEP e conter o frete escolhido
+        String cotacaoFreteId = request.getCotacaoFreteId() != null || sessao == null
+            ? request.getCotacaoFreteId()
+            : sessao.getCotacaoFreteId();
+        CotacaoFreteService.Cotacao cotacaoFrete = null;
+        if (cotacaoFreteId != null) {
+            cotacaoFrete = cotacaoFreteService.resgatar(cotacaoFreteId, request.getCepEntrega()).orElse(null);
+            if (cotacaoFrete == null) {
+                return ResponseEntity.status(400).body("Cotação de frete inválida ou expirada");
+            }
+            if (request.getValorFreteEscolhido() != null && !cotacaoFrete.contemValor(request.getValorFreteEscolhido())) {
+                return ResponseEntity.status(400).body("Valor de frete não corresponde à cotação");
+            }
+        }
+        
+        Cliente cliente;
+        if (sessao != null) {
+            // Existência e status do cliente conferidos ao abrir a sessão: só a referência para a FK, sem SELECT
+            cliente = clienteRepository.getReferenceById(request.getClienteId());
+        } else {
+            cliente = clienteRepository.findById(request.getClienteId())
                 .orElse(null);
             if (cliente == null) {
-                System.out.println("ERRO: Cliente não encontrado no banco");
                 return ResponseEntity.status(404).body("Cliente não encontrado");
             }
             
-            System.out.println("Cliente encontrado: " + cliente.getNome());
             if (!cliente.getStatus()) {
-                System.out.println("ERRO: Cliente está inativo");
                 return ResponseEntity.status(403).body("Cliente inativo");
             }
-            
-            // Gerar número do pedido
-            String numeroPedido = gerarNumeroPedido();
-            
-            // Criar pedido
-            Pedido pedido = new Pedido(cliente, numeroPedido);
-            pedido.setEnderecoEntregaCep(request.getCepEntrega());
-            pedido.setEnderecoEntregaLogradouro(request.getEnderecoEntregaLogradouro());
-            pedido.setEnderecoEntregaNumero(request.getEnderecoEntregaNumero());
-            pedido.setEnderecoEntregaComplemento(request.getEnderecoEntregaComplemento());
-            pedido.setEnderecoEntregaBairro(request.getEnderecoEntregaBairro());
-            pedido.setEnderecoEntregaCidade(request.getEnderecoEntregaCidade());
-            pedido.setEnderecoEntregaUf(request.getEnderecoEntregaUf());
-            pedido.setObservacoes(request.getObservacoes());
-            
-            BigDecimal subtotal = BigDecimal.ZERO;
-            
-            // Validar e adicionar itens
-            for (ItemPedidoDto itemDto : request.getItens()) {
-                Produto produto = produtoRepository.findById(itemDto.getProdutoId())
-                    .orElse(null);
-                if (produto == null) {
-                    return ResponseEntity.status(400)
-                        .body("Produto não encontrado: " + itemDto.getProdutoId());
-                }
-                
-                if (!produto.getStatus()) {
-                    return ResponseEntity.status(400)
-                        .body("Produto inativo: " + produto.getNome());
-                }
-                
-                if (produto.getQuantidadeEstoque() < itemDto.getQuantidade()) {
-                    return ResponseEntity.status(400)
-                        .body("Estoque insuficiente para: " + produto.getNome());
+        }
+        
+        // Reservar estoque de todos os itens (baixa atômica por SKU)
+        ResultadoReserva reserva = reservaEstoqueService.reservar(quantidades);
+        if (!reserva.isSucesso()) {
+            status.setRollbackOnly();
+            ItemReserva falha = reserva.getPrimeiraFalha();
+            switch (falha.getSituacao()) {
+                case PRODUTO_NAO_ENCONTRADO:
+                    return ResponseEntity.status(400).body("Produto não encontrado: " + falha.getProdutoId());
+                case PRODUTO_INATIVO:
+                    return ResponseEntity.status(400).body("Produto inativo: " + falha.getProduto().getNome());
+                default:
+                    return ResponseEntity.status(400).body("Estoque insuficiente para: " + falha.getProduto().getNome());
+            }
+        }
+        // Estoque mudou: leituras do catálogo desses produtos ficam inválidas
+        catalogoCache.invalidarProdutos(quantidades.keySet());
+        
+        // Gerar número do pedido
+        String numeroPedido = numeroPedidoService.gerar();
+        
+        // Criar pedido
+        Pedido pedido = new Pedido(cliente, numeroPedido);
+        pedido.setEnderecoEntregaCep(request.getCepEntrega());
+        pedido.setEnderecoEntregaLogradouro(request.getEnderecoEntregaLogradouro());
+        pedido.setEnderecoEntregaNumero(request.getEnderecoEntregaNumero());
+        pedido.setEnderecoEntregaComplemento(request.getEnderecoEntregaComplemento());
+        pedido.setEnderecoEntregaBairro(request.getEnderecoEntregaBairro());
+        pedido.setEnderecoEntregaCidade(request.getEnderecoEntregaCidade());
+        pedido.setEnderecoEntregaUf(request.getEnderecoEntregaUf());
+        pedido.setObservacoes(request.getObservacoes());
+        pedido.setChaveIdempotencia(chaveIdempotencia);
+        
+        BigDecimal subtotal = BigDecimal.ZERO;
+        
+        // Adicionar itens
+        for (ItemPedidoDto itemDto : itens) {
+            Produto produto = reserva.getProduto(itemDto.getProdutoId());
+            BigDecimal precoUnitario = itemDto.getPrecoUnitario();
+            if (sessao != null) {
+                // Estoque e status já passaram pela baixa condicional; o preço cotado vale enquanto
+                // a versão do produto for a da sessão, e só o que mudou é comparado de novo
+                SessaoCheckoutService.ItemCotado cotado = sessao.getItem(produto.getId());
+                if (!cotado.versaoProduto().equals(produto.getVersao())
+                        && cotado.precoUnitario().compareTo(produto.getPreco()) != 0) {
+                    status.setRollbackOnly();
+                    return ResponseEntity.status(409).body("Preço alterado desde o checkout: " + produto.getNome());
                 }
-                
-                // Criar item do pedido
-                ItemPedido itemPedido = new ItemPedido(pedido, produto, 
-                    itemDto.getQuantidade(), itemDto.getPrecoUnitario());
-                
-                pedido.adicionarItem(itemPedido);
-                subtotal = subtotal.add(itemPedido.getSubtotal());
-                
-                // Atualizar estoque
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - itemDto.getQuantidade());
-                produtoRepository.save(produto);
+                precoUnitario = cotado.precoUnitario();
             }
+            ItemPedido itemPedido = new ItemPedido(pedido, produto, 
+                itemDto.getQuantidade(), precoUnitario);
             
-            // Calcular frete (usar valor escolhido pelo cliente se enviado, caso contrário usar serviço/fallback)
-            BigDecimal valorFrete = BigDecimal.ZERO;
+            pedido.adicionarItem(itemPedido);
+            subtotal = subtotal.add(itemPedido.getSubtotal());
+        }
+        
+        // Calcular frete (usar valor escolhido pelo cliente se enviado, caso contrário usar serviço/fallback)
+        BigDecimal valorFrete = BigDecimal.ZERO;
 
-            if (request.getValorFreteEscolhido() != null) {
-                valorFrete = request.getValorFreteEscolhido();
-            } else {
-                var freteInfo = freteService.calcularFretePorCep(request.getCepEntrega());
+        if (cotacaoFrete != null) {
+            valorFrete = request.getValorFreteEscolhido() != null
+                ? request.getValorFreteEscolhido()
+                : cotacaoFrete.getValorPadrao();
+        } else if (request.getValorFreteEscolhido() != null) {
+            valorFrete = request.getValorFreteEscolhido();
+        } else {
+            var freteInfo = cotacaoFreteService.cotar(request.getCepEntrega(), subtotal).getOpcoes();
 
-                if (freteInfo != null && freteInfo.get("padrao") != null) {
-                    Object padraoObj = freteInfo.get("padrao");
-                    if (padraoObj instanceof Number) {
-                        valorFrete = BigDecimal.valueOf(((Number) padraoObj).doubleValue());
-                    } else {
-                        try {
-                            valorFrete = new BigDecimal(padraoObj.toString());
-                        } catch (Exception e) {
-                            // Se conversão falhar, usar fallback
-                            System.out.println("Aviso: valor de frete inválido retornado pelo serviço de frete. Usando valor fictício.");
-                        }
+            if (freteInfo != null && freteInfo.get("padrao") != null) {
+                Object padraoObj = freteInfo.get("padrao");
+                if (padraoObj instanceof Number) {
+                    valorFrete = BigDecimal.valueOf(((Number) padraoObj).doubleValue());
+                } else {
+                    try {
+                        valorFrete = new BigDecimal(padraoObj.toString());
+                    } catch (Exception e) {
+                        // Se conversão falhar, usar fallback
+                        log.warn("Valor de frete inválido retornado pelo serviço de frete ({}); usando frete fictício", padraoObj);
                     }
                 }
-
-                if (valorFrete.compareTo(BigDecimal.ZERO) == 0) {
-                    // Fallback: frete fictício = max( R$10.00, 10% do subtotal )
-                    BigDecimal percentual = subtotal.multiply(new BigDecimal("0.10"));
-                    BigDecimal minimo = new BigDecimal("10.00");
-                    BigDecimal calculado = percentual.setScale(2, RoundingMode.HALF_UP);
-                    valorFrete = calculado.compareTo(minimo) < 0 ? minimo : calculado;
-                    System.out.println("Aviso: serviço de frete indisponível ou sem valor. Aplicando frete fictício: R$ " + valorFrete);
-                }
             }
-            
-            pedido.setSubtotal(subtotal);
-            pedido.setValorFrete(valorFrete);
-            pedido.setValorTotal(subtotal.add(valorFrete));
-            
-            System.out.println("Status do pedido antes de salvar: " + pedido.getStatus());
-            System.out.println("Status em string: " + pedido.getStatus().name());
-            
-            // Salvar pedido
-            Pedido pedidoSalvo = pedidoRepository.save(pedido);
-            
-            // Limpar carrinho do cliente - tente remover, mas não falhe o pedido se houver problema na remoção
-            try {
-                carrinhoRepository.deleteByClienteId(request.getClienteId());
-            } catch (Exception ex) {
-                // Log de advertência — não queremos impedir a criação do pedido por falha na limpeza do carrinho
-                System.out.println("Aviso: não foi possível limpar o carrinho do cliente (id=" + request.getClienteId() + "): " + ex.getMessage());
+
+            if (valorFrete.compareTo(BigDecimal.ZERO) == 0) {
+                // Fallback: frete fictício = max( R$10.00, 10% do subtotal )
+                BigDecimal percentual = subtotal.multiply(new BigDecimal("0.10"));
+                BigDecimal minimo = new BigDecimal("10.00");
+                BigDecimal calculado = percentual.setScale(2, RoundingMode.HALF_UP);
+                valorFrete = calculado.compareTo(minimo) < 0 ? minimo : calculado;
+                log.warn("Serviço de frete sem valor para o CEP {}; aplicando frete fictício de R$ {}",
+                    request.getCepEntrega(), valorFrete);
             }
-            
-            return ResponseEntity.status(201).body(pedidoSalvo);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro interno do servidor");
+        }
+        
+        pedido.setSubtotal(subtotal);
+        pedido.setValorFrete(valorFrete);
+        pedido.setValorTotal(subtotal.add(valorFrete));
+        
+        // Salvar pedido
+        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+        eventosPedidoService.registrarCriacao(pedidoSalvo);
+        tendenciaVendasService.registrarAposCommit(pedidoSalvo);
+        if (sessao != null) {
+            sessaoCheckoutService.consumir(sessao);
+        }
+        
+        // Limpar carrinho do cliente - tente remover, mas não falhe o pedido se houver problema na remoção
+        try {
+            carrinhoService.limparAposPedido(request.getClienteId());
+        } catch (Exception ex) {
+            // Log de advertência — não queremos impedir a criação do pedido por falha na limpeza do carrinho
+            log.warn("Não foi possível limpar o carrinho do cliente {}: {}", request.getClienteId(), ex.getMessage());
+        }
+        
+        // Campos estruturados (viram chaves próprias no log JSON), sem montar a mensagem se o nível estiver desligado
+        log.atInfo().setMessage("Pedido criado")
+            .addKeyValue("pedido", pedidoSalvo.getNumeroPedido())
+            .addKeyValue("clienteId", request.getClienteId())
+            .addKeyValue("itens", pedidoSalvo.getItens().size())
+            .addKeyValue("valorTotal", pedidoSalvo.getValorTotal())
+            .log();
+        
+        return ResponseEntity.status(201).body(pedidoSalvo);
+    }
+    
+    // Resumo do corpo da requisição: a mesma chave com outro conteúdo não pode reaproveitar o resultado
+    private String impressao(CriarPedidoRequest request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Não foi possível resumir a requisição do pedido", e);
+        }
+    }
+    
+    // Guardado por chave: do pedido criado só o id, relido ao repetir a resposta
+    private static IdempotenciaPedidoService.Registro registro(String impressao, ResponseEntity<?> response) {
+        Object corpo = response.getBody() instanceof Pedido pedido ? pedido.getId() : response.getBody();
+        return new IdempotenciaPedidoService.Registro(impressao, response.getStatusCode().value(), corpo);
+    }
+    
+    private ResponseEntity<?> repetir(IdempotenciaPedidoService.Registro registro) {
+        if (registro.corpo() instanceof Long pedidoId) {
+            return consultaPedidoService.buscarPorId(pedidoId)
+                .<ResponseEntity<?>>map(pedido -> ResponseEntity.status(registro.status())
+                    .header(CABECALHO_REPETIDO, "true").body(pedido))
+                .orElseGet(() -> ResponseEntity.status(404).body("Pedido não encontrado"));
+        }
+        return ResponseEntity.status(registro.status()).header(CABECALHO_REPETIDO, "true").body(registro.corpo());
+    }
+    
+    private static List<ItemPedidoDto> itensDaSessao(SessaoCheckoutService.Sessao sessao) {
+        return sessao.getItens().stream().map(cotado -> {
+            ItemPedidoDto item = new ItemPedidoDto();
+            item.setProdutoId(cotado.produtoId());
+            item.setQuantidade(cotado.quantidade());
+            item.setPrecoUnitario(cotado.precoUnitario());
+            return item;
+        }).toList();
+    }
+    
+    private void aguardarNovaTentativa(int tentativa) {
+        try {
+            // Backoff com jitter para que os pedidos em conflito não colidam de novo ao mesmo tempo
+            Thread.sleep(tentativa * 10L + ThreadLocalRandom.current().nextInt(20));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
         }
     }
     
@@ -268,7 +547,7 @@ public class PedidoController {
             }
             
             Pageable pageable = PageRequest.of(page, size);
-            Page<Pedido> pedidos = pedidoRepository.findByClienteIdOrderByDataPedidoDesc(clienteId, pageable);
+            Page<PedidoResumoDto> pedidos = consultaPedidoService.listarPorCliente(clienteId, pageable);
             
             return ResponseEntity.ok(pedidos);
         } catch (Exception e) {
@@ -280,7 +559,7 @@ public class PedidoController {
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarPedido(@PathVariable Long id) {
         try {
-            Optional<Pedido> pedido = pedidoRepository.findById(id);
+            Optional<Pedido> pedido = consultaPedidoService.buscarPorId(id);
             if (pedido.isEmpty()) {
                 return ResponseEntity.status(404).body("Pedido não encontrado");
             }
@@ -295,7 +574,7 @@ public class PedidoController {
     @GetMapping("/numero/{numeroPedido}")
     public ResponseEntity<?> buscarPedidoPorNumero(@PathVariable String numeroPedido) {
         try {
-            Optional<Pedido> pedido = pedidoRepository.findByNumeroPedido(numeroPedido);
+            Optional<Pedido> pedido = consultaPedidoService.buscarPorNumero(numeroPedido);
             if (pedido.isEmpty()) {
                 return ResponseEntity.status(404).body("Pedido não encontrado");
             }
@@ -316,17 +595,17 @@ public class PedidoController {
             @RequestParam(required = false) String status) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Pedido> pedidos;
+            Page<PedidoResumoDto> pedidos;
             
             if (status != null && !status.isEmpty()) {
                 try {
                     Pedido.StatusPedido statusEnum = Pedido.StatusPedido.valueOf(status.toUpperCase());
-                    pedidos = pedidoRepository.findByStatusOrderByDataPedidoDesc(statusEnum, pageable);
+                    pedidos = consultaPedidoService.listarTodos(statusEnum, pageable);
                 } catch (IllegalArgumentException e) {
                     return ResponseEntity.status(400).body("Status inválido");
                 }
             } else {
-                pedidos = pedidoRepository.findAll(pageable);
+                pedidos = consultaPedidoService.listarTodos(null, pageable);
             }
             
             return ResponseEntity.ok(pedidos);
@@ -342,7 +621,7 @@ public class PedidoController {
             @RequestParam(defaultValue = "10") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Pedido> pedidos = pedidoRepository.findAllByOrderByDataPedidoDesc(pageable);
+            Page<PedidoResumoDto> pedidos = consultaPedidoService.listarTodos(null, pageable);
             
             return ResponseEntity.ok(pedidos);
         } catch (Exception e) {
@@ -350,34 +629,131 @@ public class PedidoController {
         }
     }
     
-    // Sprint 6 - Alterar status do pedido (para estoquista)
+    // Listagem admin por cursor (keyset): ativada pelo parâmetro cursor (vazio na primeira página)
+    @GetMapping(value = "/admin", params = "cursor")
+    public ResponseEntity<?> listarTodosPedidosPorCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status) {
+        Pedido.StatusPedido statusEnum = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                statusEnum = Pedido.StatusPedido.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(400).body("Status inválido");
+            }
+        }
+        return listarPorCursor(statusEnum, cursor, size);
+    }
+    
+    @GetMapping(value = "/admin/todos", params = "cursor")
+    public ResponseEntity<?> listarTodosPedidosAdminPorCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return listarPorCursor(null, cursor, size);
+    }
+    
+    private ResponseEntity<?> listarPorCursor(Pedido.StatusPedido status, String cursor, int size) {
+        if (size < 1) {
+            return ResponseEntity.status(400).body("Tamanho de página inválido");
+        }
+        LocalDateTime data;
+        Long id;
+        try {
+            PaginaCursor.Posicao posicao = PaginaCursor.decodificar(cursor);
+            data = posicao != null ? posicao.comoDataHora() : null;
+            id = posicao != null ? posicao.getId() : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Cursor inválido");
+        }
+        try {
+            Slice<PedidoResumoDto> pedidos = consultaPedidoService.listarPorCursor(status, data, id, size);
+            return ResponseEntity.ok(PaginaCursor.de(pedidos, p -> PaginaCursor.codificar(p.getDataPedido(), p.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Erro interno do servidor");
+        }
+    }
+    
+    // Sprint 6 - Alterar status do pedido (para estoquista), respeitando a máquina de estados
     @PutMapping("/{id}/status")
     public ResponseEntity<?> alterarStatusPedido(
             @PathVariable Long id,
             @RequestBody AtualizarStatusRequest request) {
+        if (request.getStatus() == null) {
+            return ResponseEntity.status(400).body("Status é obrigatório");
+        }
         try {
-            Optional<Pedido> pedidoOpt = pedidoRepository.findById(id);
-            if (!pedidoOpt.isPresent()) {
-                return ResponseEntity.status(404).body("Pedido não encontrado");
+            StatusPedidoService.Resultado resultado = statusPedidoService.alterar(id, request.getStatus());
+            switch (resultado.situacao()) {
+                case NAO_ENCONTRADO:
+                    return ResponseEntity.status(404).body("Pedido não encontrado");
+                case TRANSICAO_INVALIDA:
+                    return ResponseEntity.status(409).body("Transição de status inválida: "
+                        + resultado.statusAnterior() + " -> " + resultado.status());
+                case CONFLITO:
+                    return ResponseEntity.status(409).body("Status do pedido alterado por outra operação, tente novamente");
+                default:
+                    Map<String, Object> resposta = new LinkedHashMap<>();
+                    resposta.put("id", id);
+                    resposta.put("statusAnterior", resultado.statusAnterior());
+                    resposta.put("status", resultado.status());
+                    resposta.put("dataAtualizacao", resultado.dataAtualizacao());
+                    resposta.put("proximosStatus", resultado.status().getProximos());
+                    return ResponseEntity.ok(resposta);
             }
-            
-            Pedido pedido = pedidoOpt.get();
-            pedido.setStatus(request.getStatus());
-            pedido.setDataAtualizacao(LocalDateTime.now());
-            
-            pedidoRepository.save(pedido);
-            
-            return ResponseEntity.ok(pedido);
-            
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Erro interno do servidor");
         }
     }
     
-    // Método auxiliar para gerar número do pedido
-    private String gerarNumeroPedido() {
-        LocalDateTime agora = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-        return "PED" + agora.format(formatter) + String.format("%03d", (int)(Math.random() * 1000));
+    // Alterar status de vários pedidos de uma vez; o progresso sai em NDJSON, uma linha por bloco processado
+    @PostMapping("/status/lote")
+    public ResponseEntity<StreamingResponseBody> alterarStatusEmLote(@RequestBody AlterarStatusLoteRequest request) {
+        Pedido.StatusPedido novo = request.getStatus();
+        if (novo == null) {
+            return erroLote(400, "Status é obrigatório");
+        }
+        boolean porIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean porFiltro = request.getStatusAtual() != null || request.getDataInicio() != null || request.getDataFim() != null;
+        if (porIds == porFiltro) {
+            return erroLote(400, "Informe a lista de ids ou o filtro (statusAtual, dataInicio e dataFim), não os dois");
+        }
+        StreamingResponseBody corpo;
+        if (porIds) {
+            if (request.getIds().size() > MAX_IDS_LOTE || request.getIds().contains(null)) {
+                return erroLote(400, "Lista de ids inválida (máximo " + MAX_IDS_LOTE + ")");
+            }
+            List<Long> ids = List.copyOf(request.getIds());
+            corpo = saida -> statusPedidoLoteService.alterar(ids, novo, p -> escreverLinha(saida, p));
+        } else {
+            Pedido.StatusPedido statusAtual = request.getStatusAtual();
+            if (statusAtual == null || request.getDataInicio() == null || request.getDataFim() == null
+                    || request.getDataInicio().isAfter(request.getDataFim())) {
+                return erroLote(400, "Filtro exige statusAtual, dataInicio e dataFim (dataInicio <= dataFim)");
+            }
+            if (statusAtual != novo && !statusAtual.podeMudarPara(novo)) {
+                return erroLote(409, "Transição de status inválida: " + statusAtual + " -> " + novo);
+            }
+            LocalDateTime inicio = request.getDataInicio().atStartOfDay();
+            LocalDateTime fim = request.getDataFim().plusDays(1).atStartOfDay();
+            corpo = saida -> statusPedidoLoteService.alterarPorFiltro(statusAtual, inicio, fim, novo,
+                p -> escreverLinha(saida, p));
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(corpo);
+    }
+    
+    private void escreverLinha(OutputStream saida, StatusPedidoLoteService.Progresso progresso) {
+        try {
+            saida.write(objectMapper.writeValueAsBytes(progresso));
+            saida.write('\n');
+            saida.flush();
+        } catch (IOException e) {
+            // Cliente desconectado: o lote segue até o fim e o resultado fica nos pedidos
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> erroLote(int status, String mensagem) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+            .body(saida -> saida.write(mensagem.getBytes(StandardCharsets.UTF_8)));
     }
 }
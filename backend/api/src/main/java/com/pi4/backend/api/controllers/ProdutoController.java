@@ -1,14 +1,28 @@
 package com.pi4.backend.api.controllers;
 
 import java.math.BigDecimal;
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import org.hibernate.Hibernate;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,20 +33,37 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.pi4.backend.api.dto.PaginaCursor;
 import com.pi4.backend.api.entities.Produto;
 import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.BuscaProdutoService;
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.EstatisticasProdutoService;
+import com.pi4.backend.api.services.EstatisticasProdutoService.Contribuicao;
 
 @RestController
 @RequestMapping("/api/produtos")
 public class ProdutoController {
 
     private final ProdutoRepository repository;
+    private final CatalogoCacheService cache;
+    private final EstatisticasProdutoService estatisticas;
+    private final BuscaProdutoService busca;
+    // Acima disso a lista de ids do índice vira um IN grande demais e é consultada em blocos
+    private final int idsPorConsulta;
 
-    public ProdutoController(ProdutoRepository repository) {
+    public ProdutoController(ProdutoRepository repository, CatalogoCacheService cache,
+                             EstatisticasProdutoService estatisticas, BuscaProdutoService busca,
+                             @Value("${produtos.busca.ids-por-consulta:10000}") int idsPorConsulta) {
         this.repository = repository;
+        this.cache = cache;
+        this.estatisticas = estatisticas;
+        this.busca = busca;
+        this.idsPorConsulta = idsPorConsulta;
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public ResponseEntity<Page<Produto>> listar(
             @RequestParam(value = "q", required = false) String query,
             @RequestParam(value = "page", defaultValue = "0") int page,
@@ -54,35 +85,192 @@ public class ProdutoController {
         
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Produto> result;
-        if (query != null && !query.isBlank()) {
-            if (status != null) {
-                result = repository.findByNomeContainingIgnoreCaseAndStatus(query.trim(), status, pageable);
+        String chave = CatalogoCacheService.chaveConsulta(query, status, page, size, sortParam)
+            + (busca.isPronto() ? "" : "|sem-indice");
+        Page<Produto> result = cache.consulta(chave, () -> {
+            Page<Produto> pagina;
+            boolean comBusca = query != null && !query.isBlank();
+            if (comBusca && busca.isPronto()) {
+                List<Integer> ids = busca.buscar(query);
+                pagina = ids.isEmpty() ? Page.empty(pageable) : paginarIds(ids, status, pageable);
+            } else if (comBusca) {
+                // Índice ainda sendo montado na subida: busca por nome no banco, em cache à parte
+                if (status != null) {
+                    pagina = repository.findByNomeContainingIgnoreCaseAndStatus(query.trim(), status, pageable);
+                } else {
+                    pagina = repository.findByNomeContainingIgnoreCase(query.trim(), pageable);
+                }
             } else {
-                result = repository.findByNomeContainingIgnoreCase(query.trim(), pageable);
+                if (status != null) {
+                    pagina = repository.findByStatus(status, pageable);
+                } else {
+                    pagina = repository.findAll(pageable);
+                }
             }
-        } else {
-            if (status != null) {
-                result = repository.findByStatus(status, pageable);
+            return comImagens(pagina);
+        }, pagina -> pagina.map(Produto::copia));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Listagem por cursor: ativada pelo parâmetro {@code cursor} (vazio na primeira página).
+     * Sempre do mais novo para o mais antigo (dataCriacao, id); sem total de páginas.
+     */
+    @GetMapping(params = "cursor")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPorCursor(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "status", required = false) Boolean status,
+            @RequestParam(value = "sort", required = false) String sortParam,
+            @RequestParam(value = "cursor") String cursor) {
+
+        if (size < 1) {
+            return ResponseEntity.badRequest().body("Tamanho de página inválido");
+        }
+        if (sortParam != null && !sortParam.isBlank()) {
+            return ResponseEntity.badRequest().body("Ordenação personalizada não é suportada com cursor");
+        }
+        Instant data;
+        Integer id;
+        try {
+            PaginaCursor.Posicao posicao = PaginaCursor.decodificar(cursor);
+            data = posicao != null ? posicao.comoInstant() : null;
+            id = posicao != null ? Math.toIntExact(posicao.getId()) : null;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return ResponseEntity.badRequest().body("Cursor inválido");
+        }
+
+        Pageable limite = PageRequest.of(0, size);
+        String chave = CatalogoCacheService.chaveConsulta(query, status, 0, size, "cursor:" + cursor)
+            + (busca.isPronto() ? "" : "|sem-indice");
+        PaginaCursor<Produto> result = cache.consulta(chave, () -> {
+            Slice<Produto> fatia;
+            boolean comBusca = query != null && !query.isBlank();
+            if (comBusca && busca.isPronto()) {
+                List<Integer> ids = busca.buscar(query);
+                fatia = ids.isEmpty()
+                    ? new SliceImpl<>(List.of(), limite, false)
+                    : fatiarIds(ids, status, data, id, limite);
+            } else if (comBusca) {
+                // Índice ainda sendo montado na subida
+                fatia = repository.buscarPorNomeECursor(query.trim(), status, data, id, limite);
             } else {
-                result = repository.findAll(pageable);
+                fatia = repository.buscarPorCursor(status, data, id, limite);
             }
-        }
+            comImagens(fatia);
+            return PaginaCursor.de(fatia, p -> PaginaCursor.codificar(p.getDataCriacao(), p.getId()));
+        }, pagina -> pagina.map(Produto::copia));
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Página dos produtos com esses ids. Com mais ids do que cabem num IN, cada bloco traz só as
+     * linhas que podem cair na página (as primeiras offset + tamanho na mesma ordenação, com o id
+     * desempatando) e a página sai da junção dos blocos; o total é a soma das contagens.
+     */
+    private Page<Produto> paginarIds(List<Integer> ids, Boolean status, Pageable pageable) {
+        if (ids.size() <= idsPorConsulta) {
+            return status != null
+                ? repository.findByIdInAndStatus(ids, status, pageable)
+                : repository.findByIdIn(ids, pageable);
+        }
+        Sort ordem = pageable.getSort().getOrderFor("id") != null
+            ? pageable.getSort()
+            : pageable.getSort().and(Sort.by("id"));
+        Pageable topo = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), ordem);
+        List<Produto> candidatos = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < ids.size(); i += idsPorConsulta) {
+            List<Integer> bloco = ids.subList(i, Math.min(ids.size(), i + idsPorConsulta));
+            Page<Produto> parte = status != null
+                ? repository.findByIdInAndStatus(bloco, status, topo)
+                : repository.findByIdIn(bloco, topo);
+            candidatos.addAll(parte.getContent());
+            total += parte.getTotalElements();
+        }
+        candidatos.sort(comparador(ordem));
+        int inicio = (int) Math.min(pageable.getOffset(), candidatos.size());
+        int fim = Math.min(inicio + pageable.getPageSize(), candidatos.size());
+        return new PageImpl<>(new ArrayList<>(candidatos.subList(inicio, fim)), pageable, total);
+    }
+
+    /** Como {@link #paginarIds}, para o cursor: cada bloco traz no máximo uma página depois da posição. */
+    private Slice<Produto> fatiarIds(List<Integer> ids, Boolean status, Instant data, Integer id, Pageable limite) {
+        if (ids.size() <= idsPorConsulta) {
+            return repository.buscarPorIdsECursor(ids, status, data, id, limite);
+        }
+        List<Produto> candidatos = new ArrayList<>();
+        boolean maisNoBanco = false;
+        for (int i = 0; i < ids.size(); i += idsPorConsulta) {
+            List<Integer> bloco = ids.subList(i, Math.min(ids.size(), i + idsPorConsulta));
+            Slice<Produto> parte = repository.buscarPorIdsECursor(bloco, status, data, id, limite);
+            candidatos.addAll(parte.getContent());
+            maisNoBanco |= parte.hasNext();
+        }
+        candidatos.sort(Comparator.comparing(Produto::getDataCriacao).thenComparing(Produto::getId).reversed());
+        int tamanho = limite.getPageSize();
+        boolean maisPaginas = maisNoBanco || candidatos.size() > tamanho;
+        return new SliceImpl<>(new ArrayList<>(candidatos.subList(0, Math.min(tamanho, candidatos.size()))),
+            limite, maisPaginas);
+    }
+
+    /**
+     * Mesma ordem do ORDER BY: nulos como menores valores (MySQL e H2) e textos sem diferenciar
+     * maiúsculas e acentos, como a collation da tabela.
+     */
+    private static Comparator<Produto> comparador(Sort ordem) {
+        Collator collator = Collator.getInstance(Locale.forLanguageTag("pt-BR"));
+        collator.setStrength(Collator.PRIMARY);
+        Comparator<Produto> resultado = (a, b) -> 0;
+        for (Sort.Order campo : ordem) {
+            Comparator<Produto> porCampo = (a, b) -> comparar(valor(a, campo.getProperty()),
+                valor(b, campo.getProperty()), collator);
+            resultado = resultado.thenComparing(campo.isAscending() ? porCampo : porCampo.reversed());
+        }
+        return resultado;
+    }
+
+    private static Object valor(Produto produto, String propriedade) {
+        return new BeanWrapperImpl(produto).getPropertyValue(propriedade);
+    }
+
+    @SuppressWarnings("unchecked") // só propriedades simples da entidade (texto, número, data, booleano)
+    private static int comparar(Object a, Object b, Collator collator) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        if (a instanceof String texto) return collator.compare(texto, (String) b);
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
     @GetMapping("/todos")
     public List<Produto> todosProdutos() {
-        return this.repository.findAll();
+        return cache.consulta("todos", () -> comImagens(this.repository.findAll()),
+            produtos -> produtos.stream().map(Produto::copia).toList());
     }
     
     @GetMapping("/{id:[0-9]+}")
     public ResponseEntity<Produto> buscarPorId(@PathVariable Integer id) {
-        return repository.findById(id)
+        return cache.produto(id, () -> repository.findById(id).map(this::comImagens))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCache() {
+        return ResponseEntity.ok(cache.estatisticas());
+    }
+
+    // Objetos em cache são servidos fora da sessão: as imagens (lazy) precisam estar carregadas
+    private Produto comImagens(Produto produto) {
+        Hibernate.initialize(produto.getImagens());
+        return produto;
+    }
+
+    private <T extends Iterable<Produto>> T comImagens(T produtos) {
+        produtos.forEach(this::comImagens);
+        return produtos;
+    }
+
     @PostMapping
     public ResponseEntity<Produto> criar(@RequestBody Produto produto) {
         if (produto.getNome() == null || produto.getPreco() == null) {
@@ -100,53 +288,75 @@ public class ProdutoController {
             boolean stepValido = av.multiply(new BigDecimal("10")).remainder(new BigDecimal("5")).intValue() == 0;
             if (!(range && stepValido)) return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.status(HttpStatus.CREATED).body(repository.save(produto));
+        Produto salvo = repository.save(produto);
+        busca.indexar(salvo);
+        cache.invalidarProduto(salvo.getId());
+        estatisticas.registrarAlteracao(null, salvo);
+        return ResponseEntity.status(HttpStatus.CREATED).body(salvo);
     }
 
+    // Transação + @DynamicUpdate em Produto: o UPDATE só leva as colunas alteradas e não
+    // regrava um qtd_estoque lido antes de uma baixa de estoque concorrente
     @PutMapping("/{id:[0-9]+}")
+    @Transactional
     public ResponseEntity<Produto> atualizar(@PathVariable Integer id, @RequestBody Produto produtoAtualizado) {
         var opt = repository.findById(id);
         if (opt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        Produto p = opt.get();
-        if (produtoAtualizado.getDescricao() != null) {
-            if (produtoAtualizado.getDescricao().length() == 0 || produtoAtualizado.getDescricao().length() > 2000) {
-                return ResponseEntity.badRequest().build();
-            }
-            p.setDescricao(produtoAtualizado.getDescricao());
+        // Tudo validado antes de mexer em p: a entidade é gerenciada e um 400 no meio do caminho
+        // ainda gravaria no commit o que já tivesse sido alterado
+        String descricao = produtoAtualizado.getDescricao();
+        if (descricao != null && (descricao.length() == 0 || descricao.length() > 2000)) {
+            return ResponseEntity.badRequest().build();
         }
-        if (produtoAtualizado.getAvaliacao() != null) {
-            BigDecimal av = produtoAtualizado.getAvaliacao();
+        BigDecimal av = produtoAtualizado.getAvaliacao();
+        if (av != null) {
             boolean range = av.compareTo(new BigDecimal("1.0")) >= 0 && av.compareTo(new BigDecimal("5.0")) <= 0;
             boolean stepValido = av.multiply(new BigDecimal("10")).remainder(new BigDecimal("5")).intValue() == 0;
             if (!(range && stepValido)) {
                 return ResponseEntity.badRequest().build();
             }
-            p.setAvaliacao(av);
         }
+        Produto p = opt.get();
+        Contribuicao antes = estatisticas.capturar(p);
+        if (descricao != null) p.setDescricao(descricao);
+        if (av != null) p.setAvaliacao(av);
         if (produtoAtualizado.getNome() != null) p.setNome(produtoAtualizado.getNome());
         if (produtoAtualizado.getPreco() != null) p.setPreco(produtoAtualizado.getPreco());
         if (produtoAtualizado.getQuantidadeEstoque() != null) p.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
         if (produtoAtualizado.getStatus() != null) p.setStatus(produtoAtualizado.getStatus());
         Produto salvo = repository.save(p);
+        busca.indexar(salvo);
+        cache.invalidarProduto(id);
+        estatisticas.registrarAlteracao(antes, salvo);
         return ResponseEntity.ok(salvo);
     }
 
     @DeleteMapping("/{id:[0-9]+}")
     public ResponseEntity<Void> deletar(@PathVariable Integer id) {
-        if (!repository.existsById(id)) {
+        var opt = repository.findById(id);
+        if (opt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        Contribuicao antes = estatisticas.capturar(opt.get());
         repository.deleteById(id);
+        busca.remover(id);
+        cache.invalidarProduto(id);
+        estatisticas.registrarAlteracao(antes, null);
         return ResponseEntity.noContent().build();
     }
 
     @PutMapping("/{id:[0-9]+}/status")
+    @Transactional
     public ResponseEntity<Produto> toggleStatus(@PathVariable Integer id) {
         return repository.findById(id).map(p -> {
+            Contribuicao antes = estatisticas.capturar(p);
             p.setStatus(!Boolean.TRUE.equals(p.getStatus()));
-            return ResponseEntity.ok(repository.save(p));
+            Produto salvo = repository.save(p);
+            cache.invalidarProduto(id);
+            estatisticas.registrarAlteracao(antes, salvo);
+            return ResponseEntity.ok(salvo);
         }).orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 }
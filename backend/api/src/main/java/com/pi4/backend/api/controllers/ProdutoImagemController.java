@@ -9,7 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -23,8 +25,11 @@ import com.pi4.backend.api.entities.Produto;
 import com.pi4.backend.api.entities.ProdutoImagem;
 import com.pi4.backend.api.repositories.ProdutoImagemRepository;
 import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.ColetaImagemService;
 import com.pi4.backend.api.services.ImagemStorageService;
 import com.pi4.backend.api.services.ImagemStorageService.StoredImage;
+import com.pi4.backend.api.services.VarianteImagemService;
 
 @RestController
 @RequestMapping("/api/produtos/{id:[0-9]+}/imagens")
@@ -35,53 +40,97 @@ public class ProdutoImagemController {
     private final ProdutoRepository produtoRepository;
     private final ProdutoImagemRepository imagemRepository;
     private final ImagemStorageService storageService;
+    private final CatalogoCacheService catalogoCache;
+    private final VarianteImagemService varianteService;
+    private final ColetaImagemService coletaService;
+    private final TransactionTemplate transacao;
 
     public ProdutoImagemController(ProdutoRepository produtoRepository,
                                    ProdutoImagemRepository imagemRepository,
-                                   ImagemStorageService storageService) {
+                                   ImagemStorageService storageService,
+                                   CatalogoCacheService catalogoCache,
+                                   VarianteImagemService varianteService,
+                                   ColetaImagemService coletaService,
+                                   PlatformTransactionManager transactionManager) {
         this.produtoRepository = produtoRepository;
         this.imagemRepository = imagemRepository;
         this.storageService = storageService;
+        this.catalogoCache = catalogoCache;
+        this.varianteService = varianteService;
+        this.coletaService = coletaService;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * Os arquivos são gravados por streaming antes de abrir a transação (nenhuma conexão presa
+     * durante a cópia); a transação só insere as linhas. As variantes redimensionadas são geradas
+     * em segundo plano após o commit, então a resposta volta com statusVariantes PENDENTE.
+     * Conteúdo idêntico a uma imagem que o produto já tem devolve a imagem existente.
+     */
     @PostMapping
-    @Transactional
     public ResponseEntity<?> upload(@PathVariable("id") Integer produtoId,
                                     @RequestParam("files") List<MultipartFile> files,
                                     @RequestParam(value = "principalIndex", required = false) Integer principalIndex) {
         log.debug("Upload imagens produto={} totalArquivos={} principalIndex={}", produtoId, (files!=null?files.size():0), principalIndex);
-        Optional<Produto> opt = produtoRepository.findById(produtoId);
-        if (opt.isEmpty()) {
+        if (!produtoRepository.existsById(produtoId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Produto não encontrado");
         }
-        Produto produto = opt.get();
         if (files == null || files.isEmpty()) {
             return ResponseEntity.badRequest().body("Nenhum arquivo enviado");
         }
-        List<ProdutoImagem> salvas = new ArrayList<>();
-        int idx = 0;
-    final long MAX_FILE = 10L * 1024 * 1024; // 10MB
-    for (MultipartFile f : files) {
+        final long MAX_FILE = 10L * 1024 * 1024; // 10MB
+        List<StoredImage> gravadas = new ArrayList<>();
+        for (MultipartFile f : files) {
+            if (f.getSize() > MAX_FILE) {
+                log.warn("Arquivo excede limite: {} ({} bytes)", f.getOriginalFilename(), f.getSize());
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Arquivo excede limite de 10MB: " + f.getOriginalFilename());
+            }
+        }
+        for (MultipartFile f : files) {
             try {
                 log.debug("Salvando arquivo {} ({} bytes)", f.getOriginalFilename(), f.getSize());
-        if (f.getSize() > MAX_FILE) {
-            log.warn("Arquivo excede limite: {} ({} bytes)", f.getOriginalFilename(), f.getSize());
-            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
-                .body("Arquivo excede limite de 10MB: " + f.getOriginalFilename());
+                gravadas.add(storageService.store(f, produtoId.longValue()));
+            } catch (IOException e) {
+                log.error("Falha salvando arquivo {}", f.getOriginalFilename(), e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Falha ao salvar arquivo: " + f.getOriginalFilename());
+            }
+        }
+        List<ProdutoImagem> salvas = transacao.execute(status -> registrar(produtoId, gravadas, principalIndex));
+        if (salvas == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Produto não encontrado");
         }
-                StoredImage stored = storageService.store(f, produtoId);
-                ProdutoImagem pi = new ProdutoImagem();
+        catalogoCache.invalidarProduto(produtoId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(salvas);
+    }
+
+    private List<ProdutoImagem> registrar(Integer produtoId, List<StoredImage> gravadas, Integer principalIndex) {
+        Optional<Produto> opt = produtoRepository.findById(produtoId);
+        if (opt.isEmpty()) {
+            return null;
+        }
+        Produto produto = opt.get();
+        List<ProdutoImagem> salvas = new ArrayList<>();
+        int idx = 0;
+        for (StoredImage stored : gravadas) {
+            boolean principal = principalIndex != null && principalIndex == idx;
+            ProdutoImagem pi = imagemRepository.findFirstByProdutoIdAndHashConteudo(produtoId, stored.getHash())
+                .orElse(null);
+            if (pi == null) {
+                pi = new ProdutoImagem();
                 pi.setProduto(produto);
                 pi.setDiretorio(stored.getDiretorio());
                 pi.setNomeArquivo(stored.getNomeArquivo());
-                boolean principal = principalIndex != null && principalIndex == idx;
+                pi.setHashConteudo(stored.getHash());
+                pi.setTamanhoBytes(stored.getTamanhoBytes());
+                pi.setStatusVariantes(ProdutoImagem.StatusVariantes.PENDENTE);
                 pi.setImagemPrincipal(principal);
                 imagemRepository.save(pi);
-                salvas.add(pi);
-            } catch (IOException e) {
-                log.error("Falha salvando arquivo {}", f.getOriginalFilename(), e);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Falha ao salvar arquivo: " + f.getOriginalFilename());
+                varianteService.agendarAposCommit(pi.getId());
+            } else if (principal) {
+                pi.setImagemPrincipal(true);
             }
+            salvas.add(pi);
             idx++;
         }
         // se principalIndex não informado e nenhuma existente, define primeira como principal
@@ -91,7 +140,7 @@ public class ProdutoImagemController {
                 salvas.get(0).setImagemPrincipal(true);
             }
         }
-        return ResponseEntity.status(HttpStatus.CREATED).body(salvas);
+        return salvas;
     }
 
     @PutMapping("/{idImagem:[0-9]+}/principal")
@@ -114,6 +163,7 @@ public class ProdutoImagemController {
         ProdutoImagem img = optImg.get();
         img.setImagemPrincipal(true);
         imagemRepository.save(img);
+        catalogoCache.invalidarProduto(produtoId);
         return ResponseEntity.ok(img);
     }
 
@@ -127,6 +177,9 @@ public class ProdutoImagemController {
         }
         ProdutoImagem img = opt.get();
         imagemRepository.delete(img);
+        // O arquivo pode ser compartilhado com outros produtos: só sai do disco sem referências
+        coletaService.liberarAposCommit(img);
+        catalogoCache.invalidarProduto(produtoId);
         return ResponseEntity.noContent().build();
     }
 }
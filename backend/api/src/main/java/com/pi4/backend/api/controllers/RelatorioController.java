@@ -0,0 +1,122 @@
+package com.pi4.backend.api.controllers;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pi4.backend.api.services.EventosPedidoService;
+import com.pi4.backend.api.services.RelatorioVendasService;
+import com.pi4.backend.api.services.TendenciaVendasService;
+
+/**
+ * Relatórios de vendas (lidos dos rollups diários) e a reconstrução dos rollups para backfill.
+ * Períodos em dias, inclusivos; sem {@code inicio}/{@code fim}, os últimos 30 dias. Antes de ler,
+ * os eventos de pedido ainda na outbox são publicados, então o relatório inclui tudo que já foi
+ * confirmado. Os produtos em alta vêm do resumo em memória do {@link TendenciaVendasService}.
+ */
+@RestController
+@RequestMapping("/api/relatorios")
+@CrossOrigin(origins = "*")
+public class RelatorioController {
+
+    private static final int PERIODO_PADRAO_DIAS = 30;
+    private static final int LIMITE_MAXIMO = 100;
+
+    private final RelatorioVendasService relatorioVendasService;
+    private final TendenciaVendasService tendenciaVendasService;
+    private final EventosPedidoService eventosPedidoService;
+
+    public RelatorioController(RelatorioVendasService relatorioVendasService,
+                               TendenciaVendasService tendenciaVendasService,
+                               EventosPedidoService eventosPedidoService) {
+        this.relatorioVendasService = relatorioVendasService;
+        this.tendenciaVendasService = tendenciaVendasService;
+        this.eventosPedidoService = eventosPedidoService;
+    }
+
+    // Totais, quantidade/valor por status e série diária do período
+    @GetMapping("/vendas")
+    public ResponseEntity<?> vendas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        LocalDate ate = fim != null ? fim : LocalDate.now();
+        LocalDate de = inicio != null ? inicio : ate.minusDays(PERIODO_PADRAO_DIAS - 1L);
+        if (de.isAfter(ate)) {
+            return ResponseEntity.status(400).body("Data inicial posterior à data final");
+        }
+        eventosPedidoService.publicarPendentes();
+        return ResponseEntity.ok(relatorioVendasService.resumoVendas(de, ate));
+    }
+
+    @GetMapping("/produtos-mais-vendidos")
+    public ResponseEntity<?> produtosMaisVendidos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(defaultValue = "10") int limite) {
+        LocalDate ate = fim != null ? fim : LocalDate.now();
+        LocalDate de = inicio != null ? inicio : ate.minusDays(PERIODO_PADRAO_DIAS - 1L);
+        if (de.isAfter(ate)) {
+            return ResponseEntity.status(400).body("Data inicial posterior à data final");
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            return ResponseEntity.status(400).body("Limite deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        eventosPedidoService.publicarPendentes();
+        return ResponseEntity.ok(relatorioVendasService.produtosMaisVendidos(de, ate, limite));
+    }
+
+    // Produtos em alta na última hora, dia ou semana
+    @GetMapping("/trending")
+    public ResponseEntity<?> trending(
+            @RequestParam(defaultValue = "dia") String janela,
+            @RequestParam(defaultValue = "10") int limite) {
+        TendenciaVendasService.Janela periodo;
+        try {
+            periodo = TendenciaVendasService.Janela.valueOf(janela.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Janela inválida: use hora, dia ou semana");
+        }
+        if (limite < 1 || limite > tendenciaVendasService.getCapacidade()) {
+            return ResponseEntity.status(400)
+                .body("Limite deve estar entre 1 e " + tendenciaVendasService.getCapacidade());
+        }
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("janela", periodo.name().toLowerCase());
+        resposta.put("produtos", tendenciaVendasService.maisVendidos(periodo, limite));
+        return ResponseEntity.ok(resposta);
+    }
+
+    // Recalcula os rollups a partir dos pedidos: o período informado ou, sem período, todo o histórico
+    @PostMapping("/vendas/reconstruir")
+    public ResponseEntity<?> reconstruir(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        if ((inicio == null) != (fim == null) || (inicio != null && inicio.isAfter(fim))) {
+            return ResponseEntity.status(400).body("Informe inicio e fim, com inicio até fim");
+        }
+        // Eventos pendentes já estão nos pedidos que serão lidos: publica antes para não contar duas vezes
+        eventosPedidoService.publicarPendentes();
+        if (inicio == null) {
+            return ResponseEntity.ok(relatorioVendasService.reconstruirTudo());
+        }
+        return ResponseEntity.ok(relatorioVendasService.reconstruir(inicio, fim));
+    }
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<?> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("vendas", relatorioVendasService.estatisticas());
+        info.put("trending", tendenciaVendasService.estatisticas());
+        info.put("eventosPedido", eventosPedidoService.estatisticas());
+        return ResponseEntity.ok(info);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pi4.backend.api.dto;
+
+/**
+ * Arquivos em disco usados por uma linha de tb_produto_imagem: o original e as variantes
+ * (projeção de {@code ProdutoImagemRepository.listarArquivos}, usada na varredura da coleta).
+ */
+public interface ArquivosImagem {
+
+    String getDiretorio();
+
+    String getNomeArquivo();
+
+    String getArquivoMiniatura();
+
+    String getArquivoListagem();
+
+    String getArquivoZoom();
+}
@@ -0,0 +1,34 @@
+package com.pi4.backend.api.dto;
+
+/**
+ * Dados de login de um usuário do backoffice ou de um cliente, lidos numa única consulta
+ * pelo e-mail (projeção de {@code UserRepository.buscarCredenciais}).
+ */
+public interface CredencialLogin {
+
+    String TIPO_USUARIO = "USUARIO";
+    String TIPO_CLIENTE = "CLIENTE";
+
+    String getTipo();
+
+    Integer getId();
+
+    String getNome();
+
+    String getEmail();
+
+    String getSenha();
+
+    Integer getAtivo();
+
+    /** Nome do grupo do usuário; nulo para cliente. */
+    String getGrupo();
+
+    default boolean isUsuario() {
+        return TIPO_USUARIO.equals(getTipo());
+    }
+
+    default boolean isAtivo() {
+        return getAtivo() != null && getAtivo() == 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pi4.backend.api.dto;
+
+import java.math.BigDecimal;
+
+public class EstatisticasProdutosDto {
+    private final long totalProdutos;
+    private final long produtosAtivos;
+    private final long baixoEstoque;
+    private final BigDecimal valorTotalEstoque;
+
+    // Usado pela consulta agregada: SUM de tabela vazia vem nulo
+    public EstatisticasProdutosDto(Long totalProdutos, Long produtosAtivos, Long baixoEstoque, BigDecimal valorTotalEstoque) {
+        this.totalProdutos = totalProdutos != null ? totalProdutos : 0L;
+        this.produtosAtivos = produtosAtivos != null ? produtosAtivos : 0L;
+        this.baixoEstoque = baixoEstoque != null ? baixoEstoque : 0L;
+        this.valorTotalEstoque = valorTotalEstoque != null ? valorTotalEstoque : BigDecimal.ZERO;
+    }
+
+    public long getTotalProdutos() { return totalProdutos; }
+    public long getProdutosAtivos() { return produtosAtivos; }
+    public long getProdutosInativos() { return totalProdutos - produtosAtivos; }
+    public long getBaixoEstoque() { return baixoEstoque; }
+    public BigDecimal getValorTotalEstoque() { return valorTotalEstoque; }
+}
@@ -0,0 +1,37 @@
+package com.pi4.backend.api.dto;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/** Item de pedido nas listagens: dados gravados no momento da compra, sem carregar o Produto. */
+public class ItemPedidoResumoDto {
+
+    private final Long pedidoId;
+    private final Long id;
+    private final Integer produtoId;
+    private final String nomeProduto;
+    private final Integer quantidade;
+    private final BigDecimal precoUnitario;
+    private final BigDecimal subtotal;
+
+    public ItemPedidoResumoDto(Long pedidoId, Long id, Integer produtoId, String nomeProduto,
+                               Integer quantidade, BigDecimal precoUnitario, BigDecimal subtotal) {
+        this.pedidoId = pedidoId;
+        this.id = id;
+        this.produtoId = produtoId;
+        this.nomeProduto = nomeProduto;
+        this.quantidade = quantidade;
+        this.precoUnitario = precoUnitario;
+        this.subtotal = subtotal;
+    }
+
+    @JsonIgnore
+    public Long getPedidoId() { return pedidoId; }
+    public Long getId() { return id; }
+    public Integer getProdutoId() { return produtoId; }
+    public String getNomeProduto() { return nomeProduto; }
+    public Integer getQuantidade() { return quantidade; }
+    public BigDecimal getPrecoUnitario() { return precoUnitario; }
+    public BigDecimal getSubtotal() { return subtotal; }
+}
@@ -0,0 +1,112 @@
+package com.pi4.backend.api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * Página de listagem por cursor (keyset): em vez de número de página, o cliente devolve
+ * {@code proximoCursor} para obter a continuação. O cursor codifica a chave de ordenação
+ * (data, id) do último item entregue; a consulta seguinte busca a partir dele sem OFFSET
+ * e sem COUNT. O conteúdo do cursor é opaco para o cliente.
+ */
+public class PaginaCursor<T> {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final List<T> conteudo;
+    private final int tamanho;
+    private final boolean temProxima;
+    private final String proximoCursor;
+
+    private PaginaCursor(List<T> conteudo, int tamanho, boolean temProxima, String proximoCursor) {
+        this.conteudo = conteudo;
+        this.tamanho = tamanho;
+        this.temProxima = temProxima;
+        this.proximoCursor = proximoCursor;
+    }
+
+    /** Monta a página a partir do slice da consulta; {@code cursorDe} gera o cursor do último item. */
+    public static <T> PaginaCursor<T> de(Slice<T> slice, Function<T, String> cursorDe) {
+        List<T> conteudo = slice.getContent();
+        String proximo = slice.hasNext() && !conteudo.isEmpty()
+            ? cursorDe.apply(conteudo.get(conteudo.size() - 1))
+            : null;
+        return new PaginaCursor<>(conteudo, slice.getSize(), slice.hasNext(), proximo);
+    }
+
+    /** Mesma página (tamanho, continuação e cursor) com cada item convertido por {@code conversor}. */
+    public <R> PaginaCursor<R> map(Function<T, R> conversor) {
+        return new PaginaCursor<>(conteudo.stream().map(conversor).toList(), tamanho, temProxima, proximoCursor);
+    }
+
+    public List<T> getConteudo() { return conteudo; }
+    public int getTamanho() { return tamanho; }
+    public boolean isTemProxima() { return temProxima; }
+    public String getProximoCursor() { return proximoCursor; }
+
+    public static String codificar(Instant data, Number id) {
+        return codificar(String.valueOf(data), id);
+    }
+
+    public static String codificar(LocalDateTime data, Number id) {
+        return codificar(String.valueOf(data), id);
+    }
+
+    private static String codificar(String data, Number id) {
+        return ENCODER.encodeToString((data + '|' + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê um cursor gerado por {@link #codificar}. Cursor vazio ou nulo é a primeira página
+     * (retorna {@code null}). Lança {@link IllegalArgumentException} se o cursor for inválido.
+     */
+    public static Posicao decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String texto = new String(DECODER.decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            if (separador <= 0) throw new IllegalArgumentException("Cursor inválido");
+            return new Posicao(texto.substring(0, separador), Long.parseLong(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException e) {
+            // Base64 malformado e NumberFormatException também caem aqui
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /** Chave (data, id) do último item da página anterior. */
+    public static class Posicao {
+        private final String data;
+        private final long id;
+
+        private Posicao(String data, long id) {
+            this.data = data;
+            this.id = id;
+        }
+
+        public long getId() { return id; }
+
+        public Instant comoInstant() {
+            try {
+                return Instant.parse(data);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+        }
+
+        public LocalDateTime comoDataHora() {
+            try {
+                return LocalDateTime.parse(data);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+        }
+    }
+}
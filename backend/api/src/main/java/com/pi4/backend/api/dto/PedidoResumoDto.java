@@ -0,0 +1,62 @@
+package com.pi4.backend.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pi4.backend.api.entities.Pedido;
+
+/**
+ * Pedido para telas de listagem: só o cabeçalho, o nome do cliente e um resumo dos itens.
+ * Montado por projeção (sem entidades gerenciadas), mantendo os nomes de campo do JSON de Pedido.
+ */
+public class PedidoResumoDto {
+
+    private final Long id;
+    private final String numeroPedido;
+    private final LocalDateTime dataPedido;
+    private final Pedido.StatusPedido status;
+    private final BigDecimal subtotal;
+    private final BigDecimal valorFrete;
+    private final BigDecimal valorTotal;
+    private final ClienteResumo cliente;
+    private List<ItemPedidoResumoDto> itens = new ArrayList<>();
+
+    public PedidoResumoDto(Long id, String numeroPedido, LocalDateTime dataPedido, Pedido.StatusPedido status,
+                           BigDecimal subtotal, BigDecimal valorFrete, BigDecimal valorTotal,
+                           Integer clienteId, String clienteNome) {
+        this.id = id;
+        this.numeroPedido = numeroPedido;
+        this.dataPedido = dataPedido;
+        this.status = status;
+        this.subtotal = subtotal;
+        this.valorFrete = valorFrete;
+        this.valorTotal = valorTotal;
+        this.cliente = new ClienteResumo(clienteId, clienteNome);
+    }
+
+    public Long getId() { return id; }
+    public String getNumeroPedido() { return numeroPedido; }
+    public LocalDateTime getDataPedido() { return dataPedido; }
+    public Pedido.StatusPedido getStatus() { return status; }
+    public BigDecimal getSubtotal() { return subtotal; }
+    public BigDecimal getValorFrete() { return valorFrete; }
+    public BigDecimal getValorTotal() { return valorTotal; }
+    public ClienteResumo getCliente() { return cliente; }
+    public List<ItemPedidoResumoDto> getItens() { return itens; }
+    public void setItens(List<ItemPedidoResumoDto> itens) { this.itens = itens; }
+
+    public static class ClienteResumo {
+        private final Integer id;
+        private final String nome;
+
+        public ClienteResumo(Integer id, String nome) {
+            this.id = id;
+            this.nome = nome;
+        }
+
+        public Integer getId() { return id; }
+        public String getNome() { return nome; }
+    }
+}
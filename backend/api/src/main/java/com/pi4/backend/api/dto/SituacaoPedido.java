@@ -0,0 +1,21 @@
+package com.pi4.backend.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.pi4.backend.api.entities.Pedido;
+
+/**
+ * Status atual de um pedido e os dados que os eventos de pedido carregam, lidos sem carregar a
+ * entidade (projeção de {@code PedidoRepository.buscarSituacao}).
+ */
+public interface SituacaoPedido {
+
+    Long getId();
+
+    Pedido.StatusPedido getStatus();
+
+    LocalDateTime getDataPedido();
+
+    BigDecimal getValorTotal();
+}
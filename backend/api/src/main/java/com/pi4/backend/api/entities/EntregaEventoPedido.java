@@ -0,0 +1,71 @@
+package com.pi4.backend.api.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Entrega de um evento de pedido a um assinante, gravada na mesma transação em que o assinante
+ * o processou. Enquanto algum assinante falha o evento segue pendente, e no reenvio quem já tem
+ * a entrega é pulado; quando todos recebem, o evento é publicado e as entregas são apagadas.
+ */
+@Entity
+@Table(name = "tb_evento_pedido_entrega")
+@IdClass(EntregaEventoPedido.Chave.class)
+public class EntregaEventoPedido {
+
+    @Id
+    @Column(name = "id_evento", nullable = false)
+    private Long eventoId;
+
+    @Id
+    @Column(name = "assinante", nullable = false, length = 100)
+    private String assinante;
+
+    @Column(name = "entregue_em", nullable = false)
+    private LocalDateTime entregueEm;
+
+    public EntregaEventoPedido() {}
+
+    public Long getEventoId() {
+        return eventoId;
+    }
+
+    public String getAssinante() {
+        return assinante;
+    }
+
+    public LocalDateTime getEntregueEm() {
+        return entregueEm;
+    }
+
+    public static class Chave implements Serializable {
+        private Long eventoId;
+        private String assinante;
+
+        public Chave() {}
+
+        public Chave(Long eventoId, String assinante) {
+            this.eventoId = eventoId;
+            this.assinante = assinante;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave outra)) return false;
+            return Objects.equals(eventoId, outra.eventoId) && Objects.equals(assinante, outra.assinante);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventoId, assinante);
+        }
+    }
+}
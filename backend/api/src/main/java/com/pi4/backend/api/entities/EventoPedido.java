@@ -0,0 +1,155 @@
+package com.pi4.backend.api.entities;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Evento de pedido na caixa de saída (outbox): gravado na mesma transação da criação ou da
+ * mudança de status e publicado depois, em lote, pelo EventosPedidoService. Leva os dados do
+ * pedido que não mudam (data, valor) para os assinantes não precisarem relê-lo.
+ */
+@Entity
+@Table(name = "tb_evento_pedido")
+public class EventoPedido {
+
+    public enum Tipo {
+        PEDIDO_CRIADO,
+        STATUS_ALTERADO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long id;
+
+    @Column(name = "id_pedido", nullable = false)
+    private Long pedidoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private Tipo tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_anterior", length = 30)
+    private Pedido.StatusPedido statusAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_novo", nullable = false, length = 30)
+    private Pedido.StatusPedido statusNovo;
+
+    @Column(name = "data_pedido", nullable = false)
+    private LocalDateTime dataPedido;
+
+    @Column(name = "valor_total", nullable = false, precision = 10, scale = 2)
+    private BigDecimal valorTotal;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Nulo enquanto não publicado
+    @Column(name = "publicado_em")
+    private LocalDateTime publicadoEm;
+
+    @Column(name = "tentativas", nullable = false)
+    private Integer tentativas = 0;
+
+    // Último erro de entrega (com o nome do assinante que falhou)
+    @Column(name = "erro", length = 500)
+    private String erro;
+
+    // Depois de uma falha: o relay só tenta de novo a partir daqui
+    @Column(name = "proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    public EventoPedido() {}
+
+    public EventoPedido(Tipo tipo, Long pedidoId, Pedido.StatusPedido statusAnterior, Pedido.StatusPedido statusNovo,
+                        LocalDateTime dataPedido, BigDecimal valorTotal) {
+        this.tipo = tipo;
+        this.pedidoId = pedidoId;
+        this.statusAnterior = statusAnterior;
+        this.statusNovo = statusNovo;
+        this.dataPedido = dataPedido;
+        this.valorTotal = valorTotal;
+        this.dataCriacao = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Pedido.StatusPedido getStatusAnterior() {
+        return statusAnterior;
+    }
+
+    public Pedido.StatusPedido getStatusNovo() {
+        return statusNovo;
+    }
+
+    public LocalDateTime getDataPedido() {
+        return dataPedido;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public LocalDateTime getPublicadoEm() {
+        return publicadoEm;
+    }
+
+    public void setPublicadoEm(LocalDateTime publicadoEm) {
+        this.publicadoEm = publicadoEm;
+    }
+
+    public Integer getTentativas() {
+        return tentativas;
+    }
+
+    public void setTentativas(Integer tentativas) {
+        this.tentativas = tentativas;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+
+    public LocalDateTime getProximaTentativa() {
+        return proximaTentativa;
+    }
+
+    public void setProximaTentativa(LocalDateTime proximaTentativa) {
+        this.proximaTentativa = proximaTentativa;
+    }
+
+    /** Pedido que passou a contar como cancelado neste evento. */
+    public boolean isCancelamento() {
+        return tipo == Tipo.STATUS_ALTERADO && statusNovo == Pedido.StatusPedido.CANCELADO
+            && statusAnterior != Pedido.StatusPedido.CANCELADO;
+    }
+}
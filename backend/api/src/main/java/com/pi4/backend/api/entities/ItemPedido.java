@@ -9,6 +9,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.Table;
 
@@ -16,8 +17,10 @@ import jakarta.persistence.Table;
 @Table(name = "tb_item_pedido")
 public class ItemPedido {
     
+    // Sequência em blocos maiores que os do pedido: cada pedido consome um id por linha
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_item_pedido")
+    @SequenceGenerator(name = "seq_item_pedido", sequenceName = "seq_item_pedido", allocationSize = 200)
     @Column(name = "id_item_pedido")
     private Long id;
     
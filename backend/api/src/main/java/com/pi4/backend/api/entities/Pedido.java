@@ -3,7 +3,12 @@ package com.pi4.backend.api.entities;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -17,15 +22,22 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "tb_pedido")
+@Table(name = "tb_pedido", uniqueConstraints = @UniqueConstraint(name = "uk_pedido_cliente_chave",
+    columnNames = {"id_cliente", "chave_idempotencia"}))
 public class Pedido {
     
+    // Ids reservados em blocos (pooled): o INSERT não precisa voltar ao banco para saber o id,
+    // então o pedido e os itens vão juntos no flush, com os itens em batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_pedido")
+    @SequenceGenerator(name = "seq_pedido", sequenceName = "seq_pedido", allocationSize = 50)
     @Column(name = "id_pedido")
     private Long id;
     
@@ -76,6 +88,12 @@ public class Pedido {
     
     @Column(name = "observacoes", columnDefinition = "TEXT")
     private String observacoes;
+    
+    // Idempotency-Key da requisição que criou o pedido; única por cliente, cobre reenvios que
+    // não acham mais a chave na memória (reinício, outra instância)
+    @JsonIgnore
+    @Column(name = "chave_idempotencia", length = 100)
+    private String chaveIdempotencia;
 
     @Column(name = "data_atualizacao")
     private LocalDateTime dataAtualizacao;
@@ -94,6 +112,19 @@ public class Pedido {
         ENTREGUE("entregue"),
         CANCELADO("cancelado");
         
+        // Máquina de estados: para onde cada status pode ir. ENTREGUE e CANCELADO são finais
+        private static final Map<StatusPedido, Set<StatusPedido>> TRANSICOES = new EnumMap<>(StatusPedido.class);
+        
+        static {
+            TRANSICOES.put(AGUARDANDO_PAGAMENTO, EnumSet.of(PAGAMENTO_REJEITADO, PAGAMENTO_COM_SUCESSO, CANCELADO));
+            TRANSICOES.put(PAGAMENTO_REJEITADO, EnumSet.of(AGUARDANDO_PAGAMENTO, CANCELADO));
+            TRANSICOES.put(PAGAMENTO_COM_SUCESSO, EnumSet.of(AGUARDANDO_RETIRADA, EM_TRANSITO, CANCELADO));
+            TRANSICOES.put(AGUARDANDO_RETIRADA, EnumSet.of(EM_TRANSITO, CANCELADO));
+            TRANSICOES.put(EM_TRANSITO, EnumSet.of(ENTREGUE));
+            TRANSICOES.put(ENTREGUE, EnumSet.noneOf(StatusPedido.class));
+            TRANSICOES.put(CANCELADO, EnumSet.noneOf(StatusPedido.class));
+        }
+        
         private String descricao;
         
         StatusPedido(String descricao) {
@@ -103,6 +134,14 @@ public class Pedido {
         public String getDescricao() {
             return descricao;
         }
+        
+        public Set<StatusPedido> getProximos() {
+            return Collections.unmodifiableSet(TRANSICOES.get(this));
+        }
+        
+        public boolean podeMudarPara(StatusPedido destino) {
+            return TRANSICOES.get(this).contains(destino);
+        }
     }
     
     // Construtores
@@ -160,6 +199,11 @@ public class Pedido {
         this.dataAtualizacao = LocalDateTime.now();
     }
     
+    // Status para os quais o pedido pode ir a partir do atual (tela de edição do backoffice)
+    public Set<StatusPedido> getProximosStatus() {
+        return status != null ? status.getProximos() : Set.of();
+    }
+    
     public BigDecimal getSubtotal() {
         return subtotal;
     }
@@ -247,6 +291,14 @@ public class Pedido {
     public void setObservacoes(String observacoes) {
         this.observacoes = observacoes;
     }
+    
+    public String getChaveIdempotencia() {
+        return chaveIdempotencia;
+    }
+    
+    public void setChaveIdempotencia(String chaveIdempotencia) {
+        this.chaveIdempotencia = chaveIdempotencia;
+    }
 
     public LocalDateTime getDataAtualizacao() {
         return dataAtualizacao;
@@ -5,7 +5,11 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.CascadeType;
@@ -17,9 +21,11 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "tb_produto")
+@DynamicUpdate
     @JsonIgnoreProperties({"hibernateLazyInitializer","handler"})
 public class Produto {
 
@@ -46,9 +52,18 @@ public class Produto {
     @Column(nullable = false)
     private Boolean status = true;
 
+    @ColumnDefault("CURRENT_TIMESTAMP")
     @Column(name = "data_criacao", updatable = false, insertable = false)
     private Instant dataCriacao; 
 
+    // Muda a cada edição do produto; a sessão de checkout guarda a versão para saber o que conferir de novo.
+    // A baixa de estoque do pedido é um UPDATE direto e não mexe nela.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long versao;
+
     @OneToMany(mappedBy = "produto", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<ProdutoImagem> imagens = new ArrayList<>();
@@ -69,6 +84,30 @@ public class Produto {
     public Boolean getStatus() { return status; }
     public void setStatus(Boolean status) { this.status = status; }
     public Instant getDataCriacao() { return dataCriacao; }
+    public Long getVersao() { return versao; }
     public List<ProdutoImagem> getImagens() { return imagens; }
     public void setImagens(List<ProdutoImagem> imagens) { this.imagens = imagens; }
+
+    /**
+     * Cópia desligada da sessão, com as imagens, para o cache do catálogo. As imagens precisam
+     * estar carregadas (ou a sessão aberta); alterar a cópia não afeta o original.
+     */
+    public Produto copia() {
+        Produto copia = new Produto();
+        copia.id = id;
+        copia.nome = nome;
+        copia.preco = preco;
+        copia.quantidadeEstoque = quantidadeEstoque;
+        copia.avaliacao = avaliacao;
+        copia.descricao = descricao;
+        copia.status = status;
+        copia.dataCriacao = dataCriacao;
+        copia.versao = versao;
+        List<ProdutoImagem> copiaImagens = new ArrayList<>(imagens.size());
+        for (ProdutoImagem imagem : imagens) {
+            copiaImagens.add(imagem.copia(copia));
+        }
+        copia.imagens = copiaImagens;
+        return copia;
+    }
 }
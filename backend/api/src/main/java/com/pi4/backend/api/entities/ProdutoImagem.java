@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -35,6 +37,27 @@ public class ProdutoImagem {
     @Column(name = "imagem_principal", nullable = false)
     private Boolean imagemPrincipal = false;
 
+    // SHA-256 do arquivo original (hex); nulo para imagens anteriores ao upload por streaming
+    @Column(name = "hash_conteudo", length = 64)
+    private String hashConteudo;
+
+    @Column(name = "tamanho_bytes")
+    private Long tamanhoBytes;
+
+    // Variantes redimensionadas, no mesmo diretório do original; geradas em segundo plano
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_variantes", length = 20)
+    private StatusVariantes statusVariantes;
+
+    @Column(name = "arquivo_miniatura", length = 255)
+    private String arquivoMiniatura;
+
+    @Column(name = "arquivo_listagem", length = 255)
+    private String arquivoListagem;
+
+    @Column(name = "arquivo_zoom", length = 255)
+    private String arquivoZoom;
+
     public Long getId() { return id; }
     public Produto getProduto() { return produto; }
     public void setProduto(Produto produto) { this.produto = produto; }
@@ -44,4 +67,39 @@ public class ProdutoImagem {
     public void setDiretorio(String diretorio) { this.diretorio = diretorio; }
     public Boolean getImagemPrincipal() { return imagemPrincipal; }
     public void setImagemPrincipal(Boolean imagemPrincipal) { this.imagemPrincipal = imagemPrincipal; }
+    public String getHashConteudo() { return hashConteudo; }
+    public void setHashConteudo(String hashConteudo) { this.hashConteudo = hashConteudo; }
+    public Long getTamanhoBytes() { return tamanhoBytes; }
+    public void setTamanhoBytes(Long tamanhoBytes) { this.tamanhoBytes = tamanhoBytes; }
+    public StatusVariantes getStatusVariantes() { return statusVariantes; }
+    public void setStatusVariantes(StatusVariantes statusVariantes) { this.statusVariantes = statusVariantes; }
+    public String getArquivoMiniatura() { return arquivoMiniatura; }
+    public void setArquivoMiniatura(String arquivoMiniatura) { this.arquivoMiniatura = arquivoMiniatura; }
+    public String getArquivoListagem() { return arquivoListagem; }
+    public void setArquivoListagem(String arquivoListagem) { this.arquivoListagem = arquivoListagem; }
+    public String getArquivoZoom() { return arquivoZoom; }
+    public void setArquivoZoom(String arquivoZoom) { this.arquivoZoom = arquivoZoom; }
+
+    /** Cópia desligada da sessão, pendurada em {@code produto} (ver {@link Produto#copia()}). */
+    ProdutoImagem copia(Produto produto) {
+        ProdutoImagem copia = new ProdutoImagem();
+        copia.id = id;
+        copia.produto = produto;
+        copia.nomeArquivo = nomeArquivo;
+        copia.diretorio = diretorio;
+        copia.imagemPrincipal = imagemPrincipal;
+        copia.hashConteudo = hashConteudo;
+        copia.tamanhoBytes = tamanhoBytes;
+        copia.statusVariantes = statusVariantes;
+        copia.arquivoMiniatura = arquivoMiniatura;
+        copia.arquivoListagem = arquivoListagem;
+        copia.arquivoZoom = arquivoZoom;
+        return copia;
+    }
+
+    public enum StatusVariantes {
+        PENDENTE,
+        PRONTAS,
+        FALHA
+    }
 }
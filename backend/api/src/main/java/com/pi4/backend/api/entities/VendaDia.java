@@ -0,0 +1,81 @@
+package com.pi4.backend.api.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Rollup diário de pedidos: quantidade e valor total dos pedidos de um dia que estão em cada
+ * status. Mantido pelo RelatorioVendasService; o dia é o de {@code data_pedido}.
+ */
+@Entity
+@Table(name = "tb_venda_dia")
+@IdClass(VendaDia.Chave.class)
+public class VendaDia {
+
+    @Id
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 30)
+    private Pedido.StatusPedido status;
+
+    @Column(name = "pedidos", nullable = false)
+    private Long pedidos;
+
+    @Column(name = "valor_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal valorTotal;
+
+    public VendaDia() {}
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Pedido.StatusPedido getStatus() {
+        return status;
+    }
+
+    public Long getPedidos() {
+        return pedidos;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    public static class Chave implements Serializable {
+        private LocalDate dia;
+        private Pedido.StatusPedido status;
+
+        public Chave() {}
+
+        public Chave(LocalDate dia, Pedido.StatusPedido status) {
+            this.dia = dia;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave outra)) return false;
+            return Objects.equals(dia, outra.dia) && status == outra.status;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, status);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.pi4.backend.api.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Rollup diário de vendas por produto: unidades e receita (subtotal dos itens) dos pedidos do
+ * dia que não estão cancelados. Mantido pelo RelatorioVendasService.
+ */
+@Entity
+@Table(name = "tb_venda_produto_dia")
+@IdClass(VendaProdutoDia.Chave.class)
+public class VendaProdutoDia {
+
+    @Id
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "id_produto", nullable = false)
+    private Integer produtoId;
+
+    @Column(name = "nome_produto", nullable = false, length = 200)
+    private String nomeProduto;
+
+    @Column(name = "quantidade", nullable = false)
+    private Long quantidade;
+
+    @Column(name = "receita", nullable = false, precision = 14, scale = 2)
+    private BigDecimal receita;
+
+    public VendaProdutoDia() {}
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Integer getProdutoId() {
+        return produtoId;
+    }
+
+    public String getNomeProduto() {
+        return nomeProduto;
+    }
+
+    public Long getQuantidade() {
+        return quantidade;
+    }
+
+    public BigDecimal getReceita() {
+        return receita;
+    }
+
+    public static class Chave implements Serializable {
+        private LocalDate dia;
+        private Integer produtoId;
+
+        public Chave() {}
+
+        public Chave(LocalDate dia, Integer produtoId) {
+            this.dia = dia;
+            this.produtoId = produtoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave outra)) return false;
+            return Objects.equals(dia, outra.dia) && Objects.equals(produtoId, outra.produtoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, produtoId);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.pi4.backend.api.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -18,6 +21,21 @@ public interface CarrinhoRepository extends JpaRepository<CarrinhoItem, Long> {
     
     void deleteByClienteIdAndProdutoId(Integer clienteId, Integer produtoId);
     
+    // Gravação em lote do CarrinhoService: linhas identificadas por (cliente, produto), comandos em massa
+    @Modifying
+    @Query("UPDATE CarrinhoItem c SET c.quantidade = :quantidade, c.dataAtualizacao = :data " +
+           "WHERE c.cliente.id = :clienteId AND c.produto.id = :produtoId")
+    int atualizarQuantidade(@Param("clienteId") Integer clienteId, @Param("produtoId") Integer produtoId,
+                            @Param("quantidade") Integer quantidade, @Param("data") LocalDateTime data);
+    
+    @Modifying
+    @Query("DELETE FROM CarrinhoItem c WHERE c.cliente.id = :clienteId AND c.produto.id IN :produtoIds")
+    int removerProdutos(@Param("clienteId") Integer clienteId, @Param("produtoIds") Collection<Integer> produtoIds);
+    
+    @Modifying
+    @Query("DELETE FROM CarrinhoItem c WHERE c.cliente.id = :clienteId")
+    int removerTodos(@Param("clienteId") Integer clienteId);
+    
     @Query("SELECT COUNT(c) FROM CarrinhoItem c WHERE c.cliente.id = :clienteId")
     Long countByClienteId(@Param("clienteId") Integer clienteId);
     
@@ -1,7 +1,11 @@
 package com.pi4.backend.api.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.pi4.backend.api.entities.Cliente;
 
@@ -10,4 +14,10 @@ public interface ClienteRepository extends JpaRepository<Cliente, Integer> {
     Cliente findByEmail(String email);
     boolean existsByEmail(String email);
     boolean existsByCpf(String cpf);
+
+    // Troca o hash só se ainda for o que foi conferido no login (não sobrescreve troca de senha concorrente)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cliente c SET c.senha = :novaSenha WHERE c.id = :id AND c.senha = :senhaAtual")
+    int atualizarHashSenha(@Param("id") Integer id, @Param("senhaAtual") String senhaAtual, @Param("novaSenha") String novaSenha);
 }
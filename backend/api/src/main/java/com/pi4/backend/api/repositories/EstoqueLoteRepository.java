@@ -0,0 +1,20 @@
+package com.pi4.backend.api.repositories;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Baixa e devolução de estoque de vários SKUs num único batch JDBC (um round trip em vez de um
+ * UPDATE por linha do pedido). Implementado em {@link EstoqueLoteRepositoryImpl}.
+ */
+public interface EstoqueLoteRepository {
+
+	/**
+	 * Debita cada produtoId -> quantidade com UPDATE condicional (ativo e com saldo), na ordem de
+	 * iteração do mapa; devolve os produtoIds efetivamente debitados.
+	 */
+	Set<Integer> debitarEstoqueEmLote(Map<Integer, Integer> quantidadesPorProduto);
+
+	// Devolução de estoque (pedido cancelado): soma direto no saldo, ativo ou não
+	void devolverEstoqueEmLote(Map<Integer, Integer> quantidadesPorProduto);
+}
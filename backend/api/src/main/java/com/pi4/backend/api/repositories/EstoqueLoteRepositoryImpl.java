@@ -0,0 +1,70 @@
+package com.pi4.backend.api.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Os comandos são preparados pelo {@link JdbcCoordinator} da sessão, e não numa conexão crua: rodam
+ * na transação do pedido e passam pelo inspetor de SQL, pelo log e pelas estatísticas do Hibernate
+ * como qualquer outro comando.
+ */
+class EstoqueLoteRepositoryImpl implements EstoqueLoteRepository {
+
+	private static final String DEBITAR =
+		"update tb_produto set qtd_estoque = qtd_estoque - ? where id_produto = ? and status = true and qtd_estoque >= ?";
+	private static final String DEVOLVER =
+		"update tb_produto set qtd_estoque = qtd_estoque + ? where id_produto = ?";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Set<Integer> debitarEstoqueEmLote(Map<Integer, Integer> quantidadesPorProduto) {
+		Set<Integer> debitados = new HashSet<>();
+		if (quantidadesPorProduto.isEmpty()) return debitados;
+		int[] linhas = executarEmLote(DEBITAR, quantidadesPorProduto, true);
+		int i = 0;
+		for (Integer produtoId : quantidadesPorProduto.keySet()) {
+			// SUCCESS_NO_INFO: o driver executou sem informar a contagem (não acontece com MySQL/H2)
+			if (linhas[i] == 1 || linhas[i] == Statement.SUCCESS_NO_INFO) debitados.add(produtoId);
+			i++;
+		}
+		return debitados;
+	}
+
+	@Override
+	public void devolverEstoqueEmLote(Map<Integer, Integer> quantidadesPorProduto) {
+		if (quantidadesPorProduto.isEmpty()) return;
+		executarEmLote(DEVOLVER, quantidadesPorProduto, false);
+	}
+
+	private int[] executarEmLote(String sql, Map<Integer, Integer> quantidadesPorProduto, boolean exigeSaldo) {
+		JdbcCoordinator jdbc = entityManager.unwrap(SharedSessionContractImplementor.class).getJdbcCoordinator();
+		PreparedStatement ps = jdbc.getStatementPreparer().prepareStatement(sql);
+		try {
+			for (Map.Entry<Integer, Integer> e : quantidadesPorProduto.entrySet()) {
+				ps.setInt(1, e.getValue());
+				ps.setInt(2, e.getKey());
+				if (exigeSaldo) ps.setInt(3, e.getValue());
+				ps.addBatch();
+			}
+			return ps.executeBatch();
+		} catch (SQLException e) {
+			throw jdbc.getJdbcSessionOwner().getJdbcSessionContext().getJdbcServices().getSqlExceptionHelper()
+				.convert(e, "Falha ao atualizar estoque em lote", sql);
+		} finally {
+			jdbc.getLogicalConnection().getResourceRegistry().release(ps);
+			jdbc.afterStatementExecution();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.pi4.backend.api.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pi4.backend.api.entities.EntregaEventoPedido;
+import com.pi4.backend.api.entities.EventoPedido;
+
+public interface EventoPedidoRepository extends JpaRepository<EventoPedido, Long> {
+
+    // Próximo lote a publicar, na ordem em que os eventos foram gravados; os que falharam só depois da espera
+    @Query("SELECT e FROM EventoPedido e WHERE e.publicadoEm IS NULL AND e.id > :depoisDe " +
+           "AND (e.proximaTentativa IS NULL OR e.proximaTentativa <= :agora) ORDER BY e.id")
+    List<EventoPedido> listarPendentes(@Param("depoisDe") Long depoisDe, @Param("agora") LocalDateTime agora,
+                                       Pageable pageable);
+
+    long countByPublicadoEmIsNull();
+
+    long countByPublicadoEmIsNullAndTentativasGreaterThanEqual(Integer tentativas);
+
+    // Eventos de uma mudança de status em lote, num único INSERT ... SELECT a partir dos pedidos já alterados
+    @Modifying
+    @Query(value = "INSERT INTO tb_evento_pedido (id_pedido, tipo, status_anterior, status_novo, data_pedido, " +
+                   "valor_total, data_criacao, tentativas) " +
+                   "SELECT p.id_pedido, 'STATUS_ALTERADO', :anterior, :novo, p.data_pedido, p.valor_total, :agora, 0 " +
+                   "FROM tb_pedido p WHERE p.id_pedido IN (:ids) ORDER BY p.id_pedido", nativeQuery = true)
+    int registrarMudancasStatus(@Param("ids") Collection<Long> ids, @Param("anterior") String anterior,
+                                @Param("novo") String novo, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EventoPedido e SET e.publicadoEm = :agora, e.proximaTentativa = NULL WHERE e.id IN :ids")
+    int marcarPublicados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    // Assinantes que já processaram cada evento do lote (só sobra entrega de evento ainda pendente)
+    @Query("SELECT e FROM EntregaEventoPedido e WHERE e.eventoId IN :ids")
+    List<EntregaEventoPedido> listarEntregas(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "INSERT INTO tb_evento_pedido_entrega (id_evento, assinante, entregue_em) " +
+                   "SELECT e.id_evento, :assinante, :agora FROM tb_evento_pedido e WHERE e.id_evento IN (:ids)",
+           nativeQuery = true)
+    int registrarEntregas(@Param("ids") Collection<Long> ids, @Param("assinante") String assinante,
+                          @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("DELETE FROM EntregaEventoPedido e WHERE e.eventoId IN :ids")
+    int removerEntregas(@Param("ids") Collection<Long> ids);
+
+    // Limpeza dos publicados: só é publicado o evento que todos os assinantes receberam
+    @Modifying
+    @Query("DELETE FROM EventoPedido e WHERE e.publicadoEm < :limite")
+    int removerPublicadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -1,11 +1,14 @@
 package com.pi4.backend.api.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.pi4.backend.api.dto.ItemPedidoResumoDto;
 import com.pi4.backend.api.entities.ItemPedido;
 
 public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
@@ -13,6 +16,19 @@ public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
     // Buscar itens por pedido
     List<ItemPedido> findByPedidoId(Long pedidoId);
     
+    // Resumo dos itens de vários pedidos de uma vez (listagens), sem carregar Produto
+    @Query("SELECT new com.pi4.backend.api.dto.ItemPedidoResumoDto(ip.pedido.id, ip.id, ip.produto.id, " +
+           "ip.nomeProduto, ip.quantidade, ip.precoUnitario, ip.subtotal) " +
+           "FROM ItemPedido ip WHERE ip.pedido.id IN :pedidoIds ORDER BY ip.id")
+    List<ItemPedidoResumoDto> listarResumosPorPedidos(@Param("pedidoIds") Collection<Long> pedidoIds);
+    
+    // Produtos em alta: itens dos pedidos desde a data, em lotes por id (id, produtoId, nome, quantidade, dataPedido)
+    @Query("SELECT ip.id, ip.produto.id, ip.nomeProduto, ip.quantidade, p.dataPedido " +
+           "FROM ItemPedido ip JOIN ip.pedido p " +
+           "WHERE p.dataPedido >= :desde AND ip.id > :ultimoId ORDER BY ip.id")
+    List<Object[]> listarVendasDesde(@Param("desde") java.time.LocalDateTime desde,
+                                     @Param("ultimoId") Long ultimoId, Pageable pageable);
+    
     // Relatórios - produtos mais vendidos
     @Query("SELECT ip.produto.id, ip.nomeProduto, SUM(ip.quantidade) as totalVendido " +
            "FROM ItemPedido ip " +
@@ -5,10 +5,15 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.pi4.backend.api.dto.PedidoResumoDto;
+import com.pi4.backend.api.dto.SituacaoPedido;
 import com.pi4.backend.api.entities.Pedido;
 
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
@@ -22,6 +27,14 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Buscar por número do pedido
     Optional<Pedido> findByNumeroPedido(String numeroPedido);
     
+    // Maior número já gravado (usa o índice único de numero_pedido); ponto de partida do gerador
+    @Query("SELECT MAX(p.numeroPedido) FROM Pedido p")
+    String findUltimoNumeroPedido();
+    
+    // Pedido já criado com essa Idempotency-Key (índice único id_cliente + chave_idempotencia)
+    @Query("SELECT p.id FROM Pedido p WHERE p.cliente.id = :clienteId AND p.chaveIdempotencia = :chave")
+    Optional<Long> buscarIdPorChaveIdempotencia(@Param("clienteId") Integer clienteId, @Param("chave") String chave);
+    
     // Buscar pedidos por status
     List<Pedido> findByStatusOrderByDataPedidoDesc(Pedido.StatusPedido status);
     
@@ -31,6 +44,74 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Sprint 6 - Buscar todos os pedidos ordenados por data decrescente (para estoquistas)
     Page<Pedido> findAllByOrderByDataPedidoDesc(Pageable pageable);
     
+    // Listagens (resumo): cabeçalho + nome do cliente numa única consulta, sem entidades.
+    // Os itens vêm depois, numa consulta só para a página inteira (ItemPedidoRepository)
+    @Query(value = "SELECT new com.pi4.backend.api.dto.PedidoResumoDto(p.id, p.numeroPedido, p.dataPedido, p.status, " +
+                   "p.subtotal, p.valorFrete, p.valorTotal, c.id, c.nome) " +
+                   "FROM Pedido p JOIN p.cliente c WHERE c.id = :clienteId ORDER BY p.dataPedido DESC, p.id DESC",
+           countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.cliente.id = :clienteId")
+    Page<PedidoResumoDto> listarResumosPorCliente(@Param("clienteId") Integer clienteId, Pageable pageable);
+    
+    @Query(value = "SELECT new com.pi4.backend.api.dto.PedidoResumoDto(p.id, p.numeroPedido, p.dataPedido, p.status, " +
+                   "p.subtotal, p.valorFrete, p.valorTotal, c.id, c.nome) " +
+                   "FROM Pedido p JOIN p.cliente c WHERE (:status IS NULL OR p.status = :status) " +
+                   "ORDER BY p.dataPedido DESC, p.id DESC",
+           countQuery = "SELECT COUNT(p) FROM Pedido p WHERE (:status IS NULL OR p.status = :status)")
+    Page<PedidoResumoDto> listarResumos(@Param("status") Pedido.StatusPedido status, Pageable pageable);
+    
+    // Paginação por cursor (keyset) do admin: continua depois de (dataPedido, id), sem COUNT.
+    // data nula = primeira página; status nulo = todos
+    @Query("SELECT new com.pi4.backend.api.dto.PedidoResumoDto(p.id, p.numeroPedido, p.dataPedido, p.status, " +
+           "p.subtotal, p.valorFrete, p.valorTotal, c.id, c.nome) " +
+           "FROM Pedido p JOIN p.cliente c WHERE (:status IS NULL OR p.status = :status) " +
+           "AND (:data IS NULL OR p.dataPedido < :data OR (p.dataPedido = :data AND p.id < :id)) " +
+           "ORDER BY p.dataPedido DESC, p.id DESC")
+    Slice<PedidoResumoDto> listarResumosPorCursor(@Param("status") Pedido.StatusPedido status,
+                                                  @Param("data") java.time.LocalDateTime data,
+                                                  @Param("id") Long id, Pageable pageable);
+    
+    // Detalhe: pedido, cliente, itens e produtos dos itens numa única consulta
+    @EntityGraph(attributePaths = {"cliente", "itens", "itens.produto"})
+    @Query("SELECT p FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido> buscarCompletoPorId(@Param("id") Long id);
+    
+    @EntityGraph(attributePaths = {"cliente", "itens", "itens.produto"})
+    @Query("SELECT p FROM Pedido p WHERE p.numeroPedido = :numeroPedido")
+    Optional<Pedido> buscarCompletoPorNumero(@Param("numeroPedido") String numeroPedido);
+    
+    // Mudança de status: lê só o status atual e troca com UPDATE condicional (falha se outro mudou antes)
+    @Query("SELECT p.id AS id, p.status AS status, p.dataPedido AS dataPedido, p.valorTotal AS valorTotal " +
+           "FROM Pedido p WHERE p.id = :id")
+    Optional<SituacaoPedido> buscarSituacao(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE Pedido p SET p.status = :novo, p.dataAtualizacao = :agora WHERE p.id = :id AND p.status = :anterior")
+    int alterarStatus(@Param("id") Long id, @Param("anterior") Pedido.StatusPedido anterior,
+                      @Param("novo") Pedido.StatusPedido novo, @Param("agora") java.time.LocalDateTime agora);
+    
+    // Mudança de status em lote: situação de um bloco de pedidos e UPDATE condicional por status anterior
+    @Query("SELECT p.id AS id, p.status AS status, p.dataPedido AS dataPedido, p.valorTotal AS valorTotal " +
+           "FROM Pedido p WHERE p.id IN :ids")
+    List<SituacaoPedido> buscarSituacoes(@Param("ids") java.util.Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Pedido p SET p.status = :novo, p.dataAtualizacao = :agora WHERE p.id IN :ids AND p.status = :anterior")
+    int alterarStatusEmLote(@Param("ids") java.util.Collection<Long> ids, @Param("anterior") Pedido.StatusPedido anterior,
+                            @Param("novo") Pedido.StatusPedido novo, @Param("agora") java.time.LocalDateTime agora);
+    
+    // Seleção por filtro da mudança em lote, paginada por id (keyset) para não pular pedidos já alterados
+    @Query("SELECT p.id FROM Pedido p WHERE p.status = :status AND p.dataPedido >= :inicio AND p.dataPedido < :fim " +
+           "AND p.id > :ultimoId ORDER BY p.id")
+    List<Long> listarIdsPorStatusEPeriodo(@Param("status") Pedido.StatusPedido status,
+                                          @Param("inicio") java.time.LocalDateTime inicio,
+                                          @Param("fim") java.time.LocalDateTime fim,
+                                          @Param("ultimoId") Long ultimoId, Pageable pageable);
+    
+    @Query("SELECT COUNT(p) FROM Pedido p WHERE p.status = :status AND p.dataPedido >= :inicio AND p.dataPedido < :fim")
+    long contarPorStatusEPeriodo(@Param("status") Pedido.StatusPedido status,
+                                 @Param("inicio") java.time.LocalDateTime inicio,
+                                 @Param("fim") java.time.LocalDateTime fim);
+    
     // Contar pedidos por cliente
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.cliente.id = :clienteId")
     Long countByClienteId(@Param("clienteId") Integer clienteId);
@@ -44,6 +125,13 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     Double getTotalVendasPorPeriodo(@Param("dataInicio") java.time.LocalDateTime dataInicio, 
                                    @Param("dataFim") java.time.LocalDateTime dataFim);
     
+    // Relatórios - intervalo de datas com pedidos (reconstrução dos rollups de vendas)
+    @Query("SELECT MIN(p.dataPedido) FROM Pedido p")
+    java.time.LocalDateTime findPrimeiraDataPedido();
+    
+    @Query("SELECT MAX(p.dataPedido) FROM Pedido p")
+    java.time.LocalDateTime findUltimaDataPedido();
+    
     // Relatórios - contar pedidos por período
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.dataPedido BETWEEN :dataInicio AND :dataFim")
     Long countPedidosPorPeriodo(@Param("dataInicio") java.time.LocalDateTime dataInicio, 
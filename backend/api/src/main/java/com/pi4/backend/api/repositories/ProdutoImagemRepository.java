@@ -1,10 +1,46 @@
 package com.pi4.backend.api.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.pi4.backend.api.dto.ArquivosImagem;
 import com.pi4.backend.api.entities.ProdutoImagem;
 
 @Repository
 public interface ProdutoImagemRepository extends JpaRepository<ProdutoImagem, Long> {
+
+    Optional<ProdutoImagem> findFirstByProdutoIdAndHashConteudo(Integer produtoId, String hashConteudo);
+
+    // Contagem de referências de um arquivo: as linhas que apontam para ele
+    long countByDiretorioAndNomeArquivo(String diretorio, String nomeArquivo);
+
+    @Query("SELECT i.diretorio AS diretorio, i.nomeArquivo AS nomeArquivo, i.arquivoMiniatura AS arquivoMiniatura, " +
+           "i.arquivoListagem AS arquivoListagem, i.arquivoZoom AS arquivoZoom FROM ProdutoImagem i")
+    List<ArquivosImagem> listarArquivos();
+
+    List<ProdutoImagem> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("SELECT i.id FROM ProdutoImagem i WHERE i.statusVariantes = :status")
+    List<Long> listarIdsPorStatusVariantes(@Param("status") ProdutoImagem.StatusVariantes status);
+
+    @Modifying
+    @Query("UPDATE ProdutoImagem i SET i.statusVariantes = :status, i.arquivoMiniatura = :miniatura, " +
+           "i.arquivoListagem = :listagem, i.arquivoZoom = :zoom WHERE i.id = :id")
+    int registrarVariantes(@Param("id") Long id, @Param("status") ProdutoImagem.StatusVariantes status,
+                           @Param("miniatura") String miniatura, @Param("listagem") String listagem,
+                           @Param("zoom") String zoom);
+
+    @Modifying
+    @Query("UPDATE ProdutoImagem i SET i.diretorio = :diretorio, i.nomeArquivo = :nomeArquivo, " +
+           "i.hashConteudo = :hash, i.tamanhoBytes = :tamanho, i.statusVariantes = :status, " +
+           "i.arquivoMiniatura = null, i.arquivoListagem = null, i.arquivoZoom = null WHERE i.id = :id")
+    int moverArquivo(@Param("id") Long id, @Param("diretorio") String diretorio,
+                     @Param("nomeArquivo") String nomeArquivo, @Param("hash") String hash,
+                     @Param("tamanho") Long tamanho, @Param("status") ProdutoImagem.StatusVariantes status);
 }
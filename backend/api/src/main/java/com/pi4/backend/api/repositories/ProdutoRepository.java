@@ -1,21 +1,69 @@
 package com.pi4.backend.api.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.pi4.backend.api.dto.EstatisticasProdutosDto;
 import com.pi4.backend.api.entities.Produto;
 
 @Repository
-public interface ProdutoRepository extends JpaRepository<Produto, Integer> {
+public interface ProdutoRepository extends JpaRepository<Produto, Integer>, EstoqueLoteRepository {
 	Page<Produto> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
 	Page<Produto> findByStatus(Boolean status, Pageable pageable);
 	Page<Produto> findByNomeContainingIgnoreCaseAndStatus(String nome, Boolean status, Pageable pageable);
+
+	// Busca textual: ids vêm do índice invertido, paginação/ordenação/status ficam no banco
+	Page<Produto> findByIdIn(Collection<Integer> ids, Pageable pageable);
+	Page<Produto> findByIdInAndStatus(Collection<Integer> ids, Boolean status, Pageable pageable);
+
+	// Produtos com as imagens numa só consulta, para o cache do catálogo (copiados fora da sessão)
+	@EntityGraph(attributePaths = "imagens")
+	List<Produto> findComImagensByIdIn(Collection<Integer> ids);
+
+	// Paginação por cursor (keyset): continua depois de (data, id), do mais novo para o mais antigo.
+	// data nula = primeira página. Retorna Slice, sem COUNT.
+	@Query("SELECT p FROM Produto p WHERE (:status IS NULL OR p.status = :status) " +
+	       "AND (:data IS NULL OR p.dataCriacao < :data OR (p.dataCriacao = :data AND p.id < :id)) " +
+	       "ORDER BY p.dataCriacao DESC, p.id DESC")
+	Slice<Produto> buscarPorCursor(@Param("status") Boolean status, @Param("data") Instant data,
+	                               @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT p FROM Produto p WHERE p.id IN :ids AND (:status IS NULL OR p.status = :status) " +
+	       "AND (:data IS NULL OR p.dataCriacao < :data OR (p.dataCriacao = :data AND p.id < :id)) " +
+	       "ORDER BY p.dataCriacao DESC, p.id DESC")
+	Slice<Produto> buscarPorIdsECursor(@Param("ids") Collection<Integer> ids, @Param("status") Boolean status,
+	                                   @Param("data") Instant data, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT p FROM Produto p WHERE LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%')) " +
+	       "AND (:status IS NULL OR p.status = :status) " +
+	       "AND (:data IS NULL OR p.dataCriacao < :data OR (p.dataCriacao = :data AND p.id < :id)) " +
+	       "ORDER BY p.dataCriacao DESC, p.id DESC")
+	Slice<Produto> buscarPorNomeECursor(@Param("nome") String nome, @Param("status") Boolean status,
+	                                    @Param("data") Instant data, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT p.id, p.nome, p.descricao FROM Produto p")
+	List<Object[]> findDadosIndexacao();
 	
 	// Métodos para dashboard
 	List<Produto> findByQuantidadeEstoqueLessThanEqualOrderByQuantidadeEstoqueAsc(Integer quantidade);
 	List<Produto> findTop5ByOrderByPrecoDesc();
+
+	// Estatísticas do dashboard em uma única consulta agregada (sem carregar entidades)
+	@Query("SELECT new com.pi4.backend.api.dto.EstatisticasProdutosDto(" +
+	       "COUNT(p), " +
+	       "SUM(CASE WHEN p.status = true THEN 1L ELSE 0L END), " +
+	       "SUM(CASE WHEN p.quantidadeEstoque <= :limiteBaixoEstoque THEN 1L ELSE 0L END), " +
+	       "SUM(p.preco * p.quantidadeEstoque)) " +
+	       "FROM Produto p")
+	EstatisticasProdutosDto calcularEstatisticas(@Param("limiteBaixoEstoque") Integer limiteBaixoEstoque);
 }
@@ -1,7 +1,15 @@
 package com.pi4.backend.api.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pi4.backend.api.dto.CredencialLogin;
 import com.pi4.backend.api.entities.Usuario;
 
 @Repository
@@ -9,4 +17,20 @@ public interface UserRepository extends JpaRepository<Usuario, Integer> {
 	Usuario findByEmail(String email);
 	boolean existsByEmail(String email);
 	boolean existsByCpf(String cpf);
+
+	// Login: usuário do backoffice e cliente com o e-mail numa consulta só (no máximo uma linha de cada)
+	@Query(nativeQuery = true, value =
+		"SELECT 'USUARIO' AS tipo, u.id_usuario AS id, u.nome AS nome, u.email AS email, u.senha AS senha, " +
+		"       CASE WHEN u.status THEN 1 ELSE 0 END AS ativo, g.nome AS grupo " +
+		"FROM tb_usuario u LEFT JOIN tb_grupo g ON g.id_grupo = u.id_grupo WHERE u.email = :email " +
+		"UNION ALL " +
+		"SELECT 'CLIENTE', c.id_cliente, c.nome, c.email, c.senha, CASE WHEN c.status THEN 1 ELSE 0 END, CAST(NULL AS CHAR(50)) " +
+		"FROM tb_cliente c WHERE c.email = :email")
+	List<CredencialLogin> buscarCredenciais(@Param("email") String email);
+
+	// Troca o hash só se ainda for o que foi conferido no login (não sobrescreve troca de senha concorrente)
+	@Transactional
+	@Modifying
+	@Query("UPDATE Usuario u SET u.senha = :novaSenha WHERE u.id = :id AND u.senha = :senhaAtual")
+	int atualizarHashSenha(@Param("id") Integer id, @Param("senhaAtual") String senhaAtual, @Param("novaSenha") String novaSenha);
 }
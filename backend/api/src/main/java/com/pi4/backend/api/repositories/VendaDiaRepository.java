@@ -0,0 +1,40 @@
+package com.pi4.backend.api.repositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pi4.backend.api.entities.VendaDia;
+
+public interface VendaDiaRepository extends JpaRepository<VendaDia, VendaDia.Chave> {
+
+    // Soma o delta na linha (dia, status), criando-a se ainda não existe
+    @Modifying
+    @Query(value = "INSERT INTO tb_venda_dia (dia, status, pedidos, valor_total) " +
+                   "VALUES (:dia, :status, :pedidos, :valor) " +
+                   "ON DUPLICATE KEY UPDATE pedidos = pedidos + VALUES(pedidos), " +
+                   "valor_total = valor_total + VALUES(valor_total)", nativeQuery = true)
+    int somar(@Param("dia") LocalDate dia, @Param("status") String status,
+              @Param("pedidos") long pedidos, @Param("valor") BigDecimal valor);
+
+    @Modifying
+    @Query("DELETE FROM VendaDia v WHERE v.dia BETWEEN :inicio AND :fim")
+    int removerPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    // Recalcula a partir de tb_pedido os dias de [inicio, fim)
+    @Modifying
+    @Query(value = "INSERT INTO tb_venda_dia (dia, status, pedidos, valor_total) " +
+                   "SELECT CAST(p.data_pedido AS DATE), p.status, COUNT(*), SUM(p.valor_total) " +
+                   "FROM tb_pedido p WHERE p.data_pedido >= :inicio AND p.data_pedido < :fim " +
+                   "GROUP BY CAST(p.data_pedido AS DATE), p.status", nativeQuery = true)
+    int reconstruirPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    @Query("SELECT v FROM VendaDia v WHERE v.dia BETWEEN :inicio AND :fim ORDER BY v.dia, v.status")
+    List<VendaDia> listarPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
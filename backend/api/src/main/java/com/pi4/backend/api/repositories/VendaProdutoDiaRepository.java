@@ -0,0 +1,49 @@
+package com.pi4.backend.api.repositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pi4.backend.api.entities.VendaProdutoDia;
+
+public interface VendaProdutoDiaRepository extends JpaRepository<VendaProdutoDia, VendaProdutoDia.Chave> {
+
+    // Soma o delta na linha (dia, produto), criando-a se ainda não existe
+    @Modifying
+    @Query(value = "INSERT INTO tb_venda_produto_dia (dia, id_produto, nome_produto, quantidade, receita) " +
+                   "VALUES (:dia, :produtoId, :nome, :quantidade, :receita) " +
+                   "ON DUPLICATE KEY UPDATE nome_produto = VALUES(nome_produto), " +
+                   "quantidade = quantidade + VALUES(quantidade), receita = receita + VALUES(receita)",
+           nativeQuery = true)
+    int somar(@Param("dia") LocalDate dia, @Param("produtoId") Integer produtoId, @Param("nome") String nome,
+              @Param("quantidade") long quantidade, @Param("receita") BigDecimal receita);
+
+    @Modifying
+    @Query("DELETE FROM VendaProdutoDia v WHERE v.dia BETWEEN :inicio AND :fim")
+    int removerPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    // Recalcula a partir dos itens dos pedidos não cancelados os dias de [inicio, fim)
+    @Modifying
+    @Query(value = "INSERT INTO tb_venda_produto_dia (dia, id_produto, nome_produto, quantidade, receita) " +
+                   "SELECT CAST(p.data_pedido AS DATE), ip.id_produto, MAX(ip.nome_produto), " +
+                   "SUM(ip.quantidade), SUM(ip.subtotal) " +
+                   "FROM tb_item_pedido ip JOIN tb_pedido p ON p.id_pedido = ip.id_pedido " +
+                   "WHERE p.status <> 'CANCELADO' AND p.data_pedido >= :inicio AND p.data_pedido < :fim " +
+                   "GROUP BY CAST(p.data_pedido AS DATE), ip.id_produto", nativeQuery = true)
+    int reconstruirPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    // produtoId, nomeProduto, quantidade, receita do período, do mais vendido para o menos
+    @Query("SELECT v.produtoId, MAX(v.nomeProduto), SUM(v.quantidade), SUM(v.receita) " +
+           "FROM VendaProdutoDia v WHERE v.dia BETWEEN :inicio AND :fim " +
+           "GROUP BY v.produtoId HAVING SUM(v.quantidade) > 0 " +
+           "ORDER BY SUM(v.quantidade) DESC, v.produtoId")
+    List<Object[]> listarMaisVendidos(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim,
+                                      Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.pi4.backend.api.services;
+
+import java.util.List;
+
+import org.springframework.util.ClassUtils;
+
+import com.pi4.backend.api.entities.EventoPedido;
+
+/**
+ * Efeito colateral de criação/mudança de status de pedido, executado pelo
+ * {@link EventosPedidoService} fora da requisição.
+ *
+ * Recebe os eventos em lote, em ordem de gravação, numa transação só sua que também grava a
+ * entrega: se lançar exceção, nada do lote fica gravado para este assinante e os eventos são
+ * reenviados a ele (um a um), sem afetar o que os outros assinantes já processaram.
+ */
+public interface AssinanteEventosPedido {
+
+    void receber(List<EventoPedido> eventos);
+
+    /** Identifica as entregas deste assinante; precisa ser estável entre versões da aplicação. */
+    default String nome() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,208 @@
+package com.pi4.backend.api.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Índice invertido em memória sobre nome e descrição dos produtos.
+ *
+ * Os termos são normalizados (minúsculas, sem acento) e ficam em um dicionário ordenado,
+ * então a busca por prefixo é um intervalo do mapa. Cada termo aponta para um BitSet de
+ * ids de produto; termos da consulta são combinados com E (todos precisam casar).
+ * O índice é reconstruído a partir do banco na subida e atualizado a cada escrita.
+ */
+@Service
+public class BuscaProdutoService {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaProdutoService.class);
+
+    private static final Pattern MARCAS_ACENTO = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    // Ignoradas na consulta quando há outros termos (não restringem nada)
+    private static final Set<String> STOPWORDS = Set.of(
+        "a", "o", "as", "os", "de", "da", "do", "das", "dos", "e", "em", "com", "para", "por", "um", "uma");
+
+    private final ProdutoRepository produtoRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Indice indice = new Indice();
+    private volatile boolean pronto;
+
+    // Escritas que chegam durante uma reconstrução são reaplicadas no índice novo
+    private List<Consumer<Indice>> pendentes;
+
+    public BuscaProdutoService(ProdutoRepository produtoRepository) {
+        this.produtoRepository = produtoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendentes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Indice novo = new Indice();
+        try {
+            for (Object[] linha : produtoRepository.findDadosIndexacao()) {
+                novo.indexar((Integer) linha[0], (String) linha[1], (String) linha[2]);
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendentes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Falha ao reconstruir índice de busca de produtos", e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendentes.forEach(op -> op.accept(novo));
+            pendentes = null;
+            indice = novo;
+            pronto = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de busca de produtos reconstruído: {} produtos, {} termos", novo.termosPorProduto.size(), novo.postings.size());
+    }
+
+    /** Enquanto a primeira reconstrução não termina, quem chama deve usar a busca no banco. */
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public void indexar(Produto produto) {
+        if (produto == null || produto.getId() == null) return;
+        Integer id = produto.getId();
+        String nome = produto.getNome();
+        String descricao = produto.getDescricao();
+        aplicar(i -> i.indexar(id, nome, descricao));
+    }
+
+    public void remover(Integer produtoId) {
+        if (produtoId == null) return;
+        aplicar(i -> i.remover(produtoId));
+    }
+
+    /**
+     * Ids dos produtos cujo nome/descrição contém, para cada termo da consulta,
+     * alguma palavra que comece com ele. Ordem crescente de id.
+     */
+    public List<Integer> buscar(String consulta) {
+        List<String> termos = termosConsulta(consulta);
+        if (termos.isEmpty()) return List.of();
+        lock.readLock().lock();
+        try {
+            BitSet resultado = null;
+            for (String termo : termos) {
+                BitSet casados = indice.porPrefixo(termo);
+                if (resultado == null) {
+                    resultado = casados;
+                } else {
+                    resultado.and(casados);
+                }
+                if (resultado.isEmpty()) return List.of();
+            }
+            List<Integer> ids = new ArrayList<>(resultado.cardinality());
+            for (int id = resultado.nextSetBit(0); id >= 0; id = resultado.nextSetBit(id + 1)) {
+                ids.add(id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<Indice> operacao) {
+        lock.writeLock().lock();
+        try {
+            operacao.accept(indice);
+            if (pendentes != null) {
+                pendentes.add(operacao);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<String> termosConsulta(String consulta) {
+        Set<String> termos = tokenizar(consulta);
+        if (termos.size() > 1) {
+            Set<String> semStopwords = new LinkedHashSet<>(termos);
+            semStopwords.removeAll(STOPWORDS);
+            if (!semStopwords.isEmpty()) termos = semStopwords;
+        }
+        return new ArrayList<>(termos);
+    }
+
+    /** Minúsculas, sem acentos (ç -> c, ã -> a), quebrando em tudo que não é letra/dígito. */
+    static Set<String> tokenizar(String texto) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (texto == null || texto.isBlank()) return tokens;
+        String normalizado = MARCAS_ACENTO.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        for (String t : SEPARADORES.split(normalizado.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    private static class Indice {
+        private final NavigableMap<String, BitSet> postings = new TreeMap<>();
+        private final Map<Integer, Set<String>> termosPorProduto = new HashMap<>();
+
+        void indexar(Integer id, String nome, String descricao) {
+            remover(id);
+            Set<String> termos = tokenizar(nome);
+            termos.addAll(tokenizar(descricao));
+            for (String termo : termos) {
+                postings.computeIfAbsent(termo, t -> new BitSet()).set(id);
+            }
+            termosPorProduto.put(id, termos);
+        }
+
+        void remover(Integer id) {
+            Set<String> termos = termosPorProduto.remove(id);
+            if (termos == null) return;
+            for (String termo : termos) {
+                BitSet ids = postings.get(termo);
+                if (ids == null) continue;
+                ids.clear(id);
+                if (ids.isEmpty()) postings.remove(termo);
+            }
+        }
+
+        BitSet porPrefixo(String prefixo) {
+            BitSet uniao = new BitSet();
+            for (BitSet ids : postings.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false).values()) {
+                uniao.or(ids);
+            }
+            return uniao;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.pi4.backend.api.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * LRU com TTL dividido em segmentos para reduzir disputa de lock nas leituras. Cada serviço
+ * que precisa de um cache limitado em memória tem a sua instância; o contador de evictions
+ * é do dono, para aparecer nas estatísticas dele.
+ */
+class CacheLru<K, V> {
+
+    private static final int SEGMENTOS = 16;
+
+    private final List<Segmento<K, V>> segmentos;
+    private final long ttlNanos;
+
+    CacheLru(int tamanhoMaximo, long ttlNanos, AtomicLong evictions) {
+        this.ttlNanos = ttlNanos;
+        int porSegmento = Math.max(1, tamanhoMaximo / SEGMENTOS);
+        List<Segmento<K, V>> criados = new ArrayList<>(SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) {
+            criados.add(new Segmento<>(porSegmento, evictions));
+        }
+        this.segmentos = List.copyOf(criados);
+    }
+
+    V get(K chave) {
+        Segmento<K, V> s = segmento(chave);
+        synchronized (s) {
+            Entrada<V> e = s.get(chave);
+            if (e == null) return null;
+            if (System.nanoTime() - e.criadoEm >= ttlNanos) {
+                s.remove(chave);
+                s.evictions.incrementAndGet();
+                return null;
+            }
+            return e.valor;
+        }
+    }
+
+    void put(K chave, V valor) {
+        Segmento<K, V> s = segmento(chave);
+        synchronized (s) {
+            s.put(chave, new Entrada<>(valor, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Grava só se {@code condicao} ainda valer, conferida sob o lock do segmento: uma remoção
+     * que torne a condição falsa não passa entre a conferência e a gravação.
+     */
+    void putSe(K chave, V valor, BooleanSupplier condicao) {
+        Segmento<K, V> s = segmento(chave);
+        synchronized (s) {
+            if (condicao.getAsBoolean()) {
+                s.put(chave, new Entrada<>(valor, System.nanoTime()));
+            }
+        }
+    }
+
+    void remove(K chave) {
+        Segmento<K, V> s = segmento(chave);
+        synchronized (s) {
+            s.remove(chave);
+        }
+    }
+
+    /** Remove e devolve a entrada ainda válida; só uma de várias chamadas concorrentes a recebe. */
+    V retirar(K chave) {
+        Segmento<K, V> s = segmento(chave);
+        synchronized (s) {
+            Entrada<V> e = s.remove(chave);
+            if (e == null) return null;
+            return System.nanoTime() - e.criadoEm >= ttlNanos ? null : e.valor;
+        }
+    }
+
+    void clear() {
+        for (Segmento<K, V> s : segmentos) {
+            synchronized (s) {
+                s.clear();
+            }
+        }
+    }
+
+    int size() {
+        int total = 0;
+        for (Segmento<K, V> s : segmentos) {
+            synchronized (s) {
+                total += s.size();
+            }
+        }
+        return total;
+    }
+
+    private Segmento<K, V> segmento(K chave) {
+        int h = chave.hashCode();
+        return segmentos.get((h ^ (h >>> 16)) & (SEGMENTOS - 1));
+    }
+
+    private static class Segmento<K, V> extends LinkedHashMap<K, Entrada<V>> {
+        private final int capacidade;
+        private final AtomicLong evictions;
+
+        Segmento(int capacidade, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacidade = capacidade;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+            if (size() > capacidade) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class Entrada<V> {
+        final V valor;
+        final long criadoEm;
+
+        Entrada(V valor, long criadoEm) {
+            this.valor = valor;
+            this.criadoEm = criadoEm;
+        }
+    }
+}
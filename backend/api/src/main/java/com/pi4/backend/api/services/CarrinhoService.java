@@ -0,0 +1,721 @@
+package com.pi4.backend.api.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.entities.CarrinhoItem;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.CarrinhoRepository;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Carrinhos ativos em memória com gravação posterior (write-behind) em tb_carrinho_item.
+ *
+ * O carrinho de um cliente é carregado do banco no primeiro acesso e fica em memória; as
+ * alterações são serializadas por cliente (locks particionados por id). Linhas novas são
+ * gravadas na hora, para a resposta já trazer o id. Mudanças de quantidade, remoções e
+ * limpezas só marcam a linha como pendente: várias alterações seguidas viram um único
+ * comando, gravado em lote pela tarefa agendada, no checkout, ao descartar um carrinho
+ * inativo e no desligamento da aplicação.
+ *
+ * Com {@code carrinho.wal.ativo=true} cada alteração também é anexada a um log local
+ * (quantidade final, não incremento), reaplicado na subida caso a aplicação tenha caído
+ * antes de gravar.
+ */
+@Service
+public class CarrinhoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarrinhoService.class);
+
+    private static final int PARTICOES = 64;
+
+    public enum Situacao {
+        OK,
+        CLIENTE_NAO_ENCONTRADO,
+        PRODUTO_NAO_ENCONTRADO,
+        PRODUTO_INATIVO,
+        ESTOQUE_INSUFICIENTE,
+        ITEM_NAO_ENCONTRADO,
+        FALHA_GRAVACAO
+    }
+
+    private final CarrinhoRepository carrinhoRepository;
+    private final ClienteRepository clienteRepository;
+    private final ProdutoRepository produtoRepository;
+    private final CatalogoCacheService catalogoCache;
+    private final TransactionTemplate transacao;
+    private final TransactionTemplate leitura;
+    private final long inatividadeMs;
+    private final int maxCarrinhos;
+    private final RegistroGravacao wal;
+
+    private final Map<Integer, Carrinho> carrinhos = new ConcurrentHashMap<>();
+    // Mantidas durante a leitura do carrinho no banco e a escrita no log
+    private final ReentrantLock[] travas = new ReentrantLock[PARTICOES];
+
+    public CarrinhoService(CarrinhoRepository carrinhoRepository, ClienteRepository clienteRepository,
+                           ProdutoRepository produtoRepository, CatalogoCacheService catalogoCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${carrinho.inatividade-ms:1800000}") long inatividadeMs,
+                           @Value("${carrinho.max-carrinhos:10000}") int maxCarrinhos,
+                           @Value("${carrinho.wal.ativo:false}") boolean walAtivo,
+                           @Value("${carrinho.wal.diretorio:data/carrinho-wal}") String walDiretorio) {
+        this.carrinhoRepository = carrinhoRepository;
+        this.clienteRepository = clienteRepository;
+        this.produtoRepository = produtoRepository;
+        this.catalogoCache = catalogoCache;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.inatividadeMs = inatividadeMs;
+        this.maxCarrinhos = maxCarrinhos;
+        this.wal = walAtivo ? new RegistroGravacao(Paths.get(walDiretorio)) : null;
+        for (int i = 0; i < PARTICOES; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    /** Itens do carrinho; vazio se o cliente não existe. */
+    public Optional<List<CarrinhoItem>> listar(Integer clienteId) {
+        List<CarrinhoItem> itens;
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            if (carrinho == null) return Optional.empty();
+            itens = new ArrayList<>(carrinho.itens.size());
+            for (CarrinhoItem item : carrinho.itens.values()) {
+                itens.add(copia(item));
+            }
+        } finally {
+            trava(clienteId).unlock();
+        }
+        // Dados de produto sempre atuais (cache do catálogo), não os do momento em que o item entrou
+        for (CarrinhoItem item : itens) {
+            produtoAtual(item.getProduto().getId()).ifPresent(item::setProduto);
+        }
+        return Optional.of(itens);
+    }
+
+    public Resultado adicionar(Integer clienteId, Integer produtoId, int quantidade) {
+        Produto produto = produtoAtual(produtoId).orElse(null);
+        Carrinho carrinho;
+        boolean novo;
+        CarrinhoItem item;
+        trava(clienteId).lock();
+        try {
+            carrinho = carregar(clienteId);
+            if (carrinho == null) return Resultado.de(Situacao.CLIENTE_NAO_ENCONTRADO);
+            if (produto == null) return Resultado.de(Situacao.PRODUTO_NAO_ENCONTRADO);
+            if (!Boolean.TRUE.equals(produto.getStatus())) return Resultado.de(Situacao.PRODUTO_INATIVO);
+
+            item = carrinho.itens.get(produtoId);
+            novo = item == null;
+            int novaQuantidade = novo ? quantidade : item.getQuantidade() + quantidade;
+            if (produto.getQuantidadeEstoque() < novaQuantidade) return Resultado.de(Situacao.ESTOQUE_INSUFICIENTE);
+
+            if (novo) {
+                item = new CarrinhoItem(carrinho.cliente, produto, novaQuantidade);
+                carrinho.itens.put(produtoId, item);
+            } else {
+                item.setProduto(produto);
+                item.setQuantidade(novaQuantidade);
+            }
+            marcarAlterado(carrinho, produtoId, novaQuantidade);
+        } finally {
+            trava(clienteId).unlock();
+        }
+        if (novo) {
+            // Linha nova: grava já para devolver o id gerado, como antes
+            gravar(carrinho);
+        }
+        trava(clienteId).lock();
+        try {
+            if (novo && item.getId() == null) {
+                // Não gravou: desfaz a inclusão para que o cliente possa repetir o pedido sem somar
+                // a quantidade duas vezes quando a linha pendente chegasse ao banco depois
+                if (carrinho.itens.get(produtoId) == item) {
+                    carrinho.itens.remove(produtoId);
+                    carrinho.alterados.remove(produtoId);
+                    carrinho.removidos.add(produtoId);
+                    registrarWal("R;" + clienteId + ";" + produtoId);
+                }
+                return Resultado.de(Situacao.FALHA_GRAVACAO);
+            }
+            return new Resultado(Situacao.OK, copia(item), novo);
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    public Resultado atualizarQuantidade(Integer clienteId, Integer produtoId, int quantidade) {
+        Produto produto = produtoAtual(produtoId).orElse(null);
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            CarrinhoItem item = carrinho != null ? carrinho.itens.get(produtoId) : null;
+            if (item == null) return Resultado.de(Situacao.ITEM_NAO_ENCONTRADO);
+            if (produto == null) produto = item.getProduto();
+            if (produto.getQuantidadeEstoque() < quantidade) return Resultado.de(Situacao.ESTOQUE_INSUFICIENTE);
+
+            item.setProduto(produto);
+            item.setQuantidade(quantidade);
+            marcarAlterado(carrinho, produtoId, quantidade);
+            return new Resultado(Situacao.OK, copia(item), false);
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    public Resultado remover(Integer clienteId, Integer produtoId) {
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            if (carrinho == null || carrinho.itens.remove(produtoId) == null) {
+                return Resultado.de(Situacao.ITEM_NAO_ENCONTRADO);
+            }
+            carrinho.alterados.remove(produtoId);
+            carrinho.removidos.add(produtoId);
+            registrarWal("R;" + clienteId + ";" + produtoId);
+            return Resultado.de(Situacao.OK);
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    /** Esvazia o carrinho; {@code false} se o cliente não existe. */
+    public boolean limpar(Integer clienteId) {
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            if (carrinho == null) return false;
+            limparEmMemoria(carrinho);
+            carrinho.limparTudo = true;
+            registrarWal("L;" + clienteId);
+            return true;
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    /** Soma das quantidades; vazio se o cliente não existe. */
+    public Optional<Integer> contarItens(Integer clienteId) {
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            if (carrinho == null) return Optional.empty();
+            int total = 0;
+            for (CarrinhoItem item : carrinho.itens.values()) {
+                total += item.getQuantidade();
+            }
+            return Optional.of(total);
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    /** Grava agora o que estiver pendente para o cliente (ex.: início do checkout). */
+    public void sincronizar(Integer clienteId) {
+        Carrinho carrinho = carrinhos.get(clienteId);
+        if (carrinho != null) {
+            gravar(carrinho);
+        }
+    }
+
+    /**
+     * Limpa o carrinho como parte da transação do pedido. O estado em memória só é
+     * descartado após o commit; se o pedido for desfeito, o carrinho continua como estava.
+     */
+    public void limparAposPedido(Integer clienteId) {
+        carrinhoRepository.removerTodos(clienteId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar(clienteId);
+                }
+            });
+        } else {
+            descartar(clienteId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${carrinho.gravacao-ms:2000}", initialDelayString = "${carrinho.gravacao-ms:2000}")
+    public void gravarPendentes() {
+        List<Path> segmentosAnteriores = wal != null ? wal.rotacionar() : List.of();
+        boolean tudoGravado = true;
+        for (Carrinho carrinho : carrinhos.values()) {
+            tudoGravado &= gravar(carrinho);
+        }
+        // Tudo que estava nos segmentos antigos já foi aplicado em memória antes da rotação e agora está no banco
+        if (tudoGravado && wal != null) {
+            wal.apagar(segmentosAnteriores);
+        }
+        despejarInativos();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        for (Carrinho carrinho : carrinhos.values()) {
+            gravar(carrinho);
+        }
+        if (wal != null) {
+            wal.fechar();
+        }
+    }
+
+    /** Reaplica o log de alterações que não chegaram ao banco antes de uma queda. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarWal() {
+        if (wal == null) return;
+        List<Path> segmentos = wal.rotacionar();
+        int operacoes = 0;
+        for (Path segmento : segmentos) {
+            operacoes += wal.ler(segmento, this::reaplicar);
+        }
+        boolean tudoGravado = true;
+        for (Carrinho carrinho : carrinhos.values()) {
+            tudoGravado &= gravar(carrinho);
+        }
+        if (tudoGravado) {
+            wal.apagar(segmentos);
+        }
+        if (operacoes > 0) {
+            log.info("Carrinho: {} operações reaplicadas do log de {} segmento(s)", operacoes, segmentos.size());
+        }
+    }
+
+    int carrinhosEmMemoria() {
+        return carrinhos.size();
+    }
+
+    private void reaplicar(String[] campos) {
+        Integer clienteId = Integer.valueOf(campos[1]);
+        trava(clienteId).lock();
+        try {
+            Carrinho carrinho = carregar(clienteId);
+            if (carrinho == null) return;
+            switch (campos[0]) {
+                case "S" -> {
+                    Integer produtoId = Integer.valueOf(campos[2]);
+                    int quantidade = Integer.parseInt(campos[3]);
+                    CarrinhoItem item = carrinho.itens.get(produtoId);
+                    if (item == null) {
+                        Produto produto = produtoRepository.findById(produtoId).orElse(null);
+                        if (produto == null) return;
+                        item = new CarrinhoItem(carrinho.cliente, produto, quantidade);
+                        carrinho.itens.put(produtoId, item);
+                    }
+                    item.setQuantidade(quantidade);
+                    carrinho.removidos.remove(produtoId);
+                    carrinho.alterados.add(produtoId);
+                }
+                case "R" -> {
+                    Integer produtoId = Integer.valueOf(campos[2]);
+                    carrinho.itens.remove(produtoId);
+                    carrinho.alterados.remove(produtoId);
+                    carrinho.removidos.add(produtoId);
+                }
+                case "L" -> {
+                    limparEmMemoria(carrinho);
+                    carrinho.limparTudo = true;
+                }
+                default -> log.warn("Carrinho: operação desconhecida no log: {}", campos[0]);
+            }
+        } finally {
+            trava(clienteId).unlock();
+        }
+    }
+
+    private void marcarAlterado(Carrinho carrinho, Integer produtoId, int quantidade) {
+        carrinho.removidos.remove(produtoId);
+        carrinho.alterados.add(produtoId);
+        registrarWal("S;" + carrinho.clienteId + ";" + produtoId + ";" + quantidade);
+    }
+
+    private void registrarWal(String linha) {
+        if (wal != null) {
+            wal.anexar(linha);
+        }
+    }
+
+    private static void limparEmMemoria(Carrinho carrinho) {
+        carrinho.itens.clear();
+        carrinho.alterados.clear();
+        carrinho.removidos.clear();
+    }
+
+    /**
+     * Grava as pendências de um carrinho numa transação própria. O estado é copiado sob a
+     * trava do cliente e gravado fora dela: novas alterações continuam sendo aceitas durante
+     * a gravação e ficam para a próxima. Em caso de falha as pendências voltam para o carrinho.
+     */
+    private boolean gravar(Carrinho carrinho) {
+        carrinho.gravacao.lock();
+        try {
+            Integer clienteId = carrinho.clienteId;
+            boolean limparTudo;
+            Set<Integer> removidos;
+            Map<Integer, CarrinhoItem> alterados = new LinkedHashMap<>();
+            trava(clienteId).lock();
+            try {
+                if (!carrinho.pendente()) return true;
+                limparTudo = carrinho.limparTudo;
+                removidos = new HashSet<>(carrinho.removidos);
+                for (Integer produtoId : carrinho.alterados) {
+                    alterados.put(produtoId, copia(carrinho.itens.get(produtoId)));
+                }
+                carrinho.limparTudo = false;
+                carrinho.removidos.clear();
+                carrinho.alterados.clear();
+            } finally {
+                trava(clienteId).unlock();
+            }
+
+            Map<Integer, Long> idsGerados = new HashMap<>();
+            try {
+                transacao.executeWithoutResult(status -> {
+                    if (limparTudo) {
+                        carrinhoRepository.removerTodos(clienteId);
+                    }
+                    if (!removidos.isEmpty()) {
+                        carrinhoRepository.removerProdutos(clienteId, removidos);
+                    }
+                    for (Map.Entry<Integer, CarrinhoItem> e : alterados.entrySet()) {
+                        CarrinhoItem item = e.getValue();
+                        int linhas = carrinhoRepository.atualizarQuantidade(
+                            clienteId, e.getKey(), item.getQuantidade(), item.getDataAtualizacao());
+                        if (linhas == 0) {
+                            item.setId(null);
+                            idsGerados.put(e.getKey(), carrinhoRepository.save(item).getId());
+                        }
+                    }
+                });
+            } catch (RuntimeException ex) {
+                trava(clienteId).lock();
+                try {
+                    carrinho.limparTudo |= limparTudo;
+                    for (Integer produtoId : removidos) {
+                        if (!carrinho.itens.containsKey(produtoId)) carrinho.removidos.add(produtoId);
+                    }
+                    for (Integer produtoId : alterados.keySet()) {
+                        if (carrinho.itens.containsKey(produtoId)) carrinho.alterados.add(produtoId);
+                    }
+                } finally {
+                    trava(clienteId).unlock();
+                }
+                log.warn("Carrinho: falha ao gravar carrinho do cliente {}; nova tentativa na próxima rodada", clienteId, ex);
+                return false;
+            }
+
+            trava(clienteId).lock();
+            try {
+                idsGerados.forEach((produtoId, id) -> {
+                    CarrinhoItem item = carrinho.itens.get(produtoId);
+                    if (item != null && item.getId() == null) item.setId(id);
+                });
+            } finally {
+                trava(clienteId).unlock();
+            }
+            return true;
+        } finally {
+            carrinho.gravacao.unlock();
+        }
+    }
+
+    private void descartar(Integer clienteId) {
+        Carrinho carrinho = carrinhos.get(clienteId);
+        if (carrinho == null) return;
+        carrinho.gravacao.lock();
+        try {
+            trava(clienteId).lock();
+            try {
+                limparEmMemoria(carrinho);
+                carrinho.limparTudo = false;
+                registrarWal("L;" + clienteId);
+            } finally {
+                trava(clienteId).unlock();
+            }
+            // Uma gravação em andamento durante o pedido pode ter reinserido linhas depois do DELETE
+            transacao.executeWithoutResult(status -> carrinhoRepository.removerTodos(clienteId));
+        } catch (RuntimeException ex) {
+            trava(clienteId).lock();
+            try {
+                carrinho.limparTudo = true;
+            } finally {
+                trava(clienteId).unlock();
+            }
+            log.warn("Carrinho: falha ao limpar carrinho do cliente {} após o pedido", clienteId, ex);
+        } finally {
+            carrinho.gravacao.unlock();
+        }
+    }
+
+    private void despejarInativos() {
+        long limite = System.currentTimeMillis() - inatividadeMs;
+        List<Carrinho> candidatos = new ArrayList<>();
+        for (Carrinho carrinho : carrinhos.values()) {
+            if (carrinho.ultimoAcesso < limite) candidatos.add(carrinho);
+        }
+        int excesso = carrinhos.size() - candidatos.size() - maxCarrinhos;
+        if (excesso > 0) {
+            carrinhos.values().stream()
+                .filter(c -> c.ultimoAcesso >= limite)
+                .sorted(Comparator.comparingLong(c -> c.ultimoAcesso))
+                .limit(excesso)
+                .forEach(candidatos::add);
+        }
+        for (Carrinho carrinho : candidatos) {
+            if (!gravar(carrinho)) continue;
+            trava(carrinho.clienteId).lock();
+            try {
+                if (!carrinho.pendente() && carrinhos.get(carrinho.clienteId) == carrinho) {
+                    carrinhos.remove(carrinho.clienteId);
+                }
+            } finally {
+                trava(carrinho.clienteId).unlock();
+            }
+        }
+    }
+
+    // Chamar com a trava do cliente
+    private Carrinho carregar(Integer clienteId) {
+        Carrinho carrinho = carrinhos.get(clienteId);
+        if (carrinho == null) {
+            carrinho = leitura.execute(status -> {
+                Cliente cliente = clienteRepository.findById(clienteId).orElse(null);
+                if (cliente == null) return null;
+                // O cliente fica em memória e é serializado fora desta sessão
+                Hibernate.initialize(cliente.getEnderecos());
+                Hibernate.initialize(cliente.getEnderecosNovos());
+                Carrinho novo = new Carrinho(clienteId, cliente);
+                for (CarrinhoItem item : carrinhoRepository.findByClienteId(clienteId)) {
+                    Hibernate.initialize(item.getProduto().getImagens());
+                    item.setCliente(cliente);
+                    novo.itens.put(item.getProduto().getId(), item);
+                }
+                return novo;
+            });
+            if (carrinho == null) return null;
+            carrinhos.put(clienteId, carrinho);
+        }
+        carrinho.ultimoAcesso = System.currentTimeMillis();
+        return carrinho;
+    }
+
+    private Optional<Produto> produtoAtual(Integer produtoId) {
+        return catalogoCache.produto(produtoId, () -> leitura.execute(status ->
+            produtoRepository.findById(produtoId).map(p -> {
+                Hibernate.initialize(p.getImagens());
+                return p;
+            })));
+    }
+
+    private ReentrantLock trava(Integer clienteId) {
+        return travas[Math.floorMod(clienteId.hashCode(), PARTICOES)];
+    }
+
+    private static CarrinhoItem copia(CarrinhoItem item) {
+        CarrinhoItem copia = new CarrinhoItem(item.getCliente(), item.getProduto(), item.getQuantidade());
+        copia.setId(item.getId());
+        copia.setDataAdicao(item.getDataAdicao());
+        copia.setDataAtualizacao(item.getDataAtualizacao());
+        return copia;
+    }
+
+    public static class Resultado {
+        private final Situacao situacao;
+        private final CarrinhoItem item;
+        private final boolean novo;
+
+        public Resultado(Situacao situacao, CarrinhoItem item, boolean novo) {
+            this.situacao = situacao;
+            this.item = item;
+            this.novo = novo;
+        }
+
+        static Resultado de(Situacao situacao) {
+            return new Resultado(situacao, null, false);
+        }
+
+        public Situacao getSituacao() { return situacao; }
+        public CarrinhoItem getItem() { return item; }
+        public boolean isNovo() { return novo; }
+    }
+
+    private static final class Carrinho {
+        private final Integer clienteId;
+        private final Cliente cliente;
+        private final Map<Integer, CarrinhoItem> itens = new LinkedHashMap<>();
+        private final Set<Integer> alterados = new HashSet<>();
+        private final Set<Integer> removidos = new HashSet<>();
+        private final ReentrantLock gravacao = new ReentrantLock();
+        private boolean limparTudo;
+        private volatile long ultimoAcesso = System.currentTimeMillis();
+
+        private Carrinho(Integer clienteId, Cliente cliente) {
+            this.clienteId = clienteId;
+            this.cliente = cliente;
+        }
+
+        private boolean pendente() {
+            return limparTudo || !alterados.isEmpty() || !removidos.isEmpty();
+        }
+    }
+
+    /**
+     * Log de alterações em segmentos numerados (carrinho-N.wal). Cada linha é uma operação
+     * idempotente (quantidade final, remoção ou limpeza), então reaplicar um segmento já
+     * gravado não muda o resultado. Segmentos antigos são apagados após uma rodada de
+     * gravação completa. As linhas vão para o SO a cada escrita (sobrevivem à queda do
+     * processo, não necessariamente à do servidor).
+     */
+    static final class RegistroGravacao {
+        private static final Pattern SEGMENTO = Pattern.compile("carrinho-(\\d+)\\.wal");
+
+        private final Path diretorio;
+        private long segmentoAtual;
+        private BufferedWriter escritor;
+        private final ReentrantLock travaEscrita = new ReentrantLock();
+
+        RegistroGravacao(Path diretorio) {
+            this.diretorio = diretorio;
+            try {
+                Files.createDirectories(diretorio);
+                this.segmentoAtual = segmentos().stream().mapToLong(RegistroGravacao::numero).max().orElse(0) + 1;
+                abrir();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível abrir o log do carrinho em " + diretorio, e);
+            }
+        }
+
+        void anexar(String linha) {
+            travaEscrita.lock();
+            try {
+                escritor.write(linha);
+                escritor.newLine();
+                escritor.flush();
+            } catch (IOException e) {
+                log.error("Carrinho: falha ao escrever no log de alterações", e);
+            } finally {
+                travaEscrita.unlock();
+            }
+        }
+
+        /** Fecha o segmento atual, abre o próximo e devolve todos os anteriores. */
+        List<Path> rotacionar() {
+            travaEscrita.lock();
+            try {
+                escritor.close();
+                segmentoAtual++;
+                List<Path> anteriores = segmentos();
+                abrir();
+                return anteriores;
+            } catch (IOException e) {
+                log.error("Carrinho: falha ao rotacionar o log de alterações", e);
+                return List.of();
+            } finally {
+                travaEscrita.unlock();
+            }
+        }
+
+        int ler(Path segmento, java.util.function.Consumer<String[]> operacao) {
+            int lidas = 0;
+            try (Stream<String> linhas = Files.lines(segmento, StandardCharsets.UTF_8)) {
+                for (String linha : (Iterable<String>) linhas::iterator) {
+                    if (linha.isBlank()) continue;
+                    try {
+                        operacao.accept(linha.split(";"));
+                        lidas++;
+                    } catch (RuntimeException e) {
+                        // Linha truncada por uma queda no meio da escrita
+                        log.warn("Carrinho: linha ignorada no log {}: {}", segmento.getFileName(), linha);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Carrinho: falha ao ler o log {}", segmento, e);
+            }
+            return lidas;
+        }
+
+        void apagar(List<Path> segmentos) {
+            for (Path segmento : segmentos) {
+                try {
+                    Files.deleteIfExists(segmento);
+                } catch (IOException e) {
+                    log.warn("Carrinho: não foi possível apagar o log {}", segmento, e);
+                }
+            }
+        }
+
+        void fechar() {
+            travaEscrita.lock();
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                log.warn("Carrinho: falha ao fechar o log de alterações", e);
+            } finally {
+                travaEscrita.unlock();
+            }
+        }
+
+        private void abrir() throws IOException {
+            escritor = Files.newBufferedWriter(diretorio.resolve("carrinho-" + segmentoAtual + ".wal"),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        private List<Path> segmentos() throws IOException {
+            try (Stream<Path> arquivos = Files.list(diretorio)) {
+                return arquivos
+                    .filter(p -> SEGMENTO.matcher(p.getFileName().toString()).matches())
+                    .filter(p -> numero(p) != segmentoAtual)
+                    .sorted(Comparator.comparingLong(RegistroGravacao::numero))
+                    .toList();
+            }
+        }
+
+        private static long numero(Path segmento) {
+            Matcher m = SEGMENTO.matcher(segmento.getFileName().toString());
+            return m.matches() ? Long.parseLong(m.group(1)) : -1;
+        }
+    }
+}
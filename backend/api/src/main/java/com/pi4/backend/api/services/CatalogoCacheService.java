@@ -0,0 +1,166 @@
+package com.pi4.backend.api.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.pi4.backend.api.entities.Produto;
+
+/**
+ * Cache em memória das leituras do catálogo (produto por id e páginas de listagem).
+ *
+ * Limitado em tamanho (LRU por segmento) e com TTL. Qualquer escrita em produto deve
+ * chamar um dos métodos invalidar*; dentro de transação a invalidação é repetida após
+ * o commit para que uma leitura concorrente não recoloque no cache o estado anterior.
+ *
+ * O cache guarda a sua própria cópia do que foi carregado e entrega uma cópia nova a cada
+ * leitura: o chamador pode alterar o que recebeu sem mudar o que os demais leitores veem.
+ */
+@Service
+public class CatalogoCacheService {
+
+    private final CacheLru<Integer, Produto> produtos;
+    private final CacheLru<String, Object> consultas;
+
+    // Incrementado a cada invalidação; carga iniciada antes dela não é gravada no cache
+    private final AtomicLong geracao = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public CatalogoCacheService(
+            @Value("${catalogo.cache.tamanho-maximo:2000}") int tamanhoMaximo,
+            @Value("${catalogo.cache.ttl-segundos:60}") long ttlSegundos) {
+        long ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.produtos = new CacheLru<>(tamanhoMaximo, ttlNanos, evictions);
+        this.consultas = new CacheLru<>(tamanhoMaximo, ttlNanos, evictions);
+    }
+
+    /** O produto carregado precisa estar com as imagens inicializadas (a cópia as percorre). */
+    public Optional<Produto> produto(Integer id, Supplier<Optional<Produto>> carregar) {
+        Produto cached = produtos.get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached.copia());
+        }
+        misses.incrementAndGet();
+        long g = geracao.get();
+        Optional<Produto> carregado = carregar.get();
+        if (carregado.isPresent()) {
+            produtos.putSe(id, carregado.get().copia(), () -> geracao.get() == g);
+        }
+        return carregado;
+    }
+
+    /** Vários produtos de uma vez: os que faltam no cache vêm numa única carga ({@code carregar}). */
+    public Map<Integer, Produto> produtos(Collection<Integer> ids, Function<List<Integer>, Iterable<Produto>> carregar) {
+        Map<Integer, Produto> encontrados = new HashMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer id : ids) {
+            Produto cached = produtos.get(id);
+            if (cached != null) {
+                encontrados.put(id, cached.copia());
+            } else if (!faltantes.contains(id)) {
+                faltantes.add(id);
+            }
+        }
+        hits.addAndGet(encontrados.size());
+        if (faltantes.isEmpty()) return encontrados;
+        misses.addAndGet(faltantes.size());
+        long g = geracao.get();
+        for (Produto produto : carregar.apply(faltantes)) {
+            encontrados.put(produto.getId(), produto);
+            produtos.putSe(produto.getId(), produto.copia(), () -> geracao.get() == g);
+        }
+        return encontrados;
+    }
+
+    /**
+     * Resultado de listagem em cache. {@code copiar} duplica o resultado (e os produtos dentro dele):
+     * é usado para a cópia guardada e para a cópia entregue a cada leitura.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T consulta(String chave, Supplier<T> carregar, UnaryOperator<T> copiar) {
+        Object cached = consultas.get(chave);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copiar.apply((T) cached);
+        }
+        misses.incrementAndGet();
+        long g = geracao.get();
+        T carregado = carregar.get();
+        if (carregado != null) {
+            consultas.putSe(chave, copiar.apply(carregado), () -> geracao.get() == g);
+        }
+        return carregado;
+    }
+
+    public static String chaveConsulta(String q, Boolean status, int page, int size, String sort) {
+        return (q == null ? "" : q.trim().toLowerCase()) + '|' + status + '|' + page + '|' + size + '|' + sort;
+    }
+
+    public void invalidarProduto(Integer id) {
+        invalidarAgoraEAposCommit(() -> {
+            produtos.remove(id);
+            consultas.clear();
+        });
+    }
+
+    public void invalidarProdutos(Collection<Integer> ids) {
+        invalidarAgoraEAposCommit(() -> {
+            ids.forEach(produtos::remove);
+            consultas.clear();
+        });
+    }
+
+    public void invalidarTudo() {
+        invalidarAgoraEAposCommit(() -> {
+            produtos.clear();
+            consultas.clear();
+        });
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("invalidacoes", invalidacoes.get());
+        stats.put("produtosEmCache", produtos.size());
+        stats.put("consultasEmCache", consultas.size());
+        return stats;
+    }
+
+    private void invalidarAgoraEAposCommit(Runnable invalidacao) {
+        geracao.incrementAndGet();
+        invalidacoes.incrementAndGet();
+        invalidacao.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    geracao.incrementAndGet();
+                    invalidacao.run();
+                }
+            });
+        }
+    }
+}
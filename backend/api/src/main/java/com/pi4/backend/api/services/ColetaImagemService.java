@@ -0,0 +1,171 @@
+package com.pi4.backend.api.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.pi4.backend.api.dto.ArquivosImagem;
+import com.pi4.backend.api.entities.ProdutoImagem;
+import com.pi4.backend.api.repositories.ProdutoImagemRepository;
+
+/**
+ * Coleta dos arquivos de imagem sem referência.
+ *
+ * A contagem de referências de um arquivo são as linhas de tb_produto_imagem com o mesmo
+ * (diretorio, nomeArquivo). Quando uma linha é removida o arquivo vira candidato; depois da
+ * carência ({@code imagem.coleta.carencia-ms}) a coleta agendada reconta e, se ninguém mais o usa,
+ * apaga o original e as variantes. Candidatos perdidos num reinício ficam para a varredura
+ * completa ({@link #varrer()}), que compara o diretório {@code conteudo/} com as linhas.
+ */
+@Service
+public class ColetaImagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(ColetaImagemService.class);
+
+    private final ProdutoImagemRepository imagemRepository;
+    private final ImagemStorageService storageService;
+    private final long carenciaMs;
+
+    private final Map<String, Candidato> candidatos = new ConcurrentHashMap<>();
+    private final LongAdder arquivosRemovidos = new LongAdder();
+    private final LongAdder aindaReferenciados = new LongAdder();
+    private final LongAdder varreduras = new LongAdder();
+
+    public ColetaImagemService(ProdutoImagemRepository imagemRepository,
+                               ImagemStorageService storageService,
+                               @Value("${imagem.coleta.carencia-ms:600000}") long carenciaMs) {
+        this.imagemRepository = imagemRepository;
+        this.storageService = storageService;
+        this.carenciaMs = carenciaMs;
+    }
+
+    /** Marca o arquivo da imagem como candidato à coleta quando a transação atual confirmar. */
+    public void liberarAposCommit(ProdutoImagem imagem) {
+        Candidato candidato = new Candidato(imagem.getDiretorio(), imagem.getNomeArquivo(),
+            derivados(imagem.getNomeArquivo(), imagem.getArquivoMiniatura(), imagem.getArquivoListagem(),
+                imagem.getArquivoZoom()), System.currentTimeMillis());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            candidatos.put(candidato.chave(), candidato);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                candidatos.put(candidato.chave(), candidato);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${imagem.coleta.intervalo-ms:60000}", initialDelayString = "${imagem.coleta.intervalo-ms:60000}")
+    public int coletar() {
+        long limite = System.currentTimeMillis() - carenciaMs;
+        int removidos = 0;
+        for (Candidato candidato : new ArrayList<>(candidatos.values())) {
+            if (candidato.desde() > limite) continue;
+            candidatos.remove(candidato.chave(), candidato);
+            try {
+                boolean removido = storageService.removerSeSemReferencias(candidato.diretorio(),
+                    candidato.nomeArquivo(), candidato.derivados(), carenciaMs,
+                    () -> imagemRepository.countByDiretorioAndNomeArquivo(candidato.diretorio(), candidato.nomeArquivo()) == 0);
+                if (removido) {
+                    removidos++;
+                    arquivosRemovidos.increment();
+                } else {
+                    aindaReferenciados.increment();
+                }
+            } catch (IOException e) {
+                log.warn("Falha ao coletar {}{}: {}", candidato.diretorio(), candidato.nomeArquivo(), e.getMessage());
+            }
+        }
+        return removidos;
+    }
+
+    /**
+     * Varredura completa do armazenamento por conteúdo: apaga os arquivos que nenhuma linha usa
+     * (nem como original nem como variante) e que estão fora da carência.
+     */
+    public Map<String, Object> varrer() throws IOException {
+        varreduras.increment();
+        Path raiz = storageService.getRootDir().resolve(ImagemStorageService.DIRETORIO_CONTEUDO);
+        Set<Path> referenciados = new HashSet<>();
+        for (ArquivosImagem arquivos : imagemRepository.listarArquivos()) {
+            for (String nome : new String[] { arquivos.getNomeArquivo(), arquivos.getArquivoMiniatura(),
+                    arquivos.getArquivoListagem(), arquivos.getArquivoZoom() }) {
+                if (nome != null) {
+                    referenciados.add(storageService.resolver(arquivos.getDiretorio(), nome));
+                }
+            }
+        }
+        int verificados = 0;
+        int removidos = 0;
+        long bytesLiberados = 0;
+        if (Files.isDirectory(raiz)) {
+            List<Path> arquivos;
+            try (Stream<Path> caminhos = Files.walk(raiz)) {
+                arquivos = caminhos.filter(Files::isRegularFile).toList();
+            }
+            for (Path arquivo : arquivos) {
+                verificados++;
+                if (referenciados.contains(arquivo)) continue;
+                String diretorio = ImagemStorageService.PREFIXO_URL
+                    + storageService.getRootDir().relativize(arquivo.getParent()).toString().replace('\\', '/') + "/";
+                long tamanho = Files.size(arquivo);
+                // O conjunto de referências foi lido antes: uploads desde então estão dentro da carência
+                if (storageService.removerSeSemReferencias(diretorio, arquivo.getFileName().toString(), List.of(),
+                        carenciaMs, () -> true)) {
+                    removidos++;
+                    bytesLiberados += tamanho;
+                    arquivosRemovidos.increment();
+                }
+            }
+        }
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("arquivosVerificados", verificados);
+        resultado.put("arquivosRemovidos", removidos);
+        resultado.put("bytesLiberados", bytesLiberados);
+        return resultado;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("candidatos", candidatos.size());
+        info.put("arquivosRemovidos", arquivosRemovidos.sum());
+        info.put("aindaReferenciados", aindaReferenciados.sum());
+        info.put("varreduras", varreduras.sum());
+        info.put("carenciaMs", carenciaMs);
+        return info;
+    }
+
+    private static List<String> derivados(String original, String... variantes) {
+        List<String> nomes = new ArrayList<>();
+        for (String variante : variantes) {
+            if (variante != null && !variante.equals(original) && !nomes.contains(variante)) {
+                nomes.add(variante);
+            }
+        }
+        return nomes;
+    }
+
+    private record Candidato(String diretorio, String nomeArquivo, List<String> derivados, long desde) {
+        String chave() {
+            return diretorio + nomeArquivo;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pi4.backend.api.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pi4.backend.api.dto.ItemPedidoResumoDto;
+import com.pi4.backend.api.dto.PedidoResumoDto;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+
+/**
+ * Consultas de pedido com número fixo de comandos SQL, independente do tamanho da página.
+ *
+ * Listagens: COUNT (quando é Page) + cabeçalhos por projeção + todos os itens da página
+ * numa consulta IN. Detalhe: pedido, cliente, itens e produtos por entity graph.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ConsultaPedidoService {
+
+    private final PedidoRepository pedidoRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+
+    public ConsultaPedidoService(PedidoRepository pedidoRepository, ItemPedidoRepository itemPedidoRepository) {
+        this.pedidoRepository = pedidoRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+    }
+
+    public Page<PedidoResumoDto> listarPorCliente(Integer clienteId, Pageable pageable) {
+        return comItens(pedidoRepository.listarResumosPorCliente(clienteId, pageable));
+    }
+
+    /** Todos os pedidos, mais recentes primeiro; {@code status} nulo = sem filtro. */
+    public Page<PedidoResumoDto> listarTodos(Pedido.StatusPedido status, Pageable pageable) {
+        return comItens(pedidoRepository.listarResumos(status, pageable));
+    }
+
+    /** Página por cursor: continua depois de (data, id); ambos nulos = primeira página. */
+    public Slice<PedidoResumoDto> listarPorCursor(Pedido.StatusPedido status, LocalDateTime data, Long id, int tamanho) {
+        return comItens(pedidoRepository.listarResumosPorCursor(status, data, id, PageRequest.of(0, tamanho)));
+    }
+
+    public Optional<Pedido> buscarPorId(Long id) {
+        return pedidoRepository.buscarCompletoPorId(id);
+    }
+
+    public Optional<Pedido> buscarPorNumero(String numeroPedido) {
+        return pedidoRepository.buscarCompletoPorNumero(numeroPedido);
+    }
+
+    private <S extends Slice<PedidoResumoDto>> S comItens(S pagina) {
+        if (!pagina.hasContent()) return pagina;
+        Map<Long, PedidoResumoDto> porId = new HashMap<>();
+        for (PedidoResumoDto pedido : pagina) {
+            porId.put(pedido.getId(), pedido);
+        }
+        Map<Long, List<ItemPedidoResumoDto>> itens = new HashMap<>();
+        for (ItemPedidoResumoDto item : itemPedidoRepository.listarResumosPorPedidos(porId.keySet())) {
+            itens.computeIfAbsent(item.getPedidoId(), k -> new ArrayList<>()).add(item);
+        }
+        itens.forEach((pedidoId, lista) -> porId.get(pedidoId).setItens(lista));
+        return pagina;
+    }
+}
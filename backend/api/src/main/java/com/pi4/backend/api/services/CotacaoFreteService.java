@@ -0,0 +1,162 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cotações de frete memorizadas, compartilhadas por carrinho, checkout e criação de pedido.
+ *
+ * Chave: CEP normalizado + faixa de valor do carrinho ({@code frete.cotacao.faixa-valor}) +
+ * versão da tabela de frete, então recarregar a tabela descarta as cotações antigas sem
+ * varrer o cache. Cálculos simultâneos da mesma chave viram um só: as demais threads
+ * esperam o resultado de quem chegou primeiro.
+ *
+ * Cada cotação tem um id que o checkout devolve ao front; o pedido resgata a cotação por
+ * esse id (enquanto não expirar) em vez de recalcular o frete.
+ */
+@Service
+public class CotacaoFreteService {
+
+    public static class Cotacao {
+        private final String id;
+        private final String cep;
+        private final Map<String, Double> opcoes;
+        private final Instant expiraEm;
+
+        Cotacao(String id, String cep, Map<String, Double> opcoes, Instant expiraEm) {
+            this.id = id;
+            this.cep = cep;
+            this.opcoes = opcoes;
+            this.expiraEm = expiraEm;
+        }
+
+        public String getId() { return id; }
+        public String getCep() { return cep; }
+        public Map<String, Double> getOpcoes() { return opcoes; }
+        public Instant getExpiraEm() { return expiraEm; }
+
+        /** Primeira opção da tabela, a mesma que o checkout usa como frete padrão. */
+        public BigDecimal getValorPadrao() {
+            return opcoes.isEmpty() ? BigDecimal.ZERO : BigDecimal.valueOf(opcoes.values().iterator().next());
+        }
+
+        public boolean contemValor(BigDecimal valor) {
+            for (Double opcao : opcoes.values()) {
+                if (BigDecimal.valueOf(opcao).compareTo(valor) == 0) return true;
+            }
+            return false;
+        }
+    }
+
+    private final FreteService freteService;
+    private final BigDecimal larguraFaixa;
+    private final long ttlNanos;
+    private final long ttlSegundos;
+
+    private final CacheLru<String, Cotacao> porChave;
+    private final CacheLru<String, Cotacao> porId;
+    private final Map<String, CompletableFuture<Cotacao>> emAndamento = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong calculos = new AtomicLong();
+    private final AtomicLong esperasCompartilhadas = new AtomicLong();
+    private final AtomicLong resgates = new AtomicLong();
+    private final AtomicLong resgatesRecusados = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CotacaoFreteService(FreteService freteService,
+                               @Value("${frete.cotacao.tamanho-maximo:10000}") int tamanhoMaximo,
+                               @Value("${frete.cotacao.ttl-segundos:1800}") long ttlSegundos,
+                               @Value("${frete.cotacao.faixa-valor:50}") BigDecimal larguraFaixa) {
+        this.freteService = freteService;
+        this.larguraFaixa = larguraFaixa;
+        this.ttlSegundos = ttlSegundos;
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.porChave = new CacheLru<>(tamanhoMaximo, ttlNanos, evictions);
+        this.porId = new CacheLru<>(tamanhoMaximo, ttlNanos, evictions);
+    }
+
+    /** Cotação para o CEP e o valor do carrinho ({@code subtotal} pode ser nulo). */
+    public Cotacao cotar(String cep, BigDecimal subtotal) {
+        String digitos = FreteService.normalizarCep(cep);
+        String chave = digitos + '|' + faixa(subtotal) + '|' + freteService.versaoTabela();
+        Cotacao cotacao = porChave.get(chave);
+        if (cotacao != null) {
+            hits.incrementAndGet();
+            return cotacao;
+        }
+
+        CompletableFuture<Cotacao> minha = new CompletableFuture<>();
+        CompletableFuture<Cotacao> emCurso = emAndamento.putIfAbsent(chave, minha);
+        if (emCurso != null) {
+            esperasCompartilhadas.incrementAndGet();
+            try {
+                return emCurso.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+        try {
+            // Outra thread pode ter terminado o mesmo cálculo entre o get e o putIfAbsent
+            cotacao = porChave.get(chave);
+            if (cotacao == null) {
+                calculos.incrementAndGet();
+                cotacao = new Cotacao(UUID.randomUUID().toString(), digitos,
+                    freteService.calcularFretePorCep(digitos), Instant.now().plusSeconds(ttlSegundos));
+                porChave.put(chave, cotacao);
+                porId.put(cotacao.getId(), cotacao);
+            }
+            minha.complete(cotacao);
+            return cotacao;
+        } catch (RuntimeException e) {
+            minha.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, minha);
+        }
+    }
+
+    /** Cotação ainda válida com esse id, emitida para o mesmo CEP. */
+    public Optional<Cotacao> resgatar(String id, String cep) {
+        Cotacao cotacao = id != null ? porId.get(id) : null;
+        if (cotacao == null || !cotacao.getCep().equals(FreteService.normalizarCep(cep))) {
+            resgatesRecusados.incrementAndGet();
+            return Optional.empty();
+        }
+        resgates.incrementAndGet();
+        return Optional.of(cotacao);
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long c = calculos.get();
+        stats.put("hits", h);
+        stats.put("calculos", c);
+        stats.put("hitRatio", h + c == 0 ? 0.0 : (double) h / (h + c));
+        stats.put("esperasCompartilhadas", esperasCompartilhadas.get());
+        stats.put("resgates", resgates.get());
+        stats.put("resgatesRecusados", resgatesRecusados.get());
+        stats.put("evictions", evictions.get());
+        stats.put("cotacoesEmCache", porChave.size());
+        return stats;
+    }
+
+    private String faixa(BigDecimal subtotal) {
+        if (subtotal == null || larguraFaixa.signum() <= 0) return "-";
+        return subtotal.divide(larguraFaixa, 0, RoundingMode.FLOOR).toPlainString();
+    }
+}
@@ -0,0 +1,274 @@
+package com.pi4.backend.api.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Entrega dos arquivos de imagem em {@code /uploads/**}.
+ *
+ * <ul>
+ * <li>ETag forte: o SHA-256 que já está no nome dos arquivos por conteúdo (e das variantes);
+ *     para nomes antigos, o hash do arquivo, calculado uma vez e guardado por (tamanho, data).</li>
+ * <li>{@code If-None-Match} responde 304 sem corpo.</li>
+ * <li>Nome com hash: {@code max-age} de um ano e {@code immutable}, já que a URL muda se o
+ *     conteúdo mudar; demais arquivos: {@code imagem.entrega.max-age-segundos}.</li>
+ * <li>{@code Range} de um intervalo (206/416, com {@code If-Range}); vários intervalos recebem o
+ *     arquivo inteiro, o que o HTTP permite.</li>
+ * <li>Corpo por sendfile do Tomcat quando o conector suporta (arquivo direto para o socket);
+ *     senão {@code FileChannel.transferTo} para a saída da resposta.</li>
+ * <li>Se o navegador aceita AVIF/WebP e existe {@code <nome>.avif}/{@code .webp} ao lado do
+ *     JPEG/PNG, entrega essa versão ({@code Vary: Accept}).</li>
+ * </ul>
+ */
+@Service
+public class EntregaImagemService {
+
+    static final String SENDFILE_SUPORTE = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern NOME_COM_HASH = Pattern.compile("^([0-9a-f]{64})(-\\d+)?\\.[a-z0-9]+$");
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final long UM_ANO = TimeUnit.DAYS.toSeconds(365);
+
+    private final ImagemStorageService storageService;
+    private final long maxAgeSegundos;
+    private final CacheLru<Path, Assinatura> assinaturas;
+
+    private final LongAdder respostasCompletas = new LongAdder();
+    private final LongAdder respostasParciais = new LongAdder();
+    private final LongAdder naoModificados = new LongAdder();
+    private final LongAdder negociadas = new LongAdder();
+    private final LongAdder sendfile = new LongAdder();
+    private final LongAdder bytesEnviados = new LongAdder();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EntregaImagemService(ImagemStorageService storageService,
+                                @Value("${imagem.entrega.max-age-segundos:3600}") long maxAgeSegundos,
+                                @Value("${imagem.entrega.cache-etags:10000}") int cacheEtags) {
+        this.storageService = storageService;
+        this.maxAgeSegundos = maxAgeSegundos;
+        // Sem expiração por tempo: a entrada vale enquanto tamanho e data do arquivo não mudarem
+        this.assinaturas = new CacheLru<>(cacheEtags, Long.MAX_VALUE, evictions);
+    }
+
+    /** Responde a um GET/HEAD de {@code /uploads/<relativo>}. */
+    public void entregar(String relativo, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path arquivo = localizar(relativo);
+        if (arquivo == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String nome = arquivo.getFileName().toString();
+        boolean negociavel = nome.endsWith(".jpg") || nome.endsWith(".jpeg") || nome.endsWith(".png");
+        String sufixoEtag = "";
+        if (negociavel) {
+            Path alternativa = alternativa(arquivo, request.getHeader(HttpHeaders.ACCEPT));
+            if (alternativa != null) {
+                sufixoEtag = "-" + extensao(alternativa.getFileName().toString());
+                arquivo = alternativa;
+                negociadas.increment();
+            }
+        }
+
+        BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        long tamanho = atributos.size();
+        Matcher comHash = NOME_COM_HASH.matcher(nome);
+        boolean imutavel = comHash.matches();
+        String etag = "\"" + (imutavel ? comHash.group(1) + (comHash.group(2) != null ? comHash.group(2) : "")
+            : assinatura(arquivo, atributos).hash()) + sufixoEtag + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, imutavel
+            ? "public, max-age=" + UM_ANO + ", immutable"
+            : "public, max-age=" + maxAgeSegundos);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, atributos.lastModifiedTime().toMillis());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (negociavel) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        if (correspondeAlguma(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            naoModificados.increment();
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long inicio = 0;
+        long fim = tamanho;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] intervalo = intervalo(range, tamanho);
+            if (intervalo == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (intervalo.length == 2) {
+                inicio = intervalo[0];
+                fim = intervalo[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + (fim - 1) + "/" + tamanho);
+            }
+        }
+        boolean parcial = fim - inicio < tamanho;
+        if (parcial) respostasParciais.increment(); else respostasCompletas.increment();
+
+        response.setContentType(tipo(arquivo.getFileName().toString()));
+        response.setContentLengthLong(fim - inicio);
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        bytesEnviados.add(fim - inicio);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTE))) {
+            // O conector envia o arquivo depois que o handler retorna, sem passar pela JVM
+            request.setAttribute(SENDFILE_ARQUIVO, arquivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIM, fim);
+            sendfile.increment();
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            OutputStream saida = response.getOutputStream();
+            WritableByteChannel destino = Channels.newChannel(saida);
+            long posicao = inicio;
+            while (posicao < fim) {
+                long enviados = canal.transferTo(posicao, fim - posicao, destino);
+                if (enviados <= 0) break;
+                posicao += enviados;
+            }
+            saida.flush();
+        }
+    }
+
+    private Path localizar(String relativo) {
+        if (relativo == null || relativo.isEmpty()) return null;
+        for (String parte : relativo.split("/")) {
+            // Temporários, links da migração em andamento e qualquer ".."
+            if (parte.isEmpty() || parte.startsWith(".")) return null;
+        }
+        try {
+            Path arquivo = storageService.resolver(ImagemStorageService.PREFIXO_URL, relativo);
+            return Files.isRegularFile(arquivo) ? arquivo : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Path alternativa(Path arquivo, String accept) {
+        if (accept == null) return null;
+        String nome = arquivo.getFileName().toString();
+        String base = nome.substring(0, nome.lastIndexOf('.'));
+        for (String formato : new String[] { "avif", "webp" }) {
+            if (accept.contains("image/" + formato)) {
+                Path candidato = arquivo.resolveSibling(base + "." + formato);
+                if (Files.isRegularFile(candidato)) return candidato;
+            }
+        }
+        return null;
+    }
+
+    private Assinatura assinatura(Path arquivo, BasicFileAttributes atributos) throws IOException {
+        long tamanho = atributos.size();
+        long modificado = atributos.lastModifiedTime().toMillis();
+        Assinatura atual = assinaturas.get(arquivo);
+        if (atual != null && atual.tamanho() == tamanho && atual.modificado() == modificado) {
+            return atual;
+        }
+        Assinatura nova = new Assinatura(tamanho, modificado, ImagemStorageService.calcularHash(arquivo));
+        assinaturas.put(arquivo, nova);
+        return nova;
+    }
+
+    /** Intervalo [início, fim) pedido; vazio = ignorar (arquivo inteiro); null = 416. */
+    static long[] intervalo(String range, long tamanho) {
+        if (range.indexOf(',') >= 0) return new long[0];
+        Matcher m = RANGE.matcher(range.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) return new long[0];
+        long inicio;
+        long fim;
+        try {
+            if (m.group(1).isEmpty()) {
+                long sufixo = Long.parseLong(m.group(2));
+                if (sufixo == 0) return null;
+                inicio = Math.max(0, tamanho - sufixo);
+                fim = tamanho;
+            } else {
+                inicio = Long.parseLong(m.group(1));
+                fim = m.group(2).isEmpty() ? tamanho : Math.min(tamanho, Long.parseLong(m.group(2)) + 1);
+            }
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+        if (inicio >= tamanho || inicio >= fim) return null;
+        return new long[] { inicio, fim };
+    }
+
+    private static boolean correspondeAlguma(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidata : ifNoneMatch.split(",")) {
+            String c = candidata.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static String tipo(String nome) {
+        return MediaTypeFactory.getMediaType(nome)
+            .orElseGet(() -> switch (extensao(nome)) {
+                case "avif" -> MediaType.parseMediaType("image/avif");
+                case "webp" -> MediaType.parseMediaType("image/webp");
+                default -> MediaType.APPLICATION_OCTET_STREAM;
+            })
+            .toString();
+    }
+
+    private static String extensao(String nome) {
+        int ponto = nome.lastIndexOf('.');
+        return ponto < 0 ? "" : nome.substring(ponto + 1).toLowerCase();
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("respostasCompletas", respostasCompletas.sum());
+        info.put("respostasParciais", respostasParciais.sum());
+        info.put("naoModificados", naoModificados.sum());
+        info.put("negociadas", negociadas.sum());
+        info.put("sendfile", sendfile.sum());
+        info.put("bytesEnviados", bytesEnviados.sum());
+        info.put("etagsEmCache", assinaturas.size());
+        info.put("evictions", evictions.get());
+        return info;
+    }
+
+    private record Assinatura(long tamanho, long modificado, String hash) { }
+}
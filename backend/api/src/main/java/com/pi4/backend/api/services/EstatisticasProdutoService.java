@@ -0,0 +1,150 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.pi4.backend.api.dto.EstatisticasProdutosDto;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Estatísticas de produtos do dashboard.
+ *
+ * Sem snapshot, cada leitura é uma consulta agregada no banco. Com snapshot
+ * ({@code dashboard.estatisticas.snapshot=true}) os totais ficam em memória e cada escrita
+ * de produto/pedido aplica apenas a diferença da sua linha, após o commit. Uma reconciliação
+ * periódica com a consulta agregada corrige qualquer desvio (ex.: edições concorrentes).
+ */
+@Service
+public class EstatisticasProdutoService {
+
+    public static final int LIMITE_BAIXO_ESTOQUE = 5;
+
+    private final ProdutoRepository produtoRepository;
+    private final boolean snapshotAtivo;
+
+    private boolean carregado;
+    private long versao;
+    private long totalProdutos;
+    private long produtosAtivos;
+    private long baixoEstoque;
+    private BigDecimal valorTotalEstoque = BigDecimal.ZERO;
+
+    public EstatisticasProdutoService(ProdutoRepository produtoRepository,
+            @Value("${dashboard.estatisticas.snapshot:true}") boolean snapshotAtivo) {
+        this.produtoRepository = produtoRepository;
+        this.snapshotAtivo = snapshotAtivo;
+    }
+
+    public EstatisticasProdutosDto obter() {
+        if (!snapshotAtivo) {
+            return produtoRepository.calcularEstatisticas(LIMITE_BAIXO_ESTOQUE);
+        }
+        synchronized (this) {
+            if (carregado) {
+                return new EstatisticasProdutosDto(totalProdutos, produtosAtivos, baixoEstoque, valorTotalEstoque);
+            }
+        }
+        reconciliar();
+        synchronized (this) {
+            return new EstatisticasProdutosDto(totalProdutos, produtosAtivos, baixoEstoque, valorTotalEstoque);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.estatisticas.reconciliacao-ms:300000}",
+               initialDelayString = "${dashboard.estatisticas.reconciliacao-ms:300000}")
+    public void reconciliar() {
+        if (!snapshotAtivo) return;
+        long versaoAntes;
+        synchronized (this) {
+            versaoAntes = versao;
+        }
+        EstatisticasProdutosDto atual = produtoRepository.calcularEstatisticas(LIMITE_BAIXO_ESTOQUE);
+        synchronized (this) {
+            // Se algum delta foi aplicado durante a consulta, não dá para saber se ela já o
+            // inclui; mantém o snapshot atual (que já tem o delta) e reconcilia na próxima
+            if (carregado && versao != versaoAntes) return;
+            totalProdutos = atual.getTotalProdutos();
+            produtosAtivos = atual.getProdutosAtivos();
+            baixoEstoque = atual.getBaixoEstoque();
+            valorTotalEstoque = atual.getValorTotalEstoque();
+            carregado = true;
+        }
+    }
+
+    /** Estado de um produto antes de ser alterado; usar {@link #registrarAlteracao}. */
+    public Contribuicao capturar(Produto produto) {
+        return Contribuicao.de(produto);
+    }
+
+    /** Aplica no snapshot a diferença entre o estado anterior e o atual do produto (nulo = não existe). */
+    public void registrarAlteracao(Contribuicao antes, Produto depois) {
+        aplicarAposCommit(antes != null ? antes : Contribuicao.NENHUMA, Contribuicao.de(depois));
+    }
+
+    /** Baixa de estoque feita por UPDATE direto; {@code produto} já reflete o saldo debitado. */
+    public void registrarMovimentoEstoque(Produto produto, int quantidadeDebitada) {
+        Contribuicao depois = Contribuicao.de(produto);
+        Contribuicao antes = Contribuicao.de(produto, produto.getQuantidadeEstoque() + quantidadeDebitada);
+        aplicarAposCommit(antes, depois);
+    }
+
+    private void aplicarAposCommit(Contribuicao antes, Contribuicao depois) {
+        if (!snapshotAtivo) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(antes, depois);
+                }
+            });
+        } else {
+            aplicar(antes, depois);
+        }
+    }
+
+    private synchronized void aplicar(Contribuicao antes, Contribuicao depois) {
+        versao++;
+        if (!carregado) return;
+        totalProdutos += depois.existe - antes.existe;
+        produtosAtivos += depois.ativo - antes.ativo;
+        baixoEstoque += depois.baixoEstoque - antes.baixoEstoque;
+        valorTotalEstoque = valorTotalEstoque.add(depois.valorEstoque).subtract(antes.valorEstoque);
+    }
+
+    /** Quanto uma linha de produto soma em cada total do dashboard. */
+    public static final class Contribuicao {
+        private static final Contribuicao NENHUMA = new Contribuicao(0, 0, 0, BigDecimal.ZERO);
+
+        private final int existe;
+        private final int ativo;
+        private final int baixoEstoque;
+        private final BigDecimal valorEstoque;
+
+        private Contribuicao(int existe, int ativo, int baixoEstoque, BigDecimal valorEstoque) {
+            this.existe = existe;
+            this.ativo = ativo;
+            this.baixoEstoque = baixoEstoque;
+            this.valorEstoque = valorEstoque;
+        }
+
+        static Contribuicao de(Produto produto) {
+            return produto == null ? NENHUMA : de(produto, produto.getQuantidadeEstoque());
+        }
+
+        static Contribuicao de(Produto produto, Integer quantidade) {
+            BigDecimal valor = produto.getPreco() != null && quantidade != null
+                ? produto.getPreco().multiply(new BigDecimal(quantidade))
+                : BigDecimal.ZERO;
+            return new Contribuicao(1,
+                Boolean.TRUE.equals(produto.getStatus()) ? 1 : 0,
+                quantidade != null && quantidade <= LIMITE_BAIXO_ESTOQUE ? 1 : 0,
+                valor);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.pi4.backend.api.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.dto.SituacaoPedido;
+import com.pi4.backend.api.entities.EntregaEventoPedido;
+import com.pi4.backend.api.entities.EventoPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.repositories.EventoPedidoRepository;
+
+/**
+ * Caixa de saída (outbox) dos eventos de pedido.
+ *
+ * A criação do pedido e cada mudança de status gravam um {@link EventoPedido} na própria
+ * transação, então o evento existe se e somente se a mudança foi confirmada. O relay agendado
+ * ({@code pedido.eventos.relay-ms}) lê os pendentes em lotes de {@code pedido.eventos.lote} e
+ * entrega cada lote a cada {@link AssinanteEventosPedido} (rollups de vendas, devolução de
+ * estoque) numa transação por assinante, que também grava a entrega
+ * ({@link EntregaEventoPedido}): cada evento tem efeito uma vez em cada assinante, e a falha de
+ * um não desfaz o que os outros já fizeram.
+ *
+ * O evento só é marcado como publicado quando todos os assinantes o receberam. Se um lote falha
+ * num assinante, os eventos são refeitos um a um para ele; o que falhar fica pendente e volta
+ * depois de uma espera que dobra a cada tentativa ({@code pedido.eventos.espera-inicial-ms}, até
+ * {@code pedido.eventos.espera-maxima-ms}). Depois de {@code pedido.eventos.max-tentativas} o
+ * evento conta como em falha (log de erro e métrica), mas continua sendo reenviado no intervalo
+ * máximo: nada é descartado. Pensado para uma instância da API: duas publicariam o mesmo lote.
+ */
+@Service
+public class EventosPedidoService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosPedidoService.class);
+
+    private final EventoPedidoRepository eventoRepository;
+    private final List<AssinanteEventosPedido> assinantes;
+    private final TransactionTemplate transacao;
+    private final int lote;
+    private final int maxTentativas;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final long retencaoHoras;
+
+    // Um relay por vez (agendado ou chamado antes de um relatório)
+    private final ReentrantLock travaRelay = new ReentrantLock();
+
+    private final LongAdder gravados = new LongAdder();
+    private final LongAdder publicados = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder falhasLote = new LongAdder();
+    private final LongAdder falhasEntrega = new LongAdder();
+
+    public EventosPedidoService(EventoPedidoRepository eventoRepository,
+                                List<AssinanteEventosPedido> assinantes,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${pedido.eventos.lote:200}") int lote,
+                                @Value("${pedido.eventos.max-tentativas:5}") int maxTentativas,
+                                @Value("${pedido.eventos.espera-inicial-ms:1000}") long esperaInicialMs,
+                                @Value("${pedido.eventos.espera-maxima-ms:600000}") long esperaMaximaMs,
+                                @Value("${pedido.eventos.retencao-horas:168}") long retencaoHoras) {
+        this.eventoRepository = eventoRepository;
+        this.assinantes = assinantes;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.lote = Math.max(1, lote);
+        this.maxTentativas = Math.max(1, maxTentativas);
+        this.esperaInicialMs = Math.max(0, esperaInicialMs);
+        this.esperaMaximaMs = Math.max(this.esperaInicialMs, esperaMaximaMs);
+        this.retencaoHoras = retencaoHoras;
+    }
+
+    /** Grava o evento de criação na transação atual (o pedido já deve ter id). */
+    public void registrarCriacao(Pedido pedido) {
+        gravar(new EventoPedido(EventoPedido.Tipo.PEDIDO_CRIADO, pedido.getId(), null, pedido.getStatus(),
+            pedido.getDataPedido(), pedido.getValorTotal()));
+    }
+
+    /** Grava a mudança de {@code anterior.getStatus()} para {@code novo} na transação atual. */
+    public void registrarMudancaStatus(SituacaoPedido anterior, Pedido.StatusPedido novo) {
+        gravar(new EventoPedido(EventoPedido.Tipo.STATUS_ALTERADO, anterior.getId(), anterior.getStatus(), novo,
+            anterior.getDataPedido(), anterior.getValorTotal()));
+    }
+
+    /** Grava na transação atual as mudanças de {@code anterior} para {@code novo} de vários pedidos (já alterados). */
+    public int registrarMudancasStatus(Collection<Long> pedidoIds, Pedido.StatusPedido anterior, Pedido.StatusPedido novo) {
+        int gravadosAgora = eventoRepository.registrarMudancasStatus(pedidoIds, anterior.name(), novo.name(),
+            LocalDateTime.now());
+        gravados.add(gravadosAgora);
+        return gravadosAgora;
+    }
+
+    private void gravar(EventoPedido evento) {
+        eventoRepository.save(evento);
+        gravados.increment();
+    }
+
+    /** Publica todos os eventos pendentes; devolve quantos foram publicados. */
+    @Scheduled(fixedDelayString = "${pedido.eventos.relay-ms:500}", initialDelayString = "${pedido.eventos.relay-ms:500}")
+    public int publicarPendentes() {
+        return publicarPendentes(lote);
+    }
+
+    /** Como {@link #publicarPendentes()}, com lotes de {@code tamanhoLote} eventos (alterações em massa). */
+    public int publicarPendentes(int tamanhoLote) {
+        int tamanho = Math.max(1, tamanhoLote);
+        travaRelay.lock();
+        try {
+            int total = 0;
+            // Cada execução anda para a frente: o que falhou agora não volta antes da próxima
+            long depoisDe = 0;
+            while (true) {
+                List<EventoPedido> eventos = eventoRepository.listarPendentes(depoisDe, LocalDateTime.now(),
+                    PageRequest.of(0, tamanho));
+                if (eventos.isEmpty()) break;
+                total += publicar(eventos);
+                if (eventos.size() < tamanho) break;
+                depoisDe = eventos.get(eventos.size() - 1).getId();
+            }
+            return total;
+        } finally {
+            travaRelay.unlock();
+        }
+    }
+
+    private int publicar(List<EventoPedido> eventos) {
+        Map<String, Set<Long>> entregues = new HashMap<>();
+        for (EntregaEventoPedido entrega : eventoRepository.listarEntregas(ids(eventos))) {
+            entregues.computeIfAbsent(entrega.getAssinante(), a -> new HashSet<>()).add(entrega.getEventoId());
+        }
+        Map<Long, String> falhas = new LinkedHashMap<>();
+        for (AssinanteEventosPedido assinante : assinantes) {
+            Set<Long> jaRecebidos = entregues.getOrDefault(assinante.nome(), Set.of());
+            List<EventoPedido> faltantes = eventos.stream().filter(e -> !jaRecebidos.contains(e.getId())).toList();
+            if (!faltantes.isEmpty()) entregar(assinante, faltantes, falhas);
+        }
+
+        List<Long> completos = eventos.stream().map(EventoPedido::getId).filter(id -> !falhas.containsKey(id)).toList();
+        if (!completos.isEmpty()) {
+            transacao.executeWithoutResult(s -> {
+                eventoRepository.marcarPublicados(completos, LocalDateTime.now());
+                eventoRepository.removerEntregas(completos);
+            });
+            lotes.increment();
+            publicados.add(completos.size());
+        }
+        falhas.forEach(this::registrarFalha);
+        return completos.size();
+    }
+
+    private void entregar(AssinanteEventosPedido assinante, List<EventoPedido> eventos, Map<Long, String> falhas) {
+        try {
+            transacao.executeWithoutResult(s -> receber(assinante, eventos));
+            return;
+        } catch (RuntimeException e) {
+            falhasLote.increment();
+            log.warn("Falha ao entregar lote de {} eventos de pedido a {}; reenviando um a um: {}",
+                eventos.size(), assinante.nome(), e.getMessage());
+        }
+        for (EventoPedido evento : eventos) {
+            try {
+                transacao.executeWithoutResult(s -> receber(assinante, List.of(evento)));
+            } catch (RuntimeException e) {
+                falhasEntrega.increment();
+                falhas.putIfAbsent(evento.getId(), assinante.nome() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void receber(AssinanteEventosPedido assinante, List<EventoPedido> eventos) {
+        assinante.receber(eventos);
+        eventoRepository.registrarEntregas(ids(eventos), assinante.nome(), LocalDateTime.now());
+    }
+
+    private void registrarFalha(Long eventoId, String mensagem) {
+        transacao.executeWithoutResult(s -> eventoRepository.findById(eventoId).ifPresent(evento -> {
+            int tentativas = evento.getTentativas() + 1;
+            evento.setTentativas(tentativas);
+            evento.setErro(mensagem.length() > 500 ? mensagem.substring(0, 500) : mensagem);
+            evento.setProximaTentativa(LocalDateTime.now().plus(Duration.ofMillis(espera(tentativas))));
+            if (tentativas == maxTentativas) {
+                log.error("Evento de pedido {} em falha após {} tentativas; segue sendo reenviado a cada {} ms: {}",
+                    eventoId, tentativas, esperaMaximaMs, mensagem);
+            }
+        }));
+    }
+
+    // Espera antes da próxima tentativa: dobra a cada falha; em falha, sempre a máxima
+    private long espera(int tentativas) {
+        if (tentativas >= maxTentativas) return esperaMaximaMs;
+        return Math.min(esperaMaximaMs, esperaInicialMs << Math.min(tentativas - 1, 30));
+    }
+
+    private static List<Long> ids(List<EventoPedido> eventos) {
+        return eventos.stream().map(EventoPedido::getId).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${pedido.eventos.limpeza-ms:3600000}", initialDelayString = "${pedido.eventos.limpeza-ms:3600000}")
+    public int removerAntigos() {
+        Integer removidos = transacao.execute(s ->
+            eventoRepository.removerPublicadosAntesDe(LocalDateTime.now().minusHours(retencaoHoras)));
+        return removidos == null ? 0 : removidos;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("pendentes", eventoRepository.countByPublicadoEmIsNull());
+        info.put("emFalha", eventoRepository.countByPublicadoEmIsNullAndTentativasGreaterThanEqual(maxTentativas));
+        info.put("gravados", gravados.sum());
+        info.put("publicados", publicados.sum());
+        info.put("lotes", lotes.sum());
+        info.put("falhasLote", falhasLote.sum());
+        info.put("falhasEntrega", falhasEntrega.sum());
+        info.put("assinantes", assinantes.stream().map(AssinanteEventosPedido::nome).toList());
+        return info;
+    }
+}
@@ -1,29 +1,255 @@
 package com.pi4.backend.api.services;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.*;
 
+/**
+ * Opções de frete por faixa de CEP, lidas de um arquivo ({@code frete.tabela}).
+ *
+ * A tabela carregada é imutável: faixas ordenadas em arrays de int e, para cada faixa, um
+ * mapa de opções já pronto e não modificável. A consulta é uma busca binária sem alocação;
+ * o mesmo mapa é devolvido a todas as chamadas. Quando o arquivo muda, uma nova tabela é
+ * montada e trocada de uma vez; se o arquivo novo for inválido, a anterior continua valendo.
+ */
 @Service
 public class FreteService {
 
+    private static final Logger log = LoggerFactory.getLogger(FreteService.class);
+
+    private final ResourceLoader resourceLoader;
+    private final String localTabela;
+
+    private volatile TabelaFrete tabela;
+    private volatile long arquivoModificadoEm;
+    private volatile Instant carregadaEm;
+    private final AtomicLong versao = new AtomicLong();
+    // Uma carga por vez (verificação agendada ou recarga manual)
+    private final ReentrantLock travaCarga = new ReentrantLock();
+
+    public FreteService(ResourceLoader resourceLoader,
+                        @Value("${frete.tabela:classpath:frete/tabela-frete.csv}") String localTabela) {
+        this.resourceLoader = resourceLoader;
+        this.localTabela = localTabela;
+        // Na subida a tabela tem que ser válida; depois, um arquivo com erro só é ignorado
+        try {
+            carregar();
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível ler a tabela de frete em " + localTabela, e);
+        }
+    }
+
     public Map<String, Double> calcularFretePorCep(String cep) {
-        Map<String, Double> opcoesFrete = new LinkedHashMap<>();
-
-        // Exemplo de cálculo simples (pode adaptar depois)
-        if (cep.startsWith("01")) { // SP
-            opcoesFrete.put("Entrega Normal (5 dias)", 15.90);
-            opcoesFrete.put("Entrega Rápida (2 dias)", 29.90);
-            opcoesFrete.put("Frete Grátis", 0.0);
-        } else if (cep.startsWith("20")) { // RJ
-            opcoesFrete.put("Entrega Normal (7 dias)", 19.90);
-            opcoesFrete.put("Entrega Expressa (3 dias)", 34.90);
-            opcoesFrete.put("Frete Grátis", 0.0);
-        } else {
-            opcoesFrete.put("Entrega Normal (10 dias)", 24.90);
-            opcoesFrete.put("Entrega Expressa (4 dias)", 39.90);
-            opcoesFrete.put("Frete Grátis", 0.0);
-        }
-
-        return opcoesFrete;
+        return tabela.opcoes(cep);
+    }
+
+    /** Muda a cada tabela carregada; quem guarda resultados de cálculo usa para descartá-los. */
+    public long versaoTabela() {
+        return versao.get();
+    }
+
+    /** Só os dígitos do CEP (sem expressão regular). */
+    public static String normalizarCep(String cep) {
+        if (cep == null) return "";
+        StringBuilder digitos = new StringBuilder(8);
+        for (int i = 0; i < cep.length(); i++) {
+            char c = cep.charAt(i);
+            if (c >= '0' && c <= '9') digitos.append(c);
+        }
+        return digitos.toString();
+    }
+
+    @Scheduled(fixedDelayString = "${frete.tabela.verificacao-ms:30000}", initialDelayString = "${frete.tabela.verificacao-ms:30000}")
+    public void recarregarSeAlterada() {
+        long modificadoEm = ultimaModificacao();
+        if (modificadoEm > 0 && modificadoEm != arquivoModificadoEm) {
+            recarregar();
+        }
+    }
+
+    /** Relê o arquivo; {@code false} (e a tabela atual mantida) se estiver inválido. */
+    public boolean recarregar() {
+        try {
+            carregar();
+            log.info("Tabela de frete recarregada de {}: {} faixas", localTabela, tabela.faixas());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Tabela de frete em {} inválida; mantida a anterior: {}", localTabela, e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> informacoes() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("origem", localTabela);
+        info.put("faixas", tabela.faixas());
+        info.put("carregadaEm", carregadaEm);
+        info.put("versao", versao.get());
+        return info;
+    }
+
+    private void carregar() throws IOException {
+        travaCarga.lock();
+        try {
+            Resource arquivo = resourceLoader.getResource(localTabela);
+            long modificadoEm = ultimaModificacao();
+            try (Reader reader = new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8)) {
+                tabela = TabelaFrete.ler(reader);
+            }
+            arquivoModificadoEm = modificadoEm;
+            carregadaEm = Instant.now();
+            versao.incrementAndGet();
+        } finally {
+            travaCarga.unlock();
+        }
+    }
+
+    private long ultimaModificacao() {
+        try {
+            return resourceLoader.getResource(localTabela).lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Faixas de CEP ordenadas e sem sobreposição, com as opções de cada uma. */
+    static final class TabelaFrete {
+        private final int[] inicios;
+        private final int[] fins;
+        private final List<Map<String, Double>> opcoes;
+        private final Map<String, Double> padrao;
+
+        private TabelaFrete(int[] inicios, int[] fins, List<Map<String, Double>> opcoes, Map<String, Double> padrao) {
+            this.inicios = inicios;
+            this.fins = fins;
+            this.opcoes = opcoes;
+            this.padrao = padrao;
+        }
+
+        /** Opções para o CEP; ignora não-dígitos. Sem exatamente 8 dígitos ou fora das faixas, as padrão. */
+        Map<String, Double> opcoes(CharSequence cep) {
+            if (cep == null) return padrao;
+            int valor = 0;
+            int digitos = 0;
+            for (int i = 0; i < cep.length(); i++) {
+                char c = cep.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (++digitos > 8) return padrao;
+                    valor = valor * 10 + (c - '0');
+                }
+            }
+            if (digitos != 8) return padrao;
+            int pos = Arrays.binarySearch(inicios, valor);
+            int faixa = pos >= 0 ? pos : -pos - 2;
+            return faixa >= 0 && valor <= fins[faixa] ? opcoes.get(faixa) : padrao;
+        }
+
+        int faixas() {
+            return inicios.length;
+        }
+
+        static TabelaFrete ler(Reader reader) throws IOException {
+            List<Faixa> faixas = new ArrayList<>();
+            Map<String, Double> padrao = null;
+            BufferedReader linhas = new BufferedReader(reader);
+            String linha;
+            int numero = 0;
+            while ((linha = linhas.readLine()) != null) {
+                numero++;
+                linha = linha.strip();
+                if (linha.isEmpty() || linha.startsWith("#")) continue;
+                String[] campos = linha.split(";");
+                if (campos[0].equals("*")) {
+                    padrao = lerOpcoes(campos, 1, numero);
+                    continue;
+                }
+                if (campos.length < 3) {
+                    throw new IllegalArgumentException("linha " + numero + ": esperado cep_inicial;cep_final;opção=valor");
+                }
+                int inicio = lerCep(campos[0], numero);
+                int fim = lerCep(campos[1], numero);
+                if (fim < inicio) {
+                    throw new IllegalArgumentException("linha " + numero + ": CEP final menor que o inicial");
+                }
+                faixas.add(new Faixa(inicio, fim, lerOpcoes(campos, 2, numero)));
+            }
+            if (padrao == null) {
+                throw new IllegalArgumentException("faltam as opções padrão (linha \"*\")");
+            }
+
+            faixas.sort(Comparator.comparingInt(f -> f.inicio));
+            int[] inicios = new int[faixas.size()];
+            int[] fins = new int[faixas.size()];
+            List<Map<String, Double>> opcoes = new ArrayList<>(faixas.size());
+            for (int i = 0; i < faixas.size(); i++) {
+                inicios[i] = faixas.get(i).inicio;
+                fins[i] = faixas.get(i).fim;
+                opcoes.add(faixas.get(i).opcoes);
+                if (i > 0 && inicios[i] <= fins[i - 1]) {
+                    throw new IllegalArgumentException(String.format("faixas %08d-%08d e %08d-%08d se sobrepõem",
+                        inicios[i - 1], fins[i - 1], inicios[i], fins[i]));
+                }
+            }
+            return new TabelaFrete(inicios, fins, List.copyOf(opcoes), padrao);
+        }
+
+        private static final class Faixa {
+            private final int inicio;
+            private final int fim;
+            private final Map<String, Double> opcoes;
+
+            private Faixa(int inicio, int fim, Map<String, Double> opcoes) {
+                this.inicio = inicio;
+                this.fim = fim;
+                this.opcoes = opcoes;
+            }
+        }
+
+        private static int lerCep(String campo, int linha) {
+            if (campo.length() != 8 || !campo.chars().allMatch(Character::isDigit)) {
+                throw new IllegalArgumentException("linha " + linha + ": CEP deve ter 8 dígitos: " + campo);
+            }
+            return Integer.parseInt(campo);
+        }
+
+        private static Map<String, Double> lerOpcoes(String[] campos, int de, int linha) {
+            Map<String, Double> opcoes = new LinkedHashMap<>();
+            for (int i = de; i < campos.length; i++) {
+                int separador = campos[i].lastIndexOf('=');
+                if (separador <= 0) {
+                    throw new IllegalArgumentException("linha " + linha + ": opção sem valor: " + campos[i]);
+                }
+                try {
+                    opcoes.put(campos[i].substring(0, separador).strip(),
+                        Double.valueOf(campos[i].substring(separador + 1).strip()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("linha " + linha + ": valor inválido: " + campos[i]);
+                }
+            }
+            if (opcoes.isEmpty()) {
+                throw new IllegalArgumentException("linha " + linha + ": faixa sem opções");
+            }
+            return Collections.unmodifiableMap(opcoes);
+        }
     }
 }
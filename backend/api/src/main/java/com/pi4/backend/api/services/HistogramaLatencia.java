@@ -0,0 +1,76 @@
+package com.pi4.backend.api.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências no estilo HDR, em microssegundos e sem travas.
+ *
+ * Abaixo de 128 µs cada valor tem a sua faixa; acima, cada potência de dois é dividida em 64
+ * faixas, então o percentil devolvido (o maior valor da faixa) erra no máximo ~1,6% para cima.
+ * Cobre até ~2^37 µs (38 horas) em 2048 contadores fixos: o custo de registrar não depende do
+ * número de amostras.
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUBFAIXA = 6;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int LINEAR = SUBFAIXAS * 2;
+    static final int FAIXAS = 2048;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder somaMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void registrar(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        contagens.incrementAndGet(indice(micros));
+        total.increment();
+        somaMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getSomaMicros() {
+        return somaMicros.sum();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /** Menor valor (µs) que cobre a fração {@code p} das amostras; 0 sem amostras. */
+    public long percentilMicros(double p) {
+        long amostras = total.sum();
+        if (amostras == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(p * amostras));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    static int indice(long micros) {
+        if (micros < LINEAR) return (int) micros;
+        int expoente = 63 - Long.numberOfLeadingZeros(micros);
+        int deslocamento = expoente - BITS_SUBFAIXA;
+        int mantissa = (int) (micros >>> deslocamento);
+        return (int) Math.min(FAIXAS - 1, LINEAR + (long) (deslocamento - 1) * SUBFAIXAS + (mantissa - SUBFAIXAS));
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < LINEAR) return indice;
+        int deslocamento = (indice - LINEAR) / SUBFAIXAS + 1;
+        long mantissa = (indice - LINEAR) % SUBFAIXAS + SUBFAIXAS;
+        return ((mantissa + 1) << deslocamento) - 1;
+    }
+}
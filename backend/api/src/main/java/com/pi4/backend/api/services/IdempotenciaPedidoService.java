@@ -0,0 +1,154 @@
+package com.pi4.backend.api.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deduplicação de requisições de criação de pedido pela {@code Idempotency-Key}.
+ *
+ * A primeira requisição de uma chave executa; as repetidas enquanto ela roda esperam o mesmo
+ * resultado em vez de executar de novo (mesmo esquema das cotações em {@link CotacaoFreteService}).
+ * Depois o resultado fica guardado de forma compacta (status + id do pedido ou mensagem) por
+ * {@code pedido.idempotencia.ttl-segundos}. A mesma chave com outro conteúdo é recusada.
+ *
+ * Conflitos de concorrência (409) e erros internos (5xx) não ficam guardados: uma nova tentativa
+ * com a mesma chave executa de novo. Fora da memória (reinício, outra instância) quem segura a
+ * duplicata é o índice único da chave em tb_pedido.
+ */
+@Service
+public class IdempotenciaPedidoService {
+
+    /** Resultado de uma execução: status HTTP e corpo (id do pedido criado ou mensagem de erro). */
+    public record Registro(String impressao, int status, Object corpo) {
+
+        boolean guardavel() {
+            return status < 500 && status != 409;
+        }
+    }
+
+    /** Resultado devolvido a quem chamou; {@code repetido} indica que veio de outra execução. */
+    public record Resultado(Registro registro, boolean repetido) { }
+
+    public static class ChaveReutilizadaException extends RuntimeException {
+        ChaveReutilizadaException() {
+            super("Chave de idempotência já usada com outro conteúdo");
+        }
+    }
+
+    public static class EmAndamentoException extends RuntimeException {
+        EmAndamentoException() {
+            super("Requisição com essa chave ainda em processamento");
+        }
+    }
+
+    private final CacheLru<String, Registro> concluidos;
+    private final Map<String, CompletableFuture<Registro>> emAndamento = new ConcurrentHashMap<>();
+    private final long esperaMs;
+
+    private final AtomicLong execucoes = new AtomicLong();
+    private final AtomicLong repeticoes = new AtomicLong();
+    private final AtomicLong esperasCompartilhadas = new AtomicLong();
+    private final AtomicLong chavesReutilizadas = new AtomicLong();
+    private final AtomicLong esperasEsgotadas = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IdempotenciaPedidoService(@Value("${pedido.idempotencia.tamanho-maximo:100000}") int tamanhoMaximo,
+                                     @Value("${pedido.idempotencia.ttl-segundos:86400}") long ttlSegundos,
+                                     @Value("${pedido.idempotencia.espera-ms:30000}") long esperaMs) {
+        this.concluidos = new CacheLru<>(tamanhoMaximo, ttlSegundos * 1_000_000_000L, evictions);
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Executa {@code execucao} uma vez por {@code chave}; {@code impressao} resume o conteúdo da
+     * requisição para detectar a mesma chave reaproveitada em outro pedido.
+     */
+    public Resultado executar(String chave, String impressao, Supplier<Registro> execucao) {
+        Registro registro = concluidos.get(chave);
+        if (registro != null) {
+            return repetido(registro, impressao);
+        }
+
+        CompletableFuture<Registro> minha = new CompletableFuture<>();
+        CompletableFuture<Registro> emCurso = emAndamento.putIfAbsent(chave, minha);
+        if (emCurso != null) {
+            esperasCompartilhadas.incrementAndGet();
+            return repetido(aguardar(emCurso), impressao);
+        }
+        try {
+            // Outra thread pode ter concluído a mesma chave entre o get e o putIfAbsent
+            registro = concluidos.get(chave);
+            if (registro != null) {
+                minha.complete(registro);
+                return repetido(registro, impressao);
+            }
+            execucoes.incrementAndGet();
+            registro = execucao.get();
+            // Guardado antes de sair de emAndamento: quem chegar depois acha um dos dois
+            if (registro.guardavel()) {
+                concluidos.put(chave, registro);
+            }
+            minha.complete(registro);
+            return new Resultado(registro, false);
+        } catch (RuntimeException e) {
+            minha.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, minha);
+        }
+    }
+
+    /** Registra o resultado de uma chave resolvida fora da memória (ex.: pelo índice único no banco). */
+    public void registrar(String chave, Registro registro) {
+        if (registro.guardavel()) {
+            concluidos.put(chave, registro);
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("execucoes", execucoes.get());
+        stats.put("repeticoes", repeticoes.get());
+        stats.put("esperasCompartilhadas", esperasCompartilhadas.get());
+        stats.put("chavesReutilizadas", chavesReutilizadas.get());
+        stats.put("esperasEsgotadas", esperasEsgotadas.get());
+        stats.put("evictions", evictions.get());
+        stats.put("chavesEmCache", concluidos.size());
+        stats.put("emAndamento", emAndamento.size());
+        return stats;
+    }
+
+    private Resultado repetido(Registro registro, String impressao) {
+        if (!registro.impressao().equals(impressao)) {
+            chavesReutilizadas.incrementAndGet();
+            throw new ChaveReutilizadaException();
+        }
+        repeticoes.incrementAndGet();
+        return new Resultado(registro, true);
+    }
+
+    private Registro aguardar(CompletableFuture<Registro> emCurso) {
+        try {
+            return emCurso.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            esperasEsgotadas.incrementAndGet();
+            throw new EmAndamentoException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmAndamentoException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
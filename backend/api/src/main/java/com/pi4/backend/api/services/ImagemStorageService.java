@@ -1,70 +1,301 @@
 package com.pi4.backend.api.services;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+/**
+ * Grava os arquivos de imagem em disco, sob {@code imagem.diretorio}, servidos em {@code /uploads/**}.
+ *
+ * O upload é copiado por streaming (FileChannel.transferFrom, sem o arquivo inteiro em memória)
+ * para um temporário, enquanto o SHA-256 do conteúdo é calculado; o arquivo final se chama
+ * {@code <hash><ext>}.
+ *
+ * Com {@code imagem.armazenamento=conteudo} (padrão) o arquivo vai para
+ * {@code conteudo/<2 primeiros hex>/}, compartilhado por todos os produtos com a mesma foto; as
+ * referências são as linhas de tb_produto_imagem e a remoção física fica com o
+ * {@link ColetaImagemService}. Com {@code produto} cada produto tem seu diretório, como antes.
+ */
 @Service
 public class ImagemStorageService {
 
+    static final String PREFIXO_URL = "/uploads/";
+    static final String DIRETORIO_CONTEUDO = "conteudo";
+    private static final long BLOCO_COPIA = 1L << 20;
+    private static final int TRAVAS = 64;
+
     private final Path rootDir;
+    private final Path temporarios;
+    private final boolean porConteudo;
+    // Upload que reaproveita um arquivo e a coleta que o apaga se excluem pelo nome do arquivo
+    private final ReentrantLock[] travas = new ReentrantLock[TRAVAS];
+
+    @Autowired
+    public ImagemStorageService(@Value("${imagem.diretorio:uploads}") String diretorio,
+                                @Value("${imagem.armazenamento:conteudo}") String armazenamento) throws IOException {
+        this(Paths.get(diretorio), !"produto".equalsIgnoreCase(armazenamento));
+    }
 
-    public ImagemStorageService() throws IOException {
-        this.rootDir = Paths.get("uploads").toAbsolutePath().normalize();
-        if (!Files.exists(rootDir)) {
-            Files.createDirectories(rootDir);
+    ImagemStorageService(Path diretorio, boolean porConteudo) throws IOException {
+        this.rootDir = diretorio.toAbsolutePath().normalize();
+        this.temporarios = rootDir.resolve(".tmp");
+        this.porConteudo = porConteudo;
+        Files.createDirectories(temporarios);
+        for (int i = 0; i < TRAVAS; i++) {
+            travas[i] = new ReentrantLock();
         }
     }
 
+    public boolean isPorConteudo() {
+        return porConteudo;
+    }
+
     public StoredImage store(MultipartFile file, Long produtoId) throws IOException {
         if (file.isEmpty()) {
             throw new IOException("Arquivo vazio");
         }
-        String original = StringUtils.cleanPath(file.getOriginalFilename());
-        String ext = "";
-        int idx = original.lastIndexOf('.');
-        if (idx >= 0) {
-            ext = original.substring(idx).toLowerCase();
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), produtoId);
+        }
+    }
+
+    public StoredImage store(InputStream conteudo, String nomeOriginal, Long produtoId) throws IOException {
+        MessageDigest sha256 = novoDigest();
+        Path temporario = Files.createTempFile(temporarios, "upload-", ".tmp");
+        long tamanho;
+        try (ReadableByteChannel origem = Channels.newChannel(new DigestInputStream(conteudo, sha256));
+             FileChannel destino = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+            tamanho = copiar(origem, destino);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+        if (tamanho == 0) {
+            Files.deleteIfExists(temporario);
+            throw new IOException("Arquivo vazio");
+        }
+        String hash = HexFormat.of().formatHex(sha256.digest());
+        String diretorio = porConteudo ? diretorioConteudo(hash)
+            : PREFIXO_URL + "produtos/" + produtoId + "/";
+        return guardar(temporario, hash, extensao(nomeOriginal), diretorio, tamanho);
+    }
+
+    /**
+     * Leva um arquivo já em disco para o endereço do seu conteúdo e deixa no caminho antigo um
+     * hard link para ele (cópia, se o sistema de arquivos não suportar), para que a URL antiga
+     * continue respondendo. Usado pela migração do diretório por produto.
+     */
+    public StoredImage migrarParaConteudo(Path arquivo) throws IOException {
+        String hash = calcularHash(arquivo);
+        long tamanho = Files.size(arquivo);
+        Path temporario = Files.createTempFile(temporarios, "migracao-", ".tmp");
+        Files.copy(arquivo, temporario, StandardCopyOption.REPLACE_EXISTING);
+        StoredImage stored = guardar(temporario, hash, extensao(arquivo.getFileName().toString()),
+            diretorioConteudo(hash), tamanho);
+        Path destino = resolver(stored.getDiretorio(), stored.getNomeArquivo());
+        substituirPorLink(arquivo, destino);
+        return stored;
+    }
+
+    public static String diretorioConteudo(String hash) {
+        return PREFIXO_URL + DIRETORIO_CONTEUDO + "/" + hash.substring(0, 2) + "/";
+    }
+
+    /** Caminho em disco de um arquivo registrado como (diretorio, nomeArquivo); nunca sai da raiz. */
+    public Path resolver(String diretorio, String nomeArquivo) throws IOException {
+        String relativo = diretorio.replace('\\', '/');
+        if (relativo.startsWith(PREFIXO_URL)) {
+            relativo = relativo.substring(PREFIXO_URL.length());
+        } else if (relativo.startsWith("/")) {
+            relativo = relativo.substring(1);
+        }
+        Path path = rootDir.resolve(relativo).resolve(nomeArquivo).normalize();
+        if (!path.startsWith(rootDir)) {
+            throw new IOException("Caminho fora do diretório de imagens: " + diretorio + nomeArquivo);
+        }
+        return path;
+    }
+
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    public boolean deleteFile(String diretorio, String nomeArquivo) {
+        try {
+            return Files.deleteIfExists(resolver(diretorio, nomeArquivo));
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Apaga o arquivo (e antes dele os {@code derivados}, as variantes) se ele não foi gravado nem
+     * reaproveitado por um upload nos últimos {@code carenciaMs} e se {@code semReferencias}
+     * (consultado sob a trava do arquivo) confirmar que nenhuma linha o usa. A carência cobre o
+     * intervalo entre o upload reaproveitar o arquivo e a linha nova ser confirmada.
+     */
+    public boolean removerSeSemReferencias(String diretorio, String nomeArquivo, List<String> derivados,
+                                           long carenciaMs, BooleanSupplier semReferencias) throws IOException {
+        Path path = resolver(diretorio, nomeArquivo);
+        trava(nomeArquivo).lock();
+        try {
+            try {
+                long idade = System.currentTimeMillis() - Files.getLastModifiedTime(path).toMillis();
+                if (idade < carenciaMs || !semReferencias.getAsBoolean()) {
+                    return false;
+                }
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            for (String derivado : derivados) {
+                Files.deleteIfExists(resolver(diretorio, derivado));
+            }
+            return Files.deleteIfExists(path);
+        } finally {
+            trava(nomeArquivo).unlock();
         }
-        String novoNome = UUID.randomUUID().toString().replace("-", "") + ext;
-        Path produtoDir = rootDir.resolve("produtos").resolve(String.valueOf(produtoId));
-        if (!Files.exists(produtoDir)) {
-            Files.createDirectories(produtoDir);
+    }
+
+    private StoredImage guardar(Path temporario, String hash, String ext, String diretorio, long tamanho)
+            throws IOException {
+        String novoNome = hash + ext;
+        Path destino = resolver(diretorio, novoNome);
+        Files.createDirectories(destino.getParent());
+        boolean existente;
+        trava(novoNome).lock();
+        try {
+            existente = !mover(temporario, destino);
+            if (existente) {
+                // Reaproveitado: renova a data para a coleta respeitar a carência
+                Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } finally {
+            trava(novoNome).unlock();
         }
-        Path destino = produtoDir.resolve(novoNome);
-        Files.copy(file.getInputStream(), destino, StandardCopyOption.REPLACE_EXISTING);
         StoredImage stored = new StoredImage();
         stored.setNomeArquivo(novoNome);
-        stored.setDiretorio("/uploads/produtos/" + produtoId + "/");
+        stored.setDiretorio(diretorio);
+        stored.setHash(hash);
+        stored.setTamanhoBytes(tamanho);
+        stored.setExistente(existente);
         return stored;
     }
 
-    public boolean deleteFile(String diretorio, String nomeArquivo) {
+    private ReentrantLock trava(String nomeArquivo) {
+        return travas[Math.floorMod(nomeArquivo.hashCode(), TRAVAS)];
+    }
+
+    private void substituirPorLink(Path antigo, Path destino) throws IOException {
+        if (antigo.equals(destino)) return;
+        Path link = antigo.resolveSibling(".link-" + antigo.getFileName());
         try {
-            String sanitized = diretorio.startsWith("/") ? diretorio.substring(1) : diretorio;
-            Path path = rootDir.getParent().resolve(sanitized).resolve(nomeArquivo).normalize();
-            if (Files.exists(path)) {
-                return Files.deleteIfExists(path);
+            Files.deleteIfExists(link);
+            Files.createLink(link, destino);
+            Files.move(link, antigo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UnsupportedOperationException | IOException e) {
+            // Sem hard link: o arquivo antigo fica como está (URL antiga continua valendo, sem economia)
+            Files.deleteIfExists(link);
+        }
+    }
+
+    // transferFrom de um canal que não é arquivo devolve 0 só no fim do fluxo
+    private static long copiar(ReadableByteChannel origem, FileChannel destino) throws IOException {
+        long posicao = 0;
+        long lidos;
+        while ((lidos = destino.transferFrom(origem, posicao, BLOCO_COPIA)) > 0) {
+            posicao += lidos;
+        }
+        return posicao;
+    }
+
+    static String calcularHash(Path arquivo) throws IOException {
+        MessageDigest sha256 = novoDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            while (canal.read(buffer) > 0) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
             }
-        } catch (IOException | SecurityException e) {
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /** Move o temporário para o nome final; false se o mesmo conteúdo já estava gravado. */
+    private static boolean mover(Path temporario, Path destino) throws IOException {
+        if (Files.exists(destino)) {
+            Files.deleteIfExists(temporario);
             return false;
         }
-        return false;
+        try {
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporario, destino);
+            } catch (FileAlreadyExistsException jaGravado) {
+                Files.deleteIfExists(temporario);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String extensao(String nomeOriginal) {
+        if (nomeOriginal == null) return "";
+        String original = StringUtils.cleanPath(nomeOriginal);
+        int idx = original.lastIndexOf('.');
+        if (idx < 0 || original.indexOf('/', idx) >= 0) return "";
+        return original.substring(idx).toLowerCase();
+    }
+
+    private static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 
     public static class StoredImage {
         private String nomeArquivo;
         private String diretorio;
+        private String hash;
+        private long tamanhoBytes;
+        private boolean existente;
         public String getNomeArquivo() { return nomeArquivo; }
         public void setNomeArquivo(String nomeArquivo) { this.nomeArquivo = nomeArquivo; }
         public String getDiretorio() { return diretorio; }
         public void setDiretorio(String diretorio) { this.diretorio = diretorio; }
+        public String getHash() { return hash; }
+        public void setHash(String hash) { this.hash = hash; }
+        public long getTamanhoBytes() { return tamanhoBytes; }
+        public void setTamanhoBytes(long tamanhoBytes) { this.tamanhoBytes = tamanhoBytes; }
+        public boolean isExistente() { return existente; }
+        public void setExistente(boolean existente) { this.existente = existente; }
     }
 }
@@ -1,14 +1,14 @@
 package com.pi4.backend.api.services;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.pi4.backend.api.dto.CredencialLogin;
 import com.pi4.backend.api.dto.SessionDto;
-import com.pi4.backend.api.entities.Cliente;
-import com.pi4.backend.api.entities.Usuario;
 import com.pi4.backend.api.repositories.ClienteRepository;
 import com.pi4.backend.api.repositories.UserRepository;
 
@@ -24,7 +24,7 @@ public class LoginService {
     private ClienteRepository clienteRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private SenhaService senhaService;
 
     private static final String GRUPO_CLIENTE = "Cliente";
 
@@ -33,19 +33,23 @@ public class LoginService {
     public SessionDto autenticarUsuario(String email, String senha) {
         log.info("Tentativa de login para email: {}", email);
 
-        // Primeiro tenta buscar na tabela de usuários (admins/estoquistas)
-        Usuario usuario = userRepository.findByEmail(email);
+        // Usuário do backoffice e cliente numa consulta só; se o e-mail existir nos dois, vale o usuário
+        List<CredencialLogin> credenciais = userRepository.buscarCredenciais(email);
+        CredencialLogin usuario = null;
+        CredencialLogin cliente = null;
+        for (CredencialLogin credencial : credenciais) {
+            if (credencial.isUsuario()) usuario = credencial;
+            else cliente = credencial;
+        }
         log.debug("Usuário encontrado na tabela de usuários: {}", usuario != null);
-        
+
         if (usuario != null) {
             log.debug("Tentando autenticar como usuário administrativo");
             return autenticarUsuarioAdmin(usuario, senha);
         }
 
-        // Se não encontrou na tabela de usuários, busca na tabela de clientes
-        Cliente cliente = clienteRepository.findByEmail(email);
         log.debug("Cliente encontrado na tabela de clientes: {}", cliente != null);
-        
+
         if (cliente != null) {
             log.debug("Tentando autenticar como cliente");
             return autenticarCliente(cliente, senha);
@@ -55,18 +59,14 @@ public class LoginService {
         throw new RuntimeException("Não localizando o sistema deve negar a entrada do usuário no backoffice");
     }
 
-    private SessionDto autenticarUsuarioAdmin(Usuario usuario, String senha) {
-        log.debug("Verificando status do usuário: {}", usuario.getStatus());
-        if (usuario.getStatus() == null || !usuario.getStatus()) {
+    private SessionDto autenticarUsuarioAdmin(CredencialLogin usuario, String senha) {
+        log.debug("Verificando status do usuário: {}", usuario.isAtivo());
+        if (!usuario.isAtivo()) {
             log.warn("Usuário inativo: {}", usuario.getEmail());
             throw new RuntimeException("Usuário inativo");
         }
 
-        log.debug("Verificando senha para usuário: {}", usuario.getEmail());
-        log.debug("Senha hash no banco: {}", usuario.getSenha());
-        log.debug("Senha informada: {}", senha);
-        
-        boolean passwordOk = passwordEncoder.matches(senha, usuario.getSenha());
+        boolean passwordOk = senhaService.conferir(senha, usuario.getSenha());
         log.debug("Senha válida: {}", passwordOk);
         
         if (!passwordOk) {
@@ -74,13 +74,15 @@ public class LoginService {
             throw new RuntimeException("Usuário ou senha inválidos");
         }
 
-        String grupo = usuario.getGrupo() != null ? usuario.getGrupo().getNome() : "Usuario";
+        String grupo = usuario.getGrupo() != null ? usuario.getGrupo() : "Usuario";
         log.debug("Grupo do usuário: {}", grupo);
         
         boolean isBackoffice = isGrupoPermitido(grupo, GRUPOS_BACKOFFICE);
         log.debug("É usuário de backoffice: {}", isBackoffice);
 
         if (isBackoffice) {
+            senhaService.atualizarSeNecessario(senha, usuario.getSenha(),
+                novoHash -> userRepository.atualizarHashSenha(usuario.getId(), usuario.getSenha(), novoHash));
             SessionDto session = new SessionDto();
             session.setId(usuario.getId());
             session.setNome(usuario.getNome());
@@ -93,16 +95,19 @@ public class LoginService {
         }
     }
 
-    private SessionDto autenticarCliente(Cliente cliente, String senha) {
-        if (cliente.getStatus() == null || !cliente.getStatus()) {
+    private SessionDto autenticarCliente(CredencialLogin cliente, String senha) {
+        if (!cliente.isAtivo()) {
             throw new RuntimeException("Cliente inativo");
         }
 
-        boolean passwordOk = passwordEncoder.matches(senha, cliente.getSenha());
+        boolean passwordOk = senhaService.conferir(senha, cliente.getSenha());
         if (!passwordOk) {
             throw new RuntimeException("Usuário ou senha inválidos");
         }
 
+        senhaService.atualizarSeNecessario(senha, cliente.getSenha(),
+            novoHash -> clienteRepository.atualizarHashSenha(cliente.getId(), cliente.getSenha(), novoHash));
+
         SessionDto session = new SessionDto();
         session.setId(cliente.getId());
         session.setNome(cliente.getNome());
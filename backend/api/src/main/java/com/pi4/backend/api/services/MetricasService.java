@@ -0,0 +1,298 @@
+package com.pi4.backend.api.services;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Métricas da API em memória, expostas no formato texto do Prometheus.
+ *
+ * Guarda temporizadores ({@link HistogramaLatencia}, exportados como summary com quantis), contadores
+ * e medidores lidos na hora da coleta. Também acompanha a requisição em andamento na thread: quantos
+ * comandos SQL ela executou, de que formato, e quanto tempo passou em cada método de repositório.
+ * Requisições acima de {@code metricas.requisicao-lenta-ms} vão para o log com esse detalhamento.
+ */
+@Service
+public class MetricasService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricasService.class);
+
+    private static final double[] QUANTIS = {0.5, 0.9, 0.99, 0.999};
+    private static final int MAX_FORMATOS_SQL = 50;
+    private static final int MAX_DETALHES_LOG = 10;
+    private static final int MAX_TAMANHO_SQL = 160;
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private final ConcurrentMap<String, Familia> familias = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Supplier<Map<String, Object>>> estatisticas = new ConcurrentSkipListMap<>();
+    private final ThreadLocal<Requisicao> requisicaoAtual = new ThreadLocal<>();
+    private final LongAdder comandosSql;
+    private final LongAdder requisicoesLentas;
+    private final long limiteLentaNanos;
+
+    public MetricasService(@Value("${metricas.requisicao-lenta-ms:500}") long limiteLentaMs) {
+        this.limiteLentaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, limiteLentaMs));
+        this.comandosSql = contador("api_sql_comandos_total", "Comandos SQL preparados pelo Hibernate", "");
+        this.requisicoesLentas = contador("api_http_requisicoes_lentas_total",
+            "Requisições acima de metricas.requisicao-lenta-ms", "");
+    }
+
+    public HistogramaLatencia temporizador(String nome, String ajuda, String rotulos) {
+        return (HistogramaLatencia) familia(nome, "summary", ajuda).series
+            .computeIfAbsent(rotulos, r -> new HistogramaLatencia());
+    }
+
+    public LongAdder contador(String nome, String ajuda, String rotulos) {
+        return (LongAdder) familia(nome, "counter", ajuda).series.computeIfAbsent(rotulos, r -> new LongAdder());
+    }
+
+    /** Medidor lido a cada coleta; {@code null} omite a série. */
+    public void medidor(String nome, String ajuda, String rotulos, Supplier<? extends Number> valor) {
+        familia(nome, "gauge", ajuda).series.put(rotulos, valor);
+    }
+
+    /**
+     * Exporta os valores numéricos de um mapa de estatísticas (como os {@code estatisticas()} dos
+     * serviços) como medidores {@code prefixo_chave}; o mapa é lido uma vez por coleta.
+     */
+    public void medidoresEstatisticas(String prefixo, Supplier<Map<String, Object>> fonte) {
+        estatisticas.put(prefixo, fonte);
+    }
+
+    public void iniciarRequisicao() {
+        requisicaoAtual.set(new Requisicao());
+    }
+
+    public void registrarSql(String sql) {
+        comandosSql.increment();
+        Requisicao requisicao = requisicaoAtual.get();
+        if (requisicao == null) return;
+        requisicao.comandosSql++;
+        if (requisicao.formatosSql.size() < MAX_FORMATOS_SQL || requisicao.formatosSql.containsKey(sql)) {
+            requisicao.formatosSql.computeIfAbsent(sql, s -> new int[1])[0]++;
+        }
+    }
+
+    /** Comandos SQL da requisição em andamento nesta thread (0 fora de uma requisição). */
+    public int comandosSqlDaRequisicao() {
+        Requisicao requisicao = requisicaoAtual.get();
+        return requisicao == null ? 0 : requisicao.comandosSql;
+    }
+
+    public void registrarRepositorio(String repositorio, String metodo, long nanos) {
+        temporizador("api_repositorio_segundos", "Tempo das chamadas a métodos de repositório",
+            rotulos("repositorio", repositorio, "metodo", metodo)).registrar(nanos);
+        Requisicao requisicao = requisicaoAtual.get();
+        if (requisicao == null) return;
+        long[] chamadas = requisicao.repositorios.computeIfAbsent(repositorio + "." + metodo, c -> new long[2]);
+        chamadas[0]++;
+        chamadas[1] += nanos;
+    }
+
+    /** Registra a requisição da thread atual na rota {@code rota} e a esquece. */
+    public void encerrarRequisicao(String metodo, String rota, int status, long nanos) {
+        Requisicao requisicao = requisicaoAtual.get();
+        requisicaoAtual.remove();
+        temporizador("api_http_requisicao_segundos", "Tempo das requisições HTTP por rota",
+            rotulos("metodo", metodo, "rota", rota, "status", String.valueOf(status))).registrar(nanos);
+        if (requisicao == null) return;
+        contador("api_http_sql_comandos_total", "Comandos SQL executados dentro de requisições HTTP, por rota",
+            rotulos("metodo", metodo, "rota", rota)).add(requisicao.comandosSql);
+        if (nanos >= limiteLentaNanos) {
+            requisicoesLentas.increment();
+            log.warn("Requisição lenta: {} {} -> {} em {} ms; {} comandos SQL; repositórios: {}; SQL: {}",
+                metodo, rota, status, TimeUnit.NANOSECONDS.toMillis(nanos), requisicao.comandosSql,
+                requisicao.resumoRepositorios(), requisicao.resumoSql());
+        }
+    }
+
+    /** Todas as métricas no formato texto 0.0.4 do Prometheus. */
+    public String prometheus() {
+        StringBuilder saida = new StringBuilder(8192);
+        for (Map.Entry<String, Familia> entrada : familias.entrySet()) {
+            escreverFamilia(saida, entrada.getKey(), entrada.getValue());
+        }
+        for (Map.Entry<String, Supplier<Map<String, Object>>> fonte : estatisticas.entrySet()) {
+            escreverEstatisticas(saida, fonte.getKey(), fonte.getValue());
+        }
+        return saida.toString();
+    }
+
+    /** Monta {@code chave="valor",...} a partir de pares chave/valor, escapando os valores. */
+    public static String rotulos(String... pares) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < pares.length; i += 2) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(pares[i]).append("=\"");
+            String valor = pares[i + 1] == null ? "" : pares[i + 1];
+            for (int c = 0; c < valor.length(); c++) {
+                char ch = valor.charAt(c);
+                switch (ch) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"' -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(ch);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private Familia familia(String nome, String tipo, String ajuda) {
+        Familia familia = familias.computeIfAbsent(nome, n -> new Familia(tipo, ajuda));
+        if (!familia.tipo.equals(tipo)) {
+            throw new IllegalArgumentException("Métrica " + nome + " já registrada como " + familia.tipo);
+        }
+        return familia;
+    }
+
+    private void escreverFamilia(StringBuilder saida, String nome, Familia familia) {
+        if (familia.series.isEmpty()) return;
+        cabecalho(saida, nome, familia.tipo, familia.ajuda);
+        Map<String, Double> maximos = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> serie : familia.series.entrySet()) {
+            String rotulos = serie.getKey();
+            Object valor = serie.getValue();
+            if (valor instanceof HistogramaLatencia histograma) {
+                for (double quantil : QUANTIS) {
+                    String comQuantil = rotulos.isEmpty() ? "" : rotulos + ",";
+                    linha(saida, nome, comQuantil + "quantile=\"" + quantil + "\"", histograma.percentilMicros(quantil) / 1e6);
+                }
+                linha(saida, nome + "_sum", rotulos, histograma.getSomaMicros() / 1e6);
+                linha(saida, nome + "_count", rotulos, histograma.getTotal());
+                maximos.put(rotulos, histograma.getMaxMicros() / 1e6);
+            } else if (valor instanceof LongAdder contador) {
+                linha(saida, nome, rotulos, contador.sum());
+            } else if (valor instanceof Supplier<?> medidor) {
+                Number lido = lerMedidor(nome, medidor);
+                if (lido != null) linha(saida, nome, rotulos, lido.doubleValue());
+            }
+        }
+        if (!maximos.isEmpty()) {
+            cabecalho(saida, nome + "_max", "gauge", "Maior valor já registrado em " + nome);
+            maximos.forEach((rotulos, maximo) -> linha(saida, nome + "_max", rotulos, maximo));
+        }
+    }
+
+    private void escreverEstatisticas(StringBuilder saida, String prefixo, Supplier<Map<String, Object>> fonte) {
+        Map<String, Object> valores;
+        try {
+            valores = fonte.get();
+        } catch (RuntimeException e) {
+            log.debug("Falha ao ler estatísticas de {}: {}", prefixo, e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, Object> entrada : valores.entrySet()) {
+            double valor;
+            if (entrada.getValue() instanceof Number numero) {
+                valor = numero.doubleValue();
+            } else if (entrada.getValue() instanceof Boolean ativo) {
+                valor = ativo ? 1 : 0;
+            } else {
+                continue;
+            }
+            String nome = prefixo + "_" + snakeCase(entrada.getKey());
+            cabecalho(saida, nome, "gauge", "Campo " + entrada.getKey() + " das estatísticas de " + prefixo);
+            linha(saida, nome, "", valor);
+        }
+    }
+
+    private Number lerMedidor(String nome, Supplier<?> medidor) {
+        try {
+            return (Number) medidor.get();
+        } catch (RuntimeException e) {
+            log.debug("Falha ao ler o medidor {}: {}", nome, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void cabecalho(StringBuilder saida, String nome, String tipo, String ajuda) {
+        saida.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        saida.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+    }
+
+    private static void linha(StringBuilder saida, String nome, String rotulos, double valor) {
+        saida.append(nome);
+        if (!rotulos.isEmpty()) saida.append('{').append(rotulos).append('}');
+        saida.append(' ');
+        if (valor == Math.rint(valor) && !Double.isInfinite(valor) && Math.abs(valor) < 1e15) {
+            saida.append((long) valor);
+        } else {
+            saida.append(valor);
+        }
+        saida.append('\n');
+    }
+
+    private static String snakeCase(String chave) {
+        StringBuilder sb = new StringBuilder(chave.length() + 4);
+        for (int i = 0; i < chave.length(); i++) {
+            char ch = chave.charAt(i);
+            if (Character.isUpperCase(ch)) {
+                sb.append('_').append(Character.toLowerCase(ch));
+            } else if (Character.isLetterOrDigit(ch)) {
+                sb.append(ch);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static String resumirSql(String sql) {
+        String resumo = LISTA_PARAMETROS.matcher(ESPACOS.matcher(sql).replaceAll(" ")).replaceAll("?...").trim();
+        return resumo.length() > MAX_TAMANHO_SQL ? resumo.substring(0, MAX_TAMANHO_SQL) + "..." : resumo;
+    }
+
+    private static final class Familia {
+        private final String tipo;
+        private final String ajuda;
+        private final ConcurrentMap<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Familia(String tipo, String ajuda) {
+            this.tipo = tipo;
+            this.ajuda = ajuda;
+        }
+    }
+
+    // Só é usada pela thread da requisição, sem sincronização
+    private static final class Requisicao {
+        private int comandosSql;
+        private final Map<String, int[]> formatosSql = new HashMap<>();
+        private final Map<String, long[]> repositorios = new HashMap<>();
+
+        String resumoRepositorios() {
+            return repositorios.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(MAX_DETALHES_LOG)
+                .map(e -> e.getKey() + " x" + e.getValue()[0] + " "
+                    + String.format(Locale.ROOT, "%.1f ms", e.getValue()[1] / 1e6))
+                .toList()
+                .toString();
+        }
+
+        String resumoSql() {
+            Map<String, Integer> porFormato = new HashMap<>();
+            formatosSql.forEach((sql, n) -> porFormato.merge(resumirSql(sql), n[0], Integer::sum));
+            return porFormato.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
+                .limit(MAX_DETALHES_LOG)
+                .map(e -> e.getValue() + "x " + e.getKey())
+                .toList()
+                .toString();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pi4.backend.api.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.entities.ProdutoImagem;
+import com.pi4.backend.api.entities.ProdutoImagem.StatusVariantes;
+import com.pi4.backend.api.repositories.ProdutoImagemRepository;
+
+/**
+ * Migração das imagens gravadas por produto ({@code /uploads/produtos/<id>/}) para o
+ * armazenamento por conteúdo.
+ *
+ * Cada arquivo é levado para {@code conteudo/} pelo seu SHA-256 (fotos repetidas viram um só
+ * arquivo) e a linha passa a apontar para lá, com as variantes refeitas em segundo plano. No
+ * caminho antigo fica um hard link para o arquivo novo, então URLs antigas continuam valendo
+ * sem ocupar espaço de novo. Linhas já migradas são ignoradas: pode rodar mais de uma vez.
+ */
+@Service
+public class MigracaoImagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracaoImagemService.class);
+
+    private final ProdutoImagemRepository imagemRepository;
+    private final ImagemStorageService storageService;
+    private final VarianteImagemService varianteService;
+    private final TransactionTemplate transacao;
+    private final ReentrantLock travaMigracao = new ReentrantLock();
+
+    public MigracaoImagemService(ProdutoImagemRepository imagemRepository,
+                                 ImagemStorageService storageService,
+                                 VarianteImagemService varianteService,
+                                 PlatformTransactionManager transactionManager) {
+        this.imagemRepository = imagemRepository;
+        this.storageService = storageService;
+        this.varianteService = varianteService;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /** Migra todas as linhas; com {@code simular} só calcula o relatório, sem tocar em disco nem banco. */
+    public Map<String, Object> migrar(boolean simular) throws IOException {
+        // Uma migração por vez; ReentrantLock porque ela faz E/S de disco e banco sob a trava
+        travaMigracao.lock();
+        try {
+            return executar(simular);
+        } finally {
+            travaMigracao.unlock();
+        }
+    }
+
+    private Map<String, Object> executar(boolean simular) throws IOException {
+        String prefixoConteudo = ImagemStorageService.PREFIXO_URL + ImagemStorageService.DIRETORIO_CONTEUDO + "/";
+        // Linhas que compartilham o mesmo arquivo antigo usam o resultado já calculado
+        Map<Path, ImagemStorageService.StoredImage> migrados = new HashMap<>();
+        Set<String> hashesVistos = new HashSet<>();
+        int linhas = 0;
+        int jaMigradas = 0;
+        int migradas = 0;
+        int ausentes = 0;
+        int duplicados = 0;
+        long bytesEconomizados = 0;
+
+        Long ultimoId = 0L;
+        List<ProdutoImagem> lote;
+        while (!(lote = imagemRepository.findTop500ByIdGreaterThanOrderByIdAsc(ultimoId)).isEmpty()) {
+            for (ProdutoImagem imagem : lote) {
+                ultimoId = imagem.getId();
+                linhas++;
+                if (imagem.getDiretorio().startsWith(prefixoConteudo)) {
+                    jaMigradas++;
+                    continue;
+                }
+                Path antigo;
+                try {
+                    antigo = storageService.resolver(imagem.getDiretorio(), imagem.getNomeArquivo());
+                } catch (IOException e) {
+                    ausentes++;
+                    continue;
+                }
+                ImagemStorageService.StoredImage stored = migrados.get(antigo);
+                if (stored == null) {
+                    if (!Files.isRegularFile(antigo)) {
+                        ausentes++;
+                        continue;
+                    }
+                    stored = simular ? simular(antigo) : storageService.migrarParaConteudo(antigo);
+                    migrados.put(antigo, stored);
+                    if (!hashesVistos.add(stored.getHash()) || stored.isExistente()) {
+                        duplicados++;
+                        bytesEconomizados += stored.getTamanhoBytes();
+                    }
+                }
+                migradas++;
+                if (!simular) {
+                    registrar(imagem.getId(), stored);
+                }
+            }
+        }
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("simulacao", simular);
+        resultado.put("linhas", linhas);
+        resultado.put("jaMigradas", jaMigradas);
+        resultado.put("migradas", migradas);
+        resultado.put("arquivosAusentes", ausentes);
+        resultado.put("arquivosDuplicados", duplicados);
+        resultado.put("bytesEconomizados", bytesEconomizados);
+        log.info("Migração de imagens para armazenamento por conteúdo: {}", resultado);
+        return resultado;
+    }
+
+    private void registrar(Long imagemId, ImagemStorageService.StoredImage stored) {
+        transacao.executeWithoutResult(s -> {
+            imagemRepository.moverArquivo(imagemId, stored.getDiretorio(), stored.getNomeArquivo(),
+                stored.getHash(), stored.getTamanhoBytes(), StatusVariantes.PENDENTE);
+            varianteService.agendarAposCommit(imagemId);
+        });
+    }
+
+    private ImagemStorageService.StoredImage simular(Path antigo) throws IOException {
+        ImagemStorageService.StoredImage stored = new ImagemStorageService.StoredImage();
+        stored.setHash(ImagemStorageService.calcularHash(antigo));
+        stored.setTamanhoBytes(Files.size(antigo));
+        return stored;
+    }
+}
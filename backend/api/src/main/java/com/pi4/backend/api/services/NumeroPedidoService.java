@@ -0,0 +1,147 @@
+package com.pi4.backend.api.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.pi4.backend.api.repositories.PedidoRepository;
+
+/**
+ * Gerador de números de pedido no estilo Snowflake, sem lock e sem colisão.
+ *
+ * Formato: {@code PED} + segundo UTC (yyyyMMddHHmmss) + nó (3 dígitos) + sequência (4 dígitos),
+ * ex.: {@code PED202503011430050070042}. O segundo e a sequência formam um único
+ * contador atômico (segundo * 10000 + sequência): cada número é o maior entre "contador + 1"
+ * e o início do segundo atual, obtido por CAS. Assim os números são estritamente crescentes
+ * por nó; se a sequência de um segundo esgotar, o contador avança para o segundo seguinte
+ * em vez de esperar, e um relógio que volta no tempo não gera repetição.
+ *
+ * Instâncias diferentes precisam de {@code pedido.numero.no} distintos (0 a 999). Para
+ * reinícios no mesmo nó, o contador começa depois do maior número já gravado no banco.
+ */
+@Service
+public class NumeroPedidoService {
+
+    public static final String PREFIXO = "PED";
+    public static final int MAX_NO = 999;
+
+    static final long SEQUENCIAS_POR_SEGUNDO = 10_000;
+    private static final DateTimeFormatter FORMATO_SEGUNDO = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final int TAMANHO_SEGUNDO = 14;
+
+    private final int no;
+    private final String noFormatado;
+    private final Clock relogio;
+    private final Supplier<String> ultimoNumeroGravado;
+
+    private final AtomicLong contador = new AtomicLong();
+    private volatile boolean inicializado;
+    private final ReentrantLock travaInicializacao = new ReentrantLock();
+
+    // Último segundo formatado; números do mesmo segundo reaproveitam o texto
+    private volatile SegundoFormatado cacheSegundo = new SegundoFormatado(-1, "");
+
+    @Autowired
+    public NumeroPedidoService(PedidoRepository pedidoRepository,
+                               @Value("${pedido.numero.no:0}") int no) {
+        this(no, Clock.systemUTC(), pedidoRepository::findUltimoNumeroPedido);
+    }
+
+    NumeroPedidoService(int no, Clock relogio, Supplier<String> ultimoNumeroGravado) {
+        if (no < 0 || no > MAX_NO) {
+            throw new IllegalArgumentException("pedido.numero.no deve estar entre 0 e " + MAX_NO + ": " + no);
+        }
+        this.no = no;
+        this.noFormatado = String.format("%03d", no);
+        this.relogio = relogio;
+        this.ultimoNumeroGravado = ultimoNumeroGravado;
+    }
+
+    public int getNo() {
+        return no;
+    }
+
+    public String gerar() {
+        return formatar(proximoValor());
+    }
+
+    /** Próximo valor do contador (segundo * 10000 + sequência). */
+    long proximoValor() {
+        if (!inicializado) {
+            inicializar();
+        }
+        long minimo = (relogio.millis() / 1000) * SEQUENCIAS_POR_SEGUNDO;
+        while (true) {
+            long atual = contador.get();
+            long proximo = Math.max(atual + 1, minimo);
+            if (contador.compareAndSet(atual, proximo)) {
+                return proximo;
+            }
+        }
+    }
+
+    String formatar(long valor) {
+        long segundo = valor / SEQUENCIAS_POR_SEGUNDO;
+        int sequencia = (int) (valor % SEQUENCIAS_POR_SEGUNDO);
+        SegundoFormatado cache = cacheSegundo;
+        if (cache.segundo != segundo) {
+            cache = new SegundoFormatado(segundo,
+                FORMATO_SEGUNDO.format(LocalDateTime.ofEpochSecond(segundo, 0, ZoneOffset.UTC)));
+            cacheSegundo = cache;
+        }
+        StringBuilder sb = new StringBuilder(PREFIXO.length() + TAMANHO_SEGUNDO + 7)
+            .append(PREFIXO).append(cache.texto).append(noFormatado);
+        if (sequencia < 1000) sb.append('0');
+        if (sequencia < 100) sb.append('0');
+        if (sequencia < 10) sb.append('0');
+        return sb.append(sequencia).toString();
+    }
+
+    // Começa no segundo seguinte ao maior número já gravado: cobre reinício dentro do mesmo
+    // segundo e segundos "emprestados" do futuro pela instância anterior. A consulta fica sob a trava
+    private void inicializar() {
+        travaInicializacao.lock();
+        try {
+            if (inicializado) return;
+            Long segundoGravado = segundoDoNumero(ultimoNumeroGravado.get());
+            if (segundoGravado != null) {
+                long inicio = (segundoGravado + 1) * SEQUENCIAS_POR_SEGUNDO - 1;
+                contador.accumulateAndGet(inicio, Math::max);
+            }
+            inicializado = true;
+        } finally {
+            travaInicializacao.unlock();
+        }
+    }
+
+    static Long segundoDoNumero(String numero) {
+        if (numero == null || !numero.startsWith(PREFIXO) || numero.length() < PREFIXO.length() + TAMANHO_SEGUNDO) {
+            return null;
+        }
+        try {
+            String texto = numero.substring(PREFIXO.length(), PREFIXO.length() + TAMANHO_SEGUNDO);
+            return LocalDateTime.parse(texto, FORMATO_SEGUNDO).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class SegundoFormatado {
+        private final long segundo;
+        private final String texto;
+
+        private SegundoFormatado(long segundo, String texto) {
+            this.segundo = segundo;
+            this.texto = texto;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.dto.ItemPedidoResumoDto;
+import com.pi4.backend.api.entities.EventoPedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.entities.VendaDia;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.VendaDiaRepository;
+import com.pi4.backend.api.repositories.VendaProdutoDiaRepository;
+
+/**
+ * Relatórios de vendas servidos por rollups diários (tb_venda_dia e tb_venda_produto_dia), sem
+ * varrer tb_pedido: o custo de um relatório depende do número de dias do período, não do histórico.
+ *
+ * Assinante dos eventos de pedido: cada lote publicado pelo {@link EventosPedidoService} vira
+ * deltas agregados por linha e somados nas tabelas por UPSERT, na transação que marca os eventos
+ * como publicados. A reconstrução ({@link #reconstruir}) recalcula um período a partir dos
+ * pedidos e também serve para o backfill, feito sozinho na inicialização se os rollups estão vazios.
+ */
+@Service
+public class RelatorioVendasService implements AssinanteEventosPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatorioVendasService.class);
+
+    private final VendaDiaRepository vendaDiaRepository;
+    private final VendaProdutoDiaRepository vendaProdutoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final TransactionTemplate transacao;
+    private final int diasPorLote;
+
+    // Aplicação de eventos e reconstrução não se misturam
+    private final ReentrantLock travaGravacao = new ReentrantLock();
+
+    private final LongAdder eventosAplicados = new LongAdder();
+    private final LongAdder linhasGravadas = new LongAdder();
+    private final LongAdder reconstrucoes = new LongAdder();
+
+    public RelatorioVendasService(VendaDiaRepository vendaDiaRepository,
+                                  VendaProdutoDiaRepository vendaProdutoRepository,
+                                  PedidoRepository pedidoRepository,
+                                  ItemPedidoRepository itemPedidoRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${relatorios.vendas.dias-por-lote:31}") int diasPorLote) {
+        this.vendaDiaRepository = vendaDiaRepository;
+        this.vendaProdutoRepository = vendaProdutoRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.diasPorLote = Math.max(1, diasPorLote);
+    }
+
+    /**
+     * Soma os eventos do lote nos rollups, na transação do relay: o status anterior perde o
+     * pedido e o novo ganha; os itens (lidos numa consulta só para o lote) entram nas vendas por
+     * produto na criação e saem ao cancelar.
+     */
+    @Override
+    public void receber(List<EventoPedido> eventos) {
+        Set<Long> comItens = new HashSet<>();
+        for (EventoPedido evento : eventos) {
+            if (alteraVendasPorProduto(evento)) {
+                comItens.add(evento.getPedidoId());
+            }
+        }
+        Map<Long, List<ItemPedidoResumoDto>> itensPorPedido = comItens.isEmpty() ? Map.of()
+            : itemPedidoRepository.listarResumosPorPedidos(comItens).stream()
+                .collect(Collectors.groupingBy(ItemPedidoResumoDto::getPedidoId));
+
+        Map<ChaveDia, Delta> dias = new HashMap<>();
+        Map<ChaveProduto, Delta> produtos = new HashMap<>();
+        for (EventoPedido evento : eventos) {
+            LocalDate dia = evento.getDataPedido().toLocalDate();
+            BigDecimal valor = evento.getValorTotal();
+            if (evento.getTipo() == EventoPedido.Tipo.STATUS_ALTERADO) {
+                dias.merge(new ChaveDia(dia, evento.getStatusAnterior()), new Delta(null, -1, valor.negate()), Delta::somar);
+            }
+            dias.merge(new ChaveDia(dia, evento.getStatusNovo()), new Delta(null, 1, valor), Delta::somar);
+            if (alteraVendasPorProduto(evento)) {
+                int sinal = evento.getStatusNovo() == StatusPedido.CANCELADO ? -1 : 1;
+                for (ItemPedidoResumoDto item : itensPorPedido.getOrDefault(evento.getPedidoId(), List.of())) {
+                    produtos.merge(new ChaveProduto(dia, item.getProdutoId()),
+                        new Delta(item.getNomeProduto(), (long) sinal * item.getQuantidade(),
+                            sinal < 0 ? item.getSubtotal().negate() : item.getSubtotal()),
+                        Delta::somar);
+                }
+            }
+        }
+        travaGravacao.lock();
+        try {
+            int linhas = 0;
+            for (Map.Entry<ChaveDia, Delta> e : dias.entrySet()) {
+                if (e.getValue().nulo()) continue;
+                vendaDiaRepository.somar(e.getKey().dia(), e.getKey().status().name(),
+                    e.getValue().quantidade(), e.getValue().valor());
+                linhas++;
+            }
+            for (Map.Entry<ChaveProduto, Delta> e : produtos.entrySet()) {
+                if (e.getValue().nulo()) continue;
+                vendaProdutoRepository.somar(e.getKey().dia(), e.getKey().produtoId(), e.getValue().nome(),
+                    e.getValue().quantidade(), e.getValue().valor());
+                linhas++;
+            }
+            eventosAplicados.add(eventos.size());
+            linhasGravadas.add(linhas);
+        } finally {
+            travaGravacao.unlock();
+        }
+    }
+
+    /** Criação de pedido não cancelado, entrada ou saída de CANCELADO. */
+    private static boolean alteraVendasPorProduto(EventoPedido evento) {
+        if (evento.getTipo() == EventoPedido.Tipo.PEDIDO_CRIADO) {
+            return evento.getStatusNovo() != StatusPedido.CANCELADO;
+        }
+        return (evento.getStatusAnterior() == StatusPedido.CANCELADO) != (evento.getStatusNovo() == StatusPedido.CANCELADO);
+    }
+
+    /**
+     * Recalcula os rollups dos dias [inicio, fim] a partir dos pedidos, em lotes de
+     * {@code relatorios.vendas.dias-por-lote} dias (uma transação por lote). Quem chama deve
+     * publicar antes os eventos pendentes; um pedido alterado durante a reconstrução do seu dia
+     * pode ficar contado em dobro ou de fora até a próxima.
+     */
+    public Map<String, Object> reconstruir(LocalDate inicio, LocalDate fim) {
+        long comeco = System.nanoTime();
+        int linhasDia = 0;
+        int linhasProduto = 0;
+        travaGravacao.lock();
+        try {
+            for (LocalDate de = inicio; !de.isAfter(fim); de = de.plusDays(diasPorLote)) {
+                LocalDate ate = de.plusDays(diasPorLote - 1L).isAfter(fim) ? fim : de.plusDays(diasPorLote - 1L);
+                LocalDate loteInicio = de;
+                int[] linhas = transacao.execute(s -> {
+                    vendaDiaRepository.removerPeriodo(loteInicio, ate);
+                    vendaProdutoRepository.removerPeriodo(loteInicio, ate);
+                    LocalDateTime desde = loteInicio.atStartOfDay();
+                    LocalDateTime antes = ate.plusDays(1).atStartOfDay();
+                    return new int[] {
+                        vendaDiaRepository.reconstruirPeriodo(desde, antes),
+                        vendaProdutoRepository.reconstruirPeriodo(desde, antes)
+                    };
+                });
+                linhasDia += linhas[0];
+                linhasProduto += linhas[1];
+            }
+            reconstrucoes.increment();
+        } finally {
+            travaGravacao.unlock();
+        }
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("inicio", inicio);
+        resultado.put("fim", fim);
+        resultado.put("linhasDia", linhasDia);
+        resultado.put("linhasProduto", linhasProduto);
+        resultado.put("tempoMs", (System.nanoTime() - comeco) / 1_000_000);
+        log.info("Rollups de vendas reconstruídos: {}", resultado);
+        return resultado;
+    }
+
+    /** Reconstrói do primeiro ao último dia com pedidos. */
+    public Map<String, Object> reconstruirTudo() {
+        LocalDateTime primeiro = pedidoRepository.findPrimeiraDataPedido();
+        LocalDateTime ultimo = pedidoRepository.findUltimaDataPedido();
+        if (primeiro == null || ultimo == null) {
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("linhasDia", 0);
+            resultado.put("linhasProduto", 0);
+            return resultado;
+        }
+        return reconstruir(primeiro.toLocalDate(), ultimo.toLocalDate());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillInicial() {
+        try {
+            if (vendaDiaRepository.count() == 0 && pedidoRepository.count() > 0) {
+                log.info("Rollups de vendas vazios: reconstruindo a partir dos pedidos");
+                reconstruirTudo();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Backfill dos rollups de vendas falhou: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Resumo do período: totais (vendas = pedidos não cancelados), quantidade e valor por status
+     * e a série diária.
+     */
+    public Map<String, Object> resumoVendas(LocalDate inicio, LocalDate fim) {
+        Map<StatusPedido, long[]> pedidosPorStatus = new EnumMap<>(StatusPedido.class);
+        Map<StatusPedido, BigDecimal> valorPorStatus = new EnumMap<>(StatusPedido.class);
+        Map<LocalDate, Map<String, Object>> porDia = new LinkedHashMap<>();
+        long totalPedidos = 0;
+        long pedidosCancelados = 0;
+        BigDecimal totalVendas = BigDecimal.ZERO;
+        for (VendaDia linha : vendaDiaRepository.listarPeriodo(inicio, fim)) {
+            if (linha.getPedidos() == 0 && linha.getValorTotal().signum() == 0) continue;
+            StatusPedido status = linha.getStatus();
+            pedidosPorStatus.computeIfAbsent(status, s -> new long[1])[0] += linha.getPedidos();
+            valorPorStatus.merge(status, linha.getValorTotal(), BigDecimal::add);
+            totalPedidos += linha.getPedidos();
+            Map<String, Object> dia = porDia.computeIfAbsent(linha.getDia(), d -> {
+                Map<String, Object> novo = new LinkedHashMap<>();
+                novo.put("dia", d);
+                novo.put("pedidos", 0L);
+                novo.put("totalVendas", BigDecimal.ZERO);
+                novo.put("cancelados", 0L);
+                return novo;
+            });
+            if (status == StatusPedido.CANCELADO) {
+                pedidosCancelados += linha.getPedidos();
+                dia.merge("cancelados", linha.getPedidos(), (a, b) -> (Long) a + (Long) b);
+            } else {
+                totalVendas = totalVendas.add(linha.getValorTotal());
+                dia.merge("pedidos", linha.getPedidos(), (a, b) -> (Long) a + (Long) b);
+                dia.merge("totalVendas", linha.getValorTotal(), (a, b) -> ((BigDecimal) a).add((BigDecimal) b));
+            }
+        }
+        Map<String, Object> porStatus = new LinkedHashMap<>();
+        pedidosPorStatus.forEach((status, pedidos) -> {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("pedidos", pedidos[0]);
+            info.put("valorTotal", valorPorStatus.get(status));
+            porStatus.put(status.name(), info);
+        });
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("inicio", inicio);
+        resultado.put("fim", fim);
+        resultado.put("totalVendas", totalVendas);
+        resultado.put("totalPedidos", totalPedidos);
+        resultado.put("pedidosCancelados", pedidosCancelados);
+        resultado.put("porStatus", porStatus);
+        resultado.put("porDia", new ArrayList<>(porDia.values()));
+        return resultado;
+    }
+
+    /** Produtos com mais unidades vendidas no período (pedidos não cancelados). */
+    public List<Map<String, Object>> produtosMaisVendidos(LocalDate inicio, LocalDate fim, int limite) {
+        List<Map<String, Object>> produtos = new ArrayList<>();
+        for (Object[] linha : vendaProdutoRepository.listarMaisVendidos(inicio, fim, PageRequest.of(0, limite))) {
+            Map<String, Object> produto = new LinkedHashMap<>();
+            produto.put("produtoId", linha[0]);
+            produto.put("nomeProduto", linha[1]);
+            produto.put("quantidade", ((Number) linha[2]).longValue());
+            produto.put("receita", linha[3]);
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("eventosAplicados", eventosAplicados.sum());
+        info.put("linhasGravadas", linhasGravadas.sum());
+        info.put("reconstrucoes", reconstrucoes.sum());
+        return info;
+    }
+
+    private record ChaveDia(LocalDate dia, StatusPedido status) { }
+
+    private record ChaveProduto(LocalDate dia, Integer produtoId) { }
+
+    /** Quantidade (pedidos ou unidades) e valor a somar numa linha de rollup. */
+    private record Delta(String nome, long quantidade, BigDecimal valor) {
+        Delta somar(Delta outro) {
+            return new Delta(outro.nome != null ? outro.nome : nome, quantidade + outro.quantidade, valor.add(outro.valor));
+        }
+
+        boolean nulo() {
+            return quantidade == 0 && valor.signum() == 0;
+        }
+    }
+}
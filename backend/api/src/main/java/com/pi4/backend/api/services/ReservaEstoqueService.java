@@ -0,0 +1,173 @@
+package com.pi4.backend.api.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pi4.backend.api.dto.ItemPedidoResumoDto;
+import com.pi4.backend.api.entities.EventoPedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Reserva (baixa) de estoque para pedidos.
+ *
+ * Cada SKU é debitado com um UPDATE condicional ({@code qtd_estoque >= quantidade}),
+ * então dois pedidos concorrentes nunca leem o mesmo saldo e sobrescrevem um ao outro.
+ * Os UPDATEs de todos os SKUs vão num único batch JDBC e os produtos do pedido são
+ * carregados de uma vez só, depois dos débitos: o número de comandos não cresce com as linhas.
+ *
+ * O método participa da transação de quem chama: se alguma linha falhar, o chamador
+ * deve desfazer a transação para devolver o que já foi debitado.
+ *
+ * Também assina os eventos de pedido: o estoque dos pedidos cancelados volta em lote, com uma
+ * soma por SKU para o lote inteiro.
+ */
+@Service
+public class ReservaEstoqueService implements AssinanteEventosPedido {
+
+    private final ProdutoRepository produtoRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final EstatisticasProdutoService estatisticasProdutoService;
+    private final CatalogoCacheService catalogoCache;
+
+    public ReservaEstoqueService(ProdutoRepository produtoRepository,
+                                 ItemPedidoRepository itemPedidoRepository,
+                                 EstatisticasProdutoService estatisticasProdutoService,
+                                 CatalogoCacheService catalogoCache) {
+        this.produtoRepository = produtoRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.estatisticasProdutoService = estatisticasProdutoService;
+        this.catalogoCache = catalogoCache;
+    }
+
+    public enum SituacaoReserva {
+        RESERVADO,
+        PRODUTO_NAO_ENCONTRADO,
+        PRODUTO_INATIVO,
+        ESTOQUE_INSUFICIENTE
+    }
+
+    /**
+     * Debita as quantidades informadas (produtoId -> quantidade).
+     * Os SKUs são processados em ordem crescente de id para que pedidos concorrentes
+     * adquiram os locks de linha sempre na mesma ordem (evita deadlock).
+     */
+    @Transactional
+    public ResultadoReserva reservar(Map<Integer, Integer> quantidadesPorProduto) {
+        Map<Integer, Integer> ordenado = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> e : quantidadesPorProduto.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null || e.getValue() <= 0) {
+                throw new IllegalArgumentException("Item de reserva inválido: " + e.getKey());
+            }
+            ordenado.put(e.getKey(), e.getValue());
+        }
+
+        Set<Integer> debitados = produtoRepository.debitarEstoqueEmLote(ordenado);
+
+        // Carregado após os débitos: reflete o saldo já atualizado
+        Map<Integer, Produto> produtos = new HashMap<>();
+        for (Produto p : produtoRepository.findAllById(ordenado.keySet())) {
+            produtos.put(p.getId(), p);
+        }
+
+        List<ItemReserva> itens = new ArrayList<>(ordenado.size());
+        for (Map.Entry<Integer, Integer> e : ordenado.entrySet()) {
+            Produto produto = produtos.get(e.getKey());
+            SituacaoReserva situacao;
+            if (debitados.contains(e.getKey())) {
+                situacao = SituacaoReserva.RESERVADO;
+                estatisticasProdutoService.registrarMovimentoEstoque(produto, e.getValue());
+            } else if (produto == null) {
+                situacao = SituacaoReserva.PRODUTO_NAO_ENCONTRADO;
+            } else if (!Boolean.TRUE.equals(produto.getStatus())) {
+                situacao = SituacaoReserva.PRODUTO_INATIVO;
+            } else {
+                situacao = SituacaoReserva.ESTOQUE_INSUFICIENTE;
+            }
+            itens.add(new ItemReserva(e.getKey(), e.getValue(), situacao, produto));
+        }
+        return new ResultadoReserva(itens, produtos);
+    }
+
+    /** Devolve ao estoque os itens dos pedidos cancelados no lote. */
+    @Override
+    public void receber(List<EventoPedido> eventos) {
+        List<Long> cancelados = eventos.stream()
+            .filter(EventoPedido::isCancelamento)
+            .map(EventoPedido::getPedidoId)
+            .distinct()
+            .toList();
+        if (cancelados.isEmpty()) return;
+        devolver(itemPedidoRepository.listarResumosPorPedidos(cancelados).stream()
+            .collect(Collectors.groupingBy(ItemPedidoResumoDto::getProdutoId,
+                Collectors.summingInt(ItemPedidoResumoDto::getQuantidade))));
+    }
+
+    /**
+     * Soma as quantidades (produtoId -> quantidade) de volta ao estoque, num batch com um UPDATE por
+     * SKU em ordem crescente de id (mesma ordem de lock da reserva), e invalida o catálogo desses produtos.
+     */
+    @Transactional
+    public void devolver(Map<Integer, Integer> quantidadesPorProduto) {
+        Map<Integer, Integer> ordenado = new TreeMap<>(quantidadesPorProduto);
+        ordenado.values().removeIf(q -> q == null || q <= 0);
+        if (ordenado.isEmpty()) return;
+        produtoRepository.devolverEstoqueEmLote(ordenado);
+        for (Produto produto : produtoRepository.findAllById(ordenado.keySet())) {
+            estatisticasProdutoService.registrarMovimentoEstoque(produto, -ordenado.get(produto.getId()));
+        }
+        catalogoCache.invalidarProdutos(ordenado.keySet());
+    }
+
+    public static class ItemReserva {
+        private final Integer produtoId;
+        private final Integer quantidade;
+        private final SituacaoReserva situacao;
+        private final Produto produto;
+
+        public ItemReserva(Integer produtoId, Integer quantidade, SituacaoReserva situacao, Produto produto) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+            this.situacao = situacao;
+            this.produto = produto;
+        }
+
+        public Integer getProdutoId() { return produtoId; }
+        public Integer getQuantidade() { return quantidade; }
+        public SituacaoReserva getSituacao() { return situacao; }
+        public Produto getProduto() { return produto; }
+        public boolean isReservado() { return situacao == SituacaoReserva.RESERVADO; }
+    }
+
+    public static class ResultadoReserva {
+        private final List<ItemReserva> itens;
+        private final Map<Integer, Produto> produtos;
+
+        public ResultadoReserva(List<ItemReserva> itens, Map<Integer, Produto> produtos) {
+            this.itens = Collections.unmodifiableList(itens);
+            this.produtos = Collections.unmodifiableMap(produtos);
+        }
+
+        public List<ItemReserva> getItens() { return itens; }
+
+        public Produto getProduto(Integer produtoId) { return produtos.get(produtoId); }
+
+        public boolean isSucesso() {
+            return itens.stream().allMatch(ItemReserva::isReservado);
+        }
+
+        public ItemReserva getPrimeiraFalha() {
+            return itens.stream().filter(i -> !i.isReservado()).findFirst().orElse(null);
+        }
+    }
+}
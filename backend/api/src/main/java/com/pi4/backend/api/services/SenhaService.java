@@ -0,0 +1,179 @@
+package com.pi4.backend.api.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Conferência e geração de hash de senha num pool próprio e limitado.
+ *
+ * BCrypt é CPU pura: num pico de logins, rodar o hash na thread da requisição ocupa todos
+ * os núcleos e atrasa o resto da API. Aqui no máximo {@code login.hash.threads} hashes rodam
+ * ao mesmo tempo; o excedente espera numa fila de tamanho fixo e, com a fila cheia, o login
+ * é recusado na hora com {@link SobrecargaException} em vez de acumular threads bloqueadas.
+ *
+ * Hashes gerados com custo menor que o configurado ({@code login.hash.custo}) são refeitos
+ * em segundo plano após um login correto.
+ */
+@Service
+public class SenhaService {
+
+    private static final Logger log = LoggerFactory.getLogger(SenhaService.class);
+
+    public static class SobrecargaException extends RuntimeException {
+        public SobrecargaException() {
+            super("Muitas tentativas de login no momento. Tente novamente em instantes");
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int capacidadeFila;
+    private final long timeoutMs;
+    private final int custo;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder tempoHashNanos = new LongAdder();
+    private final AtomicLong tempoMaximoHashNanos = new AtomicLong();
+    private final LongAdder esperaFilaNanos = new LongAdder();
+    private final AtomicInteger filaMaxima = new AtomicInteger();
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+
+    public SenhaService(PasswordEncoder passwordEncoder,
+                        @Value("${login.hash.threads:0}") int threads,
+                        @Value("${login.hash.fila:200}") int fila,
+                        @Value("${login.hash.timeout-ms:10000}") long timeoutMs,
+                        @Value("${login.hash.custo:10}") int custo) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 = metade dos núcleos, para sempre sobrar CPU para as demais requisições
+        int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila), r -> {
+                Thread t = new Thread(r, "hash-senha-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.capacidadeFila = fila;
+        this.timeoutMs = timeoutMs;
+        this.custo = custo;
+    }
+
+    /** {@code passwordEncoder.matches} no pool de hash; bloqueia até o resultado. */
+    public boolean conferir(String senha, String hash) {
+        long enfileirado = System.nanoTime();
+        Future<Boolean> resultado = submeter(() -> {
+            esperaFilaNanos.add(System.nanoTime() - enfileirado);
+            return medir(() -> passwordEncoder.matches(senha, hash));
+        });
+        try {
+            return resultado.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            timeouts.increment();
+            throw new SobrecargaException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(true);
+            throw new SobrecargaException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Se o hash usa custo menor que o configurado, gera um novo em segundo plano e entrega a
+     * {@code gravar}. Chamar só depois de conferir a senha. Com o pool cheio, fica para o
+     * próximo login.
+     */
+    public void atualizarSeNecessario(String senha, String hash, Consumer<String> gravar) {
+        try {
+            if (hash == null || !passwordEncoder.upgradeEncoding(hash)) return;
+        } catch (IllegalArgumentException e) {
+            // Hash fora do formato esperado pelo encoder; nada a atualizar
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    gravar.accept(medir(() -> passwordEncoder.encode(senha)));
+                    rehashes.increment();
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao atualizar hash de senha", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        long total = hashes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("custo", custo);
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("emExecucao", executor.getActiveCount());
+        stats.put("fila", executor.getQueue().size());
+        stats.put("filaMaxima", filaMaxima.get());
+        stats.put("capacidadeFila", capacidadeFila);
+        stats.put("hashes", total);
+        stats.put("tempoMedioHashMs", total == 0 ? 0.0 : tempoHashNanos.sum() / (double) total / 1_000_000);
+        stats.put("tempoMaximoHashMs", tempoMaximoHashNanos.get() / 1_000_000.0);
+        stats.put("esperaMediaFilaMs", total == 0 ? 0.0 : esperaFilaNanos.sum() / (double) total / 1_000_000);
+        stats.put("rejeitadas", rejeitadas.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("rehashes", rehashes.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submeter(Callable<T> tarefa) {
+        try {
+            Future<T> futuro = executor.submit(tarefa);
+            filaMaxima.accumulateAndGet(executor.getQueue().size(), Math::max);
+            return futuro;
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            throw new SobrecargaException();
+        }
+    }
+
+    private <T> T medir(Supplier<T> hash) {
+        long inicio = System.nanoTime();
+        try {
+            return hash.get();
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            hashes.increment();
+            tempoHashNanos.add(duracao);
+            tempoMaximoHashNanos.accumulateAndGet(duracao, Math::max);
+        }
+    }
+}
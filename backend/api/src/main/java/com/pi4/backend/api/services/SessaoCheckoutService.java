@@ -0,0 +1,211 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sessões de checkout: o carrinho validado no início do checkout (cliente ativo, preço e versão
+ * de cada produto, subtotal e cotação de frete), guardado em memória por pouco tempo.
+ *
+ * O front recebe um token {@code id.assinatura} (HMAC-SHA256 de id, cliente e validade) e o
+ * devolve na criação do pedido, que resgata a sessão em vez de recarregar cliente e preços:
+ * só os produtos cuja versão mudou desde a sessão são conferidos de novo. Token adulterado,
+ * de outro cliente ou expirado é recusado.
+ *
+ * Cada sessão vira no máximo um pedido: o resgate tira a sessão do cache (duas submissões
+ * concorrentes do mesmo token não passam ambas) e ela só volta se a transação do pedido for
+ * desfeita ou terminar sem o pedido ter sido confirmado com {@link #consumir}.
+ */
+@Service
+public class SessaoCheckoutService {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    public record ItemCotado(Integer produtoId, int quantidade, BigDecimal precoUnitario, Long versaoProduto) { }
+
+    public static class Sessao {
+        private final String id;
+        private final String token;
+        private final Integer clienteId;
+        private final Map<Integer, ItemCotado> itens;
+        private final BigDecimal subtotal;
+        private final BigDecimal valorFrete;
+        private final String cotacaoFreteId;
+        private final Instant expiraEm;
+        // Só quem resgatou a sessão mexe aqui: o resgate é exclusivo
+        private volatile boolean consumida;
+
+        Sessao(String id, String token, Integer clienteId, Map<Integer, ItemCotado> itens, BigDecimal subtotal,
+               BigDecimal valorFrete, String cotacaoFreteId, Instant expiraEm) {
+            this.id = id;
+            this.token = token;
+            this.clienteId = clienteId;
+            this.itens = itens;
+            this.subtotal = subtotal;
+            this.valorFrete = valorFrete;
+            this.cotacaoFreteId = cotacaoFreteId;
+            this.expiraEm = expiraEm;
+        }
+
+        public String getToken() { return token; }
+        public Integer getClienteId() { return clienteId; }
+        public BigDecimal getSubtotal() { return subtotal; }
+        public BigDecimal getValorFrete() { return valorFrete; }
+        public String getCotacaoFreteId() { return cotacaoFreteId; }
+        public Instant getExpiraEm() { return expiraEm; }
+
+        public Collection<ItemCotado> getItens() { return itens.values(); }
+
+        public ItemCotado getItem(Integer produtoId) { return itens.get(produtoId); }
+
+        /** Quantidades por produto, no mesmo formato que o pedido agrupa as linhas. */
+        public Map<Integer, Integer> getQuantidades() {
+            Map<Integer, Integer> quantidades = new LinkedHashMap<>();
+            itens.values().forEach(i -> quantidades.put(i.produtoId(), i.quantidade()));
+            return quantidades;
+        }
+    }
+
+    private final SecretKeySpec chave;
+    private final long ttlSegundos;
+    private final CacheLru<String, Sessao> sessoes;
+
+    private final AtomicLong abertas = new AtomicLong();
+    private final AtomicLong resgates = new AtomicLong();
+    private final AtomicLong resgatesRecusados = new AtomicLong();
+    private final AtomicLong assinaturasInvalidas = new AtomicLong();
+    private final AtomicLong encerradas = new AtomicLong();
+    private final AtomicLong devolvidas = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SessaoCheckoutService(@Value("${checkout.sessao.chave:}") String chave,
+                                 @Value("${checkout.sessao.ttl-segundos:900}") long ttlSegundos,
+                                 @Value("${checkout.sessao.tamanho-maximo:10000}") int tamanhoMaximo) {
+        // Sem chave configurada basta uma por processo: as sessões também só existem na memória dele
+        byte[] bytes = chave.isBlank() ? new byte[32] : chave.getBytes(StandardCharsets.UTF_8);
+        if (chave.isBlank()) new SecureRandom().nextBytes(bytes);
+        this.chave = new SecretKeySpec(bytes, ALGORITMO);
+        this.ttlSegundos = ttlSegundos;
+        this.sessoes = new CacheLru<>(tamanhoMaximo, ttlSegundos * 1_000_000_000L, evictions);
+    }
+
+    /** Abre uma sessão para o carrinho já validado; {@code cotacaoFreteId} pode ser nulo. */
+    public Sessao abrir(Integer clienteId, List<ItemCotado> itens, BigDecimal subtotal,
+                        BigDecimal valorFrete, String cotacaoFreteId) {
+        Map<Integer, ItemCotado> porProduto = new LinkedHashMap<>();
+        for (ItemCotado item : itens) {
+            porProduto.merge(item.produtoId(), item, (a, b) -> new ItemCotado(a.produtoId(),
+                a.quantidade() + b.quantidade(), a.precoUnitario(), a.versaoProduto()));
+        }
+        String id = UUID.randomUUID().toString();
+        Instant expiraEm = Instant.now().plusSeconds(ttlSegundos);
+        String token = id + '.' + assinar(id, clienteId, expiraEm);
+        Sessao sessao = new Sessao(id, token, clienteId, Collections.unmodifiableMap(porProduto), subtotal,
+            valorFrete, cotacaoFreteId, expiraEm);
+        sessoes.put(id, sessao);
+        abertas.incrementAndGet();
+        return sessao;
+    }
+
+    /**
+     * Resgata a sessão para o pedido da transação atual, tirando-a do cache. Se a transação for
+     * desfeita, ou terminar sem {@link #consumir}, a sessão volta a valer até expirar.
+     */
+    public Optional<Sessao> resgatar(String token, Integer clienteId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Resgate de sessão de checkout fora de transação");
+        }
+        Optional<Sessao> valida = validar(token, clienteId);
+        if (valida.isEmpty()) return valida;
+        Sessao sessao = valida.get();
+        if (sessoes.retirar(sessao.id) != sessao) {
+            // Outra requisição com o mesmo token resgatou a sessão entre a leitura e a retirada
+            resgatesRecusados.incrementAndGet();
+            return Optional.empty();
+        }
+        sessao.consumida = false;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED && sessao.consumida) {
+                    encerradas.incrementAndGet();
+                } else {
+                    sessoes.put(sessao.id, sessao);
+                    devolvidas.incrementAndGet();
+                }
+            }
+        });
+        resgates.incrementAndGet();
+        return Optional.of(sessao);
+    }
+
+    /** Confere o token sem resgatar a sessão (ela continua disponível para o pedido). */
+    public Optional<Sessao> validar(String token, Integer clienteId) {
+        int ponto = token != null ? token.indexOf('.') : -1;
+        Sessao sessao = ponto > 0 ? sessoes.get(token.substring(0, ponto)) : null;
+        if (sessao == null || !Objects.equals(sessao.clienteId, clienteId) || sessao.expiraEm.isBefore(Instant.now())) {
+            resgatesRecusados.incrementAndGet();
+            return Optional.empty();
+        }
+        // Comparação em tempo constante: a assinatura não vaza byte a byte pelo tempo de resposta
+        byte[] esperada = assinar(sessao.id, clienteId, sessao.expiraEm).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(esperada, token.substring(ponto + 1).getBytes(StandardCharsets.US_ASCII))) {
+            assinaturasInvalidas.incrementAndGet();
+            resgatesRecusados.incrementAndGet();
+            return Optional.empty();
+        }
+        return Optional.of(sessao);
+    }
+
+    /** Marca a sessão resgatada como usada pelo pedido: com o commit ela não volta mais. */
+    public void consumir(Sessao sessao) {
+        sessao.consumida = true;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("abertas", abertas.get());
+        stats.put("resgates", resgates.get());
+        stats.put("resgatesRecusados", resgatesRecusados.get());
+        stats.put("assinaturasInvalidas", assinaturasInvalidas.get());
+        stats.put("encerradas", encerradas.get());
+        stats.put("devolvidas", devolvidas.get());
+        stats.put("evictions", evictions.get());
+        stats.put("sessoesEmCache", sessoes.size());
+        return stats;
+    }
+
+    private String assinar(String id, Integer clienteId, Instant expiraEm) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(chave);
+            byte[] assinatura = mac.doFinal((id + '|' + clienteId + '|' + expiraEm.getEpochSecond())
+                .getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(assinatura);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC indisponível", e);
+        }
+    }
+}
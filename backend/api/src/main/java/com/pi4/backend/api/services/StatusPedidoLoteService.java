@@ -0,0 +1,185 @@
+package com.pi4.backend.api.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.dto.SituacaoPedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.repositories.PedidoRepository;
+
+/**
+ * Mudança de status de muitos pedidos de uma vez (ex.: cancelar tudo que ficou aguardando pagamento
+ * durante uma falha do gateway).
+ *
+ * Os pedidos são processados em blocos de {@code pedido.status.bloco} ids, cada um numa transação:
+ * lê a situação do bloco, valida cada transição pela máquina de estados de {@link StatusPedido} e,
+ * para cada status anterior encontrado, faz um UPDATE condicional e um INSERT ... SELECT dos eventos
+ * na outbox. Se algum pedido mudou entre a leitura e o UPDATE o bloco é desfeito e refeito; depois de
+ * {@code MAX_TENTATIVAS} cai para o {@link StatusPedidoService}, pedido a pedido.
+ *
+ * No fim publica a outbox em lotes do tamanho do bloco, então a devolução de estoque dos cancelados
+ * (em {@link ReservaEstoqueService}) sai como um UPDATE por SKU a cada bloco, e não um por pedido.
+ */
+@Service
+public class StatusPedidoLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusPedidoLoteService.class);
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    private final PedidoRepository pedidoRepository;
+    private final EventosPedidoService eventosPedidoService;
+    private final StatusPedidoService statusPedidoService;
+    private final TransactionTemplate transacao;
+    private final int bloco;
+
+    public StatusPedidoLoteService(PedidoRepository pedidoRepository,
+                                   EventosPedidoService eventosPedidoService,
+                                   StatusPedidoService statusPedidoService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${pedido.status.bloco:500}") int bloco) {
+        this.pedidoRepository = pedidoRepository;
+        this.eventosPedidoService = eventosPedidoService;
+        this.statusPedidoService = statusPedidoService;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.bloco = Math.max(1, bloco);
+    }
+
+    /** Altera os pedidos {@code ids} (repetidos são ignorados), avisando {@code progresso} a cada bloco. */
+    public Progresso alterar(List<Long> ids, StatusPedido novo, Consumer<Progresso> progresso) {
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        Contagem contagem = new Contagem(unicos.size());
+        for (int i = 0; i < unicos.size(); i += bloco) {
+            processarBloco(unicos.subList(i, Math.min(i + bloco, unicos.size())), novo, contagem);
+            progresso.accept(contagem.progresso("progresso", 0));
+        }
+        return concluir(contagem, progresso);
+    }
+
+    /** Altera os pedidos em {@code statusAtual} feitos em [inicio, fim), avisando {@code progresso} a cada bloco. */
+    public Progresso alterarPorFiltro(StatusPedido statusAtual, LocalDateTime inicio, LocalDateTime fim,
+                                      StatusPedido novo, Consumer<Progresso> progresso) {
+        Contagem contagem = new Contagem(pedidoRepository.contarPorStatusEPeriodo(statusAtual, inicio, fim));
+        long ultimoId = 0;
+        while (true) {
+            List<Long> ids = pedidoRepository.listarIdsPorStatusEPeriodo(statusAtual, inicio, fim, ultimoId,
+                PageRequest.of(0, bloco));
+            if (ids.isEmpty()) break;
+            processarBloco(ids, novo, contagem);
+            progresso.accept(contagem.progresso("progresso", 0));
+            ultimoId = ids.get(ids.size() - 1);
+            if (ids.size() < bloco) break;
+        }
+        return concluir(contagem, progresso);
+    }
+
+    private Progresso concluir(Contagem contagem, Consumer<Progresso> progresso) {
+        int publicados = contagem.alterados > 0 ? eventosPedidoService.publicarPendentes(bloco) : 0;
+        Progresso fim = contagem.progresso("concluido", publicados);
+        progresso.accept(fim);
+        return fim;
+    }
+
+    private void processarBloco(List<Long> ids, StatusPedido novo, Contagem contagem) {
+        for (int tentativa = 1; tentativa <= MAX_TENTATIVAS; tentativa++) {
+            try {
+                contagem.somarBloco(transacao.execute(s -> tentarBloco(ids, novo)));
+                return;
+            } catch (BlocoAlteradoException e) {
+                log.debug("Bloco de {} pedidos alterado por outra operação (tentativa {})", ids.size(), tentativa);
+            }
+        }
+        for (Long id : ids) {
+            contagem.somar(statusPedidoService.alterar(id, novo).situacao());
+        }
+    }
+
+    private Contagem tentarBloco(List<Long> ids, StatusPedido novo) {
+        Contagem parcial = new Contagem(0);
+        Map<StatusPedido, List<Long>> porAnterior = new EnumMap<>(StatusPedido.class);
+        List<SituacaoPedido> situacoes = pedidoRepository.buscarSituacoes(ids);
+        parcial.naoEncontrados = ids.size() - situacoes.size();
+        for (SituacaoPedido situacao : situacoes) {
+            StatusPedido anterior = situacao.getStatus();
+            if (anterior == novo) {
+                parcial.semAlteracao++;
+            } else if (!anterior.podeMudarPara(novo)) {
+                parcial.invalidos++;
+            } else {
+                porAnterior.computeIfAbsent(anterior, a -> new ArrayList<>()).add(situacao.getId());
+            }
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        for (Map.Entry<StatusPedido, List<Long>> grupo : porAnterior.entrySet()) {
+            List<Long> grupoIds = grupo.getValue();
+            if (pedidoRepository.alterarStatusEmLote(grupoIds, grupo.getKey(), novo, agora) != grupoIds.size()) {
+                throw new BlocoAlteradoException();
+            }
+            eventosPedidoService.registrarMudancasStatus(grupoIds, grupo.getKey(), novo);
+            parcial.alterados += grupoIds.size();
+        }
+        return parcial;
+    }
+
+    // Desfaz a transação do bloco para reler a situação dos pedidos
+    private static class BlocoAlteradoException extends RuntimeException {
+        BlocoAlteradoException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static class Contagem {
+        private final long total;
+        private long processados;
+        private long alterados;
+        private long semAlteracao;
+        private long naoEncontrados;
+        private long invalidos;
+        private long conflitos;
+
+        Contagem(long total) {
+            this.total = total;
+        }
+
+        void somarBloco(Contagem bloco) {
+            alterados += bloco.alterados;
+            semAlteracao += bloco.semAlteracao;
+            naoEncontrados += bloco.naoEncontrados;
+            invalidos += bloco.invalidos;
+            processados += bloco.alterados + bloco.semAlteracao + bloco.naoEncontrados + bloco.invalidos;
+        }
+
+        void somar(StatusPedidoService.Situacao situacao) {
+            switch (situacao) {
+                case ALTERADO -> alterados++;
+                case SEM_ALTERACAO -> semAlteracao++;
+                case NAO_ENCONTRADO -> naoEncontrados++;
+                case TRANSICAO_INVALIDA -> invalidos++;
+                case CONFLITO -> conflitos++;
+            }
+            processados++;
+        }
+
+        Progresso progresso(String etapa, int eventosPublicados) {
+            // No filtro o total é uma contagem prévia; pedidos criados depois dela ainda entram
+            return new Progresso(etapa, Math.max(total, processados), processados, alterados, semAlteracao,
+                naoEncontrados, invalidos, conflitos, eventosPublicados);
+        }
+    }
+
+    public record Progresso(String etapa, long total, long processados, long alterados, long semAlteracao,
+                            long naoEncontrados, long invalidos, long conflitos, int eventosPublicados) { }
+}
@@ -0,0 +1,81 @@
+package com.pi4.backend.api.services;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.dto.SituacaoPedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.repositories.PedidoRepository;
+
+/**
+ * Mudança de status de pedido pela máquina de estados de {@link StatusPedido}.
+ *
+ * Lê só o status atual (sem carregar a entidade), valida a transição e troca com UPDATE
+ * condicional no status lido; se outra requisição mudou o status nesse meio tempo, relê e valida
+ * de novo. O evento da mudança vai para a outbox na mesma transação, e os efeitos (rollups,
+ * devolução de estoque ao cancelar) ficam com os assinantes do {@link EventosPedidoService}.
+ */
+@Service
+public class StatusPedidoService {
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    private final PedidoRepository pedidoRepository;
+    private final EventosPedidoService eventosPedidoService;
+    private final TransactionTemplate transacao;
+
+    public StatusPedidoService(PedidoRepository pedidoRepository,
+                               EventosPedidoService eventosPedidoService,
+                               PlatformTransactionManager transactionManager) {
+        this.pedidoRepository = pedidoRepository;
+        this.eventosPedidoService = eventosPedidoService;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public enum Situacao {
+        ALTERADO,
+        SEM_ALTERACAO,
+        NAO_ENCONTRADO,
+        TRANSICAO_INVALIDA,
+        CONFLITO
+    }
+
+    public Resultado alterar(Long pedidoId, StatusPedido novo) {
+        for (int tentativa = 1; tentativa <= MAX_TENTATIVAS; tentativa++) {
+            Resultado resultado = transacao.execute(s -> tentarAlterar(pedidoId, novo));
+            if (resultado != null) {
+                return resultado;
+            }
+        }
+        return new Resultado(Situacao.CONFLITO, pedidoId, null, novo, null);
+    }
+
+    // Nulo = o status mudou entre a leitura e o UPDATE; tenta de novo
+    private Resultado tentarAlterar(Long pedidoId, StatusPedido novo) {
+        Optional<SituacaoPedido> lida = pedidoRepository.buscarSituacao(pedidoId);
+        if (lida.isEmpty()) {
+            return new Resultado(Situacao.NAO_ENCONTRADO, pedidoId, null, novo, null);
+        }
+        SituacaoPedido atual = lida.get();
+        StatusPedido anterior = atual.getStatus();
+        if (anterior == novo) {
+            return new Resultado(Situacao.SEM_ALTERACAO, pedidoId, anterior, novo, null);
+        }
+        if (!anterior.podeMudarPara(novo)) {
+            return new Resultado(Situacao.TRANSICAO_INVALIDA, pedidoId, anterior, novo, null);
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        if (pedidoRepository.alterarStatus(pedidoId, anterior, novo, agora) == 0) {
+            return null;
+        }
+        eventosPedidoService.registrarMudancaStatus(atual, novo);
+        return new Resultado(Situacao.ALTERADO, pedidoId, anterior, novo, agora);
+    }
+
+    public record Resultado(Situacao situacao, Long pedidoId, StatusPedido statusAnterior,
+                            StatusPedido status, LocalDateTime dataAtualizacao) { }
+}
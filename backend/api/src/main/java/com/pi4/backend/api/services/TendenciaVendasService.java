@@ -0,0 +1,328 @@
+package com.pi4.backend.api.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+
+/**
+ * Produtos em alta ("trending"): unidades vendidas na última hora, dia ou semana, em memória.
+ *
+ * O tempo é dividido em baldes (60 de um minuto para a hora, 168 de uma hora para dia e semana)
+ * e cada balde guarda um resumo Space-Saving de {@code relatorios.trending.capacidade} contadores:
+ * um produto novo com o resumo cheio toma o lugar do menor contador e herda a contagem dele como
+ * erro máximo. A memória é fixa ((60 + 168) x capacidade contadores), qualquer que seja o número
+ * de SKUs, e todo produto com mais que 1/capacidade das unidades de um balde aparece nele.
+ *
+ * Alimentado pelos itens de cada pedido criado (após o commit) e refeito na inicialização a
+ * partir dos itens da última semana. Cancelamentos não descontam: a lista mede procura. O ranking
+ * de cada janela é recalculado no máximo a cada {@code relatorios.trending.atualizacao-ms}; a
+ * leitura devolve a lista pronta.
+ */
+@Service
+public class TendenciaVendasService {
+
+    private static final Logger log = LoggerFactory.getLogger(TendenciaVendasService.class);
+
+    private static final long MINUTO_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HORA_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int BALDES_MINUTO = 60;
+    private static final int BALDES_HORA = 168;
+    private static final int LOTE_RECONSTRUCAO = 1000;
+
+    public enum Janela {
+        HORA(60), DIA(24), SEMANA(168);
+
+        private final int baldes;
+
+        Janela(int baldes) {
+            this.baldes = baldes;
+        }
+    }
+
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final int capacidade;
+    private final long atualizacaoMs;
+
+    private Aneis aneis;
+    private final Map<Janela, Ranking> rankings = new EnumMap<>(Janela.class);
+
+    private final LongAdder unidadesRegistradas = new LongAdder();
+    private final LongAdder substituicoes = new LongAdder();
+    private final LongAdder recalculos = new LongAdder();
+
+    public TendenciaVendasService(ItemPedidoRepository itemPedidoRepository,
+                                  @Value("${relatorios.trending.capacidade:100}") int capacidade,
+                                  @Value("${relatorios.trending.atualizacao-ms:1000}") long atualizacaoMs) {
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.capacidade = Math.max(1, capacidade);
+        this.atualizacaoMs = atualizacaoMs;
+        this.aneis = new Aneis(this.capacidade);
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /** Conta os itens do pedido quando a transação atual confirmar. */
+    public void registrarAposCommit(Pedido pedido) {
+        long instante = epochMs(pedido.getDataPedido());
+        List<Object[]> itens = new ArrayList<>();
+        for (ItemPedido item : pedido.getItens()) {
+            itens.add(new Object[] { item.getProduto().getId(), item.getNomeProduto(), item.getQuantidade() });
+        }
+        Runnable registrar = () -> {
+            for (Object[] item : itens) {
+                registrar((Integer) item[0], (String) item[1], (Integer) item[2], instante);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registrar.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registrar.run();
+            }
+        });
+    }
+
+    synchronized void registrar(Integer produtoId, String nome, long quantidade, long instanteMs) {
+        aneis.registrar(produtoId, nome, quantidade, instanteMs);
+        unidadesRegistradas.add(quantidade);
+    }
+
+    /** Os {@code limite} produtos com mais unidades na janela (limite até a capacidade). */
+    public List<ProdutoTendencia> maisVendidos(Janela janela, int limite) {
+        return maisVendidos(janela, limite, System.currentTimeMillis());
+    }
+
+    List<ProdutoTendencia> maisVendidos(Janela janela, int limite, long agoraMs) {
+        Ranking ranking;
+        synchronized (this) {
+            ranking = rankings.get(janela);
+            if (ranking == null || agoraMs - ranking.calculadoEm() >= atualizacaoMs || agoraMs < ranking.calculadoEm()) {
+                ranking = new Ranking(aneis.ranking(janela, agoraMs), agoraMs);
+                rankings.put(janela, ranking);
+                recalculos.increment();
+            }
+        }
+        List<ProdutoTendencia> produtos = ranking.produtos();
+        return produtos.size() <= limite ? produtos : produtos.subList(0, limite);
+    }
+
+    /** Refaz os resumos a partir dos itens dos pedidos da última semana. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        long agora = System.currentTimeMillis();
+        LocalDateTime desde = LocalDateTime.now().minusHours(BALDES_HORA);
+        Aneis novos = new Aneis(capacidade);
+        long itens = 0;
+        try {
+            Long ultimoId = 0L;
+            List<Object[]> lote;
+            while (!(lote = itemPedidoRepository.listarVendasDesde(desde, ultimoId,
+                    PageRequest.of(0, LOTE_RECONSTRUCAO))).isEmpty()) {
+                for (Object[] linha : lote) {
+                    ultimoId = (Long) linha[0];
+                    long instante = epochMs((LocalDateTime) linha[4]);
+                    if (instante <= agora) {
+                        novos.registrar((Integer) linha[1], (String) linha[2], ((Number) linha[3]).longValue(), instante);
+                        itens++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconstruir os produtos em alta: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            // Pedidos confirmados durante a leitura podem ficar de fora até a próxima reconstrução
+            aneis = novos;
+            rankings.clear();
+        }
+        log.info("Produtos em alta reconstruídos com {} itens em {} ms", itens,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    public synchronized Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("capacidade", capacidade);
+        info.put("contadores", aneis.contadores());
+        info.put("contadoresMaximo", (long) (BALDES_MINUTO + BALDES_HORA) * capacidade);
+        info.put("unidadesRegistradas", unidadesRegistradas.sum());
+        info.put("substituicoes", substituicoes.sum());
+        info.put("recalculos", recalculos.sum());
+        return info;
+    }
+
+    private static long epochMs(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Produto na janela: unidades estimadas (nunca abaixo do real dentro do resumo) e o erro máximo. */
+    public record ProdutoTendencia(Integer produtoId, String nomeProduto, long quantidade, long erroMaximo) { }
+
+    private record Ranking(List<ProdutoTendencia> produtos, long calculadoEm) { }
+
+    /** Os dois anéis de baldes: por minuto (janela de uma hora) e por hora (dia e semana). */
+    private final class Aneis {
+        private final Anel minutos;
+        private final Anel horas;
+
+        Aneis(int capacidade) {
+            this.minutos = new Anel(MINUTO_MS, BALDES_MINUTO, capacidade);
+            this.horas = new Anel(HORA_MS, BALDES_HORA, capacidade);
+        }
+
+        void registrar(Integer produtoId, String nome, long quantidade, long instanteMs) {
+            minutos.registrar(produtoId, nome, quantidade, instanteMs);
+            horas.registrar(produtoId, nome, quantidade, instanteMs);
+        }
+
+        List<ProdutoTendencia> ranking(Janela janela, long agoraMs) {
+            Map<Integer, long[]> totais = new HashMap<>();
+            Map<Integer, String> nomes = new HashMap<>();
+            (janela == Janela.HORA ? minutos : horas).somar(janela.baldes, agoraMs, totais, nomes);
+            List<ProdutoTendencia> produtos = new ArrayList<>(totais.size());
+            totais.forEach((id, total) -> produtos.add(new ProdutoTendencia(id, nomes.get(id), total[0], total[1])));
+            produtos.sort(Comparator.comparingLong(ProdutoTendencia::quantidade).reversed()
+                .thenComparing(ProdutoTendencia::produtoId));
+            return List.copyOf(produtos.size() > capacidade ? produtos.subList(0, capacidade) : produtos);
+        }
+
+        int contadores() {
+            return minutos.contadores() + horas.contadores();
+        }
+    }
+
+    /** Baldes de largura fixa reaproveitados em círculo; o índice do balde é instante / largura. */
+    private final class Anel {
+        private final long larguraMs;
+        private final long[] indices;
+        private final EspacoEconomico[] resumos;
+
+        Anel(long larguraMs, int baldes, int capacidade) {
+            this.larguraMs = larguraMs;
+            this.indices = new long[baldes];
+            this.resumos = new EspacoEconomico[baldes];
+            for (int i = 0; i < baldes; i++) {
+                indices[i] = -1;
+                resumos[i] = new EspacoEconomico(capacidade);
+            }
+        }
+
+        void registrar(Integer produtoId, String nome, long quantidade, long instanteMs) {
+            long indice = instanteMs / larguraMs;
+            int posicao = (int) Math.floorMod(indice, (long) indices.length);
+            if (indices[posicao] > indice) {
+                return; // Mais antigo que a janela guardada nesta posição
+            }
+            if (indices[posicao] < indice) {
+                indices[posicao] = indice;
+                resumos[posicao].limpar();
+            }
+            resumos[posicao].somar(produtoId, nome, quantidade);
+        }
+
+        void somar(int baldes, long agoraMs, Map<Integer, long[]> totais, Map<Integer, String> nomes) {
+            long atual = agoraMs / larguraMs;
+            for (long indice = atual; indice > atual - baldes; indice--) {
+                int posicao = (int) Math.floorMod(indice, (long) indices.length);
+                if (indices[posicao] == indice) {
+                    resumos[posicao].somarEm(totais, nomes);
+                }
+            }
+        }
+
+        int contadores() {
+            int total = 0;
+            for (EspacoEconomico resumo : resumos) {
+                total += resumo.contadores.size();
+            }
+            return total;
+        }
+    }
+
+    /** Resumo Space-Saving ponderado (unidades) com no máximo {@code capacidade} contadores. */
+    private final class EspacoEconomico {
+        private final int capacidade;
+        private final Map<Integer, Contador> contadores = new HashMap<>();
+
+        EspacoEconomico(int capacidade) {
+            this.capacidade = capacidade;
+        }
+
+        void somar(Integer produtoId, String nome, long quantidade) {
+            Contador contador = contadores.get(produtoId);
+            if (contador != null) {
+                contador.contagem += quantidade;
+                contador.nome = nome;
+                return;
+            }
+            if (contadores.size() < capacidade) {
+                contadores.put(produtoId, new Contador(nome, quantidade, 0));
+                return;
+            }
+            Integer menor = null;
+            long menorContagem = Long.MAX_VALUE;
+            for (Map.Entry<Integer, Contador> e : contadores.entrySet()) {
+                if (e.getValue().contagem < menorContagem) {
+                    menor = e.getKey();
+                    menorContagem = e.getValue().contagem;
+                }
+            }
+            contadores.remove(menor);
+            contadores.put(produtoId, new Contador(nome, menorContagem + quantidade, menorContagem));
+            substituicoes.increment();
+        }
+
+        void somarEm(Map<Integer, long[]> totais, Map<Integer, String> nomes) {
+            contadores.forEach((id, contador) -> {
+                long[] total = totais.computeIfAbsent(id, k -> new long[2]);
+                total[0] += contador.contagem;
+                total[1] += contador.erro;
+                nomes.putIfAbsent(id, contador.nome);
+            });
+        }
+
+        void limpar() {
+            contadores.clear();
+        }
+    }
+
+    private static final class Contador {
+        private String nome;
+        private long contagem;
+        private final long erro;
+
+        Contador(String nome, long contagem, long erro) {
+            this.nome = nome;
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.pi4.backend.api.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.entities.ProdutoImagem.StatusVariantes;
+import com.pi4.backend.api.repositories.ProdutoImagemRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gera as variantes redimensionadas de cada imagem de produto num pool próprio, fora da
+ * requisição de upload.
+ *
+ * Três larguras: miniatura (carrinho, resumo do checkout), listagem (cards) e zoom (página do
+ * produto). A variante fica ao lado do original como {@code <nome>-<largura>.jpg} (ou .png se a
+ * imagem tem transparência); se o original já é mais estreito que a variante, ela aponta para o
+ * próprio original. O resultado vai para as colunas de variante de {@code ProdutoImagem}.
+ *
+ * Antes de decodificar, as dimensões são lidas do cabeçalho: acima de
+ * {@code imagem.variantes.max-megapixels} a imagem vai para FALHA sem ser carregada, e originais
+ * com mais do dobro da largura do zoom são decodificados já subamostrados.
+ *
+ * Com a fila cheia a imagem continua PENDENTE e é reprocessada na próxima inicialização.
+ */
+@Service
+public class VarianteImagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(VarianteImagemService.class);
+
+    private final ProdutoImagemRepository imagemRepository;
+    private final ImagemStorageService storageService;
+    private final CatalogoCacheService catalogoCache;
+    private final TransactionTemplate transacao;
+    private final ThreadPoolExecutor executor;
+    private final int larguraMiniatura;
+    private final int larguraListagem;
+    private final int larguraZoom;
+    private final float qualidadeJpeg;
+    private final long maxPixels;
+
+    private final LongAdder geradas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder tempoNanos = new LongAdder();
+
+    public VarianteImagemService(ProdutoImagemRepository imagemRepository,
+                                 ImagemStorageService storageService,
+                                 CatalogoCacheService catalogoCache,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${imagem.variantes.threads:1}") int threads,
+                                 @Value("${imagem.variantes.fila:500}") int fila,
+                                 @Value("${imagem.variantes.miniatura:160}") int larguraMiniatura,
+                                 @Value("${imagem.variantes.listagem:480}") int larguraListagem,
+                                 @Value("${imagem.variantes.zoom:1200}") int larguraZoom,
+                                 @Value("${imagem.variantes.qualidade-jpeg:0.85}") float qualidadeJpeg,
+                                 @Value("${imagem.variantes.max-megapixels:40}") int maxMegapixels) {
+        this.imagemRepository = imagemRepository;
+        this.storageService = storageService;
+        this.catalogoCache = catalogoCache;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila), r -> {
+                Thread t = new Thread(r, "variantes-imagem-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.larguraMiniatura = larguraMiniatura;
+        this.larguraListagem = larguraListagem;
+        this.larguraZoom = larguraZoom;
+        this.qualidadeJpeg = qualidadeJpeg;
+        this.maxPixels = maxMegapixels * 1_000_000L;
+    }
+
+    /** Agenda a geração para depois do commit da transação atual (ou já, se não houver). */
+    public void agendarAposCommit(Long imagemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            agendar(imagemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                agendar(imagemId);
+            }
+        });
+    }
+
+    public void agendar(Long imagemId) {
+        try {
+            executor.execute(() -> gerar(imagemId));
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            log.warn("Fila de variantes cheia; imagem {} fica pendente", imagemId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reprocessarPendentes() {
+        List<Long> pendentes = imagemRepository.listarIdsPorStatusVariantes(StatusVariantes.PENDENTE);
+        if (!pendentes.isEmpty()) {
+            log.info("Reprocessando variantes de {} imagens pendentes", pendentes.size());
+            pendentes.forEach(this::agendar);
+        }
+    }
+
+    void gerar(Long imagemId) {
+        long inicio = System.nanoTime();
+        Origem origem = transacao.execute(s -> imagemRepository.findById(imagemId)
+            .filter(i -> i.getStatusVariantes() != StatusVariantes.PRONTAS)
+            .map(i -> new Origem(i.getProduto().getId(), i.getDiretorio(), i.getNomeArquivo()))
+            .orElse(null));
+        if (origem == null) return;
+        try {
+            Path original = storageService.resolver(origem.diretorio(), origem.nomeArquivo());
+            BufferedImage fonte = ler(original, maxPixels, larguraZoom);
+            String miniatura = gerarVariante(fonte, original, larguraMiniatura);
+            String listagem = gerarVariante(fonte, original, larguraListagem);
+            String zoom = gerarVariante(fonte, original, larguraZoom);
+            transacao.executeWithoutResult(s ->
+                imagemRepository.registrarVariantes(imagemId, StatusVariantes.PRONTAS, miniatura, listagem, zoom));
+            geradas.increment();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao gerar variantes da imagem {}: {}", imagemId, e.getMessage());
+            transacao.executeWithoutResult(s ->
+                imagemRepository.registrarVariantes(imagemId, StatusVariantes.FALHA, null, null, null));
+            falhas.increment();
+        } finally {
+            tempoNanos.add(System.nanoTime() - inicio);
+        }
+        catalogoCache.invalidarProduto(origem.produtoId());
+    }
+
+    private record Origem(Integer produtoId, String diretorio, String nomeArquivo) { }
+
+    /**
+     * Decodifica a imagem recusando as que passam de {@code maxPixels}. Quando o original tem mais
+     * do que o dobro de {@code larguraMaxima}, lê só uma a cada N linhas e colunas, mantendo pelo
+     * menos o dobro da largura para o redimensionamento em etapas.
+     */
+    static BufferedImage ler(Path arquivo, long maxPixels, int larguraMaxima) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(arquivo.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Formato de imagem não suportado: " + arquivo.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int largura = reader.getWidth(0);
+                int altura = reader.getHeight(0);
+                if ((long) largura * altura > maxPixels) {
+                    throw new IOException(String.format("Imagem de %dx%d acima do limite de %d megapixels",
+                        largura, altura, maxPixels / 1_000_000));
+                }
+                ImageReadParam parametros = reader.getDefaultReadParam();
+                int fator = largura / (2 * larguraMaxima);
+                if (fator > 1) {
+                    parametros.setSourceSubsampling(fator, fator, 0, 0);
+                }
+                return reader.read(0, parametros);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Grava a variante e devolve o nome do arquivo (o próprio original se já for estreito o bastante). */
+    private String gerarVariante(BufferedImage fonte, Path original, int largura) throws IOException {
+        String nomeOriginal = original.getFileName().toString();
+        if (fonte.getWidth() <= largura) {
+            return nomeOriginal;
+        }
+        boolean transparente = fonte.getColorModel().hasAlpha();
+        int ponto = nomeOriginal.lastIndexOf('.');
+        String base = ponto > 0 ? nomeOriginal.substring(0, ponto) : nomeOriginal;
+        String nome = base + "-" + largura + (transparente ? ".png" : ".jpg");
+        Path destino = original.resolveSibling(nome);
+        if (Files.exists(destino)) {
+            // Mesmo conteúdo (nome pelo hash) já processado antes
+            return nome;
+        }
+        int altura = Math.max(1, (int) Math.round((double) fonte.getHeight() * largura / fonte.getWidth()));
+        BufferedImage reduzida = redimensionar(fonte, largura, altura, transparente);
+        Path temporario = Files.createTempFile(original.getParent(), "variante-", ".tmp");
+        try {
+            if (transparente) {
+                ImageIO.write(reduzida, "png", temporario.toFile());
+            } else {
+                escreverJpeg(reduzida, temporario);
+            }
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+        return nome;
+    }
+
+    /**
+     * Reduz pela metade (bilinear) até ficar a menos de 2x do alvo e faz o passo final; evita o
+     * serrilhado de uma redução grande num passo só sem o custo do filtro bicúbico.
+     */
+    static BufferedImage redimensionar(BufferedImage fonte, int largura, int altura, boolean transparente) {
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage atual = fonte;
+        int w = fonte.getWidth();
+        int h = fonte.getHeight();
+        do {
+            w = Math.max(largura, w / 2);
+            h = Math.max(altura, h / 2);
+            BufferedImage passo = new BufferedImage(w, h, tipo);
+            Graphics2D g = passo.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!transparente) {
+                    // JPEG sem alfa: fundo branco para PNG/GIF sem transparência real
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(atual, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            atual = passo;
+        } while (w != largura || h != altura);
+        return atual;
+    }
+
+    private void escreverJpeg(BufferedImage imagem, Path destino) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("Sem codificador JPEG");
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam parametros = writer.getDefaultWriteParam();
+        parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parametros.setCompressionQuality(qualidadeJpeg);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(destino.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(imagem, null, null), parametros);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        long total = geradas.sum() + falhas.sum();
+        info.put("geradas", geradas.sum());
+        info.put("falhas", falhas.sum());
+        info.put("rejeitadasFilaCheia", rejeitadas.sum());
+        info.put("naFila", executor.getQueue().size());
+        info.put("emAndamento", executor.getActiveCount());
+        info.put("tempoMedioMs", total == 0 ? 0.0 : tempoNanos.sum() / 1_000_000.0 / total);
+        info.put("larguras", Map.of("miniatura", larguraMiniatura, "listagem", larguraListagem, "zoom", larguraZoom));
+        return info;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -26,18 +26,89 @@ create table if not exists tb_produto (
     preco decimal(10,2) not null,
     qtd_estoque int not null default 0,
     status boolean not null default true,
-    data_criacao timestamp default current_timestamp
+    data_criacao timestamp default current_timestamp,
+    versao bigint not null default 0,
+    index idx_produto_data_criacao (data_criacao, id_produto)
 );
 
+-- Versão do produto (sessão de checkout) em bancos criados antes dela; mesma checagem no
+-- information_schema usada para as colunas de tb_produto_imagem abaixo
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto' and column_name = 'versao') = 0,
+    'alter table tb_produto add column versao bigint not null default 0', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+-- Índice da paginação por cursor (data_criacao, id_produto) em bancos que já tinham tb_produto
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database()
+    and table_name = 'tb_produto' and index_name = 'idx_produto_data_criacao') = 0,
+    'create index idx_produto_data_criacao on tb_produto (data_criacao, id_produto)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
 create table if not exists tb_produto_imagem (
     id_imagem int primary key auto_increment,
     id_produto int not null,
     nome_arquivo varchar(255) not null,
     diretorio varchar(255) not null,
     imagem_principal boolean not null default false,
+    hash_conteudo char(64),
+    tamanho_bytes bigint,
+    status_variantes varchar(20),
+    arquivo_miniatura varchar(255),
+    arquivo_listagem varchar(255),
+    arquivo_zoom varchar(255),
+    index idx_produto_imagem_hash (id_produto, hash_conteudo),
     foreign key (id_produto) references tb_produto(id_produto)
 );
 
+-- Bancos criados antes das variantes de imagem: "create table if not exists" não mexe em tabela
+-- existente e o MySQL não tem "add column if not exists", então cada coluna (e o índice) só é
+-- adicionada se ainda faltar no information_schema
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'hash_conteudo') = 0,
+    'alter table tb_produto_imagem add column hash_conteudo char(64)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'tamanho_bytes') = 0,
+    'alter table tb_produto_imagem add column tamanho_bytes bigint', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'status_variantes') = 0,
+    'alter table tb_produto_imagem add column status_variantes varchar(20)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'arquivo_miniatura') = 0,
+    'alter table tb_produto_imagem add column arquivo_miniatura varchar(255)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'arquivo_listagem') = 0,
+    'alter table tb_produto_imagem add column arquivo_listagem varchar(255)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_produto_imagem' and column_name = 'arquivo_zoom') = 0,
+    'alter table tb_produto_imagem add column arquivo_zoom varchar(255)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database()
+    and table_name = 'tb_produto_imagem' and index_name = 'idx_produto_imagem_hash') = 0,
+    'create index idx_produto_imagem_hash on tb_produto_imagem (id_produto, hash_conteudo)', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
 create table if not exists tb_cliente (
     id_cliente int primary key auto_increment,
     nome varchar(150) not null,
@@ -157,7 +228,7 @@ drop table if exists tb_item_pedido;
 drop table if exists tb_pedido;
 
 create table tb_pedido (
-    id_pedido bigint primary key auto_increment,
+    id_pedido bigint primary key,
     id_cliente int not null,
     numero_pedido varchar(50) not null unique,
     data_pedido timestamp default current_timestamp,
@@ -173,16 +244,29 @@ create table tb_pedido (
     endereco_entrega_cidade varchar(100) not null,
     endereco_entrega_uf varchar(2) not null,
     observacoes text,
+    chave_idempotencia varchar(100),
     data_atualizacao timestamp default current_timestamp on update current_timestamp,
     foreign key (id_cliente) references tb_cliente(id_cliente),
+    unique key uk_pedido_cliente_chave (id_cliente, chave_idempotencia),
     index idx_cliente_data (id_cliente, data_pedido),
     index idx_status (status),
-    index idx_numero_pedido (numero_pedido)
+    index idx_numero_pedido (numero_pedido),
+    index idx_data_pedido (data_pedido, id_pedido),
+    index idx_status_data_pedido (status, data_pedido, id_pedido)
 );
 
+-- Sequências de id de pedido e item (o MySQL não tem SEQUENCE: o Hibernate usa uma tabela de uma
+-- linha e reserva blocos de ids do tamanho do allocationSize da entidade, sem ida ao banco por INSERT)
+drop table if exists seq_pedido;
+drop table if exists seq_item_pedido;
+create table seq_pedido (next_val bigint not null);
+create table seq_item_pedido (next_val bigint not null);
+insert into seq_pedido values (1);
+insert into seq_item_pedido values (1);
+
 -- Tabela para itens dos pedidos
 create table tb_item_pedido (
-    id_item_pedido bigint primary key auto_increment,
+    id_item_pedido bigint primary key,
     id_pedido bigint not null,
     id_produto int not null,
     quantidade int not null check (quantidade > 0),
@@ -195,3 +279,60 @@ create table tb_item_pedido (
     index idx_pedido (id_pedido),
     index idx_produto (id_produto)
 );
+
+-- Outbox de eventos de pedido (EventosPedidoService). Nunca recriada na subida: eventos ainda
+-- pendentes precisam sobreviver a um restart para serem entregues
+create table if not exists tb_evento_pedido (
+    id_evento bigint primary key auto_increment,
+    id_pedido bigint not null,
+    tipo varchar(30) not null,
+    status_anterior varchar(30),
+    status_novo varchar(30) not null,
+    data_pedido timestamp not null,
+    valor_total decimal(10,2) not null,
+    data_criacao timestamp not null default current_timestamp,
+    publicado_em timestamp null,
+    tentativas int not null default 0,
+    erro varchar(500),
+    proxima_tentativa timestamp null,
+    index idx_evento_publicado (publicado_em, id_evento)
+);
+
+-- Outbox criada antes do backoff por evento
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+    and table_name = 'tb_evento_pedido' and column_name = 'proxima_tentativa') = 0,
+    'alter table tb_evento_pedido add column proxima_tentativa timestamp null', 'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+-- Assinantes que já processaram um evento ainda pendente (apagadas quando o evento é publicado)
+create table if not exists tb_evento_pedido_entrega (
+    id_evento bigint not null,
+    assinante varchar(100) not null,
+    entregue_em timestamp not null,
+    primary key (id_evento, assinante),
+    foreign key (id_evento) references tb_evento_pedido(id_evento) on delete cascade
+);
+
+-- Rollups diários de vendas (mantidos pelo RelatorioVendasService; reconstruídos em POST /api/relatorios/vendas/reconstruir).
+-- Recriados junto com tb_pedido para não guardar totais de pedidos que não existem mais
+drop table if exists tb_venda_produto_dia;
+drop table if exists tb_venda_dia;
+
+create table tb_venda_dia (
+    dia date not null,
+    status varchar(30) not null,
+    pedidos bigint not null,
+    valor_total decimal(14,2) not null,
+    primary key (dia, status)
+);
+
+create table tb_venda_produto_dia (
+    dia date not null,
+    id_produto int not null,
+    nome_produto varchar(200) not null,
+    quantidade bigint not null,
+    receita decimal(14,2) not null,
+    primary key (dia, id_produto)
+);
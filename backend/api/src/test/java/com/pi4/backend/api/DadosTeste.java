@@ -0,0 +1,58 @@
+package com.pi4.backend.api;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+/**
+ * Clientes e produtos gravados pelos testes de integração. CPF e e-mail levam um sufixo
+ * aleatório: os testes de uma mesma classe compartilham o banco.
+ */
+public final class DadosTeste {
+
+    private static final BigDecimal PRECO_PADRAO = new BigDecimal("10.00");
+
+    private DadosTeste() {
+    }
+
+    public static Cliente cliente(ClienteRepository repository, String nome) {
+        return cliente(repository, nome, "hash");
+    }
+
+    public static Cliente cliente(ClienteRepository repository, String nome, String senha) {
+        String sufixo = UUID.randomUUID().toString().substring(0, 8);
+        Cliente cliente = new Cliente();
+        cliente.setNome(nome);
+        cliente.setCpf(sufixo);
+        cliente.setEmail("cliente-" + sufixo + "@teste.com");
+        cliente.setSenha(senha);
+        cliente.setDataNascimento(LocalDate.of(1990, 1, 1));
+        cliente.setGenero(Cliente.Genero.OUTRO);
+        cliente.setStatus(true);
+        return repository.save(cliente);
+    }
+
+    public static Produto produto(ProdutoRepository repository, String nome, int estoque) {
+        return produto(repository, nome, PRECO_PADRAO, estoque);
+    }
+
+    public static Produto produto(ProdutoRepository repository, String nome, BigDecimal preco, int estoque) {
+        Produto produto = new Produto();
+        produto.setNome(nome);
+        produto.setDescricao("Produto de teste");
+        produto.setPreco(preco);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setStatus(true);
+        return repository.save(produto);
+    }
+
+    /** Sufixo curto para nomes que precisam ser únicos entre execuções no mesmo banco. */
+    public static String sufixo() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,217 @@
+package com.pi4.backend.api.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+
+@DisplayName("Testes do log assíncrono e da amostragem")
+class AnelAssincronoAppenderTest {
+
+    @Test
+    @DisplayName("Eventos de várias threads devem chegar todos, em ordem por thread e com o MDC de quem logou")
+    void deveEntregarEventosConcorrentes() throws Exception {
+        // Arrange
+        LoggerContext contexto = novoContexto();
+        ListAppender<ILoggingEvent> lista = iniciar(new ListAppender<>(), contexto);
+        AnelAssincronoAppender anel = new AnelAssincronoAppender();
+        anel.setCapacidade(1 << 16);
+        anel.addAppender(lista);
+        Logger logger = logger(contexto, "teste", Level.INFO, iniciar(anel, contexto));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            String requisicao = "req-" + t;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                MDC.put(FiltroCorrelacao.CHAVE_MDC, requisicao);
+                for (int i = 0; i < 1000; i++) {
+                    logger.info("evento {}", i);
+                }
+                MDC.clear();
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        anel.stop();
+
+        // Assert
+        assertEquals(8000, lista.list.size());
+        assertEquals(0, anel.getDescartados());
+        Map<String, Integer> proximoPorRequisicao = new HashMap<>();
+        for (ILoggingEvent evento : lista.list) {
+            String requisicao = evento.getMDCPropertyMap().get(FiltroCorrelacao.CHAVE_MDC);
+            int esperado = proximoPorRequisicao.getOrDefault(requisicao, 0);
+            assertEquals("evento " + esperado, evento.getFormattedMessage());
+            proximoPorRequisicao.put(requisicao, esperado + 1);
+        }
+        assertEquals(8, proximoPorRequisicao.size());
+    }
+
+    @Test
+    @DisplayName("Com a fila cheia o evento deve ser descartado sem bloquear e o descarte avisado depois")
+    void deveDescartarComFilaCheia() throws Exception {
+        // Arrange: o appender anexado fica parado até o teste liberar
+        LoggerContext contexto = novoContexto();
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> mensagens = new ArrayList<>();
+        AppenderBase<ILoggingEvent> lento = iniciar(new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent evento) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                mensagens.add(evento.getFormattedMessage());
+            }
+        }, contexto);
+        AnelAssincronoAppender anel = new AnelAssincronoAppender();
+        anel.setCapacidade(4);
+        anel.addAppender(lento);
+        Logger logger = logger(contexto, "teste", Level.INFO, iniciar(anel, contexto));
+
+        // Act
+        long inicio = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            logger.info("evento {}", i);
+        }
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        liberar.countDown();
+        anel.stop();
+
+        // Assert
+        assertTrue(duracaoMs < 1000, "quem loga não pode esperar pelo appender lento: " + duracaoMs + " ms");
+        assertTrue(anel.getDescartados() >= 100 - 5, "no máximo 4 na fila e 1 sendo gravado");
+        assertTrue(mensagens.get(mensagens.size() - 1).contains("eventos de log descartados"));
+    }
+
+    @Test
+    @DisplayName("Com a fila cheia de INFO, WARN e ERROR devem usar a reserva e esperar por espaço em vez de serem descartados")
+    void deveGuardarAvisosComFilaCheia() throws Exception {
+        // Arrange: o appender anexado fica parado no primeiro evento até o teste liberar
+        LoggerContext contexto = novoContexto();
+        CountDownLatch gravando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> mensagens = Collections.synchronizedList(new ArrayList<>());
+        AppenderBase<ILoggingEvent> lento = iniciar(new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent evento) {
+                gravando.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                mensagens.add(evento.getFormattedMessage());
+            }
+        }, contexto);
+        AnelAssincronoAppender anel = new AnelAssincronoAppender();
+        anel.setCapacidade(8);
+        anel.setReservaAvisos(2);
+        anel.setEsperaAvisosMs(10_000);
+        anel.addAppender(lento);
+        Logger logger = logger(contexto, "teste", Level.INFO, iniciar(anel, contexto));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        logger.info("primeiro");
+        assertTrue(gravando.await(10, TimeUnit.SECONDS));
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            logger.info("info {}", i);
+        }
+        logger.warn("aviso na reserva");
+        logger.error("erro na reserva");
+        Future<?> esperando = executor.submit(() -> logger.error("erro com o anel cheio"));
+        Thread.sleep(200);
+        boolean esperou = !esperando.isDone();
+        liberar.countDown();
+        esperando.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        anel.stop();
+
+        // Assert: 8 posições, 2 reservadas; as 6 livres ficam com os primeiros INFO
+        assertTrue(esperou, "ERROR com o anel cheio deve esperar por espaço");
+        assertEquals(100 - 6, anel.getDescartados());
+        assertTrue(mensagens.containsAll(List.of("aviso na reserva", "erro na reserva", "erro com o anel cheio")));
+    }
+
+    @Test
+    @DisplayName("Amostragem deve cortar só DEBUG dos loggers configurados, na taxa pedida")
+    void deveAmostrarDebug() {
+        // Arrange
+        LoggerContext contexto = novoContexto();
+        AmostragemLogTurboFilter amostragem = new AmostragemLogTurboFilter();
+        amostragem.addPrefixo("org.hibernate.SQL");
+        amostragem.setTaxa(0.1);
+        amostragem.start();
+        contexto.addTurboFilter(amostragem);
+        ListAppender<ILoggingEvent> lista = iniciar(new ListAppender<>(), contexto);
+        Logger sql = logger(contexto, "org.hibernate.SQL", Level.DEBUG, lista);
+        Logger outro = logger(contexto, "com.exemplo", Level.DEBUG, lista);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            sql.debug("select {}", i);
+        }
+        int sqlAmostrado = lista.list.size();
+        for (int i = 0; i < 100; i++) {
+            sql.info("info {}", i);
+            outro.debug("debug {}", i);
+        }
+
+        // Assert
+        assertTrue(sqlAmostrado > 800 && sqlAmostrado < 1200, "10% de 10000, obtido " + sqlAmostrado);
+        assertTrue(sql.isDebugEnabled());
+        assertEquals(sqlAmostrado + 200, lista.list.size());
+    }
+
+    private static LoggerContext novoContexto() {
+        LoggerContext contexto = new LoggerContext();
+        contexto.setMDCAdapter(MDC.getMDCAdapter());
+        return contexto;
+    }
+
+    private static <A extends Appender<ILoggingEvent>> A iniciar(A appender, LoggerContext contexto) {
+        appender.setContext(contexto);
+        appender.setName(appender.getClass().getSimpleName());
+        appender.start();
+        return appender;
+    }
+
+    private static Logger logger(LoggerContext contexto, String nome, Level nivel,
+                                 Appender<ILoggingEvent> appender) {
+        Logger logger = contexto.getLogger(nome);
+        logger.setLevel(nivel);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
@@ -0,0 +1,27 @@
+package com.pi4.backend.api.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testes da verificação do modo de threads virtuais na subida")
+class ThreadsVirtuaisConfigTest {
+
+    @Test
+    @DisplayName("Threads virtuais pedidas em JVM anterior ao Java 21 devem impedir a subida")
+    void deveRecusarThreadsVirtuaisAntesDoJava21() {
+        // Arrange
+        int java17 = 17;
+
+        // Act
+        IllegalStateException erro = assertThrows(IllegalStateException.class,
+            () -> ThreadsVirtuaisConfig.verificar(true, java17));
+
+        // Assert
+        assertTrue(erro.getMessage().contains("Java 17"), erro.getMessage());
+        assertDoesNotThrow(() -> ThreadsVirtuaisConfig.verificar(false, java17));
+        assertDoesNotThrow(() -> ThreadsVirtuaisConfig.verificar(true, 21));
+    }
+}
@@ -0,0 +1,58 @@
+package com.pi4.backend.api.controllers;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.pi4.backend.api.services.ImagemStorageService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "imagem.diretorio=target/test-uploads-entrega")
+@DisplayName("Testes da entrega de imagens pelo servidor HTTP")
+class ArquivoImagemControllerTest {
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private ImagemStorageService storageService;
+
+    @Test
+    @DisplayName("Arquivo grande deve chegar inteiro e em intervalo pelo conector, com revalidação 304")
+    void deveEntregarPeloConector() throws Exception {
+        // Arrange: acima do mínimo de sendfile do Tomcat
+        byte[] conteudo = new byte[256 * 1024];
+        new Random(3).nextBytes(conteudo);
+        ImagemStorageService.StoredImage stored = storageService.store(new ByteArrayInputStream(conteudo), "grande.png", 1L);
+        URI uri = URI.create("http://localhost:" + porta + stored.getDiretorio() + stored.getNomeArquivo());
+        HttpClient cliente = HttpClient.newHttpClient();
+
+        // Act
+        HttpResponse<byte[]> completo = cliente.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> parcial = cliente.send(HttpRequest.newBuilder(uri).header("Range", "bytes=1000-1999").build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        String etag = completo.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<byte[]> revalidado = cliente.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+        // Assert
+        assertEquals(200, completo.statusCode());
+        assertArrayEquals(conteudo, completo.body());
+        assertEquals("public, max-age=31536000, immutable", completo.headers().firstValue("Cache-Control").orElseThrow());
+        assertEquals(206, parcial.statusCode());
+        assertArrayEquals(Arrays.copyOfRange(conteudo, 1000, 2000), parcial.body());
+        assertEquals(304, revalidado.statusCode());
+    }
+}
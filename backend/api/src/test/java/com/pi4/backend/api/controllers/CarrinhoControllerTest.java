@@ -1,7 +1,7 @@
 package com.pi4.backend.api.controllers;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -9,7 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
@@ -25,22 +25,16 @@ import com.pi4.backend.api.controllers.CarrinhoController.AtualizarQuantidadeReq
 import com.pi4.backend.api.entities.CarrinhoItem;
 import com.pi4.backend.api.entities.Cliente;
 import com.pi4.backend.api.entities.Produto;
-import com.pi4.backend.api.repositories.CarrinhoRepository;
-import com.pi4.backend.api.repositories.ClienteRepository;
-import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.CarrinhoService;
+import com.pi4.backend.api.services.CarrinhoService.Resultado;
+import com.pi4.backend.api.services.CarrinhoService.Situacao;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Testes do CarrinhoController")
 class CarrinhoControllerTest {
 
     @Mock
-    private CarrinhoRepository carrinhoRepository;
-
-    @Mock
-    private ClienteRepository clienteRepository;
-
-    @Mock
-    private ProdutoRepository produtoRepository;
+    private CarrinhoService carrinhoService;
 
     @InjectMocks
     private CarrinhoController carrinhoController;
@@ -69,7 +63,7 @@ class CarrinhoControllerTest {
         try {
             java.lang.reflect.Field idField = Produto.class.getDeclaredField("id");
             idField.setAccessible(true);
-            idField.set(produto, 1L);
+            idField.set(produto, 1);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -82,22 +76,22 @@ class CarrinhoControllerTest {
     @DisplayName("Deve obter carrinho do cliente com sucesso")
     void deveObterCarrinhoComSucesso() {
         // Arrange
-        when(clienteRepository.existsById(1)).thenReturn(true);
-        when(carrinhoRepository.findByClienteId(1)).thenReturn(Arrays.asList(carrinhoItem));
+        when(carrinhoService.listar(1)).thenReturn(Optional.of(List.of(carrinhoItem)));
 
         // Act
         ResponseEntity<?> response = carrinhoController.obterCarrinho(1);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(carrinhoRepository, times(1)).findByClienteId(1);
+        assertEquals(List.of(carrinhoItem), response.getBody());
+        verify(carrinhoService, times(1)).listar(1);
     }
 
     @Test
     @DisplayName("Deve retornar erro quando cliente não encontrado ao obter carrinho")
     void deveRetornarErroClienteNaoEncontradoObterCarrinho() {
         // Arrange
-        when(clienteRepository.existsById(1)).thenReturn(false);
+        when(carrinhoService.listar(1)).thenReturn(Optional.empty());
 
         // Act
         ResponseEntity<?> response = carrinhoController.obterCarrinho(1);
@@ -105,7 +99,6 @@ class CarrinhoControllerTest {
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertEquals("Cliente não encontrado", response.getBody());
-        verify(carrinhoRepository, never()).findByClienteId(any());
     }
 
     @Test
@@ -114,20 +107,36 @@ class CarrinhoControllerTest {
         // Arrange
         AdicionarItemRequest request = new AdicionarItemRequest();
         request.setClienteId(1);
-        request.setProdutoId(1L);
+        request.setProdutoId(1);
         request.setQuantidade(2);
 
-        when(clienteRepository.findById(1)).thenReturn(Optional.of(cliente));
-        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
-        when(carrinhoRepository.findByClienteIdAndProdutoId(1, 1L)).thenReturn(null);
-        when(carrinhoRepository.save(any(CarrinhoItem.class))).thenReturn(carrinhoItem);
+        when(carrinhoService.adicionar(1, 1, 2)).thenReturn(new Resultado(Situacao.OK, carrinhoItem, true));
 
         // Act
         ResponseEntity<?> response = carrinhoController.adicionarItem(request);
 
         // Assert
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        verify(carrinhoRepository, times(1)).save(any(CarrinhoItem.class));
+        assertEquals(carrinhoItem, response.getBody());
+        verify(carrinhoService, times(1)).adicionar(1, 1, 2);
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro quando o item novo não foi gravado")
+    void deveRetornarErroQuandoItemNaoGravado() {
+        // Arrange
+        AdicionarItemRequest request = new AdicionarItemRequest();
+        request.setClienteId(1);
+        request.setProdutoId(1);
+        request.setQuantidade(2);
+
+        when(carrinhoService.adicionar(1, 1, 2)).thenReturn(new Resultado(Situacao.FALHA_GRAVACAO, null, false));
+
+        // Act
+        ResponseEntity<?> response = carrinhoController.adicionarItem(request);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
     }
 
     @Test
@@ -136,7 +145,7 @@ class CarrinhoControllerTest {
         // Arrange
         AdicionarItemRequest request = new AdicionarItemRequest();
         request.setClienteId(null);
-        request.setProdutoId(1L);
+        request.setProdutoId(1);
         request.setQuantidade(2);
 
         // Act
@@ -170,7 +179,7 @@ class CarrinhoControllerTest {
         // Arrange
         AdicionarItemRequest request = new AdicionarItemRequest();
         request.setClienteId(1);
-        request.setProdutoId(1L);
+        request.setProdutoId(1);
         request.setQuantidade(0);
 
         // Act
@@ -179,21 +188,19 @@ class CarrinhoControllerTest {
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Quantidade deve ser maior que zero", response.getBody());
+        verify(carrinhoService, never()).adicionar(anyInt(), anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("Deve retornar erro quando estoque insuficiente")
     void deveRetornarErroEstoqueInsuficiente() {
         // Arrange
-        produto.setQuantidadeEstoque(1); // Estoque menor que quantidade solicitada
-        
         AdicionarItemRequest request = new AdicionarItemRequest();
         request.setClienteId(1);
-        request.setProdutoId(1L);
+        request.setProdutoId(1);
         request.setQuantidade(5);
 
-        when(clienteRepository.findById(1)).thenReturn(Optional.of(cliente));
-        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(carrinhoService.adicionar(1, 1, 5)).thenReturn(new Resultado(Situacao.ESTOQUE_INSUFICIENTE, null, false));
 
         // Act
         ResponseEntity<?> response = carrinhoController.adicionarItem(request);
@@ -209,38 +216,33 @@ class CarrinhoControllerTest {
         // Arrange
         AdicionarItemRequest request = new AdicionarItemRequest();
         request.setClienteId(1);
-        request.setProdutoId(1L);
+        request.setProdutoId(1);
         request.setQuantidade(3);
 
-        CarrinhoItem itemExistente = new CarrinhoItem(cliente, produto, 2);
-
-        when(clienteRepository.findById(1)).thenReturn(Optional.of(cliente));
-        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
-        when(carrinhoRepository.findByClienteIdAndProdutoId(1, 1L)).thenReturn(itemExistente);
-        when(carrinhoRepository.save(any(CarrinhoItem.class))).thenReturn(itemExistente);
+        CarrinhoItem itemExistente = new CarrinhoItem(cliente, produto, 5); // 2 + 3
+        when(carrinhoService.adicionar(1, 1, 3)).thenReturn(new Resultado(Situacao.OK, itemExistente, false));
 
         // Act
         ResponseEntity<?> response = carrinhoController.adicionarItem(request);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(5, itemExistente.getQuantidade()); // 2 + 3
-        verify(carrinhoRepository, times(1)).save(itemExistente);
+        assertEquals(5, ((CarrinhoItem) response.getBody()).getQuantidade());
     }
 
     @Test
     @DisplayName("Deve remover item do carrinho com sucesso")
     void deveRemoverItemComSucesso() {
         // Arrange
-        when(carrinhoRepository.findByClienteIdAndProdutoId(1, 1L)).thenReturn(carrinhoItem);
+        when(carrinhoService.remover(1, 1)).thenReturn(new Resultado(Situacao.OK, carrinhoItem, false));
 
         // Act
-        ResponseEntity<?> response = carrinhoController.removerItem(1, 1L);
+        ResponseEntity<?> response = carrinhoController.removerItem(1, 1);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Item removido do carrinho", response.getBody());
-        verify(carrinhoRepository, times(1)).delete(carrinhoItem);
+        verify(carrinhoService, times(1)).remover(1, 1);
     }
 
     @Test
@@ -250,23 +252,23 @@ class CarrinhoControllerTest {
         AtualizarQuantidadeRequest request = new AtualizarQuantidadeRequest();
         request.setQuantidade(5);
 
-        when(carrinhoRepository.findByClienteIdAndProdutoId(1, 1L)).thenReturn(carrinhoItem);
-        when(carrinhoRepository.save(carrinhoItem)).thenReturn(carrinhoItem);
+        carrinhoItem.setQuantidade(5);
+        when(carrinhoService.atualizarQuantidade(1, 1, 5)).thenReturn(new Resultado(Situacao.OK, carrinhoItem, false));
 
         // Act
-        ResponseEntity<?> response = carrinhoController.atualizarQuantidade(1, 1L, request);
+        ResponseEntity<?> response = carrinhoController.atualizarQuantidade(1, 1, request);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(5, carrinhoItem.getQuantidade());
-        verify(carrinhoRepository, times(1)).save(carrinhoItem);
+        assertEquals(5, ((CarrinhoItem) response.getBody()).getQuantidade());
+        verify(carrinhoService, times(1)).atualizarQuantidade(1, 1, 5);
     }
 
     @Test
     @DisplayName("Deve limpar carrinho com sucesso")
     void deveLimparCarrinhoComSucesso() {
         // Arrange
-        when(clienteRepository.existsById(1)).thenReturn(true);
+        when(carrinhoService.limpar(1)).thenReturn(true);
 
         // Act
         ResponseEntity<?> response = carrinhoController.limparCarrinho(1);
@@ -274,15 +276,14 @@ class CarrinhoControllerTest {
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Carrinho limpo", response.getBody());
-        verify(carrinhoRepository, times(1)).deleteByClienteId(1);
+        verify(carrinhoService, times(1)).limpar(1);
     }
 
     @Test
     @DisplayName("Deve contar itens do carrinho")
     void deveContarItens() {
         // Arrange
-        when(clienteRepository.existsById(1)).thenReturn(true);
-        when(carrinhoRepository.getTotalItemsByClienteId(1)).thenReturn(5);
+        when(carrinhoService.contarItens(1)).thenReturn(Optional.of(5));
 
         // Act
         ResponseEntity<?> response = carrinhoController.contarItens(1);
@@ -290,6 +291,6 @@ class CarrinhoControllerTest {
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(5, response.getBody());
-        verify(carrinhoRepository, times(1)).getTotalItemsByClienteId(1);
+        verify(carrinhoService, times(1)).contarItens(1);
     }
 }
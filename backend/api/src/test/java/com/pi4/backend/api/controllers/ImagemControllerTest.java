@@ -0,0 +1,182 @@
+package com.pi4.backend.api.controllers;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.entities.ProdutoImagem;
+import com.pi4.backend.api.entities.ProdutoImagem.StatusVariantes;
+import com.pi4.backend.api.repositories.ProdutoImagemRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.ColetaImagemService;
+import com.pi4.backend.api.services.ImagemStorageService;
+
+@SpringBootTest(properties = {
+    "imagem.diretorio=target/test-uploads-conteudo",
+    "imagem.coleta.carencia-ms=0"
+})
+@DisplayName("Testes do armazenamento de imagens por conteúdo")
+class ImagemControllerTest {
+
+    @Autowired
+    private ImagemController imagemController;
+
+    @Autowired
+    private ProdutoImagemController produtoImagemController;
+
+    @Autowired
+    private ColetaImagemService coletaService;
+
+    @Autowired
+    private ImagemStorageService storageService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ProdutoImagemRepository imagemRepository;
+
+    @Test
+    @DisplayName("Arquivo compartilhado só deve sair do disco quando a última imagem for removida")
+    void deveColetarArquivoAposUltimaReferencia() throws Exception {
+        // Arrange: mesma foto (larga, com variantes) em dois produtos
+        Produto produtoA = DadosTeste.produto(produtoRepository, "Produto Conteúdo", 1);
+        Produto produtoB = DadosTeste.produto(produtoRepository, "Produto Conteúdo", 1);
+        byte[] foto = jpeg(800, 400);
+        ProdutoImagem imagemA = enviar(produtoA, foto);
+        ProdutoImagem imagemB = enviar(produtoB, foto);
+        ProdutoImagem pronta = aguardarVariantes(imagemA.getId());
+        Path original = storageService.resolver(pronta.getDiretorio(), pronta.getNomeArquivo());
+        Path miniatura = storageService.resolver(pronta.getDiretorio(), pronta.getArquivoMiniatura());
+
+        // Act
+        produtoImagemController.remover(produtoA.getId(), imagemA.getId());
+        coletaService.coletar();
+        boolean existeComUmaReferencia = Files.exists(original);
+        aguardarVariantes(imagemB.getId());
+        produtoImagemController.remover(produtoB.getId(), imagemB.getId());
+        coletaService.coletar();
+
+        // Assert
+        assertEquals(imagemA.getNomeArquivo(), imagemB.getNomeArquivo());
+        assertTrue(existeComUmaReferencia);
+        assertFalse(Files.exists(original));
+        assertFalse(Files.exists(miniatura));
+    }
+
+    @Test
+    @DisplayName("Migração deve deduplicar os arquivos por produto e manter as URLs antigas")
+    void deveMigrarArquivosPorProduto() throws Exception {
+        // Arrange: mesma foto gravada no diretório de dois produtos, no formato antigo
+        Produto produtoA = DadosTeste.produto(produtoRepository, "Produto Conteúdo", 1);
+        Produto produtoB = DadosTeste.produto(produtoRepository, "Produto Conteúdo", 1);
+        byte[] foto = jpeg(100, 100);
+        ProdutoImagem antigaA = imagemAntiga(produtoA, foto);
+        ProdutoImagem antigaB = imagemAntiga(produtoB, foto);
+        Path caminhoA = storageService.resolver(antigaA.getDiretorio(), antigaA.getNomeArquivo());
+        Path caminhoB = storageService.resolver(antigaB.getDiretorio(), antigaB.getNomeArquivo());
+
+        // Act
+        ResponseEntity<?> simulacao = imagemController.migrar(true);
+        ProdutoImagem aindaAntiga = imagemRepository.findById(antigaA.getId()).orElseThrow();
+        ResponseEntity<?> response = imagemController.migrar(false);
+        ProdutoImagem migradaA = imagemRepository.findById(antigaA.getId()).orElseThrow();
+        ProdutoImagem migradaB = imagemRepository.findById(antigaB.getId()).orElseThrow();
+        ResponseEntity<?> repeticao = imagemController.migrar(false);
+
+        // Assert
+        assertEquals(antigaA.getDiretorio(), aindaAntiga.getDiretorio());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> relatorio = (Map<String, Object>) response.getBody();
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue((Integer) relatorio.get("arquivosDuplicados") >= 1);
+        assertTrue(((Map<?, ?>) simulacao.getBody()).get("arquivosDuplicados").equals(relatorio.get("arquivosDuplicados")));
+        assertTrue(migradaA.getDiretorio().startsWith("/uploads/conteudo/"));
+        assertEquals(migradaA.getDiretorio() + migradaA.getNomeArquivo(), migradaB.getDiretorio() + migradaB.getNomeArquivo());
+        Path novo = storageService.resolver(migradaA.getDiretorio(), migradaA.getNomeArquivo());
+        assertArrayEquals(foto, Files.readAllBytes(caminhoA));
+        assertArrayEquals(foto, Files.readAllBytes(caminhoB));
+        assertTrue(Files.isSameFile(caminhoA, novo));
+        assertEquals(0, ((Map<?, ?>) repeticao.getBody()).get("migradas"));
+    }
+
+    @Test
+    @DisplayName("Varredura deve apagar arquivo do conteúdo que nenhuma imagem usa")
+    void deveVarrerArquivoSemReferencia() throws Exception {
+        // Arrange
+        Produto produto = DadosTeste.produto(produtoRepository, "Produto Conteúdo", 1);
+        ProdutoImagem usada = enviar(produto, jpeg(50, 50));
+        Path orfao = storageService.getRootDir().resolve("conteudo").resolve("ff").resolve("ff" + UUID.randomUUID() + ".jpg");
+        Files.createDirectories(orfao.getParent());
+        Files.write(orfao, new byte[] { 1, 2, 3 });
+        Files.setLastModifiedTime(orfao, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        aguardarVariantes(usada.getId());
+
+        // Act
+        ResponseEntity<?> response = imagemController.coletar();
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertFalse(Files.exists(orfao));
+        assertTrue(Files.exists(storageService.resolver(usada.getDiretorio(), usada.getNomeArquivo())));
+    }
+
+    private ProdutoImagem enviar(Produto produto, byte[] foto) {
+        ResponseEntity<?> response = produtoImagemController.upload(produto.getId(),
+            List.of(new MockMultipartFile("files", "foto.jpg", "image/jpeg", foto)), null);
+        assertEquals(201, response.getStatusCode().value());
+        @SuppressWarnings("unchecked")
+        List<ProdutoImagem> salvas = (List<ProdutoImagem>) response.getBody();
+        return salvas.get(0);
+    }
+
+    private ProdutoImagem imagemAntiga(Produto produto, byte[] foto) throws Exception {
+        ProdutoImagem imagem = new ProdutoImagem();
+        imagem.setProduto(produto);
+        imagem.setDiretorio("/uploads/produtos/" + produto.getId() + "/");
+        imagem.setNomeArquivo(UUID.randomUUID().toString().replace("-", "") + ".jpg");
+        Path caminho = storageService.resolver(imagem.getDiretorio(), imagem.getNomeArquivo());
+        Files.createDirectories(caminho.getParent());
+        Files.write(caminho, foto);
+        return imagemRepository.save(imagem);
+    }
+
+    private ProdutoImagem aguardarVariantes(Long id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        ProdutoImagem imagem = imagemRepository.findById(id).orElseThrow();
+        while (imagem.getStatusVariantes() == StatusVariantes.PENDENTE && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+            imagem = imagemRepository.findById(id).orElseThrow();
+        }
+        return imagem;
+    }
+
+    private static byte[] jpeg(int largura, int altura) throws Exception {
+        BufferedImage img = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, (int) (Math.random() * 0xFFFFFF));
+        img.setRGB(largura - 1, altura - 1, (int) (Math.random() * 0xFFFFFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.pi4.backend.api.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.pi4.backend.api.config.FiltroMetricas;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes do endpoint de métricas")
+class MetricasControllerTest {
+
+    @Autowired
+    private MetricasController metricasController;
+
+    @Autowired
+    private FilterRegistrationBean<FiltroMetricas> filtroMetricas;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Test
+    @DisplayName("Requisição filtrada deve aparecer com tempo por rota, chamadas de repositório e comandos SQL")
+    void deveMedirRequisicaoERepositorios() throws Exception {
+        // Arrange: rota exclusiva do teste, que só consulta um produto inexistente
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/teste/metricas/123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtroMetricas.getFilter().doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/teste/metricas/{id}");
+            produtoRepository.findById(Integer.MAX_VALUE);
+        });
+        ResponseEntity<String> metricas = metricasController.metricas();
+
+        // Assert
+        String corpo = metricas.getBody();
+        assertEquals(200, metricas.getStatusCode().value());
+        assertEquals("text/plain;version=0.0.4;charset=utf-8", metricas.getHeaders().getContentType().toString());
+        assertTrue(corpo.contains(
+            "api_http_requisicao_segundos_count{metodo=\"GET\",rota=\"/teste/metricas/{id}\",status=\"200\"} 1\n"));
+        assertTrue(corpo.contains("api_http_sql_comandos_total{metodo=\"GET\",rota=\"/teste/metricas/{id}\"} 1\n"));
+        assertTrue(corpo.contains("api_repositorio_segundos_count{repositorio=\"ProdutoRepository\",metodo=\"findById\"}"));
+        assertTrue(corpo.contains("api_pool_conexoes_maximo{pool="));
+        assertTrue(corpo.contains("api_catalogo_cache_hit_ratio "));
+        assertTrue(corpo.contains("api_eventos_pedido_pendentes "));
+    }
+}
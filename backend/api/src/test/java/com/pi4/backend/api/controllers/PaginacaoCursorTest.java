@@ -0,0 +1,216 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.dto.PaginaCursor;
+import com.pi4.backend.api.dto.PedidoResumoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.services.CatalogoCacheService;
+
+@SpringBootTest
+@DisplayName("Testes da paginação por cursor")
+class PaginacaoCursorTest {
+
+    // Datas no futuro: os registros do teste ficam à frente de qualquer outro no banco compartilhado
+    private static final LocalDateTime BASE = LocalDateTime.of(2100, 1, 1, 12, 0);
+
+    @Autowired
+    private ProdutoController produtoController;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @BeforeEach
+    void setUp() {
+        // Inserts via JDBC não passam pelo controller, então não invalidam o cache do catálogo
+        catalogoCache.invalidarTudo();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_produto where nome like 'Cursor %'");
+        jdbcTemplate.update("delete from tb_pedido where numero_pedido like 'CUR%'");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os produtos do mais novo para o mais antigo sem repetir nem pular, inclusive com datas empatadas")
+    void devePercorrerProdutosPorCursor() {
+        // Arrange: 23 produtos, de 3 em 3 com a mesma data de criação
+        for (int i = 0; i < 23; i++) {
+            jdbcTemplate.update(
+                "insert into tb_produto (nome, descricao, preco, qtd_estoque, status, data_criacao) values (?, ?, ?, ?, ?, ?)",
+                "Cursor " + i, "Produto de cursor", new BigDecimal("10.00"), 5, true,
+                Timestamp.valueOf(BASE.plusMinutes(i / 3)));
+        }
+
+        // Act
+        List<Produto> vistos = new ArrayList<>();
+        String cursor = "";
+        while (vistos.size() < 23) {
+            PaginaCursor<Produto> resultado = paginaProdutos(cursor, 10);
+            vistos.addAll(resultado.getConteudo());
+            cursor = resultado.getProximoCursor();
+        }
+
+        // Assert
+        List<Produto> doTeste = vistos.subList(0, 23);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < doTeste.size(); i++) {
+            Produto p = doTeste.get(i);
+            assertTrue(p.getNome().startsWith("Cursor "));
+            assertTrue(ids.add(p.getId()));
+            if (i > 0) {
+                Produto anterior = doTeste.get(i - 1);
+                int cmp = anterior.getDataCriacao().compareTo(p.getDataCriacao());
+                assertTrue(cmp > 0 || (cmp == 0 && anterior.getId() > p.getId()));
+            }
+        }
+        assertEquals(23, ids.size());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar o filtro de status na listagem por cursor")
+    void deveFiltrarStatusNoCursor() {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            jdbcTemplate.update(
+                "insert into tb_produto (nome, descricao, preco, qtd_estoque, status, data_criacao) values (?, ?, ?, ?, ?, ?)",
+                "Cursor " + i, "Produto de cursor", new BigDecimal("10.00"), 5, i % 2 == 0,
+                Timestamp.valueOf(BASE.plusMinutes(i)));
+        }
+
+        // Act
+        ResponseEntity<?> response = produtoController.listarPorCursor(null, 3, false, null, "");
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        PaginaCursor<Produto> resultado = (PaginaCursor<Produto>) response.getBody();
+        assertEquals(List.of("Cursor 5", "Cursor 3", "Cursor 1"),
+            resultado.getConteudo().stream().map(Produto::getNome).toList());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cursor inválido e ordenação personalizada")
+    void deveRejeitarCursorInvalido() {
+        assertEquals(400, produtoController.listarPorCursor(null, 10, null, null, "lixo!").getStatusCode().value());
+        assertEquals(400, produtoController.listarPorCursor(null, 10, null, "preco,asc", "").getStatusCode().value());
+        assertEquals(400, pedidoController.listarTodosPedidosAdminPorCursor("bm9wZQ", 10).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os pedidos do admin por cursor até o fim, com e sem filtro de status")
+    void devePercorrerPedidosPorCursor() {
+        // Arrange
+        Cliente cliente = DadosTeste.cliente(clienteRepository, "Cliente Cursor");
+        for (int i = 0; i < 7; i++) {
+            novoPedido(cliente, "CUR" + i, BASE.plusMinutes(i / 2),
+                i < 4 ? Pedido.StatusPedido.ENTREGUE : Pedido.StatusPedido.CANCELADO);
+        }
+
+        // Act
+        List<PedidoResumoDto> todos = new ArrayList<>();
+        String cursor = "";
+        while (todos.size() < 7) {
+            PaginaCursor<PedidoResumoDto> resultado = paginaPedidos(pedidoController.listarTodosPedidosAdminPorCursor(cursor, 3));
+            todos.addAll(resultado.getConteudo());
+            cursor = resultado.getProximoCursor();
+        }
+        List<PedidoResumoDto> cancelados = new ArrayList<>();
+        cursor = "";
+        PaginaCursor<PedidoResumoDto> resultado;
+        do {
+            resultado = paginaPedidos(pedidoController.listarTodosPedidosPorCursor(cursor, 2, "cancelado"));
+            resultado.getConteudo().stream().filter(p -> p.getNumeroPedido().startsWith("CUR")).forEach(cancelados::add);
+            cursor = resultado.getProximoCursor();
+        } while (resultado.isTemProxima() && cancelados.size() < 3);
+
+        // Assert
+        assertEquals(List.of("CUR6", "CUR5", "CUR4", "CUR3", "CUR2", "CUR1", "CUR0"),
+            todos.subList(0, 7).stream().map(PedidoResumoDto::getNumeroPedido).toList());
+        assertEquals(List.of("CUR6", "CUR5", "CUR4"),
+            cancelados.stream().map(PedidoResumoDto::getNumeroPedido).toList());
+    }
+
+    @Test
+    @DisplayName("Última página não deve trazer próximo cursor")
+    void ultimaPaginaSemProximoCursor() {
+        // Arrange
+        Cliente cliente = DadosTeste.cliente(clienteRepository, "Cliente Cursor");
+        novoPedido(cliente, "CUR0", BASE, Pedido.StatusPedido.EM_TRANSITO);
+
+        // Act
+        PaginaCursor<PedidoResumoDto> resultado = paginaPedidos(pedidoController.listarTodosPedidosPorCursor("", 1000, "em_transito"));
+
+        // Assert
+        assertFalse(resultado.isTemProxima());
+        assertNull(resultado.getProximoCursor());
+        assertTrue(resultado.getConteudo().stream().anyMatch(p -> "CUR0".equals(p.getNumeroPedido())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PaginaCursor<Produto> paginaProdutos(String cursor, int size) {
+        ResponseEntity<?> response = produtoController.listarPorCursor(null, size, null, null, cursor);
+        assertEquals(200, response.getStatusCode().value());
+        return (PaginaCursor<Produto>) response.getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private PaginaCursor<PedidoResumoDto> paginaPedidos(ResponseEntity<?> response) {
+        assertEquals(200, response.getStatusCode().value());
+        return (PaginaCursor<PedidoResumoDto>) response.getBody();
+    }
+
+    private void novoPedido(Cliente cliente, String numero, LocalDateTime data, Pedido.StatusPedido status) {
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setNumeroPedido(numero);
+        pedido.setDataPedido(data);
+        pedido.setStatus(status);
+        pedido.setSubtotal(new BigDecimal("10.00"));
+        pedido.setValorFrete(BigDecimal.ZERO);
+        pedido.setValorTotal(new BigDecimal("10.00"));
+        pedido.setEnderecoEntregaCep("01001-000");
+        pedido.setEnderecoEntregaLogradouro("Rua Teste");
+        pedido.setEnderecoEntregaNumero("1");
+        pedido.setEnderecoEntregaBairro("Centro");
+        pedido.setEnderecoEntregaCidade("São Paulo");
+        pedido.setEnderecoEntregaUf("SP");
+        pedidoRepository.save(pedido);
+    }
+}
@@ -0,0 +1,185 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes de concorrência na criação de pedidos")
+class PedidoControllerConcorrenciaTest {
+
+    private static final int ESTOQUE_INICIAL = 50;
+    private static final int TOTAL_PEDIDOS = 300;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
+    @Autowired
+    private ProdutoController produtoController;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Concorrência");
+    }
+
+    @Test
+    @DisplayName("Não deve vender além do estoque com centenas de pedidos simultâneos no mesmo produto")
+    void naoDeveVenderAlemDoEstoqueComPedidosSimultaneos() throws Exception {
+        // Arrange
+        Produto produto = DadosTeste.produto(produtoRepository, "Produto Disputado", ESTOQUE_INICIAL);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> respostas = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < TOTAL_PEDIDOS; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return pedidoController.criarPedido(novoPedido(produto.getId(), 1), null);
+            }));
+        }
+        largada.countDown();
+
+        int sucessos = 0;
+        int errosInternos = 0;
+        for (Future<ResponseEntity<?>> f : respostas) {
+            int codigo = f.get(60, TimeUnit.SECONDS).getStatusCode().value();
+            if (codigo == 201) {
+                sucessos++;
+            } else if (codigo == 500) {
+                errosInternos++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        int estoqueFinal = produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+        int vendidos = itemPedidoRepository.findAll().stream()
+            .filter(ip -> ip.getProduto().getId().equals(produto.getId()))
+            .mapToInt(ItemPedido::getQuantidade)
+            .sum();
+
+        assertEquals(0, errosInternos);
+        assertTrue(sucessos > 0);
+        assertTrue(estoqueFinal >= 0);
+        assertEquals(sucessos, vendidos);
+        assertEquals(ESTOQUE_INICIAL - vendidos, estoqueFinal);
+    }
+
+    @Test
+    @DisplayName("Deve devolver o estoque já reservado quando outro item do pedido falha")
+    void deveDesfazerReservaQuandoUmItemFalha() {
+        // Arrange
+        Produto comEstoque = DadosTeste.produto(produtoRepository, "Produto Com Estoque", 10);
+        Produto semEstoque = DadosTeste.produto(produtoRepository, "Produto Sem Estoque", 1);
+        CriarPedidoRequest request = novoPedido(comEstoque.getId(), 3);
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(semEstoque.getId());
+        item.setQuantidade(2);
+        item.setPrecoUnitario(new BigDecimal("10.00"));
+        request.getItens().add(item);
+
+        // Act
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+
+        // Assert
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Estoque insuficiente para: Produto Sem Estoque", response.getBody());
+        assertEquals(10, produtoRepository.findById(comEstoque.getId()).orElseThrow().getQuantidadeEstoque());
+        assertEquals(1, produtoRepository.findById(semEstoque.getId()).orElseThrow().getQuantidadeEstoque());
+    }
+
+    @Test
+    @DisplayName("Edição do produto pelo admin não deve regravar o estoque lido antes de uma baixa concorrente")
+    void edicaoDoProdutoNaoDeveDesfazerBaixaDeEstoque() throws Exception {
+        // Arrange
+        Produto produto = DadosTeste.produto(produtoRepository, "Produto Editado", 10);
+        Produto alteracao = new Produto();
+        alteracao.setNome("Produto Renomeado");
+        alteracao.setStatus(null);
+        alteracao.setQuantidadeEstoque(null);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Act: o admin lê o produto, um pedido debita o estoque e só então a edição é gravada
+        transactionTemplate.executeWithoutResult(status -> {
+            produtoRepository.findById(produto.getId()).orElseThrow();
+            try {
+                executor.submit(() -> jdbcTemplate.update(
+                    "update tb_produto set qtd_estoque = qtd_estoque - 3 where id_produto = ?", produto.getId())).get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertEquals(200, produtoController.atualizar(produto.getId(), alteracao).getStatusCode().value());
+            assertEquals(200, produtoController.toggleStatus(produto.getId()).getStatusCode().value());
+        });
+        executor.shutdown();
+
+        // Assert
+        Produto gravado = produtoRepository.findById(produto.getId()).orElseThrow();
+        assertEquals("Produto Renomeado", gravado.getNome());
+        assertEquals(false, gravado.getStatus());
+        assertEquals(7, gravado.getQuantidadeEstoque());
+    }
+
+    private CriarPedidoRequest novoPedido(Integer produtoId, int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(new BigDecimal("10.00"));
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.90"));
+        return request;
+    }
+}
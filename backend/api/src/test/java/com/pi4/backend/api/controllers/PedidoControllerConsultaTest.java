@@ -0,0 +1,185 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.dto.PedidoResumoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@DisplayName("Testes de consultas de pedido sem N+1")
+class PedidoControllerConsultaTest {
+
+    private static final int TOTAL_PEDIDOS = 50;
+    private static final int ITENS_POR_PEDIDO = 3;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics estatisticas;
+    private Cliente cliente;
+    private List<Pedido> pedidos;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Consulta");
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < ITENS_POR_PEDIDO; i++) {
+            produtos.add(DadosTeste.produto(produtoRepository, "Produto Consulta " + i, 100));
+        }
+        pedidos = new ArrayList<>();
+        for (int i = 0; i < TOTAL_PEDIDOS; i++) {
+            pedidos.add(novoPedido("CONS" + UUID.randomUUID().toString().substring(0, 8) + i, produtos));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_item_pedido where id_pedido in "
+            + "(select id_pedido from tb_pedido where numero_pedido like 'CONS%')");
+        jdbcTemplate.update("delete from tb_pedido where numero_pedido like 'CONS%'");
+    }
+
+    @Test
+    @DisplayName("Listar pedidos do cliente deve usar o mesmo número de comandos para 10 ou 50 pedidos")
+    void listarPedidosClienteComComandosConstantes() throws Exception {
+        // Act
+        long comandos10 = contarComandos(() -> pedidoController.listarPedidosCliente(cliente.getId(), 0, 10));
+        long comandos50 = contarComandos(() -> pedidoController.listarPedidosCliente(cliente.getId(), 0, TOTAL_PEDIDOS));
+
+        // Assert: existe cliente + COUNT + cabeçalhos + itens
+        assertEquals(comandos10, comandos50);
+        assertTrue(comandos50 <= 4, "comandos: " + comandos50);
+    }
+
+    @Test
+    @DisplayName("Listagem deve trazer cabeçalho, nome do cliente e itens de cada pedido")
+    void listagemDeveTrazerResumoCompleto() {
+        // Act
+        ResponseEntity<?> response = pedidoController.listarPedidosCliente(cliente.getId(), 0, TOTAL_PEDIDOS);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        Page<PedidoResumoDto> pagina = (Page<PedidoResumoDto>) response.getBody();
+        assertEquals(TOTAL_PEDIDOS, pagina.getTotalElements());
+        for (PedidoResumoDto pedido : pagina) {
+            assertEquals("Cliente Consulta", pedido.getCliente().getNome());
+            assertEquals(ITENS_POR_PEDIDO, pedido.getItens().size());
+            assertTrue(pedido.getItens().stream().allMatch(i -> i.getNomeProduto().startsWith("Produto Consulta")));
+        }
+    }
+
+    @Test
+    @DisplayName("Listagem admin deve usar um número constante de comandos")
+    void listarAdminComComandosConstantes() throws Exception {
+        // Act
+        long comandos10 = contarComandos(() -> pedidoController.listarTodosPedidosAdmin(0, 10));
+        long comandos50 = contarComandos(() -> pedidoController.listarTodosPedidosAdmin(0, TOTAL_PEDIDOS));
+        long comandosStatus = contarComandos(() -> pedidoController.listarTodosPedidos(0, TOTAL_PEDIDOS, "aguardando_pagamento"));
+
+        // Assert: COUNT + cabeçalhos + itens
+        assertEquals(comandos10, comandos50);
+        assertTrue(comandos50 <= 3, "comandos: " + comandos50);
+        assertTrue(comandosStatus <= 3, "comandos: " + comandosStatus);
+    }
+
+    @Test
+    @DisplayName("Detalhe do pedido deve carregar cliente, itens e produtos sem uma consulta por item")
+    void detalheSemConsultaPorItem() throws Exception {
+        // Arrange
+        Long id = pedidos.get(0).getId();
+
+        // Act: serialização dentro da transação, como no open-in-view de uma requisição web
+        long comandos = new TransactionTemplate(transactionManager).execute(s -> {
+            try {
+                return contarComandos(() -> pedidoController.buscarPedido(id));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Assert: pedido+cliente+itens+produtos, imagens dos produtos e endereços do cliente
+        assertTrue(comandos <= 4, "comandos: " + comandos);
+    }
+
+    private long contarComandos(Supplier<ResponseEntity<?>> chamada) throws Exception {
+        estatisticas.clear();
+        ResponseEntity<?> response = chamada.get();
+        assertEquals(200, response.getStatusCode().value());
+        objectMapper.writeValueAsString(response.getBody());
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private Pedido novoPedido(String numero, List<Produto> produtos) {
+        Pedido pedido = new Pedido(cliente, numero);
+        pedido.setDataPedido(LocalDateTime.now());
+        pedido.setValorFrete(BigDecimal.ZERO);
+        pedido.setEnderecoEntregaCep("01001-000");
+        pedido.setEnderecoEntregaLogradouro("Rua Teste");
+        pedido.setEnderecoEntregaNumero("1");
+        pedido.setEnderecoEntregaBairro("Centro");
+        pedido.setEnderecoEntregaCidade("São Paulo");
+        pedido.setEnderecoEntregaUf("SP");
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Produto produto : produtos) {
+            ItemPedido item = new ItemPedido(pedido, produto, 1, produto.getPreco());
+            pedido.getItens().add(item);
+            subtotal = subtotal.add(item.getSubtotal());
+        }
+        pedido.setSubtotal(subtotal);
+        pedido.setValorTotal(subtotal);
+        return pedidoRepository.save(pedido);
+    }
+}
@@ -0,0 +1,138 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.CheckoutController.CheckoutRequest;
+import com.pi4.backend.api.controllers.CheckoutController.CheckoutResponse;
+import com.pi4.backend.api.controllers.CheckoutController.ItemCarrinho;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes de resgate da cotação de frete na criação do pedido")
+class PedidoControllerCotacaoFreteTest {
+
+    @Autowired
+    private CheckoutController checkoutController;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Cotação");
+
+        produto = DadosTeste.produto(produtoRepository, "Produto Cotação", new BigDecimal("80.00"), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_item_pedido where id_pedido in "
+            + "(select id_pedido from tb_pedido where id_cliente = ?)", cliente.getId());
+        jdbcTemplate.update("delete from tb_pedido where id_cliente = ?", cliente.getId());
+    }
+
+    @Test
+    @DisplayName("Pedido com a cotação do checkout deve usar o frete cotado")
+    void pedidoDeveUsarFreteDaCotacao() {
+        // Arrange
+        CheckoutResponse checkout = iniciarCheckout("20040-020");
+        CriarPedidoRequest request = novoPedido("20040020", checkout.getCotacaoFreteId());
+
+        // Act
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+
+        // Assert
+        assertNotNull(checkout.getCotacaoFreteId());
+        assertEquals(0, new BigDecimal("19.90").compareTo(checkout.getValorFrete()));
+        assertEquals(201, response.getStatusCode().value());
+        Pedido pedido = (Pedido) response.getBody();
+        assertEquals(0, new BigDecimal("19.90").compareTo(pedido.getValorFrete()));
+    }
+
+    @Test
+    @DisplayName("Cotação desconhecida, de outro CEP ou com valor fora das opções deve ser recusada")
+    void deveRecusarCotacaoInvalida() {
+        // Arrange
+        CheckoutResponse checkout = iniciarCheckout("01001000");
+        CriarPedidoRequest outroCep = novoPedido("20040020", checkout.getCotacaoFreteId());
+        CriarPedidoRequest valorForaDaCotacao = novoPedido("01001000", checkout.getCotacaoFreteId());
+        valorForaDaCotacao.setValorFreteEscolhido(new BigDecimal("1.00"));
+
+        // Act
+        ResponseEntity<?> desconhecida = pedidoController.criarPedido(novoPedido("01001000", "nao-existe"), null);
+        ResponseEntity<?> deOutroCep = pedidoController.criarPedido(outroCep, null);
+        ResponseEntity<?> foraDaCotacao = pedidoController.criarPedido(valorForaDaCotacao, null);
+
+        // Assert
+        assertEquals(400, desconhecida.getStatusCode().value());
+        assertEquals("Cotação de frete inválida ou expirada", desconhecida.getBody());
+        assertEquals(400, deOutroCep.getStatusCode().value());
+        assertEquals(400, foraDaCotacao.getStatusCode().value());
+        assertEquals("Valor de frete não corresponde à cotação", foraDaCotacao.getBody());
+        assertEquals(10, produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque());
+    }
+
+    private CheckoutResponse iniciarCheckout(String cep) {
+        ItemCarrinho item = new ItemCarrinho();
+        item.setProdutoId(produto.getId().longValue());
+        item.setQuantidade(1);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega(cep);
+        ResponseEntity<?> response = checkoutController.iniciarCheckout(request);
+        assertEquals(200, response.getStatusCode().value());
+        return (CheckoutResponse) response.getBody();
+    }
+
+    private CriarPedidoRequest novoPedido(String cep, String cotacaoFreteId) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(1);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega(cep);
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("Rio de Janeiro");
+        request.setEnderecoEntregaUf("RJ");
+        request.setCotacaoFreteId(cotacaoFreteId);
+        return request;
+    }
+}
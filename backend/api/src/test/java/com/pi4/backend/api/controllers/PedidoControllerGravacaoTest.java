@@ -0,0 +1,152 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ItemPedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.MetricasService;
+
+@SpringBootTest
+@DisplayName("Testes da gravação do pedido em batch")
+class PedidoControllerGravacaoTest {
+
+    private static final int ESTOQUE_INICIAL = 10;
+    private static final int LINHAS = 30;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private MetricasService metricasService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
+    private Cliente cliente;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Batch");
+
+        produtos = new ArrayList<>();
+        for (int i = 0; i < LINHAS; i++) {
+            produtos.add(DadosTeste.produto(produtoRepository, "Produto Batch " + sufixo + " " + i, ESTOQUE_INICIAL));
+        }
+    }
+
+    @Test
+    @DisplayName("Comandos SQL por pedido não devem crescer com o número de linhas")
+    void comandosNaoDevemCrescerComAsLinhas() {
+        // Arrange: aquece caches e blocos de ids com um pedido descartado
+        criarPedido(produtos.subList(0, 1), 1);
+
+        // Act
+        int umaLinha = comandosAoCriar(produtos.subList(0, 1));
+        int trintaLinhas = comandosAoCriar(produtos);
+
+        // Assert: no máximo uma busca a mais de bloco de ids por sequência (pedido e item)
+        assertTrue(trintaLinhas <= umaLinha + 2,
+            "1 linha: " + umaLinha + " comandos, " + LINHAS + " linhas: " + trintaLinhas + " comandos");
+        for (Produto produto : produtos.subList(1, LINHAS)) {
+            assertEquals(ESTOQUE_INICIAL - 1, estoqueAtual(produto));
+        }
+        assertEquals(ESTOQUE_INICIAL - 3, estoqueAtual(produtos.get(0)));
+    }
+
+    @Test
+    @DisplayName("Itens devem ser gravados com id e o débito em batch deve apontar o SKU sem saldo")
+    void deveGravarItensEApontarFaltaDeEstoque() {
+        // Arrange
+        Produto semSaldo = produtos.get(17);
+        List<ItemPedidoDto> itens = itens(produtos, 1);
+        itens.get(17).setQuantidade(ESTOQUE_INICIAL + 1);
+
+        // Act
+        Pedido pedido = (Pedido) criarPedido(produtos, 2).getBody();
+        ResponseEntity<?> recusado = pedidoController.criarPedido(requisicao(itens), null);
+
+        // Assert
+        List<ItemPedido> gravados = itemPedidoRepository.findByPedidoId(pedido.getId());
+        assertEquals(LINHAS, gravados.size());
+        gravados.forEach(item -> assertNotNull(item.getId()));
+        assertEquals(400, recusado.getStatusCode().value());
+        assertEquals("Estoque insuficiente para: " + semSaldo.getNome(), recusado.getBody());
+        for (Produto produto : produtos) {
+            assertEquals(ESTOQUE_INICIAL - 2, estoqueAtual(produto), "débitos do pedido recusado devem ser desfeitos");
+        }
+    }
+
+    private int comandosAoCriar(List<Produto> selecionados) {
+        metricasService.iniciarRequisicao();
+        try {
+            criarPedido(selecionados, 1);
+            return metricasService.comandosSqlDaRequisicao();
+        } finally {
+            metricasService.encerrarRequisicao("TESTE", "/teste/pedidos/gravacao", 201, 0);
+        }
+    }
+
+    private int estoqueAtual(Produto produto) {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private ResponseEntity<?> criarPedido(List<Produto> selecionados, int quantidade) {
+        ResponseEntity<?> response = pedidoController.criarPedido(requisicao(itens(selecionados, quantidade)), null);
+        assertEquals(201, response.getStatusCode().value());
+        return response;
+    }
+
+    private List<ItemPedidoDto> itens(List<Produto> selecionados, int quantidade) {
+        List<ItemPedidoDto> itens = new ArrayList<>();
+        for (Produto produto : selecionados) {
+            ItemPedidoDto item = new ItemPedidoDto();
+            item.setProdutoId(produto.getId());
+            item.setQuantidade(quantidade);
+            item.setPrecoUnitario(produto.getPreco());
+            itens.add(item);
+        }
+        return itens;
+    }
+
+    private CriarPedidoRequest requisicao(List<ItemPedidoDto> itens) {
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(itens);
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        return request;
+    }
+}
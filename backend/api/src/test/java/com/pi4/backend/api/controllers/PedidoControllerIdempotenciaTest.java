@@ -0,0 +1,166 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes da criação de pedido com Idempotency-Key")
+class PedidoControllerIdempotenciaTest {
+
+    private static final int ESTOQUE_INICIAL = 50;
+    private static final int ENVIOS = 100;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Idempotência");
+
+        produto = DadosTeste.produto(produtoRepository, "Produto Idempotência " + sufixo, ESTOQUE_INICIAL);
+    }
+
+    @Test
+    @DisplayName("Cem envios simultâneos com a mesma chave devem criar um pedido e debitar o estoque uma vez")
+    void deveCriarUmPedidoParaEnviosSimultaneos() throws Exception {
+        // Arrange
+        String chave = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(ENVIOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> respostas = new ArrayList<>();
+        for (int i = 0; i < ENVIOS; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return pedidoController.criarPedido(requisicao(2), chave);
+            }));
+        }
+
+        // Act
+        largada.countDown();
+        Set<Long> pedidoIds = new HashSet<>();
+        int repetidas = 0;
+        for (Future<ResponseEntity<?>> resposta : respostas) {
+            ResponseEntity<?> response = resposta.get();
+            assertEquals(201, response.getStatusCode().value());
+            pedidoIds.add(((Pedido) response.getBody()).getId());
+            if (response.getHeaders().containsKey("Idempotency-Replayed")) repetidas++;
+        }
+        executor.shutdown();
+        ResponseEntity<?> depois = pedidoController.criarPedido(requisicao(2), chave);
+
+        // Assert
+        assertEquals(1, pedidoIds.size());
+        assertEquals(ENVIOS - 1, repetidas);
+        assertEquals(pedidoIds.iterator().next(), ((Pedido) depois.getBody()).getId());
+        assertEquals(1, pedidoRepository.findByClienteIdOrderByDataPedidoDesc(cliente.getId()).size());
+        assertEquals(ESTOQUE_INICIAL - 2, estoqueAtual());
+    }
+
+    @Test
+    @DisplayName("A mesma chave com outro conteúdo deve ser recusada e chaves diferentes devem criar pedidos distintos")
+    void deveRecusarChaveReaproveitada() {
+        // Arrange
+        String chave = UUID.randomUUID().toString();
+
+        // Act
+        ResponseEntity<?> primeiro = pedidoController.criarPedido(requisicao(1), chave);
+        ResponseEntity<?> outroConteudo = pedidoController.criarPedido(requisicao(3), chave);
+        ResponseEntity<?> outraChave = pedidoController.criarPedido(requisicao(1), UUID.randomUUID().toString());
+        ResponseEntity<?> semChave = pedidoController.criarPedido(requisicao(1), null);
+
+        // Assert
+        assertEquals(201, primeiro.getStatusCode().value());
+        assertNull(primeiro.getHeaders().getFirst("Idempotency-Replayed"));
+        assertEquals(422, outroConteudo.getStatusCode().value());
+        assertEquals(201, outraChave.getStatusCode().value());
+        assertEquals(201, semChave.getStatusCode().value());
+        assertEquals(3, pedidoRepository.findByClienteIdOrderByDataPedidoDesc(cliente.getId()).size());
+        assertEquals(ESTOQUE_INICIAL - 3, estoqueAtual());
+    }
+
+    @Test
+    @DisplayName("Chave gravada no pedido e ausente da memória deve devolver o pedido existente sem novo débito")
+    void deveUsarOIndiceUnicoQuandoAChaveNaoEstaNaMemoria() {
+        // Arrange: pedido gravado com a chave por "outra instância"
+        String chave = UUID.randomUUID().toString();
+        Pedido existente = (Pedido) pedidoController.criarPedido(requisicao(1), null).getBody();
+        jdbcTemplate.update("update tb_pedido set chave_idempotencia = ? where id_pedido = ?", chave, existente.getId());
+
+        // Act
+        ResponseEntity<?> response = pedidoController.criarPedido(requisicao(1), chave);
+
+        // Assert
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals("true", response.getHeaders().getFirst("Idempotency-Replayed"));
+        assertEquals(existente.getId(), ((Pedido) response.getBody()).getId());
+        assertEquals(1, pedidoRepository.findByClienteIdOrderByDataPedidoDesc(cliente.getId()).size());
+        assertEquals(ESTOQUE_INICIAL - 1, estoqueAtual(), "débito da tentativa repetida deve ser desfeito");
+    }
+
+    private int estoqueAtual() {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private CriarPedidoRequest requisicao(int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        return request;
+    }
+}
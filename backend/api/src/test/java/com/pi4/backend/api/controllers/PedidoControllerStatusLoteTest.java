@@ -0,0 +1,216 @@
+package com.pi4.backend.api.controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.AlterarStatusLoteRequest;
+import com.pi4.backend.api.controllers.PedidoController.AtualizarStatusRequest;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes da mudança de status de pedidos em massa")
+class PedidoControllerStatusLoteTest {
+
+    private static final int ESTOQUE_INICIAL = 1000;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Lote");
+
+        produto = DadosTeste.produto(produtoRepository, "Produto Lote " + sufixo, ESTOQUE_INICIAL);
+    }
+
+    @Test
+    @DisplayName("Cancelar por lista de ids deve devolver o estoque e contar ignorados, inválidos e inexistentes")
+    void deveCancelarPorIds() throws Exception {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            ids.add(criarPedido(1).getId());
+        }
+        Pedido jaCancelado = criarPedido(2);
+        alterarStatus(jaCancelado, StatusPedido.CANCELADO);
+        Pedido emTransito = criarPedido(3);
+        alterarStatus(emTransito, StatusPedido.PAGAMENTO_COM_SUCESSO);
+        alterarStatus(emTransito, StatusPedido.EM_TRANSITO);
+        ids.add(jaCancelado.getId());
+        ids.add(emTransito.getId());
+        ids.add(Long.MAX_VALUE);
+        ids.add(ids.get(0));
+
+        AlterarStatusLoteRequest request = new AlterarStatusLoteRequest();
+        request.setStatus(StatusPedido.CANCELADO);
+        request.setIds(ids);
+
+        // Act
+        List<JsonNode> linhas = executar(request);
+
+        // Assert
+        JsonNode fim = linhas.get(linhas.size() - 1);
+        assertEquals(3, linhas.size()); // 603 ids únicos em blocos de 500 + conclusão
+        assertEquals("progresso", linhas.get(0).get("etapa").asText());
+        assertEquals(500, linhas.get(0).get("processados").asLong());
+        assertEquals("concluido", fim.get("etapa").asText());
+        assertEquals(603, fim.get("total").asLong());
+        assertEquals(603, fim.get("processados").asLong());
+        assertEquals(600, fim.get("alterados").asLong());
+        assertEquals(1, fim.get("semAlteracao").asLong());
+        assertEquals(1, fim.get("invalidos").asLong());
+        assertEquals(1, fim.get("naoEncontrados").asLong());
+        assertTrue(fim.get("eventosPublicados").asInt() >= 600);
+        assertEquals(StatusPedido.CANCELADO, pedidoRepository.findById(ids.get(599)).orElseThrow().getStatus());
+        assertEquals(StatusPedido.EM_TRANSITO, pedidoRepository.findById(emTransito.getId()).orElseThrow().getStatus());
+        assertEquals(ESTOQUE_INICIAL - 3, estoqueAtual());
+    }
+
+    @Test
+    @DisplayName("Cancelar por filtro deve alterar só os pedidos no status e período informados")
+    void deveCancelarPorFiltro() throws Exception {
+        // Arrange: pedidos levados para um dia antigo que nenhum outro teste usa
+        LocalDate dia = LocalDate.of(2001, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(3000));
+        List<Pedido> noPeriodo = List.of(criarPedido(1), criarPedido(2), criarPedido(3));
+        Pedido pago = criarPedido(4);
+        alterarStatus(pago, StatusPedido.PAGAMENTO_COM_SUCESSO);
+        Pedido foraDoPeriodo = criarPedido(5);
+        for (Pedido pedido : List.of(noPeriodo.get(0), noPeriodo.get(1), noPeriodo.get(2), pago)) {
+            jdbcTemplate.update("update tb_pedido set data_pedido = ? where id_pedido = ?",
+                dia.atTime(12, 0), pedido.getId());
+        }
+
+        AlterarStatusLoteRequest request = new AlterarStatusLoteRequest();
+        request.setStatus(StatusPedido.CANCELADO);
+        request.setStatusAtual(StatusPedido.AGUARDANDO_PAGAMENTO);
+        request.setDataInicio(dia);
+        request.setDataFim(dia);
+
+        // Act
+        List<JsonNode> linhas = executar(request);
+
+        // Assert
+        JsonNode fim = linhas.get(linhas.size() - 1);
+        assertEquals(3, fim.get("total").asLong());
+        assertEquals(3, fim.get("alterados").asLong());
+        for (Pedido pedido : noPeriodo) {
+            assertEquals(StatusPedido.CANCELADO, pedidoRepository.findById(pedido.getId()).orElseThrow().getStatus());
+        }
+        assertEquals(StatusPedido.PAGAMENTO_COM_SUCESSO, pedidoRepository.findById(pago.getId()).orElseThrow().getStatus());
+        assertEquals(StatusPedido.AGUARDANDO_PAGAMENTO,
+            pedidoRepository.findById(foraDoPeriodo.getId()).orElseThrow().getStatus());
+        assertEquals(ESTOQUE_INICIAL - 9, estoqueAtual());
+    }
+
+    @Test
+    @DisplayName("Pedido sem seleção, com ids e filtro juntos ou com transição inválida deve ser recusado")
+    void deveRecusarRequisicaoInvalida() {
+        // Arrange
+        AlterarStatusLoteRequest semSelecao = new AlterarStatusLoteRequest();
+        semSelecao.setStatus(StatusPedido.CANCELADO);
+        AlterarStatusLoteRequest idsEFiltro = new AlterarStatusLoteRequest();
+        idsEFiltro.setStatus(StatusPedido.CANCELADO);
+        idsEFiltro.setIds(List.of(1L));
+        idsEFiltro.setStatusAtual(StatusPedido.AGUARDANDO_PAGAMENTO);
+        AlterarStatusLoteRequest transicaoInvalida = new AlterarStatusLoteRequest();
+        transicaoInvalida.setStatus(StatusPedido.ENTREGUE);
+        transicaoInvalida.setStatusAtual(StatusPedido.AGUARDANDO_PAGAMENTO);
+        transicaoInvalida.setDataInicio(LocalDate.now());
+        transicaoInvalida.setDataFim(LocalDate.now());
+
+        // Act + Assert
+        assertEquals(400, pedidoController.alterarStatusEmLote(new AlterarStatusLoteRequest()).getStatusCode().value());
+        assertEquals(400, pedidoController.alterarStatusEmLote(semSelecao).getStatusCode().value());
+        assertEquals(400, pedidoController.alterarStatusEmLote(idsEFiltro).getStatusCode().value());
+        assertEquals(409, pedidoController.alterarStatusEmLote(transicaoInvalida).getStatusCode().value());
+    }
+
+    private List<JsonNode> executar(AlterarStatusLoteRequest request) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = pedidoController.alterarStatusEmLote(request);
+        assertEquals(200, response.getStatusCode().value());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        response.getBody().writeTo(saida);
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : saida.toString(StandardCharsets.UTF_8).split("\n")) {
+            linhas.add(objectMapper.readTree(linha));
+        }
+        return linhas;
+    }
+
+    private int estoqueAtual() {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private void alterarStatus(Pedido pedido, StatusPedido status) {
+        AtualizarStatusRequest request = new AtualizarStatusRequest();
+        request.setStatus(status);
+        assertEquals(200, pedidoController.alterarStatusPedido(pedido.getId(), request).getStatusCode().value());
+    }
+
+    private Pedido criarPedido(int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+        assertEquals(201, response.getStatusCode().value());
+        return (Pedido) response.getBody();
+    }
+}
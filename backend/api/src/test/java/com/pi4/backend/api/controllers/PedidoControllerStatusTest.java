@@ -0,0 +1,184 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.AtualizarStatusRequest;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.PedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.EventosPedidoService;
+
+@SpringBootTest
+@DisplayName("Testes da máquina de estados do pedido e da devolução de estoque pela outbox")
+class PedidoControllerStatusTest {
+
+    private static final int ESTOQUE_INICIAL = 20;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private EventosPedidoService eventosPedidoService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Status");
+
+        produto = DadosTeste.produto(produtoRepository, "Produto Status " + sufixo, ESTOQUE_INICIAL);
+    }
+
+    @Test
+    @DisplayName("Transição fora da máquina de estados deve retornar 409 sem alterar o pedido")
+    void deveRecusarTransicaoInvalida() {
+        // Arrange
+        Pedido pedido = criarPedido(2);
+
+        // Act
+        ResponseEntity<?> response = alterarStatus(pedido.getId(), StatusPedido.ENTREGUE);
+
+        // Assert
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals("Transição de status inválida: AGUARDANDO_PAGAMENTO -> ENTREGUE", response.getBody());
+        assertEquals(StatusPedido.AGUARDANDO_PAGAMENTO,
+            pedidoRepository.findById(pedido.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Transição válida deve retornar o status anterior e os próximos permitidos")
+    @SuppressWarnings("unchecked")
+    void deveAlterarStatusValido() {
+        // Arrange
+        Pedido pedido = criarPedido(1);
+
+        // Act
+        ResponseEntity<?> response = alterarStatus(pedido.getId(), StatusPedido.PAGAMENTO_COM_SUCESSO);
+        ResponseEntity<?> inexistente = alterarStatus(Long.MAX_VALUE, StatusPedido.CANCELADO);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        Map<String, Object> corpo = (Map<String, Object>) response.getBody();
+        assertEquals(StatusPedido.AGUARDANDO_PAGAMENTO, corpo.get("statusAnterior"));
+        assertEquals(StatusPedido.PAGAMENTO_COM_SUCESSO, corpo.get("status"));
+        assertEquals(StatusPedido.PAGAMENTO_COM_SUCESSO.getProximos(), corpo.get("proximosStatus"));
+        assertEquals(404, inexistente.getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Cancelar deve devolver o estoque uma única vez, mesmo repetido")
+    void cancelamentoDeveDevolverEstoqueUmaVez() {
+        // Arrange
+        Pedido pedido = criarPedido(4);
+        assertEquals(ESTOQUE_INICIAL - 4, estoqueAtual());
+
+        // Act
+        ResponseEntity<?> primeiro = alterarStatus(pedido.getId(), StatusPedido.CANCELADO);
+        eventosPedidoService.publicarPendentes();
+        ResponseEntity<?> repetido = alterarStatus(pedido.getId(), StatusPedido.CANCELADO);
+        eventosPedidoService.publicarPendentes();
+
+        // Assert
+        assertEquals(200, primeiro.getStatusCode().value());
+        assertEquals(200, repetido.getStatusCode().value());
+        assertEquals(ESTOQUE_INICIAL, estoqueAtual());
+    }
+
+    @Test
+    @DisplayName("Cancelamentos simultâneos do mesmo pedido devem devolver o estoque uma única vez")
+    void cancelamentosSimultaneosDevemDevolverUmaVez() throws Exception {
+        // Arrange
+        Pedido pedido = criarPedido(3);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> respostas = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 16; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return alterarStatus(pedido.getId(), StatusPedido.CANCELADO);
+            }));
+        }
+        largada.countDown();
+        int alterados = 0;
+        for (Future<ResponseEntity<?>> f : respostas) {
+            ResponseEntity<?> response = f.get(30, TimeUnit.SECONDS);
+            if (response.getStatusCode().value() == 200
+                    && ((Map<?, ?>) response.getBody()).get("statusAnterior") == StatusPedido.AGUARDANDO_PAGAMENTO) {
+                alterados++;
+            }
+        }
+        executor.shutdown();
+        eventosPedidoService.publicarPendentes();
+
+        // Assert
+        assertEquals(1, alterados);
+        assertEquals(ESTOQUE_INICIAL, estoqueAtual());
+    }
+
+    private int estoqueAtual() {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private ResponseEntity<?> alterarStatus(Long pedidoId, StatusPedido status) {
+        AtualizarStatusRequest request = new AtualizarStatusRequest();
+        request.setStatus(status);
+        return pedidoController.alterarStatusPedido(pedidoId, request);
+    }
+
+    private Pedido criarPedido(int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+        assertEquals(201, response.getStatusCode().value());
+        return (Pedido) response.getBody();
+    }
+}
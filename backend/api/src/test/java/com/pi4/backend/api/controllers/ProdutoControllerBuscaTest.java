@@ -0,0 +1,128 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.dto.PaginaCursor;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.BuscaProdutoService;
+
+// Blocos de 4 ids: com 11 resultados a busca passa pela junção de blocos
+@SpringBootTest(properties = "produtos.busca.ids-por-consulta=4")
+@DisplayName("Testes da busca de produtos com mais resultados do que cabem numa consulta")
+class ProdutoControllerBuscaTest {
+
+    private static final int RESULTADOS = 11;
+    // Datas no futuro: os registros do teste ficam à frente de qualquer outro no banco compartilhado
+    private static final LocalDateTime BASE = LocalDateTime.of(2100, 6, 1, 12, 0);
+
+    @Autowired
+    private ProdutoController produtoController;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private BuscaProdutoService busca;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String termo;
+    private List<Produto> encontrados;
+
+    @BeforeEach
+    void setUp() {
+        termo = "zq" + DadosTeste.sufixo();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < RESULTADOS; i++) {
+            // Termo só no começo de uma palavra da descrição; preços repetidos para desempatar pelo id
+            ids.add(inserir("Busca " + i, "Item " + termo + "extra", new BigDecimal((i * 7 % 5) + ".00"), i % 3 != 0,
+                BASE.plusMinutes(i / 2)));
+        }
+        // Contém o termo no meio do nome: o LIKE do banco casaria, o índice (prefixo de palavra) não
+        ids.add(inserir("x" + termo, "Fora da busca", new BigDecimal("1.00"), true, BASE));
+        produtoRepository.findAllById(ids).forEach(busca::indexar);
+        encontrados = produtoRepository.findAllById(ids.subList(0, RESULTADOS));
+    }
+
+    @Test
+    @DisplayName("Página de uma busca grande deve sair da junção dos blocos na ordenação pedida, com o total certo")
+    void devePaginarBuscaEmBlocos() {
+        // Arrange
+        List<Produto> ativosPorPreco = encontrados.stream()
+            .filter(Produto::getStatus)
+            .sorted(Comparator.comparing(Produto::getPreco).thenComparing(Produto::getId))
+            .toList();
+
+        // Act
+        Page<Produto> segunda = produtoController.listar(termo, 1, 3, true, "preco,asc").getBody();
+        Page<Produto> todos = produtoController.listar(termo, 0, 100, null, null).getBody();
+
+        // Assert
+        assertEquals(ativosPorPreco.size(), segunda.getTotalElements());
+        assertEquals(ids(ativosPorPreco.subList(3, 6)), ids(segunda.getContent()));
+        assertEquals(RESULTADOS, todos.getTotalElements());
+        assertEquals(ids(encontrados.stream()
+            .sorted(Comparator.comparing(Produto::getDataCriacao).reversed().thenComparing(Produto::getId))
+            .toList()), ids(todos.getContent()));
+    }
+
+    @Test
+    @DisplayName("Cursor sobre uma busca grande deve percorrer todos os resultados uma vez, do mais novo ao mais antigo")
+    void devePercorrerBuscaEmBlocosPorCursor() {
+        // Arrange
+        List<Integer> esperado = ids(encontrados.stream()
+            .sorted(Comparator.comparing(Produto::getDataCriacao).thenComparing(Produto::getId).reversed())
+            .toList());
+
+        // Act
+        List<Produto> percorridos = new ArrayList<>();
+        String cursor = "";
+        PaginaCursor<Produto> pagina;
+        do {
+            pagina = pagina(cursor);
+            percorridos.addAll(pagina.getConteudo());
+            cursor = pagina.getProximoCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(esperado, ids(percorridos));
+        assertNull(pagina.getProximoCursor());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PaginaCursor<Produto> pagina(String cursor) {
+        ResponseEntity<?> response = produtoController.listarPorCursor(termo, 4, null, null, cursor);
+        assertEquals(200, response.getStatusCode().value());
+        return (PaginaCursor<Produto>) response.getBody();
+    }
+
+    private Integer inserir(String nome, String descricao, BigDecimal preco, boolean status, LocalDateTime data) {
+        jdbcTemplate.update(
+            "insert into tb_produto (nome, descricao, preco, qtd_estoque, status, data_criacao) values (?, ?, ?, ?, ?, ?)",
+            nome, descricao, preco, 5, status, Timestamp.valueOf(data));
+        return jdbcTemplate.queryForObject("select max(id_produto) from tb_produto where nome = ?", Integer.class, nome);
+    }
+
+    private static List<Integer> ids(List<Produto> produtos) {
+        return produtos.stream().map(Produto::getId).toList();
+    }
+}
@@ -16,7 +16,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -31,6 +30,9 @@ import org.springframework.http.ResponseEntity;
 
 import com.pi4.backend.api.entities.Produto;
 import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.BuscaProdutoService;
+import com.pi4.backend.api.services.CatalogoCacheService;
+import com.pi4.backend.api.services.EstatisticasProdutoService;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Testes do ProdutoController")
@@ -39,18 +41,26 @@ class ProdutoControllerTest {
     @Mock
     private ProdutoRepository produtoRepository;
 
-    @InjectMocks
+    @Mock
+    private EstatisticasProdutoService estatisticas;
+
+    @Mock
+    private BuscaProdutoService busca;
+
     private ProdutoController produtoController;
 
     private Produto produto;
 
     @BeforeEach
     void setUp() {
+        // Cache de verdade (vazio a cada teste); índice de busca ainda não pronto: busca por nome no banco
+        produtoController = new ProdutoController(produtoRepository, new CatalogoCacheService(100, 60),
+            estatisticas, busca, 10000);
         produto = new Produto();
         try {
             Field idField = Produto.class.getDeclaredField("id");
             idField.setAccessible(true);
-            idField.set(produto, 1L);
+            idField.set(produto, 1);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -116,25 +126,25 @@ class ProdutoControllerTest {
     @DisplayName("Deve buscar produto por ID com sucesso")
     void deveBuscarProdutoPorIdComSucesso() {
         // Arrange
-        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(produtoRepository.findById(1)).thenReturn(Optional.of(produto));
 
         // Act
-        ResponseEntity<Produto> response = produtoController.buscarPorId(1L);
+        ResponseEntity<Produto> response = produtoController.buscarPorId(1);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        verify(produtoRepository, times(1)).findById(1L);
+        verify(produtoRepository, times(1)).findById(1);
     }
 
     @Test
     @DisplayName("Deve retornar 404 quando produto não encontrado")
     void deveRetornar404QuandoProdutoNaoEncontrado() {
         // Arrange
-        when(produtoRepository.findById(999L)).thenReturn(Optional.empty());
+        when(produtoRepository.findById(999)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<Produto> response = produtoController.buscarPorId(999L);
+        ResponseEntity<Produto> response = produtoController.buscarPorId(999);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -226,4 +236,23 @@ class ProdutoControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         verify(produtoRepository, never()).save(any(Produto.class));
     }
+
+    @Test
+    @DisplayName("Não deve alterar o produto quando a atualização é rejeitada")
+    void naoDeveAlterarProdutoQuandoAtualizacaoRejeitada() {
+        // Arrange
+        when(produtoRepository.findById(1)).thenReturn(Optional.of(produto));
+        Produto alteracao = new Produto();
+        alteracao.setDescricao("Descrição nova");
+        alteracao.setAvaliacao(new BigDecimal("4.3")); // Fora do passo de 0.5
+
+        // Act
+        ResponseEntity<Produto> response = produtoController.atualizar(1, alteracao);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Mouse gamer RGB", produto.getDescricao());
+        assertEquals(new BigDecimal("4.5"), produto.getAvaliacao());
+        verify(produtoRepository, never()).save(any(Produto.class));
+    }
 }
@@ -0,0 +1,139 @@
+package com.pi4.backend.api.controllers;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.entities.ProdutoImagem;
+import com.pi4.backend.api.entities.ProdutoImagem.StatusVariantes;
+import com.pi4.backend.api.repositories.ProdutoImagemRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.ImagemStorageService;
+
+@SpringBootTest(properties = "imagem.diretorio=target/test-uploads")
+@DisplayName("Testes do upload de imagens com variantes em segundo plano")
+class ProdutoImagemControllerVariantesTest {
+
+    @Autowired
+    private ProdutoImagemController produtoImagemController;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ProdutoImagemRepository imagemRepository;
+
+    @Autowired
+    private ImagemStorageService storageService;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = DadosTeste.produto(produtoRepository, "Produto Imagem", 1);
+    }
+
+    @Test
+    @DisplayName("Upload deve responder com variantes pendentes e gerá-las em segundo plano")
+    void deveGerarVariantesEmSegundoPlano() throws Exception {
+        // Arrange
+        MultipartFile foto = new MockMultipartFile("files", "foto.jpg", "image/jpeg", imagem(2000, 1000, "jpg"));
+
+        // Act
+        ResponseEntity<?> response = produtoImagemController.upload(produto.getId(), List.of(foto), null);
+        ProdutoImagem salva = primeira(response);
+        ProdutoImagem pronta = aguardarVariantes(salva.getId());
+
+        // Assert
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals(StatusVariantes.PENDENTE, salva.getStatusVariantes());
+        assertEquals(64, salva.getHashConteudo().length());
+        assertEquals(StatusVariantes.PRONTAS, pronta.getStatusVariantes());
+        assertEquals(160, largura(pronta, pronta.getArquivoMiniatura()));
+        assertEquals(480, largura(pronta, pronta.getArquivoListagem()));
+        assertEquals(1200, largura(pronta, pronta.getArquivoZoom()));
+        assertEquals(600, altura(pronta, pronta.getArquivoZoom()));
+    }
+
+    @Test
+    @DisplayName("Imagem pequena deve usar o original como variante e reenvio deve devolver a mesma imagem")
+    void deveReaproveitarOriginalPequenoEConteudoRepetido() throws Exception {
+        // Arrange
+        byte[] png = imagem(120, 80, "png");
+
+        // Act
+        ProdutoImagem primeira = primeira(produtoImagemController.upload(produto.getId(),
+            List.of(new MockMultipartFile("files", "icone.png", "image/png", png)), null));
+        ProdutoImagem repetida = primeira(produtoImagemController.upload(produto.getId(),
+            List.of(new MockMultipartFile("files", "copia.png", "image/png", png)), null));
+        ProdutoImagem pronta = aguardarVariantes(primeira.getId());
+
+        // Assert
+        assertEquals(primeira.getId(), repetida.getId());
+        assertEquals(pronta.getNomeArquivo(), pronta.getArquivoMiniatura());
+        assertEquals(pronta.getNomeArquivo(), pronta.getArquivoZoom());
+        assertEquals(1, imagemRepository.findAll().stream()
+            .filter(i -> i.getProduto().getId().equals(produto.getId())).count());
+    }
+
+    private static ProdutoImagem primeira(ResponseEntity<?> response) {
+        @SuppressWarnings("unchecked")
+        List<ProdutoImagem> salvas = (List<ProdutoImagem>) response.getBody();
+        assertNotNull(salvas);
+        return salvas.get(0);
+    }
+
+    private ProdutoImagem aguardarVariantes(Long id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        ProdutoImagem imagem = imagemRepository.findById(id).orElseThrow();
+        while (imagem.getStatusVariantes() == StatusVariantes.PENDENTE && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+            imagem = imagemRepository.findById(id).orElseThrow();
+        }
+        return imagem;
+    }
+
+    private int largura(ProdutoImagem imagem, String arquivo) throws Exception {
+        return ler(imagem, arquivo).getWidth();
+    }
+
+    private int altura(ProdutoImagem imagem, String arquivo) throws Exception {
+        return ler(imagem, arquivo).getHeight();
+    }
+
+    private BufferedImage ler(ProdutoImagem imagem, String arquivo) throws Exception {
+        Path path = storageService.resolver(imagem.getDiretorio(), arquivo);
+        return ImageIO.read(path.toFile());
+    }
+
+    private static byte[] imagem(int largura, int altura, String formato) throws Exception {
+        BufferedImage img = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new Color((int) (Math.random() * 0xFFFFFF)));
+        g.fillRect(0, 0, largura, altura);
+        g.setColor(Color.BLACK);
+        g.drawLine(0, 0, largura, altura);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, formato, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,194 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController.AtualizarStatusRequest;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes dos relatórios de vendas servidos pelos rollups diários")
+class RelatorioControllerTest {
+
+    @Autowired
+    private RelatorioController relatorioController;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+    private Produto produto;
+    private LocalDate hoje;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Relatório");
+
+        produto = DadosTeste.produto(produtoRepository, "Produto Relatório " + sufixo, new BigDecimal("80.00"), 1000);
+
+        // Pedidos gravados direto no banco por outros testes não passam pelos rollups: parte de um dia consistente
+        hoje = LocalDate.now();
+        relatorioController.reconstruir(hoje, hoje);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_item_pedido where id_pedido in "
+            + "(select id_pedido from tb_pedido where id_cliente = ?)", cliente.getId());
+        jdbcTemplate.update("delete from tb_pedido where id_cliente = ?", cliente.getId());
+        relatorioController.reconstruir(hoje, hoje);
+    }
+
+    @Test
+    @DisplayName("Criar e cancelar pedidos deve atualizar vendas por status e por produto")
+    void deveAtualizarRollupsIncrementalmente() {
+        // Arrange
+        Map<String, Object> antes = resumoDeHoje();
+        long aguardandoAntes = pedidosNoStatus(antes, "AGUARDANDO_PAGAMENTO");
+        long canceladosAntes = pedidosNoStatus(antes, "CANCELADO");
+
+        // Act
+        Pedido primeiro = criarPedido(20);
+        Pedido segundo = criarPedido(30);
+        Map<String, Object> aposCriar = resumoDeHoje();
+        Map<String, Object> vendidoAposCriar = vendasDoProduto();
+        alterarStatus(segundo, Pedido.StatusPedido.CANCELADO);
+        Map<String, Object> aposCancelar = resumoDeHoje();
+        Map<String, Object> vendidoAposCancelar = vendasDoProduto();
+
+        // Assert
+        assertEquals(aguardandoAntes + 2, pedidosNoStatus(aposCriar, "AGUARDANDO_PAGAMENTO"));
+        assertEquals(50L, vendidoAposCriar.get("quantidade"));
+        assertEquals(0, new BigDecimal("4000.00").compareTo((BigDecimal) vendidoAposCriar.get("receita")));
+        assertEquals(aguardandoAntes + 1, pedidosNoStatus(aposCancelar, "AGUARDANDO_PAGAMENTO"));
+        assertEquals(canceladosAntes + 1, pedidosNoStatus(aposCancelar, "CANCELADO"));
+        assertEquals(20L, vendidoAposCancelar.get("quantidade"));
+        assertEquals(0, ((BigDecimal) aposCriar.get("totalVendas")).subtract(segundo.getValorTotal())
+            .compareTo((BigDecimal) aposCancelar.get("totalVendas")));
+        assertEquals(0, ((BigDecimal) antes.get("totalVendas")).add(primeiro.getValorTotal())
+            .compareTo((BigDecimal) aposCancelar.get("totalVendas")));
+    }
+
+    @Test
+    @DisplayName("Reconstrução a partir dos pedidos deve reproduzir os totais incrementais")
+    void reconstrucaoDeveReproduzirTotaisIncrementais() {
+        // Arrange
+        Pedido pago = criarPedido(5);
+        Pedido cancelado = criarPedido(7);
+        Pedido reenviado = criarPedido(9);
+        alterarStatus(pago, Pedido.StatusPedido.PAGAMENTO_COM_SUCESSO);
+        alterarStatus(pago, Pedido.StatusPedido.EM_TRANSITO);
+        alterarStatus(cancelado, Pedido.StatusPedido.CANCELADO);
+        alterarStatus(reenviado, Pedido.StatusPedido.PAGAMENTO_REJEITADO);
+        alterarStatus(reenviado, Pedido.StatusPedido.AGUARDANDO_PAGAMENTO);
+        Map<String, Object> incremental = resumoDeHoje();
+        Object maisVendidosIncremental = relatorioController.produtosMaisVendidos(hoje, hoje, 100).getBody();
+
+        // Act
+        ResponseEntity<?> reconstrucao = relatorioController.reconstruir(hoje, hoje);
+
+        // Assert
+        assertEquals(200, reconstrucao.getStatusCode().value());
+        assertEquals(incremental, resumoDeHoje());
+        assertEquals(maisVendidosIncremental, relatorioController.produtosMaisVendidos(hoje, hoje, 100).getBody());
+        assertEquals(14L, vendasDoProduto().get("quantidade"));
+    }
+
+    @Test
+    @DisplayName("Período invertido, janela desconhecida ou limite fora da faixa deve retornar 400")
+    void deveRecusarParametrosInvalidos() {
+        // Act
+        ResponseEntity<?> periodoInvertido = relatorioController.vendas(hoje, hoje.minusDays(1));
+        ResponseEntity<?> limiteZero = relatorioController.produtosMaisVendidos(hoje, hoje, 0);
+        ResponseEntity<?> reconstrucaoSemFim = relatorioController.reconstruir(hoje, null);
+        ResponseEntity<?> janelaInvalida = relatorioController.trending("mes", 10);
+
+        // Assert
+        assertEquals(400, periodoInvertido.getStatusCode().value());
+        assertEquals(400, limiteZero.getStatusCode().value());
+        assertEquals(400, reconstrucaoSemFim.getStatusCode().value());
+        assertEquals(400, janelaInvalida.getStatusCode().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> resumoDeHoje() {
+        ResponseEntity<?> response = relatorioController.vendas(hoje, hoje);
+        assertEquals(200, response.getStatusCode().value());
+        return (Map<String, Object>) response.getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private long pedidosNoStatus(Map<String, Object> resumo, String status) {
+        Map<String, Object> info = (Map<String, Object>) ((Map<String, Object>) resumo.get("porStatus")).get(status);
+        return info == null ? 0 : (Long) info.get("pedidos");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> vendasDoProduto() {
+        List<Map<String, Object>> produtos = (List<Map<String, Object>>)
+            relatorioController.produtosMaisVendidos(hoje, hoje, 100).getBody();
+        Map<String, Object> vendas = produtos.stream()
+            .filter(p -> produto.getId().equals(p.get("produtoId")))
+            .findFirst().orElse(null);
+        assertTrue(vendas != null, "produto deveria estar entre os mais vendidos do dia");
+        return vendas;
+    }
+
+    private Pedido criarPedido(int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+        assertEquals(201, response.getStatusCode().value());
+        return (Pedido) response.getBody();
+    }
+
+    private void alterarStatus(Pedido pedido, Pedido.StatusPedido status) {
+        AtualizarStatusRequest request = new AtualizarStatusRequest();
+        request.setStatus(status);
+        assertEquals(200, pedidoController.alterarStatusPedido(pedido.getId(), request).getStatusCode().value());
+    }
+}
@@ -0,0 +1,272 @@
+package com.pi4.backend.api.controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.CheckoutController.CheckoutRequest;
+import com.pi4.backend.api.controllers.CheckoutController.CheckoutResponse;
+import com.pi4.backend.api.controllers.CheckoutController.ItemCarrinho;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.ItemPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+import com.pi4.backend.api.services.MetricasService;
+
+@SpringBootTest
+@DisplayName("Testes da sessão de checkout resgatada na criação do pedido")
+class SessaoCheckoutTest {
+
+    private static final int ESTOQUE_INICIAL = 100;
+    private static final String CEP = "01001000";
+
+    @Autowired
+    private CheckoutController checkoutController;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private ProdutoController produtoController;
+
+    @Autowired
+    private MetricasService metricasService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Cliente cliente;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        String sufixo = DadosTeste.sufixo();
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Sessão");
+
+        produtos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            produtos.add(DadosTeste.produto(produtoRepository, "Produto Sessão " + sufixo + " " + i, ESTOQUE_INICIAL));
+        }
+    }
+
+    @Test
+    @DisplayName("Pedido pela sessão deve usar os preços cotados e gastar menos comandos SQL que o fluxo sem sessão")
+    void deveCriarPedidoPelaSessaoComMenosComandos() {
+        // Arrange: aquece caches e blocos de ids
+        criarSemSessao();
+        criarPelaSessao(iniciar().getSessaoCheckoutId());
+
+        // Act
+        int semSessao = comandos(this::criarSemSessao);
+        int comSessao = comandos(() -> criarPelaSessao(iniciar().getSessaoCheckoutId()));
+        CheckoutResponse checkout = iniciar();
+        CriarPedidoRequest request = requisicao(checkout.getSessaoCheckoutId());
+        request.setItens(itens(new BigDecimal("0.01"))); // preço enviado pelo front não vale com sessão
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+
+        // Assert: sem sessão o cliente é lido de novo no /finalizar e no pedido
+        assertTrue(comSessao + 2 <= semSessao, "com sessão: " + comSessao + " comandos, sem sessão: " + semSessao);
+        assertEquals(201, response.getStatusCode().value());
+        Pedido pedido = (Pedido) response.getBody();
+        assertEquals(0, checkout.getSubtotal().compareTo(pedido.getSubtotal()));
+        assertEquals(0, checkout.getValorFrete().compareTo(pedido.getValorFrete()));
+        for (ItemPedido item : pedido.getItens()) {
+            assertEquals(0, new BigDecimal("10.00").compareTo(item.getPrecoUnitario()));
+        }
+        assertEquals(ESTOQUE_INICIAL - 5, estoqueAtual(produtos.get(0)));
+    }
+
+    @Test
+    @DisplayName("Produto editado após a sessão só deve recusar o pedido se o preço mudou")
+    void deveConferirSoOsProdutosAlterados() {
+        // Arrange
+        String comPrecoNovo = iniciar().getSessaoCheckoutId();
+        String comDescricaoNova = iniciar().getSessaoCheckoutId();
+        Produto alterado = produtos.get(1);
+
+        // Act
+        editar(alterado, null, "Descrição revisada");
+        ResponseEntity<?> aceito = pedidoController.criarPedido(requisicao(comDescricaoNova), null);
+        editar(alterado, new BigDecimal("12.50"), null);
+        ResponseEntity<?> recusado = pedidoController.criarPedido(requisicao(comPrecoNovo), null);
+
+        // Assert
+        assertEquals(201, aceito.getStatusCode().value());
+        assertEquals(409, recusado.getStatusCode().value());
+        assertEquals("Preço alterado desde o checkout: " + alterado.getNome(), recusado.getBody());
+        for (Produto produto : produtos) {
+            assertEquals(ESTOQUE_INICIAL - 1, estoqueAtual(produto), "débitos do pedido recusado devem ser desfeitos");
+        }
+    }
+
+    @Test
+    @DisplayName("Token adulterado, de outro cliente ou já usado deve ser recusado")
+    void deveRecusarTokenInvalido() {
+        // Arrange
+        String token = iniciar().getSessaoCheckoutId();
+        String adulterado = token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A");
+        CriarPedidoRequest outroCliente = requisicao(token);
+        outroCliente.setClienteId(cliente.getId() + 1);
+
+        // Act
+        ResponseEntity<?> comAdulterado = pedidoController.criarPedido(requisicao(adulterado), null);
+        ResponseEntity<?> deOutroCliente = pedidoController.criarPedido(outroCliente, null);
+        ResponseEntity<?> primeiroUso = pedidoController.criarPedido(requisicao(token), null);
+        ResponseEntity<?> segundoUso = pedidoController.criarPedido(requisicao(token), null);
+
+        // Assert
+        assertEquals(400, comAdulterado.getStatusCode().value());
+        assertEquals("Sessão de checkout inválida ou expirada", comAdulterado.getBody());
+        assertEquals(400, deOutroCliente.getStatusCode().value());
+        assertEquals(201, primeiroUso.getStatusCode().value());
+        assertEquals(400, segundoUso.getStatusCode().value());
+        assertEquals(ESTOQUE_INICIAL - 1, estoqueAtual(produtos.get(2)));
+    }
+
+    @Test
+    @DisplayName("Envios simultâneos do mesmo token devem gerar um pedido só, e pedido recusado deve devolver a sessão")
+    void deveResgatarASessaoUmaVezSo() throws Exception {
+        // Arrange
+        String token = iniciar().getSessaoCheckoutId();
+        CriarPedidoRequest divergente = requisicao(token);
+        divergente.setItens(itens(new BigDecimal("10.00")).subList(0, 1));
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> respostas = new ArrayList<>();
+
+        // Act
+        ResponseEntity<?> recusado = pedidoController.criarPedido(divergente, null);
+        for (int i = 0; i < 10; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return pedidoController.criarPedido(requisicao(token), null);
+            }));
+        }
+        largada.countDown();
+        int criados = 0;
+        for (Future<ResponseEntity<?>> resposta : respostas) {
+            int status = resposta.get().getStatusCode().value();
+            if (status == 201) criados++;
+            else assertEquals(400, status);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(400, recusado.getStatusCode().value());
+        assertEquals(1, criados);
+        for (Produto produto : produtos) {
+            assertEquals(ESTOQUE_INICIAL - 1, estoqueAtual(produto));
+        }
+    }
+
+    private int comandos(Runnable fluxo) {
+        metricasService.iniciarRequisicao();
+        try {
+            fluxo.run();
+            return metricasService.comandosSqlDaRequisicao();
+        } finally {
+            metricasService.encerrarRequisicao("TESTE", "/teste/checkout/sessao", 201, 0);
+        }
+    }
+
+    // Fluxo antigo: checkout, finalizar e pedido validam cliente e carrinho cada um por si
+    private void criarSemSessao() {
+        iniciar();
+        CheckoutRequest finalizar = checkout();
+        assertEquals(200, checkoutController.finalizarPedido(finalizar).getStatusCode().value());
+        CriarPedidoRequest request = requisicao(null);
+        request.setItens(itens(new BigDecimal("10.00")));
+        assertEquals(201, pedidoController.criarPedido(request, null).getStatusCode().value());
+    }
+
+    private void criarPelaSessao(String token) {
+        CheckoutRequest finalizar = checkout();
+        finalizar.setSessaoCheckoutId(token);
+        assertEquals(200, checkoutController.finalizarPedido(finalizar).getStatusCode().value());
+        assertEquals(201, pedidoController.criarPedido(requisicao(token), null).getStatusCode().value());
+    }
+
+    private CheckoutResponse iniciar() {
+        ResponseEntity<?> response = checkoutController.iniciarCheckout(checkout());
+        assertEquals(200, response.getStatusCode().value());
+        CheckoutResponse checkout = (CheckoutResponse) response.getBody();
+        assertNotNull(checkout.getSessaoCheckoutId());
+        return checkout;
+    }
+
+    private void editar(Produto produto, BigDecimal preco, String descricao) {
+        Produto alteracao = new Produto();
+        alteracao.setPreco(preco);
+        alteracao.setDescricao(descricao);
+        alteracao.setStatus(null);
+        alteracao.setQuantidadeEstoque(null);
+        assertEquals(200, produtoController.atualizar(produto.getId(), alteracao).getStatusCode().value());
+    }
+
+    private int estoqueAtual(Produto produto) {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private CheckoutRequest checkout() {
+        List<ItemCarrinho> itens = new ArrayList<>();
+        for (Produto produto : produtos) {
+            ItemCarrinho item = new ItemCarrinho();
+            item.setProdutoId(produto.getId().longValue());
+            item.setQuantidade(1);
+            item.setPrecoUnitario(produto.getPreco());
+            itens.add(item);
+        }
+        CheckoutRequest request = new CheckoutRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(itens);
+        request.setCepEntrega(CEP);
+        return request;
+    }
+
+    private List<ItemPedidoDto> itens(BigDecimal preco) {
+        List<ItemPedidoDto> itens = new ArrayList<>();
+        for (Produto produto : produtos) {
+            ItemPedidoDto item = new ItemPedidoDto();
+            item.setProdutoId(produto.getId());
+            item.setQuantidade(1);
+            item.setPrecoUnitario(preco);
+            itens.add(item);
+        }
+        return itens;
+    }
+
+    private CriarPedidoRequest requisicao(String sessaoCheckoutId) {
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setSessaoCheckoutId(sessaoCheckoutId);
+        request.setCepEntrega(CEP);
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        return request;
+    }
+}
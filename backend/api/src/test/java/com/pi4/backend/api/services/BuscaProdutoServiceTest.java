@@ -0,0 +1,126 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do BuscaProdutoService")
+class BuscaProdutoServiceTest {
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+
+    @InjectMocks
+    private BuscaProdutoService buscaProdutoService;
+
+    @BeforeEach
+    void setUp() {
+        when(produtoRepository.findDadosIndexacao()).thenReturn(List.of(
+            new Object[] {1, "Notebook Dell", "Notebook Dell com 16GB RAM e SSD 512GB"},
+            new Object[] {2, "Mouse Gamer", "Mouse gamer RGB com 6 botões programáveis"},
+            new Object[] {3, "Cadeira Escritório", "Cadeira ergonômica com ajuste de altura"},
+            new Object[] {4, "Teclado Mecânico Wooting 60HE", "Switches Hall Effect analógicos"}
+        ));
+        buscaProdutoService.reconstruir();
+    }
+
+    @Test
+    @DisplayName("Deve estar pronto após reconstruir a partir do banco")
+    void deveEstarProntoAposReconstruir() {
+        assertTrue(buscaProdutoService.isPronto());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar acentos e maiúsculas na consulta e no texto")
+    void deveIgnorarAcentos() {
+        assertEquals(List.of(3), buscaProdutoService.buscar("ESCRITORIO"));
+        assertEquals(List.of(3), buscaProdutoService.buscar("ergonômica"));
+        assertEquals(List.of(2), buscaProdutoService.buscar("botoes"));
+    }
+
+    @Test
+    @DisplayName("Deve casar termos por prefixo")
+    void deveCasarPorPrefixo() {
+        assertEquals(List.of(4), buscaProdutoService.buscar("tecl mec"));
+        assertEquals(List.of(1), buscaProdutoService.buscar("note"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar também na descrição")
+    void deveBuscarNaDescricao() {
+        assertEquals(List.of(2), buscaProdutoService.buscar("rgb"));
+    }
+
+    @Test
+    @DisplayName("Deve exigir que todos os termos casem")
+    void deveExigirTodosOsTermos() {
+        assertEquals(List.of(2), buscaProdutoService.buscar("gamer mouse"));
+        assertTrue(buscaProdutoService.buscar("mouse notebook").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar stopwords quando houver outros termos")
+    void deveIgnorarStopwords() {
+        assertEquals(List.of(3), buscaProdutoService.buscar("cadeira de escritório"));
+    }
+
+    @Test
+    @DisplayName("Deve reindexar produto alterado")
+    void deveReindexarProdutoAlterado() {
+        // Arrange
+        Produto produto = mock(Produto.class);
+        when(produto.getId()).thenReturn(2);
+        when(produto.getNome()).thenReturn("Mousepad Speed");
+        when(produto.getDescricao()).thenReturn("Superfície de tecido");
+
+        // Act
+        buscaProdutoService.indexar(produto);
+
+        // Assert
+        assertTrue(buscaProdutoService.buscar("gamer").isEmpty());
+        assertEquals(List.of(2), buscaProdutoService.buscar("mousepad"));
+        assertEquals(List.of(2), buscaProdutoService.buscar("superficie"));
+    }
+
+    @Test
+    @DisplayName("Deve remover produto do índice")
+    void deveRemoverProduto() {
+        // Act
+        buscaProdutoService.remover(1);
+
+        // Assert
+        assertTrue(buscaProdutoService.buscar("notebook").isEmpty());
+        assertFalse(buscaProdutoService.buscar("com").contains(1));
+    }
+
+    @Test
+    @DisplayName("Não deve indexar produto sem id")
+    void naoDeveIndexarProdutoSemId() {
+        // Arrange
+        Produto produto = new Produto();
+        produto.setNome("Monitor");
+        produto.setPreco(new BigDecimal("10.00"));
+
+        // Act
+        buscaProdutoService.indexar(produto);
+
+        // Assert
+        assertTrue(buscaProdutoService.buscar("monitor").isEmpty());
+    }
+}
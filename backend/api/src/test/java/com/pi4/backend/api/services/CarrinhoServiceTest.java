@@ -0,0 +1,231 @@
+package com.pi4.backend.api.services;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.entities.CarrinhoItem;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.CarrinhoRepository;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@DisplayName("Testes do CarrinhoService (gravação posterior em lote)")
+class CarrinhoServiceTest {
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path walDiretorio;
+
+    private Cliente cliente;
+    private Produto produtoA;
+    private Produto produtoB;
+
+    @BeforeEach
+    void setUp() {
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Carrinho");
+        produtoA = DadosTeste.produto(produtoRepository, "Produto Carrinho A", 100);
+        produtoB = DadosTeste.produto(produtoRepository, "Produto Carrinho B", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_carrinho_item where id_cliente = ?", cliente.getId());
+    }
+
+    @Test
+    @DisplayName("Várias mudanças de quantidade devem virar um único UPDATE na gravação")
+    void deveAgruparAlteracoesNumaGravacao() {
+        // Arrange
+        CarrinhoService service = novoService(1_800_000, false);
+        CarrinhoService.Resultado novo = service.adicionar(cliente.getId(), produtoA.getId(), 1);
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Act
+        estatisticas.clear();
+        for (int i = 2; i <= 50; i++) {
+            service.atualizarQuantidade(cliente.getId(), produtoA.getId(), i);
+        }
+        long comandosAlteracoes = estatisticas.getPrepareStatementCount();
+        int quantidadeAntes = quantidadeNoBanco(produtoA.getId());
+        service.sincronizar(cliente.getId());
+        long comandosGravacao = estatisticas.getPrepareStatementCount() - comandosAlteracoes;
+
+        // Assert
+        assertTrue(novo.isNovo());
+        assertNotNull(novo.getItem().getId());
+        assertEquals(0, comandosAlteracoes);
+        assertEquals(1, quantidadeAntes);
+        assertEquals(1, comandosGravacao);
+        assertEquals(50, quantidadeNoBanco(produtoA.getId()));
+        assertEquals(50, service.contarItens(cliente.getId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Remoção e limpeza devem chegar ao banco na próxima gravação")
+    void deveGravarRemocaoELimpeza() {
+        // Arrange
+        CarrinhoService service = novoService(1_800_000, false);
+        service.adicionar(cliente.getId(), produtoA.getId(), 2);
+        service.adicionar(cliente.getId(), produtoB.getId(), 3);
+
+        // Act
+        service.remover(cliente.getId(), produtoA.getId());
+        service.gravarPendentes();
+        int linhasAposRemocao = linhasNoBanco();
+        service.limpar(cliente.getId());
+        service.gravarPendentes();
+
+        // Assert
+        assertEquals(1, linhasAposRemocao);
+        assertEquals(0, linhasNoBanco());
+        assertTrue(service.listar(cliente.getId()).orElseThrow().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Carrinho inativo deve ser gravado e descartado da memória")
+    void deveGravarEDescartarCarrinhoInativo() throws Exception {
+        // Arrange
+        CarrinhoService service = novoService(0, false);
+        service.adicionar(cliente.getId(), produtoA.getId(), 1);
+        service.atualizarQuantidade(cliente.getId(), produtoA.getId(), 4);
+        Thread.sleep(5);
+
+        // Act
+        service.gravarPendentes();
+
+        // Assert
+        assertEquals(0, service.carrinhosEmMemoria());
+        assertEquals(4, quantidadeNoBanco(produtoA.getId()));
+        List<CarrinhoItem> recarregado = service.listar(cliente.getId()).orElseThrow();
+        assertEquals(4, recarregado.get(0).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Limpeza após pedido só deve valer se a transação do pedido confirmar")
+    void deveLimparAposPedidoSomenteNoCommit() {
+        // Arrange
+        CarrinhoService service = novoService(1_800_000, false);
+        service.adicionar(cliente.getId(), produtoA.getId(), 2);
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+
+        // Act
+        transacao.executeWithoutResult(status -> {
+            service.limparAposPedido(cliente.getId());
+            status.setRollbackOnly();
+        });
+        int itensAposRollback = service.contarItens(cliente.getId()).orElseThrow();
+        transacao.executeWithoutResult(status -> service.limparAposPedido(cliente.getId()));
+
+        // Assert
+        assertEquals(2, itensAposRollback);
+        assertEquals(0, service.contarItens(cliente.getId()).orElseThrow());
+        assertEquals(0, linhasNoBanco());
+    }
+
+    @Test
+    @DisplayName("Alterações não gravadas devem ser recuperadas do log após uma queda")
+    void deveRecuperarAlteracoesDoLog() throws Exception {
+        // Arrange: instância "cai" sem gravar as alterações pendentes
+        CarrinhoService antes = novoService(1_800_000, true);
+        antes.adicionar(cliente.getId(), produtoA.getId(), 1);
+        antes.adicionar(cliente.getId(), produtoB.getId(), 1);
+        antes.atualizarQuantidade(cliente.getId(), produtoA.getId(), 7);
+        antes.remover(cliente.getId(), produtoB.getId());
+        int quantidadeNaQueda = quantidadeNoBanco(produtoA.getId());
+
+        // Act
+        CarrinhoService depois = novoService(1_800_000, true);
+        depois.recuperarWal();
+
+        // Assert
+        assertEquals(1, quantidadeNaQueda);
+        assertEquals(7, quantidadeNoBanco(produtoA.getId()));
+        assertEquals(1, linhasNoBanco());
+        try (var arquivos = Files.list(walDiretorio)) {
+            assertEquals(1, arquivos.count(), "só o segmento novo deve restar");
+        }
+    }
+
+    @Test
+    @DisplayName("Item novo que não chegou ao banco deve ser recusado e desfeito")
+    void deveDesfazerItemNovoNaoGravado() {
+        // Arrange
+        CarrinhoRepository instavel = mock(CarrinhoRepository.class, delegatesTo(carrinhoRepository));
+        doThrow(new DataAccessResourceFailureException("banco indisponível"))
+            .when(instavel).save(any(CarrinhoItem.class));
+        CarrinhoService service = new CarrinhoService(instavel, clienteRepository, produtoRepository, catalogoCache,
+            transactionManager, 1_800_000, 10_000, false, walDiretorio.toString());
+
+        // Act
+        CarrinhoService.Resultado resultado = service.adicionar(cliente.getId(), produtoA.getId(), 2);
+        service.sincronizar(cliente.getId());
+
+        // Assert
+        assertEquals(CarrinhoService.Situacao.FALHA_GRAVACAO, resultado.getSituacao());
+        assertEquals(0, service.contarItens(cliente.getId()).orElseThrow());
+        assertEquals(0, linhasNoBanco());
+    }
+
+    private CarrinhoService novoService(long inatividadeMs, boolean wal) {
+        return new CarrinhoService(carrinhoRepository, clienteRepository, produtoRepository, catalogoCache,
+            transactionManager, inatividadeMs, 10_000, wal, walDiretorio.toString());
+    }
+
+    private int quantidadeNoBanco(Integer produtoId) {
+        return jdbcTemplate.queryForObject(
+            "select quantidade from tb_carrinho_item where id_cliente = ? and id_produto = ?",
+            Integer.class, cliente.getId(), produtoId);
+    }
+
+    private int linhasNoBanco() {
+        return jdbcTemplate.queryForObject(
+            "select count(*) from tb_carrinho_item where id_cliente = ?", Integer.class, cliente.getId());
+    }
+}
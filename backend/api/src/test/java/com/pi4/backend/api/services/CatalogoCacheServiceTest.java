@@ -0,0 +1,146 @@
+package com.pi4.backend.api.services;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.pi4.backend.api.entities.Produto;
+
+@DisplayName("Testes do CatalogoCacheService")
+class CatalogoCacheServiceTest {
+
+    @Test
+    @DisplayName("Deve carregar uma vez e servir as leituras seguintes do cache")
+    void deveServirLeiturasDoCache() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 60);
+        AtomicInteger cargas = new AtomicInteger();
+        Produto produto = new Produto();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            cache.produto(1, () -> {
+                cargas.incrementAndGet();
+                return Optional.of(produto);
+            });
+        }
+
+        // Assert
+        assertEquals(1, cargas.get());
+        assertEquals(4L, cache.estatisticas().get("hits"));
+        assertEquals(1L, cache.estatisticas().get("misses"));
+    }
+
+    @Test
+    @DisplayName("Não deve guardar produto inexistente")
+    void naoDeveGuardarProdutoInexistente() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 60);
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.empty(); });
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.empty(); });
+
+        // Assert
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    @DisplayName("Deve invalidar produto e todas as consultas de listagem")
+    void deveInvalidarProdutoEConsultas() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 60);
+        AtomicInteger cargas = new AtomicInteger();
+        String chave = CatalogoCacheService.chaveConsulta("mouse", true, 0, 10, null);
+        cache.consulta(chave, () -> { cargas.incrementAndGet(); return List.of(); }, List::copyOf);
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.of(new Produto()); });
+
+        // Act
+        cache.invalidarProduto(1);
+        cache.consulta(chave, () -> { cargas.incrementAndGet(); return List.of(); }, List::copyOf);
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.of(new Produto()); });
+
+        // Assert
+        assertEquals(4, cargas.get());
+        assertEquals(1L, cache.estatisticas().get("invalidacoes"));
+    }
+
+    @Test
+    @DisplayName("Não deve gravar carga iniciada antes de uma invalidação")
+    void naoDeveGravarCargaAnteriorAInvalidacao() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 60);
+        Produto antigo = new Produto();
+        Produto novo = new Produto();
+
+        // Act - a invalidação acontece enquanto a carga está em andamento
+        cache.produto(1, () -> {
+            cache.invalidarProduto(1);
+            return Optional.of(antigo);
+        });
+        Produto lido = cache.produto(1, () -> Optional.of(novo)).orElseThrow();
+
+        // Assert
+        assertSame(novo, lido);
+    }
+
+    @Test
+    @DisplayName("Não deve compartilhar o produto em cache entre leitores")
+    void naoDeveCompartilharProdutoEntreLeitores() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 60);
+        Produto carregado = new Produto();
+        carregado.setNome("Mouse");
+        cache.produto(1, () -> Optional.of(carregado));
+
+        // Act - quem carregou e quem leu do cache alteram o que receberam
+        carregado.setNome("Alterado pela carga");
+        Produto lido = cache.produto(1, Optional::empty).orElseThrow();
+        lido.setNome("Alterado pelo leitor");
+        Produto relido = cache.produto(1, Optional::empty).orElseThrow();
+
+        // Assert
+        assertNotSame(lido, relido);
+        assertEquals("Mouse", relido.getNome());
+    }
+
+    @Test
+    @DisplayName("Deve expirar entradas após o TTL")
+    void deveExpirarEntradasAposTtl() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(100, 0);
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.of(new Produto()); });
+        cache.produto(1, () -> { cargas.incrementAndGet(); return Optional.of(new Produto()); });
+
+        // Assert
+        assertEquals(2, cargas.get());
+        assertTrue((Long) cache.estatisticas().get("evictions") >= 1);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o tamanho máximo removendo as entradas menos usadas")
+    void deveRespeitarTamanhoMaximo() {
+        // Arrange
+        CatalogoCacheService cache = new CatalogoCacheService(160, 60);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            cache.produto(i, () -> Optional.of(new Produto()));
+        }
+
+        // Assert
+        assertTrue((Integer) cache.estatisticas().get("produtosEmCache") <= 160);
+        assertTrue((Long) cache.estatisticas().get("evictions") >= 840);
+    }
+}
@@ -0,0 +1,141 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+@DisplayName("Testes do CotacaoFreteService")
+class CotacaoFreteServiceTest {
+
+    private final FreteServiceContado frete = new FreteServiceContado();
+
+    @Test
+    @DisplayName("Mesmo CEP e mesma faixa de valor devem reaproveitar a cotação")
+    void deveReaproveitarCotacaoDaMesmaChave() {
+        // Arrange
+        CotacaoFreteService service = new CotacaoFreteService(frete, 100, 60, new BigDecimal("50"));
+
+        // Act
+        CotacaoFreteService.Cotacao primeira = service.cotar("01001-000", new BigDecimal("120.00"));
+        CotacaoFreteService.Cotacao mesmaFaixa = service.cotar("01001000", new BigDecimal("149.99"));
+        CotacaoFreteService.Cotacao outraFaixa = service.cotar("01001000", new BigDecimal("150.00"));
+
+        // Assert
+        assertSame(primeira, mesmaFaixa);
+        assertNotEquals(primeira.getId(), outraFaixa.getId());
+        assertEquals(2, frete.chamadas.get());
+        assertEquals(1L, service.estatisticas().get("hits"));
+    }
+
+    @Test
+    @DisplayName("Cálculos simultâneos da mesma chave devem virar um só")
+    void deveCalcularUmaVezParaMissesSimultaneos() throws Exception {
+        // Arrange: o cálculo só termina depois que todas as threads pediram a cotação
+        int threads = 16;
+        CountDownLatch todosPediram = new CountDownLatch(threads);
+        frete.antesDeCalcular = () -> {
+            try {
+                todosPediram.await();
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CotacaoFreteService service = new CotacaoFreteService(frete, 100, 60, new BigDecimal("50"));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        List<Future<CotacaoFreteService.Cotacao>> futuros = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futuros.add(executor.submit(() -> {
+                todosPediram.countDown();
+                return service.cotar("20040020", BigDecimal.TEN);
+            }));
+        }
+        List<String> ids = new ArrayList<>();
+        for (Future<CotacaoFreteService.Cotacao> f : futuros) {
+            ids.add(f.get().getId());
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, frete.chamadas.get());
+        assertEquals(1, ids.stream().distinct().count());
+    }
+
+    @Test
+    @DisplayName("Recarregar a tabela de frete deve descartar as cotações antigas")
+    void deveRecalcularAposRecarregarTabela() {
+        // Arrange
+        CotacaoFreteService service = new CotacaoFreteService(frete, 100, 60, new BigDecimal("50"));
+        CotacaoFreteService.Cotacao antes = service.cotar("01001000", null);
+
+        // Act
+        frete.recarregar();
+        CotacaoFreteService.Cotacao depois = service.cotar("01001000", null);
+
+        // Assert
+        assertNotEquals(antes.getId(), depois.getId());
+        assertEquals(2, frete.chamadas.get());
+    }
+
+    @Test
+    @DisplayName("Resgate deve exigir id válido, mesmo CEP e cotação dentro do prazo")
+    void deveResgatarSomenteCotacaoValida() throws Exception {
+        // Arrange
+        CotacaoFreteService service = new CotacaoFreteService(frete, 100, 60, new BigDecimal("50"));
+        CotacaoFreteService.Cotacao cotacao = service.cotar("01001000", BigDecimal.ONE);
+        CotacaoFreteService expirando = new CotacaoFreteService(frete, 100, 0, new BigDecimal("50"));
+        CotacaoFreteService.Cotacao expirada = expirando.cotar("01001000", BigDecimal.ONE);
+
+        // Assert
+        assertSame(cotacao, service.resgatar(cotacao.getId(), "01001-000").orElseThrow());
+        assertTrue(service.resgatar(cotacao.getId(), "20040020").isEmpty());
+        assertTrue(service.resgatar("nao-existe", "01001000").isEmpty());
+        assertTrue(service.resgatar(null, "01001000").isEmpty());
+        assertTrue(expirando.resgatar(expirada.getId(), "01001000").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Cotação deve aceitar apenas valores das suas opções")
+    void deveConferirValorEscolhido() {
+        CotacaoFreteService service = new CotacaoFreteService(frete, 100, 60, new BigDecimal("50"));
+        CotacaoFreteService.Cotacao sp = service.cotar("01001000", null);
+
+        assertEquals(new BigDecimal("15.9"), sp.getValorPadrao());
+        assertTrue(sp.contemValor(new BigDecimal("29.90")));
+        assertTrue(sp.contemValor(BigDecimal.ZERO));
+        assertFalse(sp.contemValor(new BigDecimal("1.00")));
+    }
+
+    private static class FreteServiceContado extends FreteService {
+        final AtomicInteger chamadas = new AtomicInteger();
+        volatile Runnable antesDeCalcular = () -> { };
+
+        FreteServiceContado() {
+            super(new DefaultResourceLoader(), "classpath:frete/tabela-frete.csv");
+        }
+
+        @Override
+        public Map<String, Double> calcularFretePorCep(String cep) {
+            chamadas.incrementAndGet();
+            antesDeCalcular.run();
+            return super.calcularFretePorCep(cep);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.pi4.backend.api.services;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@DisplayName("Testes do EntregaImagemService")
+class EntregaImagemServiceTest {
+
+    @TempDir
+    Path raiz;
+
+    private ImagemStorageService storage;
+    private EntregaImagemService service;
+    private byte[] conteudo;
+    private String relativo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new ImagemStorageService(raiz, true);
+        service = new EntregaImagemService(storage, 3600, 100);
+        conteudo = new byte[10_000];
+        new Random(7).nextBytes(conteudo);
+        ImagemStorageService.StoredImage stored = storage.store(new ByteArrayInputStream(conteudo), "foto.jpg", 1L);
+        relativo = stored.getDiretorio().substring("/uploads/".length()) + stored.getNomeArquivo();
+    }
+
+    @Test
+    @DisplayName("Arquivo por hash deve ter ETag do hash, cache imutável e 304 na revalidação")
+    void deveResponderComEtagImutavelE304() throws Exception {
+        // Act
+        MockHttpServletResponse primeira = get(relativo, null);
+        String etag = primeira.getHeader("ETag");
+        MockHttpServletRequest revalidacao = request(relativo);
+        revalidacao.addHeader("If-None-Match", "W/\"outro\", " + etag);
+        MockHttpServletResponse segunda = new MockHttpServletResponse();
+        service.entregar(relativo, revalidacao, segunda);
+
+        // Assert
+        assertEquals(200, primeira.getStatus());
+        assertArrayEquals(conteudo, primeira.getContentAsByteArray());
+        assertEquals("image/jpeg", primeira.getContentType());
+        assertTrue(etag.matches("\"[0-9a-f]{64}\""), etag);
+        assertEquals("public, max-age=31536000, immutable", primeira.getHeader("Cache-Control"));
+        assertEquals(304, segunda.getStatus());
+        assertEquals(0, segunda.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Range de um intervalo deve responder 206 e intervalo fora do arquivo 416")
+    void deveAtenderRange() throws Exception {
+        // Act
+        MockHttpServletResponse meio = get(relativo, "bytes=100-199");
+        MockHttpServletResponse sufixo = get(relativo, "bytes=-10");
+        MockHttpServletResponse fora = get(relativo, "bytes=20000-");
+        MockHttpServletResponse varios = get(relativo, "bytes=0-1,5-6");
+
+        // Assert
+        assertEquals(206, meio.getStatus());
+        assertEquals("bytes 100-199/10000", meio.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(conteudo, 100, 200), meio.getContentAsByteArray());
+        assertArrayEquals(Arrays.copyOfRange(conteudo, 9990, 10000), sufixo.getContentAsByteArray());
+        assertEquals(416, fora.getStatus());
+        assertEquals("bytes */10000", fora.getHeader("Content-Range"));
+        assertEquals(200, varios.getStatus());
+        assertEquals(10000, varios.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Deve entregar WebP pré-gerado quando o navegador aceita e variar por Accept")
+    void deveNegociarWebp() throws Exception {
+        // Arrange
+        Path original = storage.resolver("/uploads/", relativo);
+        String nome = original.getFileName().toString();
+        byte[] webp = "webp".getBytes();
+        Files.write(original.resolveSibling(nome.replace(".jpg", ".webp")), webp);
+
+        // Act
+        MockHttpServletRequest aceitaWebp = request(relativo);
+        aceitaWebp.addHeader("Accept", "image/avif,image/webp,*/*");
+        MockHttpServletResponse negociada = new MockHttpServletResponse();
+        service.entregar(relativo, aceitaWebp, negociada);
+        MockHttpServletResponse semWebp = get(relativo, null);
+
+        // Assert
+        assertEquals("image/webp", negociada.getContentType());
+        assertArrayEquals(webp, negociada.getContentAsByteArray());
+        assertTrue(negociada.getHeader("ETag").endsWith("-webp\""));
+        assertEquals("Accept", negociada.getHeader("Vary"));
+        assertEquals("image/jpeg", semWebp.getContentType());
+    }
+
+    @Test
+    @DisplayName("Arquivo com nome antigo deve ter ETag forte pelo conteúdo e cache curto")
+    void deveCalcularEtagDeNomeAntigo() throws Exception {
+        // Arrange
+        Path antigo = raiz.resolve("produtos").resolve("3").resolve("notebook1.jpg");
+        Files.createDirectories(antigo.getParent());
+        Files.write(antigo, conteudo);
+
+        // Act
+        MockHttpServletResponse response = get("produtos/3/notebook1.jpg", null);
+        MockHttpServletResponse porHash = get(relativo, null);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(porHash.getHeader("ETag"), response.getHeader("ETag"));
+        assertEquals("public, max-age=3600", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    @DisplayName("Com sendfile disponível o corpo deve ficar para o conector e caminhos inválidos devem dar 404")
+    void deveUsarSendfileERecusarCaminhosInvalidos() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request(relativo);
+        request.setAttribute(EntregaImagemService.SENDFILE_SUPORTE, Boolean.TRUE);
+        request.addHeader("Range", "bytes=10-19");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        service.entregar(relativo, request, response);
+
+        // Assert
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(storage.resolver("/uploads/", relativo).toString(), request.getAttribute(EntregaImagemService.SENDFILE_ARQUIVO));
+        assertEquals(10L, request.getAttribute(EntregaImagemService.SENDFILE_INICIO));
+        assertEquals(20L, request.getAttribute(EntregaImagemService.SENDFILE_FIM));
+        assertEquals(404, get("../segredo.txt", null).getStatus());
+        assertEquals(404, get(".tmp/upload.tmp", null).getStatus());
+        assertEquals(404, get("conteudo/nao-existe.jpg", null).getStatus());
+        assertNull(EntregaImagemService.intervalo("bytes=-0", 10));
+    }
+
+    private MockHttpServletResponse get(String caminho, String range) throws Exception {
+        MockHttpServletRequest request = request(caminho);
+        if (range != null) request.addHeader("Range", range);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.entregar(caminho, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String caminho) {
+        return new MockHttpServletRequest("GET", "/uploads/" + caminho);
+    }
+}
@@ -0,0 +1,134 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pi4.backend.api.controllers.ProdutoController;
+import com.pi4.backend.api.dto.EstatisticasProdutosDto;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+@SpringBootTest
+@DisplayName("Testes do EstatisticasProdutoService")
+class EstatisticasProdutoServiceTest {
+
+    private static final int TOTAL_PRODUTOS = 100_000;
+
+    @Autowired
+    private EstatisticasProdutoService estatisticasProdutoService;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Autowired
+    private ProdutoController produtoController;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> linhas = new ArrayList<>(TOTAL_PRODUTOS);
+        for (int i = 0; i < TOTAL_PRODUTOS; i++) {
+            linhas.add(new Object[] {
+                "Carga " + i, "Produto de carga", new BigDecimal((i % 1000) + ".99"), i % 50, i % 7 != 0
+            });
+        }
+        jdbcTemplate.batchUpdate(
+            "insert into tb_produto (nome, descricao, preco, qtd_estoque, status) values (?, ?, ?, ?, ?)", linhas);
+        estatisticasProdutoService.reconciliar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from tb_produto where nome like 'Carga %'");
+        estatisticasProdutoService.reconciliar();
+    }
+
+    @Test
+    @DisplayName("Consulta agregada e snapshot devem bater com o cálculo por findAll em 100 mil produtos")
+    void agregadoESnapshotDevemBaterComCalculoLegado() {
+        // Act
+        EstatisticasProdutosDto legado = calcularComFindAll();
+        EstatisticasProdutosDto agregado = produtoRepository.calcularEstatisticas(EstatisticasProdutoService.LIMITE_BAIXO_ESTOQUE);
+        EstatisticasProdutosDto snapshot = estatisticasProdutoService.obter();
+
+        // Assert
+        assertIguais(legado, agregado);
+        assertIguais(legado, snapshot);
+    }
+
+    @Test
+    @DisplayName("Snapshot deve acompanhar escritas de produto e baixas de estoque sem reconsultar")
+    void snapshotDeveAcompanharEscritas() {
+        // Arrange
+        Produto novo = new Produto();
+        novo.setNome("Carga novo");
+        novo.setDescricao("Produto de carga");
+        novo.setPreco(new BigDecimal("100.00"));
+        novo.setQuantidadeEstoque(8);
+
+        // Act
+        Integer idNovo = produtoController.criar(novo).getBody().getId();
+
+        Produto alteracao = new Produto();
+        alteracao.setPreco(new BigDecimal("250.50"));
+        alteracao.setQuantidadeEstoque(3);
+        produtoController.atualizar(idNovo, alteracao);
+        produtoController.toggleStatus(idNovo);
+
+        Integer idExistente = produtoRepository.findAll().stream()
+            .filter(p -> p.getNome().startsWith("Carga ") && p.getQuantidadeEstoque() >= 10 && p.getStatus())
+            .findFirst().orElseThrow().getId();
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(s -> reservaEstoqueService.reservar(Map.of(idExistente, 7)));
+
+        Integer idRemovido = produtoRepository.findAll().stream()
+            .filter(p -> p.getNome().startsWith("Carga ") && !p.getId().equals(idExistente))
+            .findFirst().orElseThrow().getId();
+        produtoController.deletar(idRemovido);
+
+        // Assert
+        assertIguais(calcularComFindAll(), estatisticasProdutoService.obter());
+    }
+
+    // Caminho antigo do DashboardController: carrega todas as entidades e soma em Java
+    private EstatisticasProdutosDto calcularComFindAll() {
+        List<Produto> produtos = produtoRepository.findAll();
+        long ativos = produtos.stream().filter(p -> Boolean.TRUE.equals(p.getStatus())).count();
+        long baixo = produtos.stream()
+            .filter(p -> p.getQuantidadeEstoque() != null && p.getQuantidadeEstoque() <= 5).count();
+        BigDecimal valor = produtos.stream()
+            .filter(p -> p.getPreco() != null && p.getQuantidadeEstoque() != null)
+            .map(p -> p.getPreco().multiply(new BigDecimal(p.getQuantidadeEstoque())))
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new EstatisticasProdutosDto((long) produtos.size(), ativos, baixo, valor);
+    }
+
+    private void assertIguais(EstatisticasProdutosDto esperado, EstatisticasProdutosDto atual) {
+        assertEquals(esperado.getTotalProdutos(), atual.getTotalProdutos());
+        assertEquals(esperado.getProdutosAtivos(), atual.getProdutosAtivos());
+        assertEquals(esperado.getProdutosInativos(), atual.getProdutosInativos());
+        assertEquals(esperado.getBaixoEstoque(), atual.getBaixoEstoque());
+        assertEquals(0, esperado.getValorTotalEstoque().compareTo(atual.getValorTotalEstoque()));
+    }
+}
@@ -0,0 +1,186 @@
+package com.pi4.backend.api.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.controllers.PedidoController;
+import com.pi4.backend.api.controllers.PedidoController.AtualizarStatusRequest;
+import com.pi4.backend.api.controllers.PedidoController.CriarPedidoRequest;
+import com.pi4.backend.api.controllers.PedidoController.ItemPedidoDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.entities.EventoPedido;
+import com.pi4.backend.api.entities.Pedido;
+import com.pi4.backend.api.entities.Pedido.StatusPedido;
+import com.pi4.backend.api.entities.Produto;
+import com.pi4.backend.api.repositories.ClienteRepository;
+import com.pi4.backend.api.repositories.EventoPedidoRepository;
+import com.pi4.backend.api.repositories.ProdutoRepository;
+
+// Sem espera entre tentativas: cada publicarPendentes() reenvia o que falhou na anterior
+@SpringBootTest(properties = {
+    "pedido.eventos.max-tentativas=2",
+    "pedido.eventos.espera-inicial-ms=0",
+    "pedido.eventos.espera-maxima-ms=0"
+})
+@DisplayName("Testes da entrega dos eventos de pedido a cada assinante")
+class EventosPedidoServiceTest {
+
+    private static final int ESTOQUE_INICIAL = 20;
+
+    @TestConfiguration
+    static class Configuracao {
+        @Bean
+        AssinanteInstavel assinanteInstavel() {
+            return new AssinanteInstavel();
+        }
+    }
+
+    /** Assinante que falha nos eventos dos pedidos marcados e anota quantas vezes recebeu cada evento. */
+    static class AssinanteInstavel implements AssinanteEventosPedido {
+        final Set<Long> falharPara = ConcurrentHashMap.newKeySet();
+        final List<Long> recebidos = new ArrayList<>();
+
+        @Override
+        public void receber(List<EventoPedido> eventos) {
+            for (EventoPedido evento : eventos) {
+                if (falharPara.contains(evento.getPedidoId())) {
+                    throw new IllegalStateException("indisponível para o pedido " + evento.getPedidoId());
+                }
+            }
+            eventos.forEach(e -> recebidos.add(e.getId()));
+        }
+    }
+
+    @Autowired
+    private EventosPedidoService eventosPedidoService;
+
+    @Autowired
+    private AssinanteInstavel instavel;
+
+    @Autowired
+    private PedidoController pedidoController;
+
+    @Autowired
+    private EventoPedidoRepository eventoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        cliente = DadosTeste.cliente(clienteRepository, "Cliente Eventos");
+        produto = DadosTeste.produto(produtoRepository, "Produto Eventos " + DadosTeste.sufixo(), ESTOQUE_INICIAL);
+    }
+
+    @Test
+    @DisplayName("Falha de um assinante não deve desfazer a devolução de estoque nem publicar o evento antes dele receber")
+    void falhaDeUmAssinanteNaoDeveAfetarOsOutros() {
+        // Arrange
+        Pedido pedido = criarPedido(4);
+        assertEquals(200, cancelar(pedido).getStatusCode().value());
+        instavel.falharPara.add(pedido.getId());
+
+        // Act
+        eventosPedidoService.publicarPendentes();
+        int estoqueComFalha = estoqueAtual();
+        EventoPedido pendente = cancelamento(pedido);
+        instavel.falharPara.remove(pedido.getId());
+        eventosPedidoService.publicarPendentes();
+
+        // Assert
+        assertEquals(ESTOQUE_INICIAL, estoqueComFalha);
+        assertNull(pendente.getPublicadoEm());
+        assertEquals(1, pendente.getTentativas());
+        assertTrue(pendente.getErro().startsWith("AssinanteInstavel: "), pendente.getErro());
+        EventoPedido publicado = cancelamento(pedido);
+        assertNotNull(publicado.getPublicadoEm());
+        assertEquals(ESTOQUE_INICIAL, estoqueAtual(), "o reenvio não deve devolver o estoque de novo");
+        assertEquals(1, instavel.recebidos.stream().filter(publicado.getId()::equals).count());
+    }
+
+    @Test
+    @DisplayName("Evento que passou do limite de tentativas deve seguir pendente e ser entregue quando o assinante voltar")
+    void eventoEmFalhaDeveContinuarSendoReenviado() {
+        // Arrange
+        Pedido pedido = criarPedido(2);
+        assertEquals(200, cancelar(pedido).getStatusCode().value());
+        instavel.falharPara.add(pedido.getId());
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            eventosPedidoService.publicarPendentes();
+        }
+        EventoPedido emFalha = cancelamento(pedido);
+        long contadosEmFalha = (Long) eventosPedidoService.estatisticas().get("emFalha");
+        instavel.falharPara.remove(pedido.getId());
+        eventosPedidoService.publicarPendentes();
+
+        // Assert
+        assertNull(emFalha.getPublicadoEm());
+        assertEquals(3, emFalha.getTentativas());
+        assertTrue(contadosEmFalha >= 2, "criação e cancelamento em falha: " + contadosEmFalha);
+        assertNotNull(cancelamento(pedido).getPublicadoEm());
+        assertEquals(ESTOQUE_INICIAL, estoqueAtual());
+    }
+
+    private EventoPedido cancelamento(Pedido pedido) {
+        return eventoRepository.findAll().stream()
+            .filter(e -> e.getPedidoId().equals(pedido.getId()) && e.isCancelamento())
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private int estoqueAtual() {
+        return produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+    }
+
+    private ResponseEntity<?> cancelar(Pedido pedido) {
+        AtualizarStatusRequest request = new AtualizarStatusRequest();
+        request.setStatus(StatusPedido.CANCELADO);
+        return pedidoController.alterarStatusPedido(pedido.getId(), request);
+    }
+
+    private Pedido criarPedido(int quantidade) {
+        ItemPedidoDto item = new ItemPedidoDto();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+
+        CriarPedidoRequest request = new CriarPedidoRequest();
+        request.setClienteId(cliente.getId());
+        request.setItens(new ArrayList<>(List.of(item)));
+        request.setCepEntrega("01001000");
+        request.setEnderecoEntregaLogradouro("Rua Teste");
+        request.setEnderecoEntregaNumero("100");
+        request.setEnderecoEntregaBairro("Centro");
+        request.setEnderecoEntregaCidade("São Paulo");
+        request.setEnderecoEntregaUf("SP");
+        request.setValorFreteEscolhido(new BigDecimal("15.00"));
+        ResponseEntity<?> response = pedidoController.criarPedido(request, null);
+        assertEquals(201, response.getStatusCode().value());
+        return (Pedido) response.getBody();
+    }
+}
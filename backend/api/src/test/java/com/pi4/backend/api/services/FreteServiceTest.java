@@ -0,0 +1,141 @@
+package com.pi4.backend.api.services;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+@DisplayName("Testes do FreteService")
+class FreteServiceTest {
+
+    @TempDir
+    Path diretorio;
+
+    private final FreteService padrao = new FreteService(new DefaultResourceLoader(), "classpath:frete/tabela-frete.csv");
+
+    @Test
+    @DisplayName("Tabela do projeto deve manter os valores de SP, RJ e demais regiões")
+    void deveManterValoresDaTabelaPadrao() {
+        // Act
+        Map<String, Double> sp = padrao.calcularFretePorCep("01001000");
+        Map<String, Double> rj = padrao.calcularFretePorCep("20040020");
+        Map<String, Double> outros = padrao.calcularFretePorCep("30130010");
+
+        // Assert
+        assertEquals(List.of("Entrega Normal (5 dias)", "Entrega Rápida (2 dias)", "Frete Grátis"), List.copyOf(sp.keySet()));
+        assertEquals(15.90, sp.get("Entrega Normal (5 dias)"));
+        assertEquals(34.90, rj.get("Entrega Expressa (3 dias)"));
+        assertEquals(24.90, outros.values().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Deve respeitar os limites das faixas e ignorar a formatação do CEP")
+    void deveRespeitarLimitesDasFaixas() {
+        // Assert
+        assertEquals(15.90, padrao.calcularFretePorCep("01000000").get("Entrega Normal (5 dias)"));
+        assertEquals(15.90, padrao.calcularFretePorCep("01999-999").get("Entrega Normal (5 dias)"));
+        assertEquals(24.90, padrao.calcularFretePorCep("00999999").get("Entrega Normal (10 dias)"));
+        assertEquals(24.90, padrao.calcularFretePorCep("02000000").get("Entrega Normal (10 dias)"));
+        assertEquals(24.90, padrao.calcularFretePorCep("99999999").get("Entrega Normal (10 dias)"));
+    }
+
+    @Test
+    @DisplayName("CEP ausente ou sem 8 dígitos deve receber as opções padrão")
+    void cepInvalidoDeveReceberPadrao() {
+        Map<String, Double> esperado = padrao.calcularFretePorCep("99999999");
+
+        assertSame(esperado, padrao.calcularFretePorCep(null));
+        assertSame(esperado, padrao.calcularFretePorCep("01"));
+        assertSame(esperado, padrao.calcularFretePorCep("010010001"));
+    }
+
+    @Test
+    @DisplayName("Deve devolver sempre o mesmo mapa imutável")
+    void deveDevolverMapaPreAlocadoImutavel() {
+        Map<String, Double> primeiro = padrao.calcularFretePorCep("01001000");
+
+        assertSame(primeiro, padrao.calcularFretePorCep("01310100"));
+        assertThrows(UnsupportedOperationException.class, () -> primeiro.put("Outro", 1.0));
+    }
+
+    @Test
+    @DisplayName("Deve recarregar o arquivo alterado e manter a tabela anterior se o novo for inválido")
+    void deveRecarregarArquivoAlterado() throws Exception {
+        // Arrange
+        Path arquivo = diretorio.resolve("frete.csv");
+        Files.writeString(arquivo, "01000000;01999999;Normal=10.0\n*;Normal=20.0\n", StandardCharsets.UTF_8);
+        FreteService service = new FreteService(new DefaultResourceLoader(), "file:" + arquivo);
+        double antes = service.calcularFretePorCep("01001000").get("Normal");
+
+        // Act
+        Files.writeString(arquivo, "01000000;01999999;Normal=12.5\n*;Normal=20.0\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(arquivo, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        service.recarregarSeAlterada();
+        double depois = service.calcularFretePorCep("01001000").get("Normal");
+
+        Files.writeString(arquivo, "01000000;01999999;Normal=abc\n", StandardCharsets.UTF_8);
+        boolean recarregou = service.recarregar();
+
+        // Assert
+        assertEquals(10.0, antes);
+        assertEquals(12.5, depois);
+        assertFalse(recarregou);
+        assertEquals(12.5, service.calcularFretePorCep("01001000").get("Normal"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar faixas sobrepostas ou tabela sem opções padrão")
+    void deveRecusarTabelaInvalida() throws Exception {
+        // Arrange
+        Path sobreposta = diretorio.resolve("sobreposta.csv");
+        Files.writeString(sobreposta, "01000000;01999999;Normal=10.0\n01500000;02999999;Normal=11.0\n*;Normal=20.0\n");
+        Path semPadrao = diretorio.resolve("sem-padrao.csv");
+        Files.writeString(semPadrao, "01000000;01999999;Normal=10.0\n");
+
+        // Act + Assert
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+            () -> new FreteService(new DefaultResourceLoader(), "file:" + sobreposta));
+        assertTrue(erro.getMessage().contains("sobrepõem"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new FreteService(new DefaultResourceLoader(), "file:" + semPadrao));
+    }
+
+    @Test
+    @DisplayName("Deve achar a faixa certa entre milhares de faixas")
+    void deveBuscarEntreMuitasFaixas() throws Exception {
+        // Arrange: faixas de 1000 CEPs com intervalo de 1000 entre elas
+        StringBuilder conteudo = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            conteudo.append(String.format("%08d;%08d;Normal=%d.0%n", i * 2000, i * 2000 + 999, i));
+        }
+        conteudo.append("*;Normal=-1.0\n");
+        Path arquivo = diretorio.resolve("grande.csv");
+        Files.writeString(arquivo, conteudo);
+        FreteService service = new FreteService(new DefaultResourceLoader(), "file:" + arquivo);
+
+        // Assert
+        assertEquals(0.0, service.calcularFretePorCep("00000000").get("Normal"));
+        assertEquals(1234.0, service.calcularFretePorCep(String.format("%08d", 1234 * 2000 + 999)).get("Normal"));
+        assertEquals(-1.0, service.calcularFretePorCep(String.format("%08d", 1234 * 2000 + 1000)).get("Normal"));
+        assertEquals(4999.0, service.calcularFretePorCep(String.format("%08d", 4999 * 2000 + 500)).get("Normal"));
+    }
+
+    @Test
+    @DisplayName("Deve normalizar CEP mantendo só os dígitos")
+    void deveNormalizarCep() {
+        assertEquals("01001000", FreteService.normalizarCep(" 01001-000 "));
+        assertEquals("", FreteService.normalizarCep(null));
+    }
+}
@@ -0,0 +1,123 @@
+package com.pi4.backend.api.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Testes do ImagemStorageService")
+class ImagemStorageServiceTest {
+
+    @TempDir
+    Path raiz;
+
+    @Test
+    @DisplayName("Arquivo deve ser gravado por streaming com nome igual ao SHA-256 do conteúdo")
+    void deveGravarComNomePeloHash() throws Exception {
+        // Arrange: maior que o bloco de cópia, para passar por várias chamadas de transferFrom
+        ImagemStorageService service = new ImagemStorageService(raiz, false);
+        byte[] conteudo = new byte[3 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(conteudo);
+        String esperado = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+
+        // Act
+        ImagemStorageService.StoredImage stored = service.store(new ByteArrayInputStream(conteudo), "Foto.JPG", 7L);
+
+        // Assert
+        assertEquals(esperado, stored.getHash());
+        assertEquals(esperado + ".jpg", stored.getNomeArquivo());
+        assertEquals("/uploads/produtos/7/", stored.getDiretorio());
+        assertEquals(conteudo.length, stored.getTamanhoBytes());
+        assertFalse(stored.isExistente());
+        Path gravado = service.resolver(stored.getDiretorio(), stored.getNomeArquivo());
+        assertArrayEquals(conteudo, Files.readAllBytes(gravado));
+    }
+
+    @Test
+    @DisplayName("Mesmo conteúdo enviado de novo deve reaproveitar o arquivo sem deixar temporários")
+    void deveReaproveitarConteudoRepetido() throws Exception {
+        // Arrange
+        ImagemStorageService service = new ImagemStorageService(raiz, false);
+        byte[] conteudo = "imagem repetida".getBytes();
+
+        // Act
+        ImagemStorageService.StoredImage primeiro = service.store(new ByteArrayInputStream(conteudo), "a.png", 1L);
+        ImagemStorageService.StoredImage segundo = service.store(new ByteArrayInputStream(conteudo), "b.png", 1L);
+
+        // Assert
+        assertEquals(primeiro.getNomeArquivo(), segundo.getNomeArquivo());
+        assertTrue(segundo.isExistente());
+        try (var arquivos = Files.list(raiz.resolve("produtos").resolve("1"))) {
+            assertEquals(1, arquivos.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Arquivo vazio e caminho fora da raiz devem ser recusados")
+    void deveRecusarVazioECaminhoForaDaRaiz() throws Exception {
+        ImagemStorageService service = new ImagemStorageService(raiz, false);
+
+        assertThrows(IOException.class, () -> service.store(new ByteArrayInputStream(new byte[0]), "x.jpg", 1L));
+        assertThrows(IOException.class, () -> service.resolver("/uploads/../../", "etc/passwd"));
+        try (var arquivos = Files.list(raiz.resolve(".tmp"))) {
+            assertEquals(0, arquivos.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Armazenamento por conteúdo deve gravar a mesma foto de produtos diferentes uma única vez")
+    void deveCompartilharArquivoEntreProdutos() throws Exception {
+        // Arrange
+        ImagemStorageService service = new ImagemStorageService(raiz, true);
+        byte[] conteudo = "foto compartilhada".getBytes();
+
+        // Act
+        ImagemStorageService.StoredImage produto1 = service.store(new ByteArrayInputStream(conteudo), "a.jpg", 1L);
+        ImagemStorageService.StoredImage produto2 = service.store(new ByteArrayInputStream(conteudo), "b.jpg", 2L);
+
+        // Assert
+        assertEquals("/uploads/conteudo/" + produto1.getHash().substring(0, 2) + "/", produto1.getDiretorio());
+        assertEquals(produto1.getDiretorio() + produto1.getNomeArquivo(), produto2.getDiretorio() + produto2.getNomeArquivo());
+        assertTrue(produto2.isExistente());
+        assertFalse(Files.exists(raiz.resolve("produtos")));
+    }
+
+    @Test
+    @DisplayName("Coleta só deve apagar arquivo sem referências e fora da carência, junto com as variantes")
+    void deveRemoverSomenteSemReferencias() throws Exception {
+        // Arrange
+        ImagemStorageService service = new ImagemStorageService(raiz, true);
+        ImagemStorageService.StoredImage stored = service.store(new ByteArrayInputStream("x".getBytes()), "a.jpg", 1L);
+        Path original = service.resolver(stored.getDiretorio(), stored.getNomeArquivo());
+        Path variante = original.resolveSibling(stored.getHash() + "-160.jpg");
+        Files.writeString(variante, "variante");
+
+        // Act
+        boolean comReferencia = service.removerSeSemReferencias(stored.getDiretorio(), stored.getNomeArquivo(),
+            List.of(variante.getFileName().toString()), 0, () -> false);
+        boolean dentroDaCarencia = service.removerSeSemReferencias(stored.getDiretorio(), stored.getNomeArquivo(),
+            List.of(variante.getFileName().toString()), 60_000, () -> true);
+        boolean removido = service.removerSeSemReferencias(stored.getDiretorio(), stored.getNomeArquivo(),
+            List.of(variante.getFileName().toString()), 0, () -> true);
+
+        // Assert
+        assertFalse(comReferencia);
+        assertFalse(dentroDaCarencia);
+        assertTrue(removido);
+        assertFalse(Files.exists(original));
+        assertFalse(Files.exists(variante));
+    }
+}
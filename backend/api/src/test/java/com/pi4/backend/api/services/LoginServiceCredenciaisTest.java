@@ -0,0 +1,114 @@
+package com.pi4.backend.api.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.pi4.backend.api.DadosTeste;
+import com.pi4.backend.api.dto.SessionDto;
+import com.pi4.backend.api.entities.Cliente;
+import com.pi4.backend.api.repositories.ClienteRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "login.hash.custo=5")
+@DisplayName("Testes do LoginService com consulta única de credenciais")
+class LoginServiceCredenciaisTest {
+
+    @Autowired
+    private LoginService loginService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Login de cliente deve fazer uma consulta e refazer o hash com o custo configurado")
+    void loginClienteComUmaConsultaERehash() throws Exception {
+        // Arrange
+        String hashAntigo = new BCryptPasswordEncoder(4).encode("Senha@123");
+        Cliente cliente = DadosTeste.cliente(clienteRepository, "Cliente Login", hashAntigo);
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Act
+        estatisticas.clear();
+        SessionDto session = loginService.autenticarUsuario(cliente.getEmail(), "Senha@123");
+        long consultas = estatisticas.getPrepareStatementCount();
+
+        // Assert
+        assertEquals(cliente.getId(), session.getId());
+        assertEquals("Cliente", session.getGrupo());
+        assertEquals(1, consultas);
+        String hashAtual = aguardarHashDiferente(cliente.getId(), hashAntigo);
+        assertTrue(hashAtual.startsWith("$2a$05$"), hashAtual);
+        assertEquals(cliente.getId(), loginService.autenticarUsuario(cliente.getEmail(), "Senha@123").getId());
+    }
+
+    @Test
+    @DisplayName("Login de usuário do backoffice deve trazer o grupo na mesma consulta")
+    void loginUsuarioBackoffice() {
+        // Arrange
+        String sufixo = DadosTeste.sufixo();
+        Integer grupo = grupo("Estoquista");
+        String email = "estoque-" + sufixo + "@teste.com";
+        jdbcTemplate.update("insert into tb_usuario (nome, cpf, email, senha, status, id_grupo) values (?, ?, ?, ?, ?, ?)",
+            "Estoquista Teste", sufixo, email, new BCryptPasswordEncoder(5).encode("Estoque@1"), true, grupo);
+
+        // Act
+        SessionDto session = loginService.autenticarUsuario(email, "Estoque@1");
+        RuntimeException senhaErrada = assertThrows(RuntimeException.class,
+            () -> loginService.autenticarUsuario(email, "errada"));
+
+        // Assert
+        assertEquals("Estoquista", session.getGrupo());
+        assertEquals("Usuário ou senha inválidos", senhaErrada.getMessage());
+    }
+
+    @Test
+    @DisplayName("Cliente inativo e e-mail desconhecido devem manter as mensagens de erro")
+    void deveManterMensagensDeErro() {
+        // Arrange
+        Cliente inativo = DadosTeste.cliente(clienteRepository, "Cliente Login", new BCryptPasswordEncoder(5).encode("Senha@123"));
+        inativo.setStatus(false);
+        clienteRepository.save(inativo);
+
+        // Act
+        RuntimeException erroInativo = assertThrows(RuntimeException.class,
+            () -> loginService.autenticarUsuario(inativo.getEmail(), "Senha@123"));
+        RuntimeException erroDesconhecido = assertThrows(RuntimeException.class,
+            () -> loginService.autenticarUsuario("ninguem@teste.com", "Senha@123"));
+
+        // Assert
+        assertEquals("Cliente inativo", erroInativo.getMessage());
+        assertEquals("Não localizando o sistema deve negar a entrada do usuário no backoffice", erroDesconhecido.getMessage());
+    }
+
+    private String aguardarHashDiferente(Integer clienteId, String hashAntigo) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            String hash = jdbcTemplate.queryForObject("select senha from tb_cliente where id_cliente = ?", String.class, clienteId);
+            if (!hash.equals(hashAntigo)) return hash;
+            Thread.sleep(50);
+        }
+        return hashAntigo;
+    }
+
+    private Integer grupo(String nome) {
+        if (jdbcTemplate.queryForObject("select count(*) from tb_grupo where nome = ?", Integer.class, nome) == 0) {
+            jdbcTemplate.update("insert into tb_grupo (nome) values (?)", nome);
+        }
+        return jdbcTemplate.queryForObject("select id_grupo from tb_grupo where nome = ?", Integer.class, nome);
+    }
+}
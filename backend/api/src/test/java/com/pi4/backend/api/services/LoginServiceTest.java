@@ -1,6 +1,6 @@
 package com.pi4.backend.api.services;
 
-import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -16,12 +16,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
-import com.pi4.backend.api.controllers.loginController.SessionDto;
-import com.pi4.backend.api.entities.Cliente;
-import com.pi4.backend.api.entities.Grupo;
-import com.pi4.backend.api.entities.Usuario;
+import com.pi4.backend.api.dto.CredencialLogin;
+import com.pi4.backend.api.dto.SessionDto;
 import com.pi4.backend.api.repositories.ClienteRepository;
 import com.pi4.backend.api.repositories.UserRepository;
 
@@ -29,6 +26,8 @@ import com.pi4.backend.api.repositories.UserRepository;
 @DisplayName("Testes do LoginService")
 class LoginServiceTest {
 
+    private static final String HASH = "$2a$10$hashedPassword";
+
     @Mock
     private UserRepository userRepository;
 
@@ -36,65 +35,29 @@ class LoginServiceTest {
     private ClienteRepository clienteRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private SenhaService senhaService;
 
     @InjectMocks
     private LoginService loginService;
 
-    private Usuario usuarioAdmin;
-    private Usuario usuarioEstoquista;
-    private Cliente cliente;
-    private Grupo grupoAdmin;
-    private Grupo grupoEstoquista;
+    private CredencialLogin usuarioAdmin;
+    private CredencialLogin usuarioEstoquista;
+    private CredencialLogin cliente;
 
     @BeforeEach
     void setUp() {
-        // Setup Grupo Admin
-        grupoAdmin = new Grupo();
-        grupoAdmin.setId(1);
-        grupoAdmin.setNome("Administrador");
-
-        // Setup Grupo Estoquista
-        grupoEstoquista = new Grupo();
-        grupoEstoquista.setId(2);
-        grupoEstoquista.setNome("Estoquista");
-
-        // Setup Usuario Admin
-        usuarioAdmin = new Usuario();
-        usuarioAdmin.setId(1);
-        usuarioAdmin.setNome("Admin Teste");
-        usuarioAdmin.setEmail("admin@test.com");
-        usuarioAdmin.setSenha("$2a$10$hashedPassword");
-        usuarioAdmin.setStatus(true);
-        usuarioAdmin.setGrupo(grupoAdmin);
-
-        // Setup Usuario Estoquista
-        usuarioEstoquista = new Usuario();
-        usuarioEstoquista.setId(2);
-        usuarioEstoquista.setNome("Estoquista Teste");
-        usuarioEstoquista.setEmail("estoquista@test.com");
-        usuarioEstoquista.setSenha("$2a$10$hashedPassword");
-        usuarioEstoquista.setStatus(true);
-        usuarioEstoquista.setGrupo(grupoEstoquista);
-
-        // Setup Cliente
-        cliente = new Cliente();
-        cliente.setId(1);
-        cliente.setNome("Cliente Teste");
-        cliente.setEmail("cliente@test.com");
-        cliente.setSenha("$2a$10$hashedPassword");
-        cliente.setStatus(true);
-        cliente.setCpf("123.456.789-00");
-        cliente.setDataNascimento(LocalDate.of(1990, 1, 1));
-        cliente.setGenero(Cliente.Genero.MASCULINO);
+        usuarioAdmin = credencial(CredencialLogin.TIPO_USUARIO, 1, "Admin Teste", "admin@test.com", true, "Administrador");
+        usuarioEstoquista = credencial(CredencialLogin.TIPO_USUARIO, 2, "Estoquista Teste", "estoquista@test.com", true,
+            "Estoquista");
+        cliente = credencial(CredencialLogin.TIPO_CLIENTE, 1, "Cliente Teste", "cliente@test.com", true, null);
     }
 
     @Test
     @DisplayName("Deve autenticar usuário administrador com sucesso")
     void deveAutenticarUsuarioAdministradorComSucesso() {
         // Arrange
-        when(userRepository.findByEmail("admin@test.com")).thenReturn(usuarioAdmin);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(userRepository.buscarCredenciais("admin@test.com")).thenReturn(List.of(usuarioAdmin));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(true);
 
         // Act
         SessionDto session = loginService.autenticarUsuario("admin@test.com", "senha123");
@@ -104,17 +67,17 @@ class LoginServiceTest {
         assertEquals(1, session.getId());
         assertEquals("Admin Teste", session.getNome());
         assertEquals("Administrador", session.getGrupo());
-        
-        verify(userRepository, times(1)).findByEmail("admin@test.com");
-        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+
+        verify(userRepository, times(1)).buscarCredenciais("admin@test.com");
+        verify(senhaService, times(1)).conferir("senha123", HASH);
     }
 
     @Test
     @DisplayName("Deve autenticar usuário estoquista com sucesso")
     void deveAutenticarUsuarioEstoquistaComSucesso() {
         // Arrange
-        when(userRepository.findByEmail("estoquista@test.com")).thenReturn(usuarioEstoquista);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(userRepository.buscarCredenciais("estoquista@test.com")).thenReturn(List.of(usuarioEstoquista));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(true);
 
         // Act
         SessionDto session = loginService.autenticarUsuario("estoquista@test.com", "senha123");
@@ -130,9 +93,8 @@ class LoginServiceTest {
     @DisplayName("Deve autenticar cliente com sucesso")
     void deveAutenticarClienteComSucesso() {
         // Arrange
-        when(userRepository.findByEmail("cliente@test.com")).thenReturn(null);
-        when(clienteRepository.findByEmail("cliente@test.com")).thenReturn(cliente);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(userRepository.buscarCredenciais("cliente@test.com")).thenReturn(List.of(cliente));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(true);
 
         // Act
         SessionDto session = loginService.autenticarUsuario("cliente@test.com", "senha123");
@@ -142,32 +104,30 @@ class LoginServiceTest {
         assertEquals(1, session.getId());
         assertEquals("Cliente Teste", session.getNome());
         assertEquals("Cliente", session.getGrupo());
-        
-        verify(userRepository, times(1)).findByEmail("cliente@test.com");
-        verify(clienteRepository, times(1)).findByEmail("cliente@test.com");
+
+        verify(userRepository, times(1)).buscarCredenciais("cliente@test.com");
     }
 
     @Test
     @DisplayName("Deve lançar exceção quando usuário não encontrado")
     void deveLancarExcecaoQuandoUsuarioNaoEncontrado() {
         // Arrange
-        when(userRepository.findByEmail("inexistente@test.com")).thenReturn(null);
-        when(clienteRepository.findByEmail("inexistente@test.com")).thenReturn(null);
+        when(userRepository.buscarCredenciais("inexistente@test.com")).thenReturn(List.of());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             loginService.autenticarUsuario("inexistente@test.com", "senha123");
         });
 
-        assertEquals("Usuário ou senha inválidos", exception.getMessage());
+        assertEquals("Não localizando o sistema deve negar a entrada do usuário no backoffice", exception.getMessage());
     }
 
     @Test
     @DisplayName("Deve lançar exceção quando senha incorreta para usuário")
     void deveLancarExcecaoQuandoSenhaIncorretaParaUsuario() {
         // Arrange
-        when(userRepository.findByEmail("admin@test.com")).thenReturn(usuarioAdmin);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(userRepository.buscarCredenciais("admin@test.com")).thenReturn(List.of(usuarioAdmin));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -181,9 +141,8 @@ class LoginServiceTest {
     @DisplayName("Deve lançar exceção quando senha incorreta para cliente")
     void deveLancarExcecaoQuandoSenhaIncorretaParaCliente() {
         // Arrange
-        when(userRepository.findByEmail("cliente@test.com")).thenReturn(null);
-        when(clienteRepository.findByEmail("cliente@test.com")).thenReturn(cliente);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(userRepository.buscarCredenciais("cliente@test.com")).thenReturn(List.of(cliente));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -197,8 +156,9 @@ class LoginServiceTest {
     @DisplayName("Deve lançar exceção quando usuário está inativo")
     void deveLancarExcecaoQuandoUsuarioInativo() {
         // Arrange
-        usuarioAdmin.setStatus(false);
-        when(userRepository.findByEmail("admin@test.com")).thenReturn(usuarioAdmin);
+        CredencialLogin inativo = credencial(CredencialLogin.TIPO_USUARIO, 1, "Admin Teste", "admin@test.com", false,
+            "Administrador");
+        when(userRepository.buscarCredenciais("admin@test.com")).thenReturn(List.of(inativo));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -212,9 +172,9 @@ class LoginServiceTest {
     @DisplayName("Deve lançar exceção quando cliente está inativo")
     void deveLancarExcecaoQuandoClienteInativo() {
         // Arrange
-        cliente.setStatus(false);
-        when(userRepository.findByEmail("cliente@test.com")).thenReturn(null);
-        when(clienteRepository.findByEmail("cliente@test.com")).thenReturn(cliente);
+        CredencialLogin inativo = credencial(CredencialLogin.TIPO_CLIENTE, 1, "Cliente Teste", "cliente@test.com", false,
+            null);
+        when(userRepository.buscarCredenciais("cliente@test.com")).thenReturn(List.of(inativo));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -228,19 +188,29 @@ class LoginServiceTest {
     @DisplayName("Deve lançar exceção quando grupo não é permitido")
     void deveLancarExcecaoQuandoGrupoNaoPermitido() {
         // Arrange
-        Grupo grupoInvalido = new Grupo();
-        grupoInvalido.setId(3);
-        grupoInvalido.setNome("GrupoInvalido");
-        usuarioAdmin.setGrupo(grupoInvalido);
-
-        when(userRepository.findByEmail("admin@test.com")).thenReturn(usuarioAdmin);
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        CredencialLogin grupoInvalido = credencial(CredencialLogin.TIPO_USUARIO, 1, "Admin Teste", "admin@test.com", true,
+            "GrupoInvalido");
+        when(userRepository.buscarCredenciais("admin@test.com")).thenReturn(List.of(grupoInvalido));
+        when(senhaService.conferir(anyString(), anyString())).thenReturn(true);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             loginService.autenticarUsuario("admin@test.com", "senha123");
         });
 
-        assertEquals("Acesso negado. Grupo não reconhecido.", exception.getMessage());
+        assertEquals("Esta tela de login é apenas para usuários de backoffice", exception.getMessage());
+    }
+
+    private static CredencialLogin credencial(String tipo, Integer id, String nome, String email, boolean ativo,
+                                              String grupo) {
+        return new CredencialLogin() {
+            @Override public String getTipo() { return tipo; }
+            @Override public Integer getId() { return id; }
+            @Override public String getNome() { return nome; }
+            @Override public String getEmail() { return email; }
+            @Override public String getSenha() { return HASH; }
+            @Override public Integer getAtivo() { return ativo ? 1 : 0; }
+            @Override public String getGrupo() { return grupo; }
+        };
     }
 }
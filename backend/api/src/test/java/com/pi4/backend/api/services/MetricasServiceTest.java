@@ -0,0 +1,75 @@
+package com.pi4.backend.api.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testes do MetricasService e do HistogramaLatencia")
+class MetricasServiceTest {
+
+    @Test
+    @DisplayName("Percentis do histograma devem errar no máximo 1,6% para cima")
+    void percentisDevemTerErroRelativoLimitado() {
+        // Arrange: 1 µs a 1 s, uma amostra por microssegundo múltiplo de 7
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        long amostras = 0;
+        for (long micros = 1; micros <= 1_000_000; micros += 7) {
+            histograma.registrar(TimeUnit.MICROSECONDS.toNanos(micros));
+            amostras++;
+        }
+
+        // Act
+        long p50 = histograma.percentilMicros(0.5);
+        long p99 = histograma.percentilMicros(0.99);
+        long p100 = histograma.percentilMicros(1.0);
+
+        // Assert
+        assertEquals(amostras, histograma.getTotal());
+        assertProximo(500_000, p50);
+        assertProximo(990_000, p99);
+        assertEquals(histograma.getMaxMicros(), p100);
+        assertEquals(0, new HistogramaLatencia().percentilMicros(0.99));
+    }
+
+    @Test
+    @DisplayName("Saída Prometheus deve trazer quantis, contadores por rota e estatísticas numéricas")
+    void deveEscreverFormatoPrometheus() {
+        // Arrange
+        MetricasService metricas = new MetricasService(0);
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("hitRatio", 0.75);
+        estatisticas.put("ativo", true);
+        estatisticas.put("nomes", "ignorado");
+        metricas.medidoresEstatisticas("api_teste", () -> estatisticas);
+
+        // Act
+        metricas.iniciarRequisicao();
+        metricas.registrarSql("select * from tb_produto where id in (?, ?, ?)");
+        metricas.registrarSql("select * from tb_produto where id in (?, ?)");
+        metricas.registrarRepositorio("ProdutoRepository", "findAllById", TimeUnit.MILLISECONDS.toNanos(3));
+        metricas.encerrarRequisicao("GET", "/api/produtos/{id}", 200, TimeUnit.MILLISECONDS.toNanos(12));
+        String saida = metricas.prometheus();
+
+        // Assert
+        assertTrue(saida.contains("# TYPE api_http_requisicao_segundos summary\n"));
+        assertTrue(saida.contains(
+            "api_http_requisicao_segundos_count{metodo=\"GET\",rota=\"/api/produtos/{id}\",status=\"200\"} 1\n"));
+        assertTrue(saida.contains(
+            "api_repositorio_segundos{repositorio=\"ProdutoRepository\",metodo=\"findAllById\",quantile=\"0.99\"} 0.003"));
+        assertTrue(saida.contains("api_http_sql_comandos_total{metodo=\"GET\",rota=\"/api/produtos/{id}\"} 2\n"));
+        assertTrue(saida.contains("api_http_requisicoes_lentas_total 1\n"), "limite 0 ms: toda requisição é lenta");
+        assertTrue(saida.contains("api_teste_hit_ratio 0.75\n"));
+        assertTrue(saida.contains("api_teste_ativo 1\n"));
+        assertTrue(!saida.contains("api_teste_nomes"));
+    }
+
+    private static void assertProximo(long esperado, long obtido) {
+        assertTrue(obtido >= esperado * 0.99 && obtido <= esperado * 1.02,
+            "esperado ~" + esperado + " µs, obtido " + obtido);
+    }
+}
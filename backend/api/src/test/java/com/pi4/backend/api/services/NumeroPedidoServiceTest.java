@@ -0,0 +1,224 @@
+package com.pi4.backend.api.services;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testes do NumeroPedidoService")
+class NumeroPedidoServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    @DisplayName("Deve gerar milhões de valores únicos e crescentes por thread sob concorrência")
+    void deveGerarMilhoesDeValoresUnicos() throws Exception {
+        // Arrange
+        NumeroPedidoService gerador = new NumeroPedidoService(1, Clock.systemUTC(), () -> null);
+        int porThread = 500_000;
+
+        // Act
+        List<long[]> gerados = emParalelo(THREADS, () -> {
+            long[] valores = new long[porThread];
+            for (int i = 0; i < porThread; i++) {
+                valores[i] = gerador.proximoValor();
+            }
+            return valores;
+        });
+
+        // Assert
+        long[] todos = new long[THREADS * porThread];
+        int pos = 0;
+        for (long[] valores : gerados) {
+            for (int i = 1; i < valores.length; i++) {
+                assertTrue(valores[i] > valores[i - 1]);
+            }
+            System.arraycopy(valores, 0, todos, pos, valores.length);
+            pos += valores.length;
+        }
+        Arrays.sort(todos);
+        for (int i = 1; i < todos.length; i++) {
+            assertTrue(todos[i] != todos[i - 1], "valor repetido: " + todos[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gerar um milhão de números de pedido distintos entre threads")
+    void deveGerarNumerosDistintosEntreThreads() throws Exception {
+        // Arrange
+        NumeroPedidoService gerador = new NumeroPedidoService(7, Clock.systemUTC(), () -> null);
+        int porThread = 125_000;
+
+        // Act
+        List<String[]> gerados = emParalelo(THREADS, () -> {
+            String[] numeros = new String[porThread];
+            for (int i = 0; i < porThread; i++) {
+                numeros[i] = gerador.gerar();
+            }
+            return numeros;
+        });
+
+        // Assert
+        Set<String> unicos = new HashSet<>(THREADS * porThread * 2);
+        for (String[] numeros : gerados) {
+            for (int i = 0; i < numeros.length; i++) {
+                assertTrue(unicos.add(numeros[i]), "número repetido: " + numeros[i]);
+                if (i > 0) assertTrue(numeros[i].compareTo(numeros[i - 1]) > 0);
+            }
+        }
+        assertEquals(THREADS * porThread, unicos.size());
+    }
+
+    @Test
+    @DisplayName("Nós diferentes no mesmo segundo não devem colidir")
+    void nosDiferentesNaoDevemColidir() throws Exception {
+        // Arrange: duas "instâncias" com o relógio parado no mesmo segundo
+        RelogioManual relogio = new RelogioManual(1_700_000_000_000L);
+        NumeroPedidoService noA = new NumeroPedidoService(1, relogio, () -> null);
+        NumeroPedidoService noB = new NumeroPedidoService(2, relogio, () -> null);
+        int porThread = 50_000;
+
+        // Act
+        List<String[]> gerados = emParalelo(4, new Callable<String[]>() {
+            private final AtomicLong chamadas = new AtomicLong();
+            @Override
+            public String[] call() {
+                NumeroPedidoService gerador = chamadas.getAndIncrement() % 2 == 0 ? noA : noB;
+                String[] numeros = new String[porThread];
+                for (int i = 0; i < porThread; i++) {
+                    numeros[i] = gerador.gerar();
+                }
+                return numeros;
+            }
+        });
+
+        // Assert
+        Set<String> unicos = new HashSet<>();
+        gerados.forEach(numeros -> unicos.addAll(Arrays.asList(numeros)));
+        assertEquals(4 * porThread, unicos.size());
+    }
+
+    @Test
+    @DisplayName("Deve seguir o formato PED + segundo UTC + nó + sequência")
+    void deveSeguirFormato() {
+        // Arrange
+        RelogioManual relogio = new RelogioManual(Instant.parse("2025-03-01T14:30:05Z").toEpochMilli());
+        NumeroPedidoService gerador = new NumeroPedidoService(42, relogio, () -> null);
+
+        // Act
+        String primeiro = gerador.gerar();
+        String segundo = gerador.gerar();
+
+        // Assert
+        assertEquals("PED202503011430050420000", primeiro);
+        assertEquals("PED202503011430050420001", segundo);
+    }
+
+    @Test
+    @DisplayName("Deve avançar para o próximo segundo quando a sequência esgota e nunca voltar com o relógio")
+    void deveSerMonotonicoComSequenciaEsgotadaERelogioVoltando() {
+        // Arrange
+        RelogioManual relogio = new RelogioManual(Instant.parse("2025-03-01T14:30:05Z").toEpochMilli());
+        NumeroPedidoService gerador = new NumeroPedidoService(0, relogio, () -> null);
+
+        // Act
+        String ultimo = null;
+        for (int i = 0; i < NumeroPedidoService.SEQUENCIAS_POR_SEGUNDO; i++) {
+            ultimo = gerador.gerar();
+        }
+        String emprestado = gerador.gerar();
+        relogio.millis.addAndGet(-60_000);
+        String depoisDoAtraso = gerador.gerar();
+
+        // Assert
+        assertEquals("PED202503011430050009999", ultimo);
+        assertEquals("PED202503011430060000000", emprestado);
+        assertEquals("PED202503011430060000001", depoisDoAtraso);
+    }
+
+    @Test
+    @DisplayName("Deve continuar depois do maior número gravado ao reiniciar")
+    void deveContinuarDepoisDoUltimoNumeroGravado() {
+        // Arrange: instância anterior chegou a emprestar segundos à frente do relógio atual
+        RelogioManual relogio = new RelogioManual(Instant.parse("2025-03-01T14:30:05Z").toEpochMilli());
+        NumeroPedidoService gerador = new NumeroPedidoService(0, relogio, () -> "PED202503011430090000123");
+
+        // Act
+        String numero = gerador.gerar();
+
+        // Assert
+        assertEquals("PED202503011430100000000", numero);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar números gravados fora do formato ao reiniciar")
+    void deveIgnorarNumeroGravadoInvalido() {
+        RelogioManual relogio = new RelogioManual(Instant.parse("2025-03-01T14:30:05Z").toEpochMilli());
+        NumeroPedidoService gerador = new NumeroPedidoService(0, relogio, () -> "PEDIDO-ANTIGO");
+
+        assertEquals("PED202503011430050000000", gerador.gerar());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar nó fora do intervalo")
+    void deveRejeitarNoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> new NumeroPedidoService(1000, Clock.systemUTC(), () -> null));
+        assertThrows(IllegalArgumentException.class, () -> new NumeroPedidoService(-1, Clock.systemUTC(), () -> null));
+    }
+
+    private static <T> List<T> emParalelo(int threads, Callable<T> tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<T>> futuros = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                return tarefa.call();
+            }));
+        }
+        largada.countDown();
+        List<T> resultados = new ArrayList<>();
+        for (Future<T> f : futuros) {
+            resultados.add(f.get());
+        }
+        executor.shutdown();
+        return resultados;
+    }
+
+    private static class RelogioManual extends Clock {
+        private final AtomicLong millis;
+
+        RelogioManual(long millis) {
+            this.millis = new AtomicLong(millis);
+        }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public long millis() { return millis.get(); }
+
+        @Override
+        public Instant instant() { return Instant.ofEpochMilli(millis()); }
+    }
+}
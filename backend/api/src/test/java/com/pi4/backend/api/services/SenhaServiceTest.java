@@ -0,0 +1,162 @@
+package com.pi4.backend.api.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@DisplayName("Testes do SenhaService")
+class SenhaServiceTest {
+
+    private SenhaService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.encerrar();
+    }
+
+    @Test
+    @DisplayName("Deve conferir senha no pool e registrar o tempo de hash")
+    void deveConferirSenha() {
+        // Arrange
+        service = new SenhaService(new BCryptPasswordEncoder(4), 2, 10, 5000, 4);
+        String hash = new BCryptPasswordEncoder(4).encode("Senha@123");
+
+        // Act
+        boolean correta = service.conferir("Senha@123", hash);
+        boolean errada = service.conferir("outra", hash);
+
+        // Assert
+        assertTrue(correta);
+        assertFalse(errada);
+        Map<String, Object> stats = service.estatisticas();
+        assertEquals(2L, stats.get("hashes"));
+        assertTrue((Double) stats.get("tempoMedioHashMs") > 0);
+    }
+
+    @Test
+    @DisplayName("Deve refazer em segundo plano hash gerado com custo menor que o configurado")
+    void deveRefazerHashComCustoMenor() throws Exception {
+        // Arrange
+        service = new SenhaService(new BCryptPasswordEncoder(5), 1, 10, 5000, 5);
+        String hashAntigo = new BCryptPasswordEncoder(4).encode("Senha@123");
+        AtomicReference<String> gravado = new AtomicReference<>();
+        CountDownLatch pronto = new CountDownLatch(1);
+
+        // Act
+        service.atualizarSeNecessario("Senha@123", hashAntigo, novo -> {
+            gravado.set(novo);
+            pronto.countDown();
+        });
+
+        // Assert
+        assertTrue(pronto.await(5, TimeUnit.SECONDS));
+        assertTrue(gravado.get().startsWith("$2a$05$"));
+        assertTrue(new BCryptPasswordEncoder(5).matches("Senha@123", gravado.get()));
+        assertEquals(1L, service.estatisticas().get("rehashes"));
+    }
+
+    @Test
+    @DisplayName("Não deve refazer hash que já está no custo configurado")
+    void naoDeveRefazerHashAtual() throws Exception {
+        // Arrange
+        service = new SenhaService(new BCryptPasswordEncoder(4), 1, 10, 5000, 4);
+        AtomicReference<String> gravado = new AtomicReference<>();
+
+        // Act
+        service.atualizarSeNecessario("Senha@123", new BCryptPasswordEncoder(4).encode("Senha@123"), gravado::set);
+        service.atualizarSeNecessario("Senha@123", "texto-puro", gravado::set);
+        Thread.sleep(100);
+
+        // Assert
+        assertNull(gravado.get());
+    }
+
+    @Test
+    @DisplayName("Com threads e fila ocupadas deve recusar o login na hora")
+    void deveRecusarComPoolCheio() throws Exception {
+        // Arrange: 1 thread + fila de 1, com o hash travado até liberar
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch emExecucao = new CountDownLatch(1);
+        PasswordEncoder lento = new PasswordEncoderTravado(emExecucao, liberar);
+        service = new SenhaService(lento, 1, 1, 5000, 10);
+        ExecutorService requisicoes = Executors.newFixedThreadPool(2);
+
+        // Act
+        List<Future<Boolean>> aceitas = new ArrayList<>();
+        aceitas.add(requisicoes.submit(() -> service.conferir("a", "a")));
+        assertTrue(emExecucao.await(5, TimeUnit.SECONDS));
+        aceitas.add(requisicoes.submit(() -> service.conferir("b", "b")));
+        while (service.estatisticas().get("fila").equals(0)) {
+            Thread.sleep(5);
+        }
+        SenhaService.SobrecargaException recusada =
+            assertThrows(SenhaService.SobrecargaException.class, () -> service.conferir("c", "c"));
+        liberar.countDown();
+
+        // Assert
+        assertTrue(recusada.getMessage().startsWith("Muitas tentativas"));
+        for (Future<Boolean> f : aceitas) {
+            assertTrue(f.get(5, TimeUnit.SECONDS));
+        }
+        Map<String, Object> stats = service.estatisticas();
+        assertEquals(1L, stats.get("rejeitadas"));
+        assertEquals(1, stats.get("filaMaxima"));
+        requisicoes.shutdown();
+    }
+
+    @Test
+    @DisplayName("Hash que passa do tempo limite deve ser tratado como sobrecarga")
+    void deveRecusarAoPassarDoTempoLimite() {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        service = new SenhaService(new PasswordEncoderTravado(new CountDownLatch(1), liberar), 1, 1, 50, 10);
+
+        // Act + Assert
+        assertThrows(SenhaService.SobrecargaException.class, () -> service.conferir("a", "a"));
+        assertEquals(1L, service.estatisticas().get("timeouts"));
+        liberar.countDown();
+    }
+
+    private static class PasswordEncoderTravado implements PasswordEncoder {
+        private final CountDownLatch emExecucao;
+        private final CountDownLatch liberar;
+
+        PasswordEncoderTravado(CountDownLatch emExecucao, CountDownLatch liberar) {
+            this.emExecucao = emExecucao;
+            this.liberar = liberar;
+        }
+
+        @Override
+        public String encode(CharSequence senha) {
+            return senha.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence senha, String hash) {
+            emExecucao.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return senha.toString().equals(hash);
+        }
+    }
+}
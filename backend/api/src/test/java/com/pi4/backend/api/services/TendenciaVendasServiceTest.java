@@ -0,0 +1,82 @@
+package com.pi4.backend.api.services;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.pi4.backend.api.services.TendenciaVendasService.Janela;
+import com.pi4.backend.api.services.TendenciaVendasService.ProdutoTendencia;
+
+@DisplayName("Testes do TendenciaVendasService")
+class TendenciaVendasServiceTest {
+
+    private static final long AGORA = TimeUnit.DAYS.toMillis(20_000) + TimeUnit.MINUTES.toMillis(37);
+
+    @Test
+    @DisplayName("Produtos mais vendidos devem aparecer no topo mesmo com muitos SKUs e memória fixa")
+    void deveEncontrarMaisVendidosComMemoriaLimitada() {
+        // Arrange: 5000 SKUs com uma unidade cada, intercalados com 3 produtos muito vendidos
+        TendenciaVendasService service = new TendenciaVendasService(null, 50, 0);
+        for (int i = 0; i < 5000; i++) {
+            service.registrar(1000 + i, "Cauda " + i, 1, AGORA - 1000);
+            if (i % 10 == 0) {
+                service.registrar(1, "Mouse", 3, AGORA - 1000);
+                service.registrar(2, "Teclado", 2, AGORA - 1000);
+                service.registrar(3, "Headset", 1, AGORA - 1000);
+            }
+        }
+
+        // Act
+        List<ProdutoTendencia> topo = service.maisVendidos(Janela.HORA, 3, AGORA);
+
+        // Assert
+        assertEquals(List.of(1, 2, 3), topo.stream().map(ProdutoTendencia::produtoId).toList());
+        assertTrue(topo.get(0).quantidade() >= 1500);
+        assertTrue(topo.get(0).quantidade() - topo.get(0).erroMaximo() <= 1500);
+        long contadores = ((Number) service.estatisticas().get("contadores")).longValue();
+        assertTrue(contadores <= 2 * 50, "dois baldes (minuto e hora) com no máximo 50 contadores cada");
+    }
+
+    @Test
+    @DisplayName("Cada janela deve contar só as vendas dentro dela")
+    void deveSepararVendasPorJanela() {
+        // Arrange
+        TendenciaVendasService service = new TendenciaVendasService(null, 20, 0);
+        service.registrar(1, "Agora", 1, AGORA - TimeUnit.MINUTES.toMillis(5));
+        service.registrar(2, "Duas horas", 2, AGORA - TimeUnit.HOURS.toMillis(2));
+        service.registrar(3, "Três dias", 3, AGORA - TimeUnit.DAYS.toMillis(3));
+        service.registrar(4, "Oito dias", 4, AGORA - TimeUnit.DAYS.toMillis(8));
+
+        // Act
+        List<ProdutoTendencia> hora = service.maisVendidos(Janela.HORA, 10, AGORA);
+        List<ProdutoTendencia> dia = service.maisVendidos(Janela.DIA, 10, AGORA);
+        List<ProdutoTendencia> semana = service.maisVendidos(Janela.SEMANA, 10, AGORA);
+
+        // Assert
+        assertEquals(List.of(1), hora.stream().map(ProdutoTendencia::produtoId).toList());
+        assertEquals(List.of(2, 1), dia.stream().map(ProdutoTendencia::produtoId).toList());
+        assertEquals(List.of(3, 2, 1), semana.stream().map(ProdutoTendencia::produtoId).toList());
+    }
+
+    @Test
+    @DisplayName("Ranking deve ser reaproveitado dentro do intervalo de atualização")
+    void deveReaproveitarRankingDentroDoIntervalo() {
+        // Arrange
+        TendenciaVendasService service = new TendenciaVendasService(null, 20, 1000);
+        service.registrar(1, "Mouse", 1, AGORA);
+        List<ProdutoTendencia> primeiro = service.maisVendidos(Janela.DIA, 10, AGORA);
+        service.registrar(2, "Teclado", 5, AGORA);
+
+        // Act
+        List<ProdutoTendencia> noIntervalo = service.maisVendidos(Janela.DIA, 10, AGORA + 500);
+        List<ProdutoTendencia> depois = service.maisVendidos(Janela.DIA, 10, AGORA + 1000);
+
+        // Assert
+        assertEquals(primeiro, noIntervalo);
+        assertEquals(List.of(2, 1), depois.stream().map(ProdutoTendencia::produtoId).toList());
+    }
+}
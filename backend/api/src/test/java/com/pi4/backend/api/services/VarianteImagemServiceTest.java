@@ -0,0 +1,74 @@
+package com.pi4.backend.api.services;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Testes da leitura de originais no VarianteImagemService")
+class VarianteImagemServiceTest {
+
+    @TempDir
+    Path raiz;
+
+    @Test
+    @DisplayName("Imagem acima do limite de megapixels deve ser recusada pelo cabeçalho, sem decodificar")
+    void deveRecusarImagemAcimaDoLimite() throws Exception {
+        // Arrange
+        Path arquivo = png(3000, 2000);
+
+        // Act
+        IOException erro = assertThrows(IOException.class,
+            () -> VarianteImagemService.ler(arquivo, 5_000_000, 1200));
+
+        // Assert
+        assertTrue(erro.getMessage().contains("3000x2000"), erro.getMessage());
+    }
+
+    @Test
+    @DisplayName("Original muito mais largo que o zoom deve ser decodificado subamostrado, mantendo a proporção")
+    void deveSubamostrarOriginalGrande() throws Exception {
+        // Arrange
+        Path grande = png(6000, 3000);
+        Path pequeno = png(2000, 1000);
+
+        // Act
+        BufferedImage subamostrada = VarianteImagemService.ler(grande, 40_000_000, 1200);
+        BufferedImage inteira = VarianteImagemService.ler(pequeno, 40_000_000, 1200);
+
+        // Assert: fator 6000 / 2400 = 2, ainda acima do dobro necessário para o zoom
+        assertEquals(3000, subamostrada.getWidth());
+        assertEquals(1500, subamostrada.getHeight());
+        assertEquals(2000, inteira.getWidth());
+        assertEquals(1000, inteira.getHeight());
+    }
+
+    @Test
+    @DisplayName("Arquivo que não é imagem deve ser recusado como formato não suportado")
+    void deveRecusarFormatoDesconhecido() throws Exception {
+        // Arrange
+        Path arquivo = Files.writeString(raiz.resolve("texto.jpg"), "não é imagem");
+
+        // Act
+        IOException erro = assertThrows(IOException.class,
+            () -> VarianteImagemService.ler(arquivo, 40_000_000, 1200));
+
+        // Assert
+        assertTrue(erro.getMessage().startsWith("Formato de imagem não suportado"), erro.getMessage());
+    }
+
+    private Path png(int largura, int altura) throws IOException {
+        Path arquivo = raiz.resolve(largura + "x" + altura + ".png");
+        ImageIO.write(new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB), "png", arquivo.toFile());
+        return arquivo;
+    }
+}
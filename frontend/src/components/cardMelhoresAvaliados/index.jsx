@@ -13,7 +13,7 @@ export default function melhoresAvaliados({produto}) {
   
   function buildSrc(img){
     if(!img) return placeholder;
-    const path = (img.diretorio || '') + img.nomeArquivo;
+    const path = (img.diretorio || '') + (img.arquivoListagem || img.nomeArquivo);
     if(/^https?:/i.test(path)) return path;
     return baseURL + (path.startsWith('/')? path : '/' + path);
   }
@@ -28,7 +28,7 @@ export default function MenuLateralCarrinho() {
   function buildImageSrc(img) {
     if (!img) return placeholder;
     const baseURL = api.defaults.baseURL?.replace(/\/$/, '') || '';
-    const path = (img.diretorio || '') + img.nomeArquivo;
+    const path = (img.diretorio || '') + (img.arquivoMiniatura || img.nomeArquivo);
     if (/^https?:/i.test(path)) return path;
     return baseURL + (path.startsWith('/') ? path : '/' + path);
   }
@@ -53,7 +53,8 @@ export default function EditarPedido() {
       navigate('/listar-pedidos');
     } catch (error) {
       console.error('Erro ao atualizar status:', error);
-      alert('Erro ao atualizar status do pedido');
+      const mensagem = typeof error.response?.data === 'string' ? error.response.data : null;
+      alert(mensagem || 'Erro ao atualizar status do pedido');
     } finally {
       setSaving(false);
     }
@@ -173,11 +174,13 @@ export default function EditarPedido() {
                   onChange={(e) => setNovoStatus(e.target.value)}
                   className="status-select"
                 >
-                  {statusOptions.map(option => (
-                    <option key={option.value} value={option.value}>
-                      {option.label}
-                    </option>
-                  ))}
+                  {statusOptions
+                    .filter(option => option.value === pedido.status || (pedido.proximosStatus || []).includes(option.value))
+                    .map(option => (
+                      <option key={option.value} value={option.value}>
+                        {option.label}
+                      </option>
+                    ))}
                 </select>
               </div>
 
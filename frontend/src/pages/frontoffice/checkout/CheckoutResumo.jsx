@@ -220,7 +220,7 @@ const CheckoutResumo = () => {
         const placeholder = placeholderImg;
         if (!img) return placeholder;
         const baseURL = api.defaults.baseURL?.replace(/\/$/, '') || '';
-        const path = (img.diretorio || '') + img.nomeArquivo;
+        const path = (img.diretorio || '') + (img.arquivoMiniatura || img.nomeArquivo);
         if (/^https?:/i.test(path)) return path;
         return baseURL + (path.startsWith('/') ? path : '/' + path);
     };
@@ -39,7 +39,7 @@ export default function ProductPage() {
 
   function buildSrc(img) {
     if (!img) return placeholder;
-    const path = (img.diretorio || '') + img.nomeArquivo;
+    const path = (img.diretorio || '') + (img.arquivoZoom || img.nomeArquivo);
     if (/^https?:/i.test(path)) return path;
     return baseURL + (path.startsWith('/') ? path : '/' + path);
   }